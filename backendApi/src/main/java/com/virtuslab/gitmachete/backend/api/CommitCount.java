@@ -0,0 +1,27 @@
+package com.virtuslab.gitmachete.backend.api;
+
+import lombok.Data;
+
+@Data(staticConstructor = "of")
+public class CommitCount {
+  private final int value;
+
+  /**
+   * If false, there are at least {@link #getValue} commits, but their exact number hasn't been derived
+   * (since it would require walking an arbitrarily long range of commits).
+   */
+  private final boolean isExact;
+
+  public static CommitCount exact(int value) {
+    return of(value, /* isExact */ true);
+  }
+
+  public static CommitCount atLeast(int value) {
+    return of(value, /* isExact */ false);
+  }
+
+  @Override
+  public String toString() {
+    return isExact ? String.valueOf(value) : value + "+";
+  }
+}
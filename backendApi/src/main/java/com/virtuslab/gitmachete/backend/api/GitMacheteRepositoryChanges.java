@@ -0,0 +1,42 @@
+package com.virtuslab.gitmachete.backend.api;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+import lombok.Data;
+
+@Data(staticConstructor = "of")
+public class GitMacheteRepositoryChanges {
+  /**
+   * If true, the changes can't be narrowed down to specific branches
+   * (e.g. there's no previously observed state, or the set of remotes has changed)
+   * and the snapshot needs to be created from scratch.
+   */
+  private final boolean isFullRefreshRequired;
+
+  private final boolean isBranchLayoutFileChanged;
+
+  private final boolean isHeadChanged;
+
+  /**
+   * Full names of refs whose pointed commit or reflog has changed. For convenience, also includes
+   * {@code refs/heads/<branch>} for each branch whose fork point override has changed,
+   * so that the set can be passed directly to {@link IGitMacheteRepository#createSnapshotForLayoutIncrementally}.
+   */
+  private final Set<String> changedRefFullNames;
+
+  /**
+   * Names of local branches directly affected by the changes: the ones whose own ref, remote tracking branch
+   * or fork point override has changed. Note that other branches (esp. the descendants of these)
+   * might still be affected indirectly.
+   */
+  private final Set<String> dirtyBranchNames;
+
+  public static GitMacheteRepositoryChanges fullRefresh() {
+    return of(/* isFullRefreshRequired */ true, /* isBranchLayoutFileChanged */ true, /* isHeadChanged */ true,
+        HashSet.empty(), HashSet.empty());
+  }
+
+  public boolean isNothingChanged() {
+    return !isFullRefreshRequired && !isBranchLayoutFileChanged && !isHeadChanged && changedRefFullNames.isEmpty();
+  }
+}
@@ -1,5 +1,7 @@
 package com.virtuslab.gitmachete.backend.api;
 
+import java.nio.file.Path;
+
 import io.vavr.collection.Set;
 import io.vavr.control.Option;
 
@@ -8,9 +10,57 @@ import com.virtuslab.branchlayout.api.IBranchLayout;
 public interface IGitMacheteRepository {
   IGitMacheteRepositorySnapshot createSnapshotForLayout(IBranchLayout branchLayout) throws GitMacheteException;
 
+  /**
+   * @param branchLayout layout to create the snapshot for
+   * @param checkCanceled invoked frequently (before each managed branch is created, before each reflog is read,
+   *                      for each commit visited when searching for fork points), possibly from multiple threads;
+   *                      expected to throw an (unchecked) exception once the snapshot is no longer needed,
+   *                      and to keep throwing it on any subsequent call
+   * @return the same snapshot as {@link #createSnapshotForLayout(IBranchLayout)}
+   * @throws GitMacheteException when reading git repository data fails;
+   *                             note that the exception thrown by {@code checkCanceled} is propagated as-is instead
+   */
+  IGitMacheteRepositorySnapshot createSnapshotForLayout(IBranchLayout branchLayout, Runnable checkCanceled)
+      throws GitMacheteException;
+
+  /**
+   * @param branchLayout layout to create the snapshot for
+   * @param previousSnapshot a snapshot previously created for the same repository
+   * @param changedRefFullNames full names of refs (like {@code refs/heads/X} or {@code refs/remotes/origin/X})
+   *                            whose pointed commits or reflogs have changed since {@code previousSnapshot} was created
+   * @return a snapshot equivalent to the one that would be created by {@link #createSnapshotForLayout},
+   *         but with the data of branches not affected by {@code changedRefFullNames}
+   *         taken over from {@code previousSnapshot} rather than recomputed
+   * @throws GitMacheteException when reading git repository data fails
+   */
+  IGitMacheteRepositorySnapshot createSnapshotForLayoutIncrementally(
+      IBranchLayout branchLayout,
+      IGitMacheteRepositorySnapshot previousSnapshot,
+      Set<String> changedRefFullNames) throws GitMacheteException;
+
+  /**
+   * @param checkCanceled see {@link #createSnapshotForLayout(IBranchLayout, Runnable)}
+   * @return the same snapshot as the overload without {@code checkCanceled}
+   * @throws GitMacheteException when reading git repository data fails;
+   *                             note that the exception thrown by {@code checkCanceled} is propagated as-is instead
+   */
+  IGitMacheteRepositorySnapshot createSnapshotForLayoutIncrementally(
+      IBranchLayout branchLayout,
+      IGitMacheteRepositorySnapshot previousSnapshot,
+      Set<String> changedRefFullNames,
+      Runnable checkCanceled) throws GitMacheteException;
+
   Option<ILocalBranchReference> inferParentForLocalBranch(
       Set<String> eligibleLocalBranchNames,
       String localBranchName) throws GitMacheteException;
 
   IGitMacheteRepositorySnapshot discoverLayoutAndCreateSnapshot() throws GitMacheteException;
+
+  /**
+   * @param branchLayoutFilePath path of the branch layout file, whose changes are detected along with the changes of refs
+   * @return a detector whose results can be fed into {@link #createSnapshotForLayoutIncrementally};
+   *         note that its first {@link IGitMacheteRepositoryChangeDetector#detectChanges} call always requires
+   *         a full refresh
+   */
+  IGitMacheteRepositoryChangeDetector createChangeDetector(Path branchLayoutFilePath);
 }
@@ -5,4 +5,11 @@ import java.nio.file.Path;
 /** Each implementing class must have a public parameterless constructor. */
 public interface IGitMacheteRepositoryCache {
   IGitMacheteRepository getInstance(Path mainDirectoryPath, Path gitDirectoryPath) throws GitMacheteException;
+
+  /**
+   * Removes the repository from the cache (if present) and releases the resources it holds.
+   * Snapshots that have already been created remain valid,
+   * while the subsequent {@link #getInstance} call for the same paths creates a new repository.
+   */
+  void evict(Path mainDirectoryPath, Path gitDirectoryPath);
 }
@@ -0,0 +1,13 @@
+package com.virtuslab.gitmachete.backend.api;
+
+/**
+ * Keeps track of the repository state (refs, reflogs, HEAD, branch layout file and fork point overrides)
+ * as observed on the latest call to {@link #detectChanges}.
+ */
+public interface IGitMacheteRepositoryChangeDetector {
+  /**
+   * @return changes since the previous call, or {@link GitMacheteRepositoryChanges#fullRefresh} for the very first call
+   * @throws GitMacheteException when reading git repository data fails
+   */
+  GitMacheteRepositoryChanges detectChanges() throws GitMacheteException;
+}
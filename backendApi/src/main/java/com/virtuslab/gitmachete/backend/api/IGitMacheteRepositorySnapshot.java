@@ -1,5 +1,8 @@
 package com.virtuslab.gitmachete.backend.api;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import io.vavr.collection.List;
 import io.vavr.control.Option;
 
@@ -27,4 +30,13 @@ public interface IGitMacheteRepositorySnapshot {
       throws GitMacheteException;
 
   OngoingRepositoryOperation getOngoingRepositoryOperation();
+
+  /**
+   * @return a stage that completes once all the machete-status-branch hooks that were still running when the snapshot
+   *         was created (see {@link IManagedBranchSnapshot#isStatusHookOutputPending}) are done, with true if any of them
+   *         has produced an output (that is, if a snapshot created afterwards would show more)
+   */
+  default CompletionStage<Boolean> getPendingStatusHookOutputsCompletion() {
+    return CompletableFuture.completedFuture(false);
+  }
 }
@@ -42,5 +42,18 @@ public interface IManagedBranchSnapshot {
 
   Option<String> getCustomAnnotation();
 
+  /**
+   * @return output of machete-status-branch hook, or empty if there's no such hook, the hook has failed,
+   *         or the hook is still running (see {@link #isStatusHookOutputPending})
+   */
   Option<String> getStatusHookOutput();
+
+  /**
+   * @return true if machete-status-branch hook was still running when the snapshot was created, in which case
+   *         its output only shows up in the subsequent snapshots
+   *         (see {@link IGitMacheteRepositorySnapshot#getPendingStatusHookOutputsCompletion})
+   */
+  default boolean isStatusHookOutputPending() {
+    return false;
+  }
 }
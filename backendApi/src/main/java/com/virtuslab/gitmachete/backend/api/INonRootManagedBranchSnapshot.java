@@ -21,8 +21,39 @@ public interface INonRootManagedBranchSnapshot extends IManagedBranchSnapshot {
     return this;
   }
 
+  /**
+   * The commits are derived lazily (on the first call) and their number is capped,
+   * so that a branch with e.g. a broken fork point doesn't make anyone pay for tens of thousands of commits.
+   * Note that the first call might hence be heavyweight, and should be made off the UI thread.
+   *
+   * @return the most recent commits of the branch (i.e. the ones that are not reachable from the fork point),
+   *         at most as many as the listing limit; see {@link #getCommitCount} for the total number of commits
+   */
   List<ICommitOfManagedBranch> getCommits();
 
+  /**
+   * Meant for loading further commits on request, once the ones returned by {@link #getCommits} are not enough.
+   * Unlike {@link #getCommits}, the result is not cached, so each call might be heavyweight.
+   *
+   * @param offset number of the (most recent) commits to skip
+   * @param limit maximum number of commits to return
+   * @return the commits of the branch from {@code offset} (inclusive) to {@code offset + limit} (exclusive)
+   * @throws GitMacheteException when reading git repository data fails
+   */
+  default List<ICommitOfManagedBranch> getCommits(int offset, int limit) throws GitMacheteException {
+    return getCommits().drop(offset).take(limit);
+  }
+
+  /**
+   * Derived along with (and hence as heavyweight on the first call as) {@link #getCommits}.
+   *
+   * @return the number of commits of the branch, which is exact unless there are more commits than returned by
+   *         {@link #getCommits}
+   */
+  default CommitCount getCommitCount() {
+    return CommitCount.exact(getCommits().size());
+  }
+
   IManagedBranchSnapshot getParent();
 
   SyncToParentStatus getSyncToParentStatus();
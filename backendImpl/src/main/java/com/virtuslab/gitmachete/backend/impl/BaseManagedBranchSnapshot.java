@@ -27,6 +27,7 @@ public abstract class BaseManagedBranchSnapshot implements IManagedBranchSnapsho
   private final SyncToRemoteStatus syncToRemoteStatus;
   private final @Nullable String customAnnotation;
   private final @Nullable String statusHookOutput;
+  private final boolean isStatusHookOutputPending;
 
   @ToString.Include(name = "children") // avoid recursive `toString` calls on child branches
   private List<String> getChildNames() {
@@ -0,0 +1,125 @@
+package com.virtuslab.gitmachete.backend.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import io.vavr.control.Try;
+
+/**
+ * Common format of the files under {@code .git/machete-cache/}: the content (starting with a magic number and a version)
+ * followed by its CRC32 checksum. Files are always written to a temporary file first and then moved into place,
+ * so that readers never see a partially written file.
+ */
+public final class CacheFiles {
+  private CacheFiles() {}
+
+  public static final boolean IS_PERSISTENCE_ENABLED = Boolean
+      .parseBoolean(System.getProperty("git-machete.persistent-cache.enabled", "true"));
+
+  private static final String DIRECTORY_NAME = "machete-cache";
+
+  /**
+   * Saving is cheap and rare, so a single thread is enough for all the cache files of all repositories.
+   */
+  public static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    var thread = new Thread(runnable, "git-machete-cache-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @FunctionalInterface
+  public interface ContentWriter {
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  public static Path resolveDirectory(Path gitDirectoryPath) {
+    return gitDirectoryPath.resolve(DIRECTORY_NAME);
+  }
+
+  public static Path resolve(Path gitDirectoryPath, String fileName) {
+    return resolveDirectory(gitDirectoryPath).resolve(fileName);
+  }
+
+  /**
+   * @return the content of the file (without the checksum), positioned right after the magic number and the version
+   * @throws java.nio.file.NoSuchFileException if the file does not exist
+   * @throws IOException if the file cannot be read, is corrupted, or is of an unknown format or version
+   */
+  public static DataInputStream openForReading(Path path, int magic, int version, long maxFileSize) throws IOException {
+    if (Files.size(path) > maxFileSize) {
+      throw new IOException("File is too large");
+    }
+    byte[] bytes = Files.readAllBytes(path);
+    int contentLength = bytes.length - Long.BYTES;
+    if (contentLength < 0) {
+      throw new IOException("File is truncated");
+    }
+    var checksum = new CRC32();
+    checksum.update(bytes, 0, contentLength);
+    if (checksum.getValue() != ByteBuffer.wrap(bytes, contentLength, Long.BYTES).getLong()) {
+      throw new IOException("Checksum mismatch");
+    }
+
+    var input = new DataInputStream(new ByteArrayInputStream(bytes, 0, contentLength));
+    if (input.readInt() != magic || input.readInt() != version) {
+      throw new IOException("Unknown format or version");
+    }
+    return input;
+  }
+
+  public static int readCount(DataInputStream input, int maxCount) throws IOException {
+    int count = input.readInt();
+    if (count < 0 || count > maxCount) {
+      throw new IOException("Invalid entry count: ${count}");
+    }
+    return count;
+  }
+
+  /**
+   * Writes the magic number, the version, the content (as written by {@code contentWriter}) and the checksum.
+   */
+  public static void write(Path path, int magic, int version, ContentWriter contentWriter) throws IOException {
+    Path temporaryFilePath = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      Path directoryPath = path.getParent();
+      if (directoryPath != null) {
+        Files.createDirectories(directoryPath);
+      }
+      var checksum = new CRC32();
+      try (OutputStream fileOutput = Files.newOutputStream(temporaryFilePath)) {
+        var output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOutput), checksum));
+        output.writeInt(magic);
+        output.writeInt(version);
+        contentWriter.write(output);
+        // The checksum itself is written past the checked stream.
+        output.flush();
+        new DataOutputStream(fileOutput).writeLong(checksum.getValue());
+      }
+      moveReplacing(temporaryFilePath, path);
+    } catch (IOException e) {
+      Try.run(() -> Files.deleteIfExists(temporaryFilePath));
+      throw e;
+    }
+  }
+
+  private static void moveReplacing(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -43,6 +43,10 @@ public class CommitOfManagedBranch implements ICommitOfManagedBranch {
 
   @Override
   public final boolean equals(@Nullable Object other) {
+    if (other instanceof CommitOfManagedBranch) {
+      // Let's compare the binary hashes directly rather than their hex strings (which would need to be allocated).
+      return coreCommit.getHash().equals(((CommitOfManagedBranch) other).coreCommit.getHash());
+    }
     return ICommitOfManagedBranch.defaultEquals(this, other);
   }
 
@@ -0,0 +1,99 @@
+package com.virtuslab.gitmachete.backend.impl;
+
+import io.vavr.collection.List;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitmachete.backend.api.CommitCount;
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
+
+/**
+ * The commits of a non-root managed branch, i.e. the commits reachable from the commit pointed by the branch,
+ * but not from its fork point (or parent). Nothing is walked until the commits are first asked for,
+ * and even then, at most {@code limit} commits are derived; further commits are only derived page by page, on request.
+ */
+@CustomLog
+final class CommitRangeOfManagedBranch {
+
+  private final IGitCoreRepository gitCoreRepository;
+  private final IGitCoreCommit fromInclusive;
+  // Null if the fork point is unknown, in which case the range is empty.
+  private final @Nullable IGitCoreCommit untilExclusive;
+  private final int limit;
+
+  private volatile @Nullable LimitedCommits limitedCommits = null;
+
+  CommitRangeOfManagedBranch(
+      IGitCoreRepository gitCoreRepository,
+      IGitCoreCommit fromInclusive,
+      @Nullable IGitCoreCommit untilExclusive,
+      int limit) {
+    this.gitCoreRepository = gitCoreRepository;
+    this.fromInclusive = fromInclusive;
+    this.untilExclusive = untilExclusive;
+    this.limit = limit;
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  private static final class LimitedCommits {
+    static final LimitedCommits EMPTY = new LimitedCommits(List.empty(), CommitCount.exact(0));
+
+    private final List<ICommitOfManagedBranch> commits;
+    private final CommitCount count;
+  }
+
+  List<ICommitOfManagedBranch> getCommits() {
+    return getLimitedCommits().getCommits();
+  }
+
+  CommitCount getCommitCount() {
+    return getLimitedCommits().getCount();
+  }
+
+  List<ICommitOfManagedBranch> getCommits(int offset, int pageLimit) throws GitCoreException {
+    var until = untilExclusive;
+    if (until == null) {
+      return List.empty();
+    }
+    // The page might be entirely covered by the already derived commits, in which case there's no need to walk again.
+    var limited = limitedCommits;
+    if (limited != null && (limited.getCount().isExact() || pageLimit <= limited.getCommits().size() - offset)) {
+      return limited.getCommits().drop(offset).take(pageLimit);
+    }
+    return gitCoreRepository.deriveCommitRange(fromInclusive, until, offset, pageLimit).map(CommitOfManagedBranch::new);
+  }
+
+  private LimitedCommits getLimitedCommits() {
+    var result = limitedCommits;
+    if (result == null) {
+      // A benign race: in the worst case, the commits are derived more than once.
+      result = deriveLimitedCommits();
+      limitedCommits = result;
+    }
+    return result;
+  }
+
+  private LimitedCommits deriveLimitedCommits() {
+    var until = untilExclusive;
+    if (until == null) {
+      return LimitedCommits.EMPTY;
+    }
+    try {
+      // Walking just one commit past the limit is enough to tell whether the count is exact.
+      List<IGitCoreCommit> coreCommits = gitCoreRepository.deriveCommitRange(fromInclusive, until,
+          /* offset */ 0, /* limit */ limit + 1);
+      var count = coreCommits.size() > limit ? CommitCount.atLeast(limit + 1) : CommitCount.exact(coreCommits.size());
+      return new LimitedCommits(coreCommits.take(limit).map(CommitOfManagedBranch::new), count);
+    } catch (GitCoreException e) {
+      LOG.warn("Cannot derive commits from ${fromInclusive.getHash().getShortHashString()} " +
+          "until ${until.getHash().getShortHashString()}", e);
+      return LimitedCommits.EMPTY;
+    }
+  }
+}
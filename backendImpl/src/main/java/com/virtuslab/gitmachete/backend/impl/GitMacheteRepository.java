@@ -9,18 +9,29 @@ import static io.vavr.API.$;
 import static io.vavr.API.Case;
 import static io.vavr.API.Match;
 
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
+import io.vavr.CheckedFunction1;
+import io.vavr.Function1;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.collection.Queue;
 import io.vavr.collection.Seq;
 import io.vavr.collection.Set;
 import io.vavr.collection.SortedMap;
+import io.vavr.collection.Vector;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lombok.AccessLevel;
@@ -38,7 +49,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import com.virtuslab.branchlayout.api.BranchLayout;
 import com.virtuslab.branchlayout.api.IBranchLayout;
 import com.virtuslab.branchlayout.api.IBranchLayoutEntry;
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchBudget;
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchResult;
 import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.GitCoreGenerationFloor;
 import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
 import com.virtuslab.gitcore.api.GitCoreRepositoryState;
 import com.virtuslab.gitcore.api.IGitCoreBranchSnapshot;
@@ -51,6 +65,7 @@ import com.virtuslab.gitcore.api.IGitCoreRepository;
 import com.virtuslab.gitmachete.backend.api.GitMacheteException;
 import com.virtuslab.gitmachete.backend.api.IBranchReference;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryChangeDetector;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
 import com.virtuslab.gitmachete.backend.api.ILocalBranchReference;
 import com.virtuslab.gitmachete.backend.api.IManagedBranchSnapshot;
@@ -58,6 +73,7 @@ import com.virtuslab.gitmachete.backend.api.IRemoteTrackingBranchReference;
 import com.virtuslab.gitmachete.backend.api.OngoingRepositoryOperation;
 import com.virtuslab.gitmachete.backend.api.SyncToParentStatus;
 import com.virtuslab.gitmachete.backend.api.SyncToRemoteStatus;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime;
 import com.virtuslab.gitmachete.backend.impl.hooks.PreRebaseHookExecutor;
 import com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookExecutor;
 
@@ -66,21 +82,114 @@ import com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookExecutor;
 public class GitMacheteRepository implements IGitMacheteRepository {
 
   private final IGitCoreRepository gitCoreRepository;
+  private final HookRuntime hookRuntime;
   private final StatusBranchHookExecutor statusHookExecutor;
   private final PreRebaseHookExecutor preRebaseHookExecutor;
+  // Shared by all snapshots of the repository; saved to disk (asynchronously) once each snapshot is created.
+  private final PersistentDerivationCache derivationCache;
+
+  private final AtomicReference<ReflogCommitIndex> reflogCommitIndex = new AtomicReference<>(ReflogCommitIndex.empty());
 
   private static final int NUMBER_OF_MOST_RECENTLY_CHECKED_OUT_BRANCHES_FOR_DISCOVER = 10;
 
+  // Sibling subtrees of the branch layout can be created concurrently once their parent is known.
+  // Setting this property to 1 (or less) effectively turns the parallel snapshot building off.
+  private static final int SNAPSHOT_BUILDING_PARALLELISM = Integer.getInteger("git-machete.snapshot.parallelism",
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  // Fork point/parent inference gives up (and treats the fork point/parent as not found) once this budget is exhausted,
+  // so that a branch with no known fork point in a huge repository doesn't make the entire snapshot take ages.
+  private static final GitCoreAncestorSearchBudget FORK_POINT_SEARCH_BUDGET = GitCoreAncestorSearchBudget.of(
+      Integer.getInteger("git-machete.fork-point.max-commits", 200_000),
+      Long.getLong("git-machete.fork-point.max-millis", 5_000));
+
+  // Commits of a branch beyond this limit are only derived on request (page by page), so that a branch with a broken
+  // fork point (possibly tens of thousands of commits away from its tip) doesn't make listing the commits take ages.
+  private static final int COMMIT_LISTING_LIMIT = Integer.getInteger("git-machete.commit-listing.limit", 1_000);
+
+  private static final @Nullable ForkJoinPool SNAPSHOT_BUILDING_POOL = SNAPSHOT_BUILDING_PARALLELISM > 1
+      ? createSnapshotBuildingPool(SNAPSHOT_BUILDING_PARALLELISM)
+      : null;
+
+  private static ForkJoinPool createSnapshotBuildingPool(int parallelism) {
+    ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+      var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("git-machete-snapshot-worker-" + thread.getPoolIndex());
+      // Otherwise, the worker threads wouldn't see the classes of the plugin when running inside IntelliJ.
+      thread.setContextClassLoader(GitMacheteRepository.class.getClassLoader());
+      return thread;
+    };
+    return new ForkJoinPool(parallelism, threadFactory,
+        /* handler */ (thread, e) -> LOG.error("Uncaught exception in ${thread.getName()}", e), /* asyncMode */ false);
+  }
+
   @Override
   public IGitMacheteRepositorySnapshot createSnapshotForLayout(IBranchLayout branchLayout) throws GitMacheteException {
+    return createSnapshotForLayout(branchLayout, /* checkCanceled */ () -> {});
+  }
+
+  @Override
+  public IGitMacheteRepositorySnapshot createSnapshotForLayout(IBranchLayout branchLayout, Runnable checkCanceled)
+      throws GitMacheteException {
     LOG.startTimer().debug("Entering");
-    try {
-      var aux = new CreateGitMacheteRepositoryAux(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor);
+    try (var walkSession = gitCoreRepository.openWalkSession()) {
+      var aux = new CreateGitMacheteRepositoryAux(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor,
+          reflogCommitIndex, derivationCache);
+      aux.setCheckCanceled(checkCanceled);
       var result = aux.createSnapshot(branchLayout);
+      derivationCache.scheduleSave();
+      LOG.withTimeElapsed().info("Finished");
+      LOG.debug(() -> "Is-ancestor cache statistics: ${gitCoreRepository.deriveIsAncestorCacheStatistics()}");
+      LOG.debug(() -> "Relative commit count cache statistics: " +
+          "${gitCoreRepository.deriveRelativeCommitCountCacheStatistics()}");
+      return result;
+    } catch (GitCoreException e) {
+      // The exception thrown by `checkCanceled` might have been wrapped on the way (e.g. when thrown from within a walk),
+      // so let's give `checkCanceled` a chance to throw it again, this time as-is.
+      checkCanceled.run();
+      throw new GitMacheteException(e);
+    } catch (GitMacheteException e) {
+      checkCanceled.run();
+      throw e;
+    }
+  }
+
+  @Override
+  public IGitMacheteRepositorySnapshot createSnapshotForLayoutIncrementally(
+      IBranchLayout branchLayout,
+      IGitMacheteRepositorySnapshot previousSnapshot,
+      Set<String> changedRefFullNames) throws GitMacheteException {
+    return createSnapshotForLayoutIncrementally(branchLayout, previousSnapshot, changedRefFullNames,
+        /* checkCanceled */ () -> {});
+  }
+
+  @Override
+  public IGitMacheteRepositorySnapshot createSnapshotForLayoutIncrementally(
+      IBranchLayout branchLayout,
+      IGitMacheteRepositorySnapshot previousSnapshot,
+      Set<String> changedRefFullNames,
+      Runnable checkCanceled) throws GitMacheteException {
+    if (!(previousSnapshot instanceof GitMacheteRepositorySnapshot)) {
+      LOG.debug("Previous snapshot is of an unknown type, creating the snapshot from scratch");
+      return createSnapshotForLayout(branchLayout, checkCanceled);
+    }
+    LOG.startTimer().debug(() -> "Entering: changedRefFullNames = ${changedRefFullNames.mkString(\", \")}");
+    try (var walkSession = gitCoreRepository.openWalkSession()) {
+      var aux = new CreateGitMacheteRepositoryAux(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor,
+          reflogCommitIndex, derivationCache);
+      aux.setCheckCanceled(checkCanceled);
+      var result = aux.createSnapshotIncrementally(branchLayout, (GitMacheteRepositorySnapshot) previousSnapshot,
+          changedRefFullNames);
+      derivationCache.scheduleSave();
       LOG.withTimeElapsed().info("Finished");
       return result;
     } catch (GitCoreException e) {
+      // See `createSnapshotForLayout` for why `checkCanceled` is invoked here.
+      checkCanceled.run();
       throw new GitMacheteException(e);
+    } catch (GitMacheteException e) {
+      checkCanceled.run();
+      throw e;
     }
   }
 
@@ -90,8 +199,9 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       String localBranchName) throws GitMacheteException {
     LOG.startTimer().debug(() -> "Entering: localBranchName = ${localBranchName}");
     try {
-      var aux = new Aux(gitCoreRepository);
+      var aux = new Aux(gitCoreRepository, reflogCommitIndex, derivationCache);
       var result = aux.inferParentForLocalBranch(eligibleLocalBranchNames, localBranchName);
+      derivationCache.scheduleSave();
       LOG.withTimeElapsed().info("Finished");
       return result;
     } catch (GitCoreException e) {
@@ -103,9 +213,11 @@ public class GitMacheteRepository implements IGitMacheteRepository {
   public IGitMacheteRepositorySnapshot discoverLayoutAndCreateSnapshot() throws GitMacheteException {
     LOG.startTimer().debug("Entering");
 
-    try {
-      var aux = new DiscoverGitMacheteRepositoryAux(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor);
+    try (var walkSession = gitCoreRepository.openWalkSession()) {
+      var aux = new DiscoverGitMacheteRepositoryAux(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor,
+          reflogCommitIndex, derivationCache);
       var result = aux.discoverLayoutAndCreateSnapshot(NUMBER_OF_MOST_RECENTLY_CHECKED_OUT_BRANCHES_FOR_DISCOVER);
+      derivationCache.scheduleSave();
       LOG.withTimeElapsed().info("Finished");
       return result;
     } catch (GitCoreException e) {
@@ -113,32 +225,72 @@ public class GitMacheteRepository implements IGitMacheteRepository {
     }
   }
 
+  @Override
+  public IGitMacheteRepositoryChangeDetector createChangeDetector(Path branchLayoutFilePath) {
+    return new GitMacheteRepositoryChangeDetector(gitCoreRepository, branchLayoutFilePath);
+  }
+
+  /**
+   * Releases the resources held on behalf of the repository
+   * (like the persistent status hook or the watches of the hook files).
+   * Snapshots that have already been created remain valid.
+   */
+  void dispose() {
+    statusHookExecutor.dispose();
+    hookRuntime.dispose();
+  }
+
   @CustomLog
   private static class Aux {
     protected final IGitCoreRepository gitCoreRepository;
     protected final List<IGitCoreLocalBranchSnapshot> localBranches;
     protected final Map<String, IGitCoreLocalBranchSnapshot> localBranchByName;
 
-    private final java.util.Map<IGitCoreBranchSnapshot, List<IGitCoreReflogEntry>> filteredReflogByBranch = new java.util.HashMap<>();
-    private @MonotonicNonNull Map<IGitCoreCommitHash, Seq<IBranchReference>> branchesContainingGivenCommitInReflog;
+    // Both these memos might be accessed from multiple threads when the snapshot is built in parallel.
+    private final java.util.Map<IGitCoreBranchSnapshot, List<IGitCoreReflogEntry>> filteredReflogByBranch = new ConcurrentHashMap<>();
+    private volatile @MonotonicNonNull ReflogCommitIndex reflogCommitIndex;
+    private volatile @MonotonicNonNull GitCoreGenerationFloor reflogGenerationFloor;
+    // Both only derived when the derivation cache is enabled.
+    private volatile long totalReflogFingerprint;
+    // Keyed by the name of the local branch, covers the reflogs of both the local branch and its remote tracking branch.
+    private volatile Map<String, Long> ownReflogFingerprintByLocalBranchName = HashMap.empty();
+
+    // Shared across snapshots, so that only the reflogs changed in the meantime need to be (re)indexed.
+    private final AtomicReference<ReflogCommitIndex> sharedReflogCommitIndex;
+    protected final PersistentDerivationCache derivationCache;
 
-    Aux(IGitCoreRepository gitCoreRepository) throws GitCoreException {
+    // Invoked before creating each managed branch, before reading each reflog and for each commit visited
+    // when searching for a fork point, so that a no longer needed derivation can be interrupted early.
+    protected Runnable checkCanceled = () -> {};
+
+    Aux(
+        IGitCoreRepository gitCoreRepository,
+        AtomicReference<ReflogCommitIndex> sharedReflogCommitIndex,
+        PersistentDerivationCache derivationCache) throws GitCoreException {
       this.gitCoreRepository = gitCoreRepository;
+      this.sharedReflogCommitIndex = sharedReflogCommitIndex;
+      this.derivationCache = derivationCache;
       this.localBranches = gitCoreRepository.deriveAllLocalBranches();
       this.localBranchByName = localBranches.toMap(localBranch -> Tuple.of(localBranch.getName(), localBranch));
     }
 
-    protected Map<IGitCoreCommitHash, Seq<IBranchReference>> deriveBranchesContainingGivenCommitInReflog() {
-      if (branchesContainingGivenCommitInReflog != null) {
-        return branchesContainingGivenCommitInReflog;
+    void setCheckCanceled(Runnable givenCheckCanceled) {
+      this.checkCanceled = givenCheckCanceled;
+    }
+
+    protected ReflogCommitIndex deriveReflogCommitIndex() throws GitCoreException {
+      if (reflogCommitIndex != null) {
+        return reflogCommitIndex;
       }
 
       LOG.debug("Getting reflogs of local branches");
 
-      Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByLocalBranch = localBranches
-          .toMap(
-              /* keyMapper */ LocalBranchReference::of,
-              /* valueMapper */ this::deriveFilteredReflog);
+      Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByLocalBranch = HashMap.empty();
+      for (var localBranch : localBranches) {
+        checkCanceled.run();
+        filteredReflogByLocalBranch = filteredReflogByLocalBranch.put(LocalBranchReference.of(localBranch),
+            deriveFilteredReflog(localBranch));
+      }
 
       LOG.debug("Getting reflogs of remote branches");
 
@@ -146,12 +298,14 @@ public class GitMacheteRepository implements IGitMacheteRepository {
           .flatMap(localBranch -> localBranch.getRemoteTrackingBranch()
               .map(remoteTrackingBranch -> Tuple.of(localBranch, remoteTrackingBranch)));
 
-      Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByRemoteTrackingBranch = remoteTrackingBranches
-          .toMap(
-              /* keyMapper */ localAndRemote -> RemoteTrackingBranchReference.of(localAndRemote._2, localAndRemote._1),
-              /* valueMapper */ localAndRemote -> deriveFilteredReflog(localAndRemote._2));
+      Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByRemoteTrackingBranch = HashMap.empty();
+      for (var localAndRemote : remoteTrackingBranches) {
+        checkCanceled.run();
+        filteredReflogByRemoteTrackingBranch = filteredReflogByRemoteTrackingBranch.put(
+            RemoteTrackingBranchReference.of(localAndRemote._2, localAndRemote._1), deriveFilteredReflog(localAndRemote._2));
+      }
 
-      LOG.debug("Converting reflogs to mapping of branches containing in reflog by commit");
+      LOG.debug("Updating the index of branches containing given commit in reflog");
 
       Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogsByBranch = filteredReflogByLocalBranch
           .merge(filteredReflogByRemoteTrackingBranch);
@@ -161,29 +315,120 @@ public class GitMacheteRepository implements IGitMacheteRepository {
           .map(kv -> kv._1.getName() + " -> " + kv._2.map(e -> e.getNewCommitHash()).mkString(", "))
           .sorted().mkString(System.lineSeparator()));
 
-      Seq<Tuple2<IGitCoreCommitHash, IBranchReference>> reflogCommitHashAndBranchPairs = filteredReflogsByBranch
-          .flatMap(branchAndReflog -> branchAndReflog._2
-              .map(re -> Tuple.of(re.getNewCommitHash(), branchAndReflog._1)));
+      var result = sharedReflogCommitIndex.updateAndGet(index -> index.updatedWith(filteredReflogsByBranch));
+      if (derivationCache.isEnabled()) {
+        deriveReflogFingerprints(filteredReflogsByBranch);
+      }
+      // The floor (and the fingerprints) need to be ready before the index is published to other threads.
+      reflogGenerationFloor = gitCoreRepository.deriveGenerationFloor(filteredReflogsByBranch.values()
+          .iterator().flatMap(reflog -> reflog.iterator().map(e -> e.getNewCommitHash())));
+      reflogCommitIndex = result;
+      return result;
+    }
 
-      var result = reflogCommitHashAndBranchPairs
-          .groupBy(reflogCommitHashAndBranch -> reflogCommitHashAndBranch._1)
-          .mapValues(pairsOfReflogCommitHashAndBranch -> pairsOfReflogCommitHashAndBranch
-              .map(reflogCommitHashAndBranch -> reflogCommitHashAndBranch._2));
+    private void deriveReflogFingerprints(Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogsByBranch) {
+      long total = 0L;
+      Map<String, Long> ownFingerprintByLocalBranchName = HashMap.empty();
+      for (var branchAndReflog : filteredReflogsByBranch) {
+        IBranchReference branch = branchAndReflog._1;
+        long fingerprint = PersistentDerivationCache.fingerprintReflog(branch, branchAndReflog._2);
+        String localBranchName = branch.isLocal() ? branch.getName() : branch.asRemote().getTrackedLocalBranch().getName();
+        total = PersistentDerivationCache.combineFingerprints(total, fingerprint);
+        ownFingerprintByLocalBranchName = ownFingerprintByLocalBranchName.put(localBranchName,
+            PersistentDerivationCache.combineFingerprints(
+                ownFingerprintByLocalBranchName.get(localBranchName).getOrElse(0L), fingerprint));
+      }
+      totalReflogFingerprint = total;
+      ownReflogFingerprintByLocalBranchName = ownFingerprintByLocalBranchName;
+    }
 
-      LOG.debug("Derived the map of branches containing given commit in reflog:");
-      LOG.debug(() -> result.toList().map(kv -> kv._1 + " -> " + kv._2.mkString(", "))
-          .sorted().mkString(System.lineSeparator()));
-      branchesContainingGivenCommitInReflog = result;
+    /**
+     * @return the fingerprint of the filtered reflogs that the fork point of the given local branch depends on,
+     *         i.e. of all the branches except for the given branch and its remote tracking branch
+     */
+    protected long deriveReflogFingerprint(String localBranchName) throws GitCoreException {
+      // The fingerprints are always derived along with the index.
+      deriveReflogCommitIndex();
+      return totalReflogFingerprint - ownReflogFingerprintByLocalBranchName.get(localBranchName).getOrElse(0L);
+    }
+
+    protected boolean isAncestor(IGitCoreCommit presumedAncestor, IGitCoreCommit presumedDescendant)
+        throws GitCoreException {
+      var cachedResult = derivationCache.getIsAncestor(presumedAncestor.getHash(), presumedDescendant.getHash());
+      if (cachedResult.isDefined()) {
+        return cachedResult.get();
+      }
+      boolean result = gitCoreRepository.isAncestor(presumedAncestor, presumedDescendant);
+      derivationCache.putIsAncestor(presumedAncestor.getHash(), presumedDescendant.getHash(), result);
       return result;
     }
 
+    /**
+     * Unlike calling {@link #isAncestor} for each of {@code presumedDescendants}, walks the history (if at all) just once.
+     */
+    protected List<Boolean> isAncestorOfEach(IGitCoreCommit presumedAncestor, List<IGitCoreCommit> presumedDescendants)
+        throws GitCoreException {
+      List<Option<Boolean>> cachedResults = presumedDescendants
+          .map(presumedDescendant -> derivationCache.getIsAncestor(presumedAncestor.getHash(), presumedDescendant.getHash()));
+      List<IGitCoreCommit> uncachedDescendants = presumedDescendants.zip(cachedResults)
+          .filter(descendantAndCachedResult -> descendantAndCachedResult._2.isEmpty())
+          .map(descendantAndCachedResult -> descendantAndCachedResult._1);
+      if (uncachedDescendants.isEmpty()) {
+        return cachedResults.map(Option::get);
+      }
+
+      var uncachedResults = gitCoreRepository.isAncestorOfEach(presumedAncestor, uncachedDescendants);
+      uncachedDescendants.zip(uncachedResults).forEach(descendantAndResult -> derivationCache
+          .putIsAncestor(presumedAncestor.getHash(), descendantAndResult._1.getHash(), descendantAndResult._2));
+      var uncachedResultsIterator = uncachedResults.iterator();
+      return cachedResults.map(cachedResult -> cachedResult.getOrElse(uncachedResultsIterator::next));
+    }
+
+    protected Option<GitCoreRelativeCommitCount> deriveRelativeCommitCount(
+        IGitCoreCommit fromPerspectiveOf,
+        IGitCoreCommit asComparedTo) throws GitCoreException {
+      var cachedResult = derivationCache.getRelativeCommitCount(fromPerspectiveOf.getHash(), asComparedTo.getHash());
+      if (cachedResult.isDefined()) {
+        return cachedResult.get();
+      }
+      var result = gitCoreRepository.deriveRelativeCommitCount(fromPerspectiveOf, asComparedTo);
+      derivationCache.putRelativeCommitCount(fromPerspectiveOf.getHash(), asComparedTo.getHash(), result);
+      return result;
+    }
+
+    protected GitCoreGenerationFloor deriveReflogGenerationFloor() throws GitCoreException {
+      // The floor is always derived along with the index.
+      deriveReflogCommitIndex();
+      var floor = reflogGenerationFloor;
+      assert floor != null : "reflogGenerationFloor has not been derived";
+      return floor;
+    }
+
+    /**
+     * @return the first ancestor of {@code commitInclusive} (in topological order) that is found in the filtered reflogs
+     *         and satisfies {@code isSought}, or null if none is found within {@code FORK_POINT_SEARCH_BUDGET}
+     */
+    protected @Nullable IGitCoreCommit findFirstAncestorInReflogs(
+        IGitCoreCommit commitInclusive,
+        Predicate<IGitCoreCommit> isSought) throws GitCoreException {
+      var result = gitCoreRepository.findFirstAncestor(commitInclusive, commit -> {
+        checkCanceled.run();
+        return isSought.test(commit);
+      }, deriveReflogGenerationFloor(), FORK_POINT_SEARCH_BUDGET);
+      if (result.getOutcome() == GitCoreAncestorSearchResult.Outcome.NotFoundWithinBudget) {
+        LOG.warn("Fork point of ${commitInclusive} not found within ${FORK_POINT_SEARCH_BUDGET}; treating it as not found");
+      }
+      return result.getFoundCommit();
+    }
+
     /**
      * @return reflog entries, excluding branch creation and branch reset events irrelevant for fork point/parent inference,
      * ordered from the latest to the oldest
      */
-    protected List<IGitCoreReflogEntry> deriveFilteredReflog(IGitCoreBranchSnapshot branch) {
-      if (filteredReflogByBranch.containsKey(branch)) {
-        return filteredReflogByBranch.get(branch);
+    protected List<IGitCoreReflogEntry> deriveFilteredReflog(IGitCoreBranchSnapshot branch) throws GitCoreException {
+      var cachedResult = filteredReflogByBranch.get(branch);
+      if (cachedResult != null) {
+        return cachedResult;
       }
 
       LOG.trace(() -> "Entering: branch = '${branch.getFullName()}'; original list of entries:");
@@ -212,9 +457,6 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       // It's necessary to exclude entry with the same hash as the first entry in reflog (if it still exists)
       // for cases like branch rename just after branch creation.
       Predicate<IGitCoreReflogEntry> isEntryExcluded = e -> {
-        // For debug logging only
-        String newIdHash = e.getNewCommitHash().getHashString();
-
         if (e.getNewCommitHash().equals(entryToExcludeNewId)) {
           LOG.trace(() -> "Exclude ${e} because it has the same hash as first entry");
         } else if (e.getOldCommitHash().isDefined() && e.getNewCommitHash().equals(e.getOldCommitHash().get())) {
@@ -257,19 +499,19 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       LOG.debug(() -> "Branch(es) eligible for becoming the parent of ${localBranchName}: " +
           "${eligibleLocalBranchNames.mkString(\", \")}");
 
-      var commitAndContainingBranches = gitCoreRepository
-          .ancestorsOf(localBranch.getPointedCommit())
-          .map(commit -> {
-            Seq<ILocalBranchReference> eligibleContainingBranches = deriveBranchesContainingGivenCommitInReflog()
-                .getOrElse(commit.getHash(), List.empty())
-                .map(candidateBranch -> candidateBranch.isLocal()
-                    ? candidateBranch.asLocal()
-                    : candidateBranch.asRemote().getTrackedLocalBranch())
-                .filter(correspondingLocalBranch -> !correspondingLocalBranch.getName().equals(localBranch.getName())
-                    && eligibleLocalBranchNames.contains(correspondingLocalBranch.getName()));
-            return Tuple.of(commit, eligibleContainingBranches);
-          })
-          .find(ccbs -> ccbs._2.nonEmpty())
+      var commitIndex = deriveReflogCommitIndex();
+      Function1<IGitCoreCommit, Seq<ILocalBranchReference>> deriveEligibleContainingBranches = commit ->
+          commitIndex
+              .getBranchesContaining(commit.getHash())
+              .map(candidateBranch -> candidateBranch.isLocal()
+                  ? candidateBranch.asLocal()
+                  : candidateBranch.asRemote().getTrackedLocalBranch())
+              .filter(correspondingLocalBranch -> !correspondingLocalBranch.getName().equals(localBranch.getName())
+                  && eligibleLocalBranchNames.contains(correspondingLocalBranch.getName()));
+
+      var commitAndContainingBranches = Option.of(findFirstAncestorInReflogs(localBranch.getPointedCommit(),
+          commit -> deriveEligibleContainingBranches.apply(commit).nonEmpty()))
+          .map(commit -> Tuple.of(commit, deriveEligibleContainingBranches.apply(commit)))
           .getOrNull();
 
       if (commitAndContainingBranches != null) {
@@ -297,19 +539,279 @@ public class GitMacheteRepository implements IGitMacheteRepository {
     private final PreRebaseHookExecutor preRebaseHookExecutor;
     private final List<String> remoteNames;
 
+    // The below fields are only relevant when the snapshot is created incrementally.
+    private @Nullable GitMacheteRepositorySnapshot previousSnapshot = null;
+    private Set<String> changedRefFullNames = HashSet.empty();
+    private Set<String> branchNamesToRecompute = HashSet.empty();
+
+    // Filled in before any branch is created, hence safe to read from the parallel tasks.
+    private Map<String, Option<ForkPointCommitOfManagedBranch>> inferredForkPointByBranchName = HashMap.empty();
+
+    // Filled in (with outputs of the hooks that completed within the time budget) before any branch is created, likewise.
+    private Map<String, Option<String>> statusHookOutputByBranchName = HashMap.empty();
+    private Set<String> pendingStatusHookBranchNames = HashSet.empty();
+
     CreateGitMacheteRepositoryAux(
         IGitCoreRepository gitCoreRepository,
         StatusBranchHookExecutor statusHookExecutor,
         PreRebaseHookExecutor preRebaseHookExecutor) throws GitCoreException {
-      super(gitCoreRepository);
+      this(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor, new AtomicReference<>(ReflogCommitIndex.empty()),
+          PersistentDerivationCache.disabled());
+    }
+
+    CreateGitMacheteRepositoryAux(
+        IGitCoreRepository gitCoreRepository,
+        StatusBranchHookExecutor statusHookExecutor,
+        PreRebaseHookExecutor preRebaseHookExecutor,
+        AtomicReference<ReflogCommitIndex> sharedReflogCommitIndex,
+        PersistentDerivationCache derivationCache) throws GitCoreException {
+      super(gitCoreRepository, sharedReflogCommitIndex, derivationCache);
 
       this.statusHookExecutor = statusHookExecutor;
       this.preRebaseHookExecutor = preRebaseHookExecutor;
       this.remoteNames = gitCoreRepository.deriveAllRemoteNames();
     }
 
+    IGitMacheteRepositorySnapshot createSnapshotIncrementally(
+        IBranchLayout branchLayout,
+        GitMacheteRepositorySnapshot givenPreviousSnapshot,
+        Set<String> givenChangedRefFullNames) throws GitCoreException, GitMacheteException {
+      this.previousSnapshot = givenPreviousSnapshot;
+      this.changedRefFullNames = givenChangedRefFullNames;
+      this.branchNamesToRecompute = deriveBranchNamesToRecompute(branchLayout.getRootEntries(),
+          /* effectiveParentName */ null, /* isParentToBeRecomputed */ false, givenPreviousSnapshot);
+      LOG.debug(() -> "Branches to recompute: ${branchNamesToRecompute.mkString(\", \")}");
+
+      return createSnapshot(branchLayout);
+    }
+
+    /**
+     * A branch needs to be recomputed if its parent needs to be recomputed (since e.g. its fork point might have changed),
+     * if it wasn't managed in the previous snapshot or had a different parent back then,
+     * or if it's affected by any of the changed refs.
+     */
+    private Set<String> deriveBranchNamesToRecompute(
+        List<IBranchLayoutEntry> entries,
+        @Nullable String effectiveParentName,
+        boolean isParentToBeRecomputed,
+        GitMacheteRepositorySnapshot givenPreviousSnapshot) throws GitCoreException {
+
+      Set<String> result = HashSet.empty();
+      for (var entry : entries) {
+        var branchName = entry.getName();
+        IGitCoreLocalBranchSnapshot coreLocalBranch = localBranchByName.get(branchName).getOrNull();
+        if (coreLocalBranch == null) {
+          // Children of a skipped branch are attached to the closest managed ancestor.
+          result = result.addAll(deriveBranchNamesToRecompute(entry.getChildren(), effectiveParentName,
+              isParentToBeRecomputed, givenPreviousSnapshot));
+          continue;
+        }
+
+        IManagedBranchSnapshot previousBranch = givenPreviousSnapshot.getManagedBranchByName(branchName).getOrNull();
+        boolean isToBeRecomputed = isParentToBeRecomputed
+            || previousBranch == null
+            || !Objects.equals(derivePreviousParentName(previousBranch), effectiveParentName)
+            || isAffectedByChangedRefs(coreLocalBranch, previousBranch);
+        if (isToBeRecomputed) {
+          result = result.add(branchName);
+        }
+        result = result.addAll(deriveBranchNamesToRecompute(entry.getChildren(), branchName,
+            isToBeRecomputed, givenPreviousSnapshot));
+      }
+      return result;
+    }
+
+    private static @Nullable String derivePreviousParentName(IManagedBranchSnapshot previousBranch) {
+      return previousBranch instanceof NonRootManagedBranchSnapshot
+          ? ((NonRootManagedBranchSnapshot) previousBranch).getParent().getName()
+          : null;
+    }
+
+    private boolean isAffectedByChangedRefs(
+        IGitCoreLocalBranchSnapshot coreLocalBranch,
+        IManagedBranchSnapshot previousBranch) throws GitCoreException {
+      var pointedCommit = coreLocalBranch.getPointedCommit();
+      if (!pointedCommit.getHash().getHashString().equals(previousBranch.getPointedCommit().getHash())
+          || changedRefFullNames.contains(coreLocalBranch.getFullName())) {
+        return true;
+      }
+
+      String remoteTrackingBranchFullName = coreLocalBranch.getRemoteTrackingBranch()
+          .map(remoteTrackingBranch -> remoteTrackingBranch.getFullName()).getOrNull();
+      String previousRemoteTrackingBranchFullName = previousBranch.getRemoteTrackingBranch()
+          .map(remoteTrackingBranch -> remoteTrackingBranch.getFullName()).getOrNull();
+      if (!Objects.equals(remoteTrackingBranchFullName, previousRemoteTrackingBranchFullName)
+          || (remoteTrackingBranchFullName != null && changedRefFullNames.contains(remoteTrackingBranchFullName))) {
+        return true;
+      }
+
+      if (!(previousBranch instanceof NonRootManagedBranchSnapshot) || changedRefFullNames.isEmpty()) {
+        return false;
+      }
+      var previousForkPoint = ((NonRootManagedBranchSnapshot) previousBranch).getForkPoint().getOrNull();
+      if (previousForkPoint == null) {
+        // Any of the changed refs might have just got a reflog entry that makes for a fork point.
+        return true;
+      }
+      if (previousForkPoint.isOverridden()) {
+        // Overridden fork point does not depend on reflogs at all.
+        return false;
+      }
+      if (previousForkPoint.getBranchesContainingInReflog().exists(b -> changedRefFullNames.contains(b.getFullName()))) {
+        return true;
+      }
+      // A fork point closer than the previous one would need to be reachable from the branch, but not from the previous
+      // fork point. Any reflog entry of a changed ref might be new (and not just the one of the commit the ref points to),
+      // so let's check all such commits against the (already updated) index of reflogs.
+      var commitsAfterForkPoint = gitCoreRepository.deriveCommitRange(pointedCommit, previousForkPoint.getCoreCommit(),
+          /* offset */ 0, /* limit */ COMMIT_LISTING_LIMIT + 1);
+      if (commitsAfterForkPoint.size() > COMMIT_LISTING_LIMIT) {
+        // Not worth checking commit by commit; it's cheaper to recompute the branch.
+        return true;
+      }
+      var commitIndex = deriveReflogCommitIndex();
+      return commitsAfterForkPoint.exists(commit -> commitIndex.getBranchesContaining(commit.getHash())
+          .exists(b -> changedRefFullNames.contains(b.getFullName())));
+    }
+
+    private @Nullable BaseManagedBranchSnapshot derivePreviousBranchToTakeOver(String branchName) {
+      var previous = previousSnapshot;
+      if (previous == null || branchNamesToRecompute.contains(branchName)) {
+        return null;
+      }
+      var previousBranch = previous.getManagedBranchByName(branchName).getOrNull();
+      return previousBranch instanceof BaseManagedBranchSnapshot ? (BaseManagedBranchSnapshot) previousBranch : null;
+    }
+
+    /**
+     * Note that a previous branch snapshot can only be reused as-is (and not just have its data taken over)
+     * if the same applies to its entire subtree, as the children and parent point to each other.
+     */
+    private boolean isSubtreeReusableAsIs(IBranchLayoutEntry entry, BaseManagedBranchSnapshot previousBranch) {
+      if (branchNamesToRecompute.contains(entry.getName())
+          || !entry.getCustomAnnotation().equals(previousBranch.getCustomAnnotation())
+          || !previousBranch.getStatusHookOutput().equals(Option.of(getStatusHookOutput(entry.getName())))
+          || previousBranch.isStatusHookOutputPending() != isStatusHookOutputPending(entry.getName())) {
+        return false;
+      }
+      var managedChildEntries = deriveManagedEntries(entry.getChildren());
+      var previousChildren = previousBranch.getChildren();
+      return managedChildEntries.size() == previousChildren.size()
+          && managedChildEntries.zip(previousChildren)
+              .forAll(entryAndPrevious -> entryAndPrevious._1.getName().equals(entryAndPrevious._2.getName())
+                  && isSubtreeReusableAsIs(entryAndPrevious._1, entryAndPrevious._2));
+    }
+
+    /**
+     * @return the given entries, with each entry of a non-existent (hence skipped) branch replaced with its managed children
+     */
+    private List<IBranchLayoutEntry> deriveManagedEntries(List<IBranchLayoutEntry> entries) {
+      return entries.flatMap(entry -> localBranchByName.containsKey(entry.getName())
+          ? List.of(entry)
+          : deriveManagedEntries(entry.getChildren()));
+    }
+
+    /**
+     * @return names of skipped branches in the subtree, in the same order as they'd be reported by a regular snapshot creation
+     */
+    private List<String> deriveSkippedBranchNames(IBranchLayoutEntry entry) {
+      var skippedInChildren = entry.getChildren().flatMap(this::deriveSkippedBranchNames);
+      return localBranchByName.containsKey(entry.getName()) ? skippedInChildren : skippedInChildren.append(entry.getName());
+    }
+
+    /**
+     * @return existing branches that are going to be created as non-root branches from scratch
+     *         (i.e. not taken over from the previous snapshot), in the order of the layout
+     */
+    private List<IGitCoreLocalBranchSnapshot> deriveNonRootBranchesToCreate(
+        List<IBranchLayoutEntry> entries,
+        boolean hasManagedParent) {
+      return entries.flatMap(entry -> {
+        IGitCoreLocalBranchSnapshot coreLocalBranch = localBranchByName.get(entry.getName()).getOrNull();
+        if (coreLocalBranch == null) {
+          return deriveNonRootBranchesToCreate(entry.getChildren(), hasManagedParent);
+        }
+        var branchesToCreateInSubtree = deriveNonRootBranchesToCreate(entry.getChildren(), /* hasManagedParent */ true);
+        boolean isToBeCreated = hasManagedParent
+            && (previousSnapshot == null || branchNamesToRecompute.contains(entry.getName()));
+        return isToBeCreated ? branchesToCreateInSubtree.prepend(coreLocalBranch) : branchesToCreateInSubtree;
+      });
+    }
+
+    /**
+     * @return hashes of the commits pointed by the existing branches (also the ones taken over from the previous snapshot,
+     *         as the outputs of their hooks might have arrived since)
+     */
+    private Map<String, String> deriveCommitHashByBranchName(List<IBranchLayoutEntry> entries) {
+      return entries.foldLeft(HashMap.<String, String>empty(), (commitHashByBranchName, entry) -> {
+        var commitHashByBranchNameInSubtree = commitHashByBranchName
+            .merge(deriveCommitHashByBranchName(entry.getChildren()));
+        IGitCoreLocalBranchSnapshot coreLocalBranch = localBranchByName.get(entry.getName()).getOrNull();
+        if (coreLocalBranch == null) {
+          return commitHashByBranchNameInSubtree;
+        }
+        return commitHashByBranchNameInSubtree.put(entry.getName(),
+            coreLocalBranch.getPointedCommit().getHash().getHashString());
+      });
+    }
+
+    private @Nullable String getStatusHookOutput(String branchName) {
+      return statusHookOutputByBranchName.get(branchName).flatMap(output -> output).getOrNull();
+    }
+
+    private boolean isStatusHookOutputPending(String branchName) {
+      return pendingStatusHookBranchNames.contains(branchName);
+    }
+
+    /**
+     * Snapshots are immutable, so the outputs of the hooks need to be known before any branch is created.
+     * The outputs that don't arrive within the time budget only make it to the snapshots created afterwards.
+     *
+     * @return a stage that completes once all the pending outputs are done, with {@code true} if any of them is non-empty
+     */
+    private CompletableFuture<Boolean> awaitStatusHookOutputs(
+        Map<String, CompletableFuture<Option<String>>> outputFutureByBranchName,
+        long launchMillis) {
+      StatusBranchHookExecutor.awaitWithinTimeBudget(outputFutureByBranchName.values(), launchMillis);
+
+      // Let's determine the pending ones first, so that no output completing in the meantime goes unnoticed.
+      var pendingOutputFutureByBranchName = outputFutureByBranchName.filterValues(future -> !future.isDone());
+      pendingStatusHookBranchNames = pendingOutputFutureByBranchName.keySet();
+      // These futures are already done (and never complete exceptionally), so this doesn't block.
+      statusHookOutputByBranchName = outputFutureByBranchName
+          .filterKeys(branchName -> !pendingStatusHookBranchNames.contains(branchName))
+          .mapValues(CompletableFuture::join);
+
+      return pendingOutputFutureByBranchName.values().foldLeft(CompletableFuture.completedFuture(false),
+          (isAnyOutputDefinedFuture, future) -> isAnyOutputDefinedFuture.thenCombine(future,
+              (isAnyOutputDefined, output) -> isAnyOutputDefined || output.isDefined()));
+    }
+
     IGitMacheteRepositorySnapshot createSnapshot(IBranchLayout branchLayout) throws GitMacheteException {
-      var rootBranchTries = branchLayout.getRootEntries().map(entry -> Try.of(() -> createGitMacheteRootBranch(entry)));
+      // Let's launch the hooks first, so that they run in the background while the reflogs are being indexed.
+      long statusHooksLaunchMillis = System.currentTimeMillis();
+      var statusHookOutputFutureByBranchName = statusHookExecutor
+          .launchHooksFor(deriveCommitHashByBranchName(branchLayout.getRootEntries()));
+
+      if (SNAPSHOT_BUILDING_POOL != null && (previousSnapshot == null || branchNamesToRecompute.nonEmpty())) {
+        // Let's derive this (shared by all branches) map upfront, so that the parallel tasks don't compete to do so.
+        try {
+          deriveReflogCommitIndex();
+        } catch (GitCoreException e) {
+          throw new GitMacheteException(e);
+        }
+      }
+      checkCanceled.run();
+      try {
+        inferredForkPointByBranchName = deriveParentAgnosticInferredForkPoints(
+            deriveNonRootBranchesToCreate(branchLayout.getRootEntries(), /* hasManagedParent */ false));
+      } catch (GitCoreException e) {
+        throw new GitMacheteException(e);
+      }
+      var pendingStatusHookOutputsCompletion = awaitStatusHookOutputs(statusHookOutputFutureByBranchName,
+          statusHooksLaunchMillis);
+
+      var rootBranchTries = createSubtrees(branchLayout.getRootEntries(), this::createGitMacheteRootBranch);
       var rootBranchCreationResults = Try.sequence(rootBranchTries).getOrElseThrow(GitMacheteException::getOrWrap).toList();
       var rootBranches = rootBranchCreationResults.flatMap(creationResult -> creationResult.getCreatedBranches());
       var skippedBranchNames = rootBranchCreationResults.flatMap(creationResult -> creationResult.getSkippedBranchNames());
@@ -339,7 +841,8 @@ public class GitMacheteRepository implements IGitMacheteRepository {
           Case($(), OngoingRepositoryOperation.NO_OPERATION));
 
       return new GitMacheteRepositorySnapshot(List.narrow(rootBranches), branchLayout, currentBranchIfManaged,
-          managedBranchByName, skippedBranchNames, preRebaseHookExecutor, ongoingOperation);
+          managedBranchByName, skippedBranchNames, preRebaseHookExecutor, ongoingOperation,
+          pendingStatusHookOutputsCompletion.minimalCompletionStage());
     }
 
     private Map<String, IManagedBranchSnapshot> createManagedBranchByNameMap(List<RootManagedBranchSnapshot> rootBranches) {
@@ -358,11 +861,12 @@ public class GitMacheteRepository implements IGitMacheteRepository {
     private CreatedAndSkippedBranches<RootManagedBranchSnapshot> createGitMacheteRootBranch(
         IBranchLayoutEntry entry) throws GitCoreException {
 
+      checkCanceled.run();
+
       var branchName = entry.getName();
       IGitCoreLocalBranchSnapshot coreLocalBranch = localBranchByName.get(branchName).getOrNull();
       if (coreLocalBranch == null) {
-        var childBranchTries = entry.getChildren()
-            .map(childEntry -> Try.of(() -> createGitMacheteRootBranch(childEntry)));
+        var childBranchTries = createSubtrees(entry.getChildren(), this::createGitMacheteRootBranch);
         var newRoots = Try.sequence(childBranchTries)
             .getOrElseThrow(GitCoreException::getOrWrap)
             .fold(CreatedAndSkippedBranches.empty(), CreatedAndSkippedBranches::merge);
@@ -371,6 +875,21 @@ public class GitMacheteRepository implements IGitMacheteRepository {
 
       var branchFullName = coreLocalBranch.getFullName();
 
+      var previousBranch = derivePreviousBranchToTakeOver(branchName);
+      if (previousBranch instanceof RootManagedBranchSnapshot) {
+        if (isSubtreeReusableAsIs(entry, previousBranch)) {
+          LOG.debug(() -> "Reusing the entire subtree of '${branchName}' from the previous snapshot");
+          return CreatedAndSkippedBranches.of((RootManagedBranchSnapshot) previousBranch, deriveSkippedBranchNames(entry));
+        }
+        LOG.debug(() -> "Taking over the data of '${branchName}' from the previous snapshot");
+        var childBranches = deriveChildBranches(coreLocalBranch, entry.getChildren());
+        var rootBranch = new RootManagedBranchSnapshot(branchName, branchFullName, childBranches.getCreatedBranches(),
+            previousBranch.getPointedCommit(), previousBranch.getRemoteTrackingBranch().getOrNull(),
+            previousBranch.getSyncToRemoteStatus(), entry.getCustomAnnotation().getOrNull(),
+            getStatusHookOutput(branchName), isStatusHookOutputPending(branchName));
+        return CreatedAndSkippedBranches.of(rootBranch, childBranches.getSkippedBranchNames());
+      }
+
       IGitCoreCommit corePointedCommit = coreLocalBranch.getPointedCommit();
 
       var pointedCommit = new CommitOfManagedBranch(corePointedCommit);
@@ -378,11 +897,10 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       var customAnnotation = entry.getCustomAnnotation().getOrNull();
       var childBranches = deriveChildBranches(coreLocalBranch, entry.getChildren());
       var remoteTrackingBranch = getRemoteTrackingBranchForCoreLocalBranch(coreLocalBranch);
-      var statusHookOutput = statusHookExecutor.deriveHookOutputFor(branchName, pointedCommit).getOrNull();
 
       var createdRootBranch = new RootManagedBranchSnapshot(branchName, branchFullName,
           childBranches.getCreatedBranches(), pointedCommit, remoteTrackingBranch, syncToRemoteStatus, customAnnotation,
-          statusHookOutput);
+          getStatusHookOutput(branchName), isStatusHookOutputPending(branchName));
       return CreatedAndSkippedBranches.of(createdRootBranch, childBranches.getSkippedBranchNames());
     }
 
@@ -390,6 +908,8 @@ public class GitMacheteRepository implements IGitMacheteRepository {
         IGitCoreLocalBranchSnapshot parentCoreLocalBranch,
         IBranchLayoutEntry entry) throws GitCoreException {
 
+      checkCanceled.run();
+
       var branchName = entry.getName();
       IGitCoreLocalBranchSnapshot coreLocalBranch = localBranchByName.get(branchName).getOrNull();
       if (coreLocalBranch == null) {
@@ -400,35 +920,51 @@ public class GitMacheteRepository implements IGitMacheteRepository {
 
       var branchFullName = coreLocalBranch.getFullName();
 
+      var previousBranch = derivePreviousBranchToTakeOver(branchName);
+      if (previousBranch instanceof NonRootManagedBranchSnapshot) {
+        LOG.debug(() -> "Taking over the data of '${branchName}' from the previous snapshot");
+        var previousNonRootBranch = (NonRootManagedBranchSnapshot) previousBranch;
+        var childBranches = deriveChildBranches(coreLocalBranch, entry.getChildren());
+        var nonRootBranch = new NonRootManagedBranchSnapshot(branchName, branchFullName, childBranches.getCreatedBranches(),
+            previousNonRootBranch.getPointedCommit(), previousNonRootBranch.getRemoteTrackingBranch().getOrNull(),
+            previousNonRootBranch.getSyncToRemoteStatus(), entry.getCustomAnnotation().getOrNull(),
+            getStatusHookOutput(branchName), isStatusHookOutputPending(branchName),
+            previousNonRootBranch.getForkPoint().getOrNull(),
+            previousNonRootBranch.getCommitRange(), previousNonRootBranch.getSyncToParentStatus());
+        return CreatedAndSkippedBranches.of(nonRootBranch, childBranches.getSkippedBranchNames());
+      }
+
       IGitCoreCommit corePointedCommit = coreLocalBranch.getPointedCommit();
 
       ForkPointCommitOfManagedBranch forkPoint = deriveParentAwareForkPoint(coreLocalBranch, parentCoreLocalBranch);
 
       var syncToParentStatus = deriveSyncToParentStatus(coreLocalBranch, parentCoreLocalBranch, forkPoint);
 
-      List<IGitCoreCommit> commits;
+      // Note that the commits of the range are only derived once asked for.
+      @Nullable IGitCoreCommit commitRangeUntilExclusive;
       if (forkPoint == null) {
         // That's a rare case in practice, mostly happens due to reflog expiry.
-        commits = List.empty();
+        commitRangeUntilExclusive = null;
       } else if (syncToParentStatus == SyncToParentStatus.InSyncButForkPointOff) {
         // In case of yellow edge, we include the entire range from the commit pointed by the branch until its parent,
         // and not until just its fork point. This makes it possible to highlight the fork point candidate on the commit listing.
-        commits = gitCoreRepository.deriveCommitRange(corePointedCommit, parentCoreLocalBranch.getPointedCommit());
+        commitRangeUntilExclusive = parentCoreLocalBranch.getPointedCommit();
       } else {
         // We're handling the cases of green, gray and red edges here.
-        commits = gitCoreRepository.deriveCommitRange(corePointedCommit, forkPoint.getCoreCommit());
+        commitRangeUntilExclusive = forkPoint.getCoreCommit();
       }
+      var commitRange = new CommitRangeOfManagedBranch(gitCoreRepository, corePointedCommit, commitRangeUntilExclusive,
+          COMMIT_LISTING_LIMIT);
 
       var pointedCommit = new CommitOfManagedBranch(corePointedCommit);
       var syncToRemoteStatus = deriveSyncToRemoteStatus(coreLocalBranch);
       var customAnnotation = entry.getCustomAnnotation().getOrNull();
       var childBranches = deriveChildBranches(coreLocalBranch, entry.getChildren());
       var remoteTrackingBranch = getRemoteTrackingBranchForCoreLocalBranch(coreLocalBranch);
-      var statusHookOutput = statusHookExecutor.deriveHookOutputFor(branchName, pointedCommit).getOrNull();
 
       var result = new NonRootManagedBranchSnapshot(branchName, branchFullName, childBranches.getCreatedBranches(),
-          pointedCommit, remoteTrackingBranch, syncToRemoteStatus, customAnnotation, statusHookOutput, forkPoint,
-          commits.map(CommitOfManagedBranch::new), syncToParentStatus);
+          pointedCommit, remoteTrackingBranch, syncToRemoteStatus, customAnnotation, getStatusHookOutput(branchName),
+          isStatusHookOutputPending(branchName), forkPoint, commitRange, syncToParentStatus);
       return CreatedAndSkippedBranches.of(result, childBranches.getSkippedBranchNames());
     }
 
@@ -460,7 +996,11 @@ public class GitMacheteRepository implements IGitMacheteRepository {
           "parentPointedCommit = ${parentPointedCommit.getHash().getHashString()}, " +
           "pointedCommit = ${pointedCommit.getHash().getHashString()}");
 
-      var isParentAncestorOfChild = gitCoreRepository.isAncestor(parentPointedCommit, pointedCommit);
+      // Both checks (if needed) are made against the parent, so they're answered in a single walk.
+      var isParentAncestorOfEach = isAncestorOfEach(parentPointedCommit, parentAgnosticForkPoint != null
+          ? List.of(pointedCommit, parentAgnosticForkPoint.getCoreCommit())
+          : List.of(pointedCommit));
+      var isParentAncestorOfChild = isParentAncestorOfEach.head();
 
       LOG.debug(() -> "Parent branch commit (${parentPointedCommit.getHash().getHashString()}) " +
           "is${isParentAncestorOfChild ? \"\" : \" NOT\"} ancestor of commit " +
@@ -468,8 +1008,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
 
       if (isParentAncestorOfChild) {
         if (parentAgnosticForkPoint != null) {
-          var isParentAncestorOfForkPoint = gitCoreRepository.isAncestor(parentPointedCommit,
-              parentAgnosticForkPoint.getCoreCommit());
+          var isParentAncestorOfForkPoint = isParentAncestorOfEach.last();
 
           if (!isParentAncestorOfForkPoint) {
             // If parent(A) is ancestor of A, and parent(A) is NOT ancestor of fork-point(A),
@@ -528,7 +1067,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       // Yes, that's not a bug. We're checking whether `whileDescendantOf` is a descendant of `to`, not the other way round.
       // The `descendant of` part of `whileDescendantOf` refers to the *current branch* being a descendant
       // of whatever `whileDescendantOf` points to.
-      if (!gitCoreRepository.isAncestor(to, whileDescendantOf)) {
+      if (!isAncestor(to, whileDescendantOf)) {
         LOG.warn("Commit <to> (${to}) is NOT an ancestor of " +
             "<whileDescendantOf> (${whileDescendantOf}), ignoring faulty fork point override");
         return null;
@@ -537,7 +1076,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       // Now we know that the override config is consistent, but it still doesn't mean
       // that it actually applies to the given branch AT THIS POINT (it could e.g. have applied earlier but now no longer applies).
       var branchCommit = coreLocalBranch.getPointedCommit();
-      if (!gitCoreRepository.isAncestor(whileDescendantOf, branchCommit)) {
+      if (!isAncestor(whileDescendantOf, branchCommit)) {
         LOG.debug(() -> "Branch ${branchName} (${branchCommit}) is NOT a descendant of " +
             "<whileDescendantOf> (${whileDescendantOf}), ignoring outdated fork point override");
         return null;
@@ -557,25 +1096,115 @@ public class GitMacheteRepository implements IGitMacheteRepository {
         throws GitCoreException {
       LOG.debug(() -> "Entering: branch = '${branch.getFullName()}'");
 
-      var forkPointAndContainingBranches = gitCoreRepository
-          .ancestorsOf(branch.getPointedCommit())
-          .map(commit -> {
-            var containingBranches = deriveBranchesContainingGivenCommitInReflog()
-                .getOrElse(commit.getHash(), List.empty())
-                .reject(candidateBranch -> {
-                  ILocalBranchReference correspondingLocalBranch = candidateBranch.isLocal()
-                      ? candidateBranch.asLocal()
-                      : candidateBranch.asRemote().getTrackedLocalBranch();
-                  return correspondingLocalBranch.getName().equals(branch.getName());
-                });
-            return Tuple.of(commit, containingBranches);
-          })
-          .find(commitAndContainingBranches -> commitAndContainingBranches._2.nonEmpty())
-          .getOrNull();
+      var inferredUpfront = inferredForkPointByBranchName.get(branch.getName()).getOrNull();
+      if (inferredUpfront != null) {
+        LOG.debug(() -> "Fork point for branch '${branch.getFullName()}' has been inferred upfront");
+        return inferredUpfront.getOrNull();
+      }
 
-      if (forkPointAndContainingBranches != null) {
-        var forkPoint = forkPointAndContainingBranches._1;
-        var containingBranches = forkPointAndContainingBranches._2.toList();
+      var cachedForkPoint = derivePersistedForkPoint(branch);
+      if (cachedForkPoint.isDefined()) {
+        return deriveInferredForkPoint(branch, cachedForkPoint.get().getOrNull());
+      }
+
+      var commitIndex = deriveReflogCommitIndex();
+      var result = gitCoreRepository.findFirstAncestor(branch.getPointedCommit(), commit -> {
+        checkCanceled.run();
+        return rejectBranchAndItsRemote(commitIndex.getBranchesContaining(commit.getHash()), branch.getName()).nonEmpty();
+      }, deriveReflogGenerationFloor(), FORK_POINT_SEARCH_BUDGET);
+      return deriveInferredForkPointAndPersist(branch, result);
+    }
+
+    /**
+     * @return empty if the fork point has not been persisted (or is no longer valid),
+     *         or some (possibly empty) fork point otherwise
+     */
+    private Option<Option<IGitCoreCommit>> derivePersistedForkPoint(IGitCoreLocalBranchSnapshot branch)
+        throws GitCoreException {
+      if (!derivationCache.isEnabled()) {
+        return Option.none();
+      }
+      var cachedForkPointHashString = derivationCache.getForkPointHashString(branch.getName(),
+          branch.getPointedCommit().getHash(), deriveReflogFingerprint(branch.getName())).getOrNull();
+      if (cachedForkPointHashString == null) {
+        return Option.none();
+      }
+      if (cachedForkPointHashString.isEmpty()) {
+        return Option.some(Option.none());
+      }
+      // The commit might no longer exist (e.g. after `git gc`), in which case the fork point simply needs to be derived again.
+      return Try.of(() -> gitCoreRepository.parseRevision(cachedForkPointHashString.get()))
+          .getOrElse(Option.none())
+          .map(Option::some);
+    }
+
+    private @Nullable ForkPointCommitOfManagedBranch deriveInferredForkPointAndPersist(
+        IGitCoreLocalBranchSnapshot branch,
+        GitCoreAncestorSearchResult result) throws GitCoreException {
+      if (result.getOutcome() == GitCoreAncestorSearchResult.Outcome.NotFoundWithinBudget) {
+        // Not persisted, since the outcome depends on the budget (and on the machine).
+        LOG.warn("Fork point of ${branch.getName()} not found within ${FORK_POINT_SEARCH_BUDGET}; treating it as not found");
+      } else if (derivationCache.isEnabled()) {
+        var foundCommit = result.getFoundCommit();
+        derivationCache.putForkPoint(branch.getName(), branch.getPointedCommit().getHash(),
+            deriveReflogFingerprint(branch.getName()), foundCommit != null ? foundCommit.getHash() : null);
+      }
+      return deriveInferredForkPoint(branch, result.getFoundCommit());
+    }
+
+    /**
+     * A batch counterpart of {@link #deriveParentAgnosticInferredForkPoint} that walks the shared history
+     * of all the given branches just once, rather than once per branch.
+     */
+    private Map<String, Option<ForkPointCommitOfManagedBranch>> deriveParentAgnosticInferredForkPoints(
+        List<IGitCoreLocalBranchSnapshot> branches) throws GitCoreException {
+      if (branches.isEmpty()) {
+        return HashMap.empty();
+      }
+      LOG.debug(() -> "Entering: branches = ${branches.map(b -> b.getName()).mkString(\", \")}");
+
+      Map<String, Option<ForkPointCommitOfManagedBranch>> persistedForkPointByBranchName = HashMap.empty();
+      List<IGitCoreLocalBranchSnapshot> branchesToSearch = List.empty();
+      for (var branch : branches) {
+        var persistedForkPoint = derivePersistedForkPoint(branch);
+        if (persistedForkPoint.isDefined()) {
+          persistedForkPointByBranchName = persistedForkPointByBranchName.put(branch.getName(),
+              Option.of(deriveInferredForkPoint(branch, persistedForkPoint.get().getOrNull())));
+        } else {
+          branchesToSearch = branchesToSearch.append(branch);
+        }
+      }
+      int persistedForkPointCount = persistedForkPointByBranchName.size();
+      LOG.debug(() -> "Fork points of ${persistedForkPointCount} branch(es) found in the derivation cache");
+      if (branchesToSearch.isEmpty()) {
+        return persistedForkPointByBranchName;
+      }
+
+      var commitIndex = deriveReflogCommitIndex();
+      Vector<String> branchNames = branchesToSearch.map(b -> b.getName()).toVector();
+      var results = gitCoreRepository.findFirstAncestors(branchesToSearch.map(b -> b.getPointedCommit()), commit -> {
+        checkCanceled.run();
+        var containingBranches = commitIndex.getBranchesContaining(commit.getHash());
+        if (containingBranches.isEmpty()) {
+          return branchIndex -> false;
+        }
+        return branchIndex -> rejectBranchAndItsRemote(containingBranches, branchNames.get(branchIndex)).nonEmpty();
+      }, deriveReflogGenerationFloor(), FORK_POINT_SEARCH_BUDGET);
+
+      var inferredForkPointByBranchName = persistedForkPointByBranchName;
+      for (var branchAndResult : branchesToSearch.zip(results)) {
+        inferredForkPointByBranchName = inferredForkPointByBranchName.put(branchAndResult._1.getName(),
+            Option.of(deriveInferredForkPointAndPersist(branchAndResult._1, branchAndResult._2)));
+      }
+      return inferredForkPointByBranchName;
+    }
+
+    private @Nullable ForkPointCommitOfManagedBranch deriveInferredForkPoint(
+        IGitCoreLocalBranchSnapshot branch,
+        @Nullable IGitCoreCommit forkPoint) throws GitCoreException {
+      if (forkPoint != null) {
+        var containingBranches = rejectBranchAndItsRemote(
+            deriveReflogCommitIndex().getBranchesContaining(forkPoint.getHash()), branch.getName());
         LOG.debug(() -> "Commit ${forkPoint} found in filtered reflog(s) of ${containingBranches.mkString(\", \")}; " +
             "returning as fork point for branch '${branch.getFullName()}'");
         return ForkPointCommitOfManagedBranch.inferred(forkPoint, containingBranches);
@@ -585,17 +1214,59 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       }
     }
 
+    /**
+     * @return the given branches except for the given local branch and its remote tracking branch
+     */
+    private static List<IBranchReference> rejectBranchAndItsRemote(List<IBranchReference> branches, String localBranchName) {
+      return branches.reject(candidateBranch -> {
+        ILocalBranchReference correspondingLocalBranch = candidateBranch.isLocal()
+            ? candidateBranch.asLocal()
+            : candidateBranch.asRemote().getTrackedLocalBranch();
+        return correspondingLocalBranch.getName().equals(localBranchName);
+      });
+    }
+
     private CreatedAndSkippedBranches<NonRootManagedBranchSnapshot> deriveChildBranches(
         IGitCoreLocalBranchSnapshot parentCoreLocalBranch,
         List<IBranchLayoutEntry> entries) throws GitCoreException {
 
-      var childBranchTries = entries.map(entry -> Try.of(
-          () -> createGitMacheteNonRootBranch(parentCoreLocalBranch, entry)));
+      var childBranchTries = createSubtrees(entries, entry -> createGitMacheteNonRootBranch(parentCoreLocalBranch, entry));
       return Try.sequence(childBranchTries)
           .getOrElseThrow(GitCoreException::getOrWrap)
           .fold(CreatedAndSkippedBranches.empty(), CreatedAndSkippedBranches::merge);
     }
 
+    /**
+     * Sibling subtrees are independent of each other, so (unless parallel snapshot building is turned off)
+     * they're created concurrently in a dedicated, bounded fork-join pool.
+     * Regardless of that, the results are always returned in the order of {@code entries}.
+     */
+    private <T> List<Try<T>> createSubtrees(
+        List<IBranchLayoutEntry> entries,
+        CheckedFunction1<IBranchLayoutEntry, T> createSubtree) {
+      var pool = SNAPSHOT_BUILDING_POOL;
+      if (pool == null || entries.size() < 2) {
+        return entries.map(entry -> Try.of(() -> createSubtree.apply(entry)));
+      }
+      if (!pool.equals(ForkJoinTask.getPool())) {
+        // That's the outermost call, which does not run in the pool yet.
+        return pool.invoke(ForkJoinTask.adapt(() -> createSubtrees(entries, createSubtree)));
+      }
+      List<ForkJoinTask<Try<T>>> tasks = entries
+          .map(entry -> ForkJoinTask.adapt(() -> createSubtreeInWalkSession(entry, createSubtree)).fork());
+      return tasks.map(ForkJoinTask::join);
+    }
+
+    private <T> Try<T> createSubtreeInWalkSession(
+        IBranchLayoutEntry entry,
+        CheckedFunction1<IBranchLayoutEntry, T> createSubtree) {
+      // Walk sessions are thread-bound, so each task needs to open its own.
+      // Nested tasks executed by the same worker thread (e.g. when joining) simply reuse the session.
+      try (var walkSession = gitCoreRepository.openWalkSession()) {
+        return Try.of(() -> createSubtree.apply(entry));
+      }
+    }
+
     private SyncToRemoteStatus deriveSyncToRemoteStatus(IGitCoreLocalBranchSnapshot coreLocalBranch) throws GitCoreException {
       String localBranchName = coreLocalBranch.getName();
       LOG.debug(() -> "Entering: coreLocalBranch = '${localBranchName}'");
@@ -611,9 +1282,8 @@ public class GitMacheteRepository implements IGitMacheteRepository {
         return SyncToRemoteStatus.untracked();
       }
 
-      GitCoreRelativeCommitCount relativeCommitCount = gitCoreRepository
-          .deriveRelativeCommitCount(coreLocalBranch.getPointedCommit(), coreRemoteBranch.getPointedCommit())
-          .getOrNull();
+      GitCoreRelativeCommitCount relativeCommitCount = deriveRelativeCommitCount(coreLocalBranch.getPointedCommit(),
+          coreRemoteBranch.getPointedCommit()).getOrNull();
       if (relativeCommitCount == null) {
         LOG.debug(() -> "Relative commit count for '${localBranchName}' could not be determined");
         return SyncToRemoteStatus.untracked();
@@ -648,7 +1318,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       return syncToRemoteStatus;
     }
 
-    private boolean hasJustBeenCreated(IGitCoreLocalBranchSnapshot branch) {
+    private boolean hasJustBeenCreated(IGitCoreLocalBranchSnapshot branch) throws GitCoreException {
       List<IGitCoreReflogEntry> reflog = deriveFilteredReflog(branch);
       return reflog.isEmpty() || reflog.head().getOldCommitHash().isEmpty();
     }
@@ -680,7 +1350,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
           return SyncToParentStatus.MergedToParent;
         }
       } else {
-        var isParentAncestorOfChild = gitCoreRepository.isAncestor(
+        var isParentAncestorOfChild = isAncestor(
             /* presumedAncestor */ parentPointedCommit, /* presumedDescendant */ pointedCommit);
 
         if (isParentAncestorOfChild) {
@@ -698,7 +1368,7 @@ public class GitMacheteRepository implements IGitMacheteRepository {
             return SyncToParentStatus.InSyncButForkPointOff;
           }
         } else {
-          var isChildAncestorOfParent = gitCoreRepository.isAncestor(
+          var isChildAncestorOfParent = isAncestor(
               /* presumedAncestor */ pointedCommit, /* presumedDescendant */ parentPointedCommit);
 
           if (isChildAncestorOfParent) {
@@ -727,8 +1397,10 @@ public class GitMacheteRepository implements IGitMacheteRepository {
     DiscoverGitMacheteRepositoryAux(
         IGitCoreRepository gitCoreRepository,
         StatusBranchHookExecutor statusHookExecutor,
-        PreRebaseHookExecutor preRebaseHookExecutor) throws GitCoreException {
-      super(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor);
+        PreRebaseHookExecutor preRebaseHookExecutor,
+        AtomicReference<ReflogCommitIndex> sharedReflogCommitIndex,
+        PersistentDerivationCache derivationCache) throws GitCoreException {
+      super(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor, sharedReflogCommitIndex, derivationCache);
     }
 
     @AllArgsConstructor // needed for @With
@@ -798,17 +1470,36 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       }
     }
 
-    private Map<String, Instant> deriveLastCheckoutTimestampByBranchName() throws GitCoreException {
+    /**
+     * @return the timestamps of the most recent checkouts of branches, including (at least) the timestamps of
+     *         {@code freshBranchCount} most recently checked out branches out of {@code branchNames};
+     *         HEAD reflog is only read as far as necessary to determine these
+     */
+    private Map<String, Instant> deriveLastCheckoutTimestampByBranchName(Set<String> branchNames, int freshBranchCount)
+        throws GitCoreException {
       java.util.Map<String, Instant> result = new java.util.HashMap<>();
+      int foundBranchCount = 0;
+      @Nullable Instant cutoffTimestamp = null;
 
-      for (var reflogEntry : gitCoreRepository.deriveHead().getReflogFromMostRecent()) {
+      for (var reflogEntry : gitCoreRepository.deriveHead().iterateReflogFromMostRecent()) {
         var checkoutEntry = reflogEntry.parseCheckout().getOrNull();
         if (checkoutEntry != null) {
           var timestamp = reflogEntry.getTimestamp();
+          // Entries with the same timestamp as the one that completed the fresh branches still need to be read,
+          // so that the ties are resolved in the same way as if the entire reflog was read.
+          if (cutoffTimestamp != null && timestamp.isBefore(cutoffTimestamp)) {
+            break;
+          }
           // `putIfAbsent` since we only care about the most recent occurrence of the given branch being checked out,
           // and we iterate over the reflog starting from the latest entries.
-          result.putIfAbsent(checkoutEntry.getFromBranchName(), timestamp);
-          result.putIfAbsent(checkoutEntry.getToBranchName(), timestamp);
+          for (String branchName : List.of(checkoutEntry.getFromBranchName(), checkoutEntry.getToBranchName())) {
+            if (result.putIfAbsent(branchName, timestamp) == null && branchNames.contains(branchName)) {
+              foundBranchCount++;
+            }
+          }
+          if (cutoffTimestamp == null && foundBranchCount >= freshBranchCount) {
+            cutoffTimestamp = timestamp;
+          }
         }
       }
       return HashMap.ofAll(result);
@@ -839,7 +1530,8 @@ public class GitMacheteRepository implements IGitMacheteRepository {
       if (nonFixedRootBranchNames.size() <= mostRecentlyCheckedOutBranchesCount) {
         freshNonFixedRootBranchNames = nonFixedRootBranchNames;
       } else {
-        Map<String, Instant> lastCheckoutTimestampByBranchName = deriveLastCheckoutTimestampByBranchName();
+        Map<String, Instant> lastCheckoutTimestampByBranchName = deriveLastCheckoutTimestampByBranchName(
+            HashSet.ofAll(nonFixedRootBranchNames), mostRecentlyCheckedOutBranchesCount);
 
         var freshAndStaleNonFixedRootBranchNames = nonFixedRootBranchNames
             .sortBy(branchName -> lastCheckoutTimestampByBranchName.getOrElse(branchName, Instant.MIN))
@@ -1,7 +1,7 @@
 package com.virtuslab.gitmachete.backend.impl;
 
 import java.nio.file.Path;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
@@ -13,6 +13,7 @@ import com.virtuslab.gitcore.api.IGitCoreRepositoryFactory;
 import com.virtuslab.gitmachete.backend.api.GitMacheteException;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryCache;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime;
 import com.virtuslab.gitmachete.backend.impl.hooks.PreRebaseHookExecutor;
 import com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookExecutor;
 
@@ -20,7 +21,9 @@ public class GitMacheteRepositoryCache implements IGitMacheteRepositoryCache {
 
   private final IGitCoreRepositoryFactory gitCoreRepositoryFactory;
 
-  private static final java.util.Map<Tuple2<Path, Path>, GitMacheteRepository> gitMacheteRepositoryCache = new WeakHashMap<>();
+  // Repositories are kept until evicted explicitly, since they need to be disposed of anyway.
+  private static final java.util.Map<Tuple2<Path, Path>, GitMacheteRepository> gitMacheteRepositoryCache =
+      new ConcurrentHashMap<>();
 
   public GitMacheteRepositoryCache() {
     gitCoreRepositoryFactory = RuntimeBinding.instantiateSoleImplementingClass(IGitCoreRepositoryFactory.class);
@@ -29,14 +32,31 @@ public class GitMacheteRepositoryCache implements IGitMacheteRepositoryCache {
   @Override
   public IGitMacheteRepository getInstance(Path mainDirectoryPath, Path gitDirectoryPath) throws GitMacheteException {
     var key = Tuple.of(mainDirectoryPath, gitDirectoryPath);
-    if (!gitMacheteRepositoryCache.containsKey(key)) {
-      var gitCoreRepository = createGitCoreRepository(mainDirectoryPath, gitDirectoryPath);
-      var statusHookExecutor = new StatusBranchHookExecutor(mainDirectoryPath, gitDirectoryPath);
-      var preRebaseHookExecutor = new PreRebaseHookExecutor(mainDirectoryPath, gitDirectoryPath);
-      var value = new GitMacheteRepository(gitCoreRepository, statusHookExecutor, preRebaseHookExecutor);
-      gitMacheteRepositoryCache.put(key, value);
+    var cachedValue = gitMacheteRepositoryCache.get(key);
+    if (cachedValue != null) {
+      return cachedValue;
+    }
+    var gitCoreRepository = createGitCoreRepository(mainDirectoryPath, gitDirectoryPath);
+    var hookRuntime = new HookRuntime(mainDirectoryPath, gitDirectoryPath, gitCoreRepository);
+    var statusHookExecutor = new StatusBranchHookExecutor(hookRuntime, gitDirectoryPath);
+    var preRebaseHookExecutor = new PreRebaseHookExecutor(hookRuntime);
+    var derivationCache = PersistentDerivationCache.load(gitDirectoryPath);
+    var value = new GitMacheteRepository(gitCoreRepository, hookRuntime, statusHookExecutor, preRebaseHookExecutor,
+        derivationCache);
+    var concurrentlyCachedValue = gitMacheteRepositoryCache.putIfAbsent(key, value);
+    if (concurrentlyCachedValue != null) {
+      value.dispose();
+      return concurrentlyCachedValue;
+    }
+    return value;
+  }
+
+  @Override
+  public void evict(Path mainDirectoryPath, Path gitDirectoryPath) {
+    var value = gitMacheteRepositoryCache.remove(Tuple.of(mainDirectoryPath, gitDirectoryPath));
+    if (value != null) {
+      value.dispose();
     }
-    return gitMacheteRepositoryCache.get(key);
   }
 
   private IGitCoreRepository createGitCoreRepository(Path mainDirectoryPath, Path gitDirectoryPath) throws GitMacheteException {
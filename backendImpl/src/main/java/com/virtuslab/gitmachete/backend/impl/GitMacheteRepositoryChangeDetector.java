@@ -0,0 +1,112 @@
+package com.virtuslab.gitmachete.backend.impl;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import lombok.CustomLog;
+import lombok.Data;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.GitCoreFileStamp;
+import com.virtuslab.gitcore.api.GitCoreRefStateFingerprint;
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitmachete.backend.api.GitMacheteException;
+import com.virtuslab.gitmachete.backend.api.GitMacheteRepositoryChanges;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryChangeDetector;
+
+@CustomLog
+public class GitMacheteRepositoryChangeDetector implements IGitMacheteRepositoryChangeDetector {
+
+  private static final String LOCAL_BRANCH_FULL_NAME_PREFIX = "refs/heads/";
+
+  private final IGitCoreRepository gitCoreRepository;
+  private final Path branchLayoutFilePath;
+
+  // Concurrent calls to `detectChanges` are allowed; each change is going to be reported by at least one of them.
+  private final AtomicReference<@Nullable ObservedState> lastObservedState = new AtomicReference<>(null);
+
+  public GitMacheteRepositoryChangeDetector(IGitCoreRepository gitCoreRepository, Path branchLayoutFilePath) {
+    this.gitCoreRepository = gitCoreRepository;
+    this.branchLayoutFilePath = branchLayoutFilePath;
+  }
+
+  @Data(staticConstructor = "of")
+  private static class ObservedState {
+    private final GitCoreRefStateFingerprint refStateFingerprint;
+    private final Option<GitCoreFileStamp> branchLayoutFileStamp;
+  }
+
+  @Override
+  public GitMacheteRepositoryChanges detectChanges() throws GitMacheteException {
+    LOG.startTimer().debug("Entering");
+    ObservedState currentState;
+    try {
+      currentState = ObservedState.of(gitCoreRepository.deriveRefStateFingerprint(), deriveBranchLayoutFileStamp());
+    } catch (GitCoreException e) {
+      throw new GitMacheteException(e);
+    }
+    ObservedState previousState = lastObservedState.getAndSet(currentState);
+
+    var result = previousState != null
+        ? diff(previousState, currentState)
+        : GitMacheteRepositoryChanges.fullRefresh();
+    LOG.withTimeElapsed().debug(() -> "Detected changes: ${result}");
+    return result;
+  }
+
+  private Option<GitCoreFileStamp> deriveBranchLayoutFileStamp() {
+    var file = branchLayoutFilePath.toFile();
+    return file.isFile() ? Option.some(GitCoreFileStamp.of(file.length(), file.lastModified())) : Option.none();
+  }
+
+  private static GitMacheteRepositoryChanges diff(ObservedState previousState, ObservedState currentState) {
+    var previous = previousState.getRefStateFingerprint();
+    var current = currentState.getRefStateFingerprint();
+
+    if (!previous.getRemoteNames().equals(current.getRemoteNames())) {
+      LOG.debug("The set of remotes has changed");
+      return GitMacheteRepositoryChanges.fullRefresh();
+    }
+
+    Set<String> refsWithChangedPointedCommit = deriveKeysWithChangedValues(
+        previous.getPointedCommitHashByRefFullName(), current.getPointedCommitHashByRefFullName());
+    Set<String> refsWithChangedReflog = deriveKeysWithChangedValues(
+        previous.getReflogStampByRefFullName(), current.getReflogStampByRefFullName());
+    Set<String> branchesWithChangedRemoteTrackingBranch = deriveKeysWithChangedValues(
+        previous.getRemoteTrackingRefFullNameByLocalBranchName(), current.getRemoteTrackingRefFullNameByLocalBranchName());
+    Set<String> branchesWithChangedForkPointOverride = deriveKeysWithChangedValues(
+        previous.getForkPointOverrideConfigByLocalBranchName(), current.getForkPointOverrideConfigByLocalBranchName());
+
+    // HEAD reflog is relevant for discover, but isn't related to any specific branch
+    Set<String> changedRefFullNames = refsWithChangedPointedCommit.addAll(refsWithChangedReflog).remove("HEAD")
+        .addAll(branchesWithChangedForkPointOverride.map(branchName -> LOCAL_BRANCH_FULL_NAME_PREFIX + branchName));
+
+    var remoteTrackingRefFullNameByLocalBranchName = previous.getRemoteTrackingRefFullNameByLocalBranchName()
+        .merge(current.getRemoteTrackingRefFullNameByLocalBranchName());
+    Set<String> branchesWithChangedRemoteTrackingRef = remoteTrackingRefFullNameByLocalBranchName
+        .filter(branchAndRemoteTrackingRef -> changedRefFullNames.contains(branchAndRemoteTrackingRef._2))
+        .keySet();
+    Set<String> dirtyBranchNames = changedRefFullNames
+        .filter(refFullName -> refFullName.startsWith(LOCAL_BRANCH_FULL_NAME_PREFIX))
+        .map(refFullName -> refFullName.substring(LOCAL_BRANCH_FULL_NAME_PREFIX.length()))
+        .addAll(branchesWithChangedRemoteTrackingBranch)
+        .addAll(branchesWithChangedRemoteTrackingRef);
+
+    boolean isBranchLayoutFileChanged = !previousState.getBranchLayoutFileStamp()
+        .equals(currentState.getBranchLayoutFileStamp());
+    boolean isHeadChanged = !previous.getHeadTarget().equals(current.getHeadTarget())
+        || refsWithChangedReflog.contains("HEAD");
+
+    return GitMacheteRepositoryChanges.of(/* isFullRefreshRequired */ false, isBranchLayoutFileChanged, isHeadChanged,
+        changedRefFullNames, dirtyBranchNames);
+  }
+
+  private static <V> Set<String> deriveKeysWithChangedValues(Map<String, V> previous, Map<String, V> current) {
+    return previous.keySet().addAll(current.keySet())
+        .filter(key -> !previous.get(key).equals(current.get(key)));
+  }
+}
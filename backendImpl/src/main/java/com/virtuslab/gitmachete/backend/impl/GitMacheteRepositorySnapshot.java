@@ -1,5 +1,7 @@
 package com.virtuslab.gitmachete.backend.impl;
 
+import java.util.concurrent.CompletionStage;
+
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
@@ -37,6 +39,9 @@ public class GitMacheteRepositorySnapshot implements IGitMacheteRepositorySnapsh
   @Getter
   private final OngoingRepositoryOperation ongoingRepositoryOperation;
 
+  @Getter
+  private final CompletionStage<Boolean> pendingStatusHookOutputsCompletion;
+
   @Override
   public Option<IBranchLayout> getBranchLayout() {
     return Option.of(branchLayout);
@@ -2,12 +2,16 @@ package com.virtuslab.gitmachete.backend.impl;
 
 import io.vavr.collection.List;
 import io.vavr.control.Option;
+import lombok.AccessLevel;
 import lombok.CustomLog;
 import lombok.Getter;
 import lombok.ToString;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitmachete.backend.api.CommitCount;
+import com.virtuslab.gitmachete.backend.api.GitMacheteException;
 import com.virtuslab.gitmachete.backend.api.GitMacheteMissingForkPointException;
 import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
 import com.virtuslab.gitmachete.backend.api.IForkPointCommitOfManagedBranch;
@@ -26,7 +30,10 @@ public final class NonRootManagedBranchSnapshot extends BaseManagedBranchSnapsho
 
   private @MonotonicNonNull IManagedBranchSnapshot parent = null;
   private final @Nullable IForkPointCommitOfManagedBranch forkPoint;
-  private final List<ICommitOfManagedBranch> commits;
+  // Lazily derived, so excluded from `toString` (which would otherwise trigger deriving the commits upon creation).
+  @Getter(AccessLevel.PACKAGE)
+  @ToString.Exclude
+  private final CommitRangeOfManagedBranch commitRange;
   private final SyncToParentStatus syncToParentStatus;
 
   @ToString.Include(name = "parent") // avoid recursive `toString` call on parent branch to avoid stack overflow
@@ -43,14 +50,15 @@ public final class NonRootManagedBranchSnapshot extends BaseManagedBranchSnapsho
       SyncToRemoteStatus syncToRemoteStatus,
       @Nullable String customAnnotation,
       @Nullable String statusHookOutput,
+      boolean isStatusHookOutputPending,
       @Nullable IForkPointCommitOfManagedBranch forkPoint,
-      List<ICommitOfManagedBranch> commits,
+      CommitRangeOfManagedBranch commitRange,
       SyncToParentStatus syncToParentStatus) {
     super(name, fullName, children, pointedCommit, remoteTrackingBranch, syncToRemoteStatus, customAnnotation,
-        statusHookOutput);
+        statusHookOutput, isStatusHookOutputPending);
 
     this.forkPoint = forkPoint;
-    this.commits = commits;
+    this.commitRange = commitRange;
     this.syncToParentStatus = syncToParentStatus;
 
     LOG.debug("Creating ${this}");
@@ -70,6 +78,25 @@ public final class NonRootManagedBranchSnapshot extends BaseManagedBranchSnapsho
     parent = givenParentBranch;
   }
 
+  @Override
+  public List<ICommitOfManagedBranch> getCommits() {
+    return commitRange.getCommits();
+  }
+
+  @Override
+  public List<ICommitOfManagedBranch> getCommits(int offset, int limit) throws GitMacheteException {
+    try {
+      return commitRange.getCommits(offset, limit);
+    } catch (GitCoreException e) {
+      throw new GitMacheteException("Cannot get commits of branch '${getName()}'", e);
+    }
+  }
+
+  @Override
+  public CommitCount getCommitCount() {
+    return commitRange.getCommitCount();
+  }
+
   @Override
   public Option<IForkPointCommitOfManagedBranch> getForkPoint() {
     return Option.of(forkPoint);
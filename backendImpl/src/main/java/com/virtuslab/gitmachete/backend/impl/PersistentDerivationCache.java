@@ -0,0 +1,357 @@
+package com.virtuslab.gitmachete.backend.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.AccessLevel;
+import lombok.CustomLog;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitmachete.backend.api.IBranchReference;
+
+/**
+ * Results of the derivations that never change for the given input (and hence can survive IDE restarts):
+ * <ul>
+ *   <li>whether a commit is an ancestor of another commit,</li>
+ *   <li>the numbers of commits a commit is ahead of/behind another commit,</li>
+ *   <li>the (parent-agnostic, inferred) fork point of a branch, for the given tip and the given filtered reflogs
+ *       of all the other branches (see {@link #fingerprintReflog}).</li>
+ * </ul>
+ *
+ * The results are kept in bounded in-memory caches, and persisted to {@code .git/machete-cache/derivations.bin}
+ * by a background thread once {@link #scheduleSave} is called.
+ * A {@link #disabled} instance (used when persistence is turned off) neither stores nor returns anything,
+ * since the results are cached in memory by {@link com.virtuslab.gitcore.api.IGitCoreRepository} anyway.
+ * The file is versioned and checksummed (see {@link CacheFiles}); a file of an unknown version or a corrupted file
+ * is simply ignored.
+ */
+@CustomLog
+@ToString(onlyExplicitlyIncluded = true)
+final class PersistentDerivationCache {
+
+  private static final String FILE_NAME = "derivations.bin";
+
+  private static final int MAGIC = 0x474d4443; // "GMDC"
+  // To be bumped whenever the format (or the semantics of any of the derivations) changes.
+  private static final int VERSION = 2;
+
+  private static final int MAX_IS_ANCESTOR_ENTRY_COUNT = 100_000;
+  private static final int MAX_RELATIVE_COMMIT_COUNT_ENTRY_COUNT = 20_000;
+  private static final int MAX_FORK_POINT_ENTRY_COUNT = 20_000;
+  // Way more than the entries above can take up; anything larger must be corrupted.
+  private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+  private static final int HASH_WORD_COUNT = IGitCoreCommitHash.HASH_WORD_COUNT;
+  private static final int[] NONE = new int[0];
+
+  @ToString.Include
+  private final @Nullable Path filePath;
+  private final AtomicBoolean isDirty = new AtomicBoolean(false);
+
+  private final Cache<CommitPair, Boolean> isAncestorByCommitPair = Caffeine.newBuilder()
+      .maximumSize(MAX_IS_ANCESTOR_ENTRY_COUNT).build();
+  // Values are either empty (no common ancestor) or consist of ahead and behind counts.
+  private final Cache<CommitPair, int[]> relativeCommitCountByCommitPair = Caffeine.newBuilder()
+      .maximumSize(MAX_RELATIVE_COMMIT_COUNT_ENTRY_COUNT).build();
+  // Values are either empty (no fork point) or consist of the words of the fork point hash.
+  private final Cache<ForkPointKey, int[]> forkPointByKey = Caffeine.newBuilder()
+      .maximumSize(MAX_FORK_POINT_ENTRY_COUNT).build();
+
+  private PersistentDerivationCache(@Nullable Path filePath) {
+    this.filePath = filePath;
+  }
+
+  static PersistentDerivationCache disabled() {
+    return new PersistentDerivationCache(/* filePath */ null);
+  }
+
+  static PersistentDerivationCache load(Path gitDirectoryPath) {
+    if (!CacheFiles.IS_PERSISTENCE_ENABLED) {
+      return disabled();
+    }
+    var result = new PersistentDerivationCache(CacheFiles.resolve(gitDirectoryPath, FILE_NAME));
+    result.read();
+    return result;
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  private static final class CommitPair {
+    private final int[] words;
+
+    static CommitPair of(IGitCoreCommitHash first, IGitCoreCommitHash second) {
+      var words = new int[2 * HASH_WORD_COUNT];
+      for (int i = 0; i < HASH_WORD_COUNT; i++) {
+        words[i] = first.getHashWord(i);
+        words[HASH_WORD_COUNT + i] = second.getHashWord(i);
+      }
+      return new CommitPair(words);
+    }
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  private static final class ForkPointKey {
+    private final String branchName;
+    private final int[] tipWords;
+    private final long reflogFingerprint;
+  }
+
+  boolean isEnabled() {
+    return filePath != null;
+  }
+
+  Option<Boolean> getIsAncestor(IGitCoreCommitHash presumedAncestor, IGitCoreCommitHash presumedDescendant) {
+    if (!isEnabled()) {
+      return Option.none();
+    }
+    return Option.of(isAncestorByCommitPair.getIfPresent(CommitPair.of(presumedAncestor, presumedDescendant)));
+  }
+
+  void putIsAncestor(IGitCoreCommitHash presumedAncestor, IGitCoreCommitHash presumedDescendant, boolean isAncestor) {
+    if (!isEnabled()) {
+      return;
+    }
+    isAncestorByCommitPair.put(CommitPair.of(presumedAncestor, presumedDescendant), isAncestor);
+    isDirty.set(true);
+  }
+
+  /**
+   * @return empty if the count is not known, or some empty option if the commits are known to have no common ancestor
+   */
+  Option<Option<GitCoreRelativeCommitCount>> getRelativeCommitCount(
+      IGitCoreCommitHash fromPerspectiveOf,
+      IGitCoreCommitHash asComparedTo) {
+    if (!isEnabled()) {
+      return Option.none();
+    }
+    return Option.of(relativeCommitCountByCommitPair.getIfPresent(CommitPair.of(fromPerspectiveOf, asComparedTo)))
+        .map(counts -> counts.length == 2
+            ? Option.some(GitCoreRelativeCommitCount.of(counts[0], counts[1]))
+            : Option.<GitCoreRelativeCommitCount>none());
+  }
+
+  void putRelativeCommitCount(
+      IGitCoreCommitHash fromPerspectiveOf,
+      IGitCoreCommitHash asComparedTo,
+      Option<GitCoreRelativeCommitCount> relativeCommitCount) {
+    if (!isEnabled()) {
+      return;
+    }
+    int[] counts = relativeCommitCount.map(c -> new int[]{c.getAhead(), c.getBehind()}).getOrElse(NONE);
+    relativeCommitCountByCommitPair.put(CommitPair.of(fromPerspectiveOf, asComparedTo), counts);
+    isDirty.set(true);
+  }
+
+  /**
+   * @return empty if the fork point is not known, or some empty option if the branch is known to have no fork point
+   */
+  Option<Option<String>> getForkPointHashString(String branchName, IGitCoreCommitHash tip, long reflogFingerprint) {
+    if (!isEnabled()) {
+      return Option.none();
+    }
+    return Option.of(forkPointByKey.getIfPresent(new ForkPointKey(branchName, toWords(tip), reflogFingerprint)))
+        .map(words -> words.length == HASH_WORD_COUNT ? Option.some(toHashString(words)) : Option.<String>none());
+  }
+
+  void putForkPoint(
+      String branchName,
+      IGitCoreCommitHash tip,
+      long reflogFingerprint,
+      @Nullable IGitCoreCommitHash forkPoint) {
+    if (!isEnabled()) {
+      return;
+    }
+    int[] words = forkPoint != null ? toWords(forkPoint) : NONE;
+    forkPointByKey.put(new ForkPointKey(branchName, toWords(tip), reflogFingerprint), words);
+    isDirty.set(true);
+  }
+
+  /**
+   * Fingerprints of the reflogs of a branch's fork point "competitors" are summed up (see {@link #combineFingerprints}),
+   * so that the fingerprint relevant for a given branch can be derived by just subtracting its own reflogs' fingerprints
+   * from the total, without looking at the reflogs of all branches again.
+   *
+   * Only the size and the boundary entries of the reflog are taken into account, so that the cost does not depend
+   * on the length of the reflog. This is enough to notice entries appended (by new commits, resets etc.) and expired;
+   * a reflog rewritten in the middle while keeping both its size and its boundary entries is not noticed, though.
+   *
+   * @param branch a local or a remote tracking branch
+   * @param filteredReflog the filtered reflog of {@code branch}, as taken into account by fork point inference
+   * @return a 64-bit digest of the given reflog
+   */
+  static long fingerprintReflog(IBranchReference branch, List<IGitCoreReflogEntry> filteredReflog) {
+    long result = mix(0L, branch.getFullName().hashCode());
+    // Fork point inference disregards remote tracking branches of the very branch whose fork point is sought.
+    if (branch.isRemote()) {
+      result = mix(result, branch.asRemote().getTrackedLocalBranch().getName().hashCode());
+    }
+    result = mix(result, filteredReflog.size());
+    if (filteredReflog.nonEmpty()) {
+      result = mixHash(result, filteredReflog.head().getNewCommitHash());
+      result = mixHash(result, filteredReflog.last().getNewCommitHash());
+    }
+    return result;
+  }
+
+  /**
+   * @return a digest of the given reflog fingerprints that does not depend on their order;
+   *         subtracting any of the fingerprints from the digest yields the digest of the remaining ones
+   */
+  static long combineFingerprints(long first, long second) {
+    return first + second;
+  }
+
+  private static long mixHash(long state, IGitCoreCommitHash hash) {
+    long result = state;
+    for (int i = 0; i < HASH_WORD_COUNT; i++) {
+      result = mix(result, hash.getHashWord(i));
+    }
+    return result;
+  }
+
+  private static long mix(long state, int value) {
+    // A step of 64-bit FNV-1a applied to the whole int, followed by a final avalanche of SplitMix64.
+    long result = (state ^ (value & 0xffffffffL)) * 0x100000001b3L;
+    result = (result ^ (result >>> 30)) * 0xbf58476d1ce4e5b9L;
+    return result ^ (result >>> 31);
+  }
+
+  private static int[] toWords(IGitCoreCommitHash hash) {
+    var words = new int[HASH_WORD_COUNT];
+    for (int i = 0; i < HASH_WORD_COUNT; i++) {
+      words[i] = hash.getHashWord(i);
+    }
+    return words;
+  }
+
+  private static String toHashString(int[] words) {
+    var result = new StringBuilder(HASH_WORD_COUNT * 8);
+    for (int word : words) {
+      String hex = Integer.toHexString(word);
+      result.append("00000000", 0, 8 - hex.length()).append(hex);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Schedules saving to disk (if anything has changed since the last save); returns immediately.
+   */
+  void scheduleSave() {
+    if (filePath == null || !isDirty.compareAndSet(true, false)) {
+      return;
+    }
+    CacheFiles.WRITER.execute(this::write);
+  }
+
+  private void read() {
+    var path = filePath;
+    if (path == null) {
+      return;
+    }
+    try {
+      DataInputStream input = CacheFiles.openForReading(path, MAGIC, VERSION, MAX_FILE_SIZE);
+      int isAncestorCount = CacheFiles.readCount(input, MAX_IS_ANCESTOR_ENTRY_COUNT);
+      for (int i = 0; i < isAncestorCount; i++) {
+        var commitPair = new CommitPair(readWords(input, 2 * HASH_WORD_COUNT));
+        isAncestorByCommitPair.put(commitPair, input.readBoolean());
+      }
+      int relativeCommitCountCount = CacheFiles.readCount(input, MAX_RELATIVE_COMMIT_COUNT_ENTRY_COUNT);
+      for (int i = 0; i < relativeCommitCountCount; i++) {
+        var commitPair = new CommitPair(readWords(input, 2 * HASH_WORD_COUNT));
+        relativeCommitCountByCommitPair.put(commitPair, input.readBoolean() ? readWords(input, 2) : NONE);
+      }
+      int forkPointCount = CacheFiles.readCount(input, MAX_FORK_POINT_ENTRY_COUNT);
+      for (int i = 0; i < forkPointCount; i++) {
+        var key = new ForkPointKey(input.readUTF(), readWords(input, HASH_WORD_COUNT), input.readLong());
+        forkPointByKey.put(key, input.readBoolean() ? readWords(input, HASH_WORD_COUNT) : NONE);
+      }
+      LOG.debug(() -> "Loaded ${isAncestorCount} is-ancestor result(s), ${relativeCommitCountCount} relative commit " +
+          "count(s) and ${forkPointCount} fork point(s) from ${path}");
+
+    } catch (NoSuchFileException e) {
+      LOG.debug(() -> "${path} does not exist yet");
+    } catch (IOException e) {
+      LOG.warn("Ignoring unreadable (possibly corrupted) ${path}", e);
+      isAncestorByCommitPair.invalidateAll();
+      relativeCommitCountByCommitPair.invalidateAll();
+      forkPointByKey.invalidateAll();
+    }
+  }
+
+  private static int[] readWords(DataInputStream input, int wordCount) throws IOException {
+    var words = new int[wordCount];
+    for (int i = 0; i < wordCount; i++) {
+      words[i] = input.readInt();
+    }
+    return words;
+  }
+
+  private void write() {
+    var path = filePath;
+    if (path == null) {
+      return;
+    }
+    // Caffeine evicts asynchronously, so the caches might temporarily hold more entries than their maximum sizes.
+    // Any excess needs to be cut off before saving, since a file with more entries than expected is rejected on read.
+    isAncestorByCommitPair.cleanUp();
+    relativeCommitCountByCommitPair.cleanUp();
+    forkPointByKey.cleanUp();
+    // Entries added while writing are not lost: they just make the cache dirty again.
+    var isAncestorEntries = List.ofAll(isAncestorByCommitPair.asMap().entrySet())
+        .take(MAX_IS_ANCESTOR_ENTRY_COUNT);
+    var relativeCommitCountEntries = List.ofAll(relativeCommitCountByCommitPair.asMap().entrySet())
+        .take(MAX_RELATIVE_COMMIT_COUNT_ENTRY_COUNT);
+    var forkPointEntries = List.ofAll(forkPointByKey.asMap().entrySet())
+        .take(MAX_FORK_POINT_ENTRY_COUNT);
+
+    try {
+      CacheFiles.write(path, MAGIC, VERSION, output -> {
+        output.writeInt(isAncestorEntries.size());
+        for (var entry : isAncestorEntries) {
+          writeWords(output, entry.getKey().words);
+          output.writeBoolean(entry.getValue());
+        }
+        output.writeInt(relativeCommitCountEntries.size());
+        for (var entry : relativeCommitCountEntries) {
+          writeWords(output, entry.getKey().words);
+          output.writeBoolean(entry.getValue().length > 0);
+          writeWords(output, entry.getValue());
+        }
+        output.writeInt(forkPointEntries.size());
+        for (var entry : forkPointEntries) {
+          output.writeUTF(entry.getKey().branchName);
+          writeWords(output, entry.getKey().tipWords);
+          output.writeLong(entry.getKey().reflogFingerprint);
+          output.writeBoolean(entry.getValue().length > 0);
+          writeWords(output, entry.getValue());
+        }
+      });
+      LOG.debug(() -> "Saved ${isAncestorEntries.size()} is-ancestor result(s), " +
+          "${relativeCommitCountEntries.size()} relative commit count(s) and ${forkPointEntries.size()} fork point(s) " +
+          "to ${path}");
+    } catch (IOException e) {
+      LOG.warn("Cannot save ${path}", e);
+    }
+  }
+
+  private static void writeWords(DataOutputStream output, int[] words) throws IOException {
+    for (int word : words) {
+      output.writeInt(word);
+    }
+  }
+}
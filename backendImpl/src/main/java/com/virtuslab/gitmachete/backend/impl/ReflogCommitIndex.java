@@ -0,0 +1,306 @@
+package com.virtuslab.gitmachete.backend.impl;
+
+import java.util.Arrays;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Vector;
+import lombok.CustomLog;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitmachete.backend.api.IBranchReference;
+
+/**
+ * An index from commit hashes to the branches that contain the given commit in their filtered reflogs.
+ *
+ * Commit hashes are stored as primitive words in an open-addressing (linear probing) hash table,
+ * and each of them is mapped to a small array of branch ids.
+ * Instances are never modified once published; {@link #updatedWith} returns a new index
+ * that only re-indexes the branches whose filtered reflogs have changed,
+ * and just indexes the new entries of those whose reflogs have merely grown (as reflogs are append-only).
+ */
+@CustomLog
+@SuppressWarnings("index") // slot indices are always masked with (capacity - 1), and key word indices are bounded by capacity
+final class ReflogCommitIndex {
+
+  private static final int WORDS_PER_KEY = IGitCoreCommitHash.HASH_WORD_COUNT;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int[] NO_BRANCH_IDS = new int[0];
+
+  private static final ReflogCommitIndex EMPTY_INSTANCE = new ReflogCommitIndex();
+
+  // The capacity is always a power of two, and the table is kept at most half full.
+  private int capacity;
+  private int[] keyWords;
+  private boolean[] isSlotOccupied;
+  private int[][] branchIdsBySlot;
+  private int occupiedSlotCount;
+  // The tables are copied lazily, only once the index derived in `updatedWith` actually needs to modify them.
+  private boolean areTablesShared;
+
+  // Ids of the removed branches are freed (and their entries cleared), and then reused for the branches added later,
+  // so that the vector doesn't grow with each branch ever indexed.
+  private Vector<@Nullable IBranchReference> branchById;
+  private List<Integer> freeBranchIds;
+  private Map<IBranchReference, Integer> branchIdByBranch;
+  private Map<Integer, List<IGitCoreReflogEntry>> indexedReflogByBranchId;
+
+  private ReflogCommitIndex() {
+    this.capacity = INITIAL_CAPACITY;
+    this.keyWords = new int[INITIAL_CAPACITY * WORDS_PER_KEY];
+    this.isSlotOccupied = new boolean[INITIAL_CAPACITY];
+    this.branchIdsBySlot = new int[INITIAL_CAPACITY][];
+    Arrays.fill(branchIdsBySlot, NO_BRANCH_IDS);
+    this.occupiedSlotCount = 0;
+    this.areTablesShared = false;
+
+    this.branchById = Vector.empty();
+    this.freeBranchIds = List.empty();
+    this.branchIdByBranch = HashMap.empty();
+    this.indexedReflogByBranchId = HashMap.empty();
+  }
+
+  private ReflogCommitIndex(ReflogCommitIndex other) {
+    this.capacity = other.capacity;
+    this.keyWords = other.keyWords;
+    this.isSlotOccupied = other.isSlotOccupied;
+    this.branchIdsBySlot = other.branchIdsBySlot;
+    this.occupiedSlotCount = other.occupiedSlotCount;
+    this.areTablesShared = true;
+
+    this.branchById = other.branchById;
+    this.freeBranchIds = other.freeBranchIds;
+    this.branchIdByBranch = other.branchIdByBranch;
+    this.indexedReflogByBranchId = other.indexedReflogByBranchId;
+  }
+
+  static ReflogCommitIndex empty() {
+    return EMPTY_INSTANCE;
+  }
+
+  /**
+   * @param filteredReflogByBranch filtered reflogs (ordered from the latest to the oldest entry) of ALL branches to index;
+   *                               branches indexed so far but absent from this map are removed from the index
+   * @return an index equivalent to the one built from scratch out of {@code filteredReflogByBranch}
+   */
+  ReflogCommitIndex updatedWith(Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByBranch) {
+    var result = new ReflogCommitIndex(this);
+    int reindexedBranchCount = 0;
+    int extendedBranchCount = 0;
+
+    // Let's remove the branches first, so that their ids can already be reused for the branches added below.
+    for (var branchAndBranchId : branchIdByBranch) {
+      if (!filteredReflogByBranch.containsKey(branchAndBranchId._1)) {
+        Integer branchId = branchAndBranchId._2;
+        result.removeBranchId(branchId, result.indexedReflogByBranchId.get(branchId).getOrElse(List.empty()));
+        result.branchIdByBranch = result.branchIdByBranch.remove(branchAndBranchId._1);
+        result.indexedReflogByBranchId = result.indexedReflogByBranchId.remove(branchId);
+        result.branchById = result.branchById.update(branchId, null);
+        result.freeBranchIds = result.freeBranchIds.prepend(branchId);
+      }
+    }
+
+    for (var branchAndReflog : filteredReflogByBranch) {
+      IBranchReference branch = branchAndReflog._1;
+      List<IGitCoreReflogEntry> reflog = branchAndReflog._2;
+
+      Integer branchId = result.branchIdByBranch.get(branch).getOrNull();
+      if (branchId == null) {
+        if (result.freeBranchIds.nonEmpty()) {
+          branchId = result.freeBranchIds.head();
+          result.freeBranchIds = result.freeBranchIds.tail();
+          result.branchById = result.branchById.update(branchId, branch);
+        } else {
+          branchId = result.branchById.size();
+          result.branchById = result.branchById.append(branch);
+        }
+        result.branchIdByBranch = result.branchIdByBranch.put(branch, branchId);
+        result.addBranchId(branchId, reflog);
+        result.indexedReflogByBranchId = result.indexedReflogByBranchId.put(branchId, reflog);
+        reindexedBranchCount++;
+        continue;
+      }
+
+      // Let's always store the most recent reference, since e.g. the local branch tracking a remote branch might have changed.
+      result.branchById = result.branchById.update(branchId, branch);
+
+      List<IGitCoreReflogEntry> indexedReflog = result.indexedReflogByBranchId.get(branchId).getOrElse(List.empty());
+      List<IGitCoreReflogEntry> appendedEntries = deriveAppendedEntries(indexedReflog, reflog);
+      if (appendedEntries == null) {
+        result.removeBranchId(branchId, indexedReflog);
+        result.addBranchId(branchId, reflog);
+        reindexedBranchCount++;
+      } else if (appendedEntries.nonEmpty()) {
+        result.addBranchId(branchId, appendedEntries);
+        extendedBranchCount++;
+      }
+      result.indexedReflogByBranchId = result.indexedReflogByBranchId.put(branchId, reflog);
+    }
+
+    int finalReindexedBranchCount = reindexedBranchCount;
+    int finalExtendedBranchCount = extendedBranchCount;
+    LOG.debug(() -> "Reflog commit index updated: ${finalReindexedBranchCount} branch(es) (re)indexed, " +
+        "${finalExtendedBranchCount} branch(es) extended with new entries, " +
+        "${result.occupiedSlotCount} commit(s) in a table of capacity ${result.capacity}");
+    return result;
+  }
+
+  /**
+   * @return the branches that contain the given commit in their filtered reflogs, in the order of indexing
+   */
+  List<IBranchReference> getBranchesContaining(IGitCoreCommitHash commitHash) {
+    int slot = findSlot(commitHash);
+    if (!isSlotOccupied[slot]) {
+      return List.empty();
+    }
+    int[] branchIds = branchIdsBySlot[slot];
+    List<IBranchReference> result = List.empty();
+    for (int i = branchIds.length - 1; i >= 0; i--) {
+      IBranchReference branch = branchById.get(branchIds[i]);
+      assert branch != null : "A freed branch id is still indexed";
+      result = result.prepend(branch);
+    }
+    return result;
+  }
+
+  /**
+   * @return the entries of {@code reflog} that are newer than all the entries of {@code indexedReflog},
+   *         or null if {@code reflog} is NOT just {@code indexedReflog} with some entries appended
+   */
+  private static @Nullable List<IGitCoreReflogEntry> deriveAppendedEntries(
+      List<IGitCoreReflogEntry> indexedReflog,
+      List<IGitCoreReflogEntry> reflog) {
+    int appendedEntryCount = reflog.size() - indexedReflog.size();
+    if (appendedEntryCount < 0) {
+      return null;
+    }
+    // Note that filtering out the entries might depend on e.g. the commit currently pointed by the branch,
+    // so we can't just compare the latest indexed entry.
+    boolean isIndexedReflogRetained = reflog.drop(appendedEntryCount).corresponds(indexedReflog,
+        (entry, indexedEntry) -> entry.getNewCommitHash().equals(indexedEntry.getNewCommitHash())
+            && entry.getTimestamp().equals(indexedEntry.getTimestamp())
+            && entry.getComment().equals(indexedEntry.getComment()));
+    return isIndexedReflogRetained ? reflog.take(appendedEntryCount) : null;
+  }
+
+  private void addBranchId(int branchId, List<IGitCoreReflogEntry> entries) {
+    ensureTablesOwned();
+    for (var entry : entries) {
+      if ((occupiedSlotCount + 1) * 2 > capacity) {
+        rehash();
+      }
+      IGitCoreCommitHash commitHash = entry.getNewCommitHash();
+      int slot = findSlot(commitHash);
+      if (!isSlotOccupied[slot]) {
+        for (int i = 0; i < WORDS_PER_KEY; i++) {
+          keyWords[slot * WORDS_PER_KEY + i] = commitHash.getHashWord(i);
+        }
+        isSlotOccupied[slot] = true;
+        occupiedSlotCount++;
+      }
+      int[] branchIds = branchIdsBySlot[slot];
+      if (indexOf(branchIds, branchId) < 0) {
+        int[] newBranchIds = Arrays.copyOf(branchIds, branchIds.length + 1);
+        newBranchIds[branchIds.length] = branchId;
+        branchIdsBySlot[slot] = newBranchIds;
+      }
+    }
+  }
+
+  private void removeBranchId(int branchId, List<IGitCoreReflogEntry> entries) {
+    ensureTablesOwned();
+    for (var entry : entries) {
+      int slot = findSlot(entry.getNewCommitHash());
+      int[] branchIds = branchIdsBySlot[slot];
+      int index = indexOf(branchIds, branchId);
+      if (isSlotOccupied[slot] && index >= 0) {
+        // The key itself stays in the table (with possibly no branch ids) until the next rehash.
+        int[] newBranchIds = new int[branchIds.length - 1];
+        System.arraycopy(branchIds, 0, newBranchIds, 0, index);
+        System.arraycopy(branchIds, index + 1, newBranchIds, index, branchIds.length - index - 1);
+        branchIdsBySlot[slot] = newBranchIds;
+      }
+    }
+  }
+
+  private void ensureTablesOwned() {
+    if (areTablesShared) {
+      keyWords = keyWords.clone();
+      isSlotOccupied = isSlotOccupied.clone();
+      branchIdsBySlot = branchIdsBySlot.clone();
+      areTablesShared = false;
+    }
+  }
+
+  private void rehash() {
+    int nonEmptySlotCount = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      if (isSlotOccupied[slot] && branchIdsBySlot[slot].length > 0) {
+        nonEmptySlotCount++;
+      }
+    }
+    int newCapacity = INITIAL_CAPACITY;
+    while (newCapacity < (nonEmptySlotCount + 1) * 4) {
+      newCapacity *= 2;
+    }
+
+    int[] oldKeyWords = keyWords;
+    boolean[] oldIsSlotOccupied = isSlotOccupied;
+    int[][] oldBranchIdsBySlot = branchIdsBySlot;
+    int oldCapacity = capacity;
+
+    capacity = newCapacity;
+    keyWords = new int[newCapacity * WORDS_PER_KEY];
+    isSlotOccupied = new boolean[newCapacity];
+    branchIdsBySlot = new int[newCapacity][];
+    Arrays.fill(branchIdsBySlot, NO_BRANCH_IDS);
+    occupiedSlotCount = 0;
+
+    for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      if (!oldIsSlotOccupied[oldSlot] || oldBranchIdsBySlot[oldSlot].length == 0) {
+        continue;
+      }
+      int slot = oldKeyWords[oldSlot * WORDS_PER_KEY] & (capacity - 1);
+      while (isSlotOccupied[slot]) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      System.arraycopy(oldKeyWords, oldSlot * WORDS_PER_KEY, keyWords, slot * WORDS_PER_KEY, WORDS_PER_KEY);
+      isSlotOccupied[slot] = true;
+      branchIdsBySlot[slot] = oldBranchIdsBySlot[oldSlot];
+      occupiedSlotCount++;
+    }
+  }
+
+  /**
+   * @return the slot that holds the given hash, or the (unoccupied) slot where the given hash would be inserted
+   */
+  private int findSlot(IGitCoreCommitHash commitHash) {
+    // SHA-1 hashes are uniformly distributed, so any of their words is a good hash code on its own.
+    int slot = commitHash.getHashWord(0) & (capacity - 1);
+    while (isSlotOccupied[slot] && !isKeyAt(slot, commitHash)) {
+      slot = (slot + 1) & (capacity - 1);
+    }
+    return slot;
+  }
+
+  private boolean isKeyAt(int slot, IGitCoreCommitHash commitHash) {
+    for (int i = 0; i < WORDS_PER_KEY; i++) {
+      if (keyWords[slot * WORDS_PER_KEY + i] != commitHash.getHashWord(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(int[] array, int value) {
+    for (int i = 0; i < array.length; i++) {
+      if (array[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
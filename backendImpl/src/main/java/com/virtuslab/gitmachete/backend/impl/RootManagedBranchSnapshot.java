@@ -22,9 +22,10 @@ public final class RootManagedBranchSnapshot extends BaseManagedBranchSnapshot i
       @Nullable IRemoteTrackingBranchReference remoteTrackingBranch,
       SyncToRemoteStatus syncToRemoteStatus,
       @Nullable String customAnnotation,
-      @Nullable String statusHookOutput) {
+      @Nullable String statusHookOutput,
+      boolean isStatusHookOutputPending) {
     super(name, fullName, children, pointedCommit, remoteTrackingBranch, syncToRemoteStatus, customAnnotation,
-        statusHookOutput);
+        statusHookOutput, isStatusHookOutputPending);
 
     LOG.debug("Creating ${this}");
 
@@ -0,0 +1,126 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Notifies about the changes of files in the watched directories (for all repositories, on a single thread).
+ * Note that the events might come with a delay on the platforms where the watching is polling-based (like macOS).
+ */
+@CustomLog
+final class HookFileWatcher {
+  private HookFileWatcher() {}
+
+  private static final @Nullable WatchService WATCH_SERVICE = Try.of(() -> FileSystems.getDefault().newWatchService())
+      .onFailure(e -> LOG.warn("Cannot watch the files, hooks are going to be resolved on each execution", e))
+      .getOrNull();
+
+  private static final ConcurrentHashMap<WatchKey, List<Listener>> LISTENERS_BY_KEY = new ConcurrentHashMap<>();
+
+  @RequiredArgsConstructor
+  private static final class Listener {
+    private final Predicate<Path> isRelevantFileName;
+    private final Runnable onChange;
+    private final Runnable onWatchCanceled;
+  }
+
+  static {
+    if (WATCH_SERVICE != null) {
+      var thread = new Thread(() -> dispatchEvents(WATCH_SERVICE), "git-machete-hook-file-watcher");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * @param isRelevantFileName tells (by the file name) which files in the directory are relevant to the caller;
+   *                           in case of an event overflow, all the listeners are notified regardless
+   * @param onWatchCanceled invoked when the directory can no longer be watched (e.g. has been deleted);
+   *                        {@code onChange} is not going to be invoked anymore for this registration
+   * @return the action that stops the watching (for this registration only; neither {@code onChange}
+   *         nor {@code onWatchCanceled} is invoked once it completes), or empty if the directory cannot be watched
+   *         (e.g. when the directory does not exist)
+   */
+  static Option<Runnable> watch(
+      Path directoryPath,
+      Predicate<Path> isRelevantFileName,
+      Runnable onChange,
+      Runnable onWatchCanceled) {
+    if (WATCH_SERVICE == null) {
+      return Option.none();
+    }
+    var listener = new Listener(isRelevantFileName, onChange, onWatchCanceled);
+    while (true) {
+      WatchKey key;
+      try {
+        // Registering the same directory again returns the same key (unless the key has been canceled in the meantime).
+        key = directoryPath.register(WATCH_SERVICE, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+      } catch (IOException e) {
+        LOG.debug(() -> "Cannot watch ${directoryPath}: ${e}");
+        return Option.none();
+      }
+      LISTENERS_BY_KEY.merge(key, List.of(listener), List::appendAll);
+      if (key.isValid()) {
+        return Option.some(() -> unwatch(key, listener));
+      }
+      // The key has been canceled by the removal of the last listener of another registration, right after it was
+      // returned by `register` and right before our listener got added; let's just register the directory again.
+      unwatch(key, listener);
+    }
+  }
+
+  private static void unwatch(WatchKey key, Listener listener) {
+    LISTENERS_BY_KEY.computeIfPresent(key, (k, listeners) -> {
+      var remainingListeners = listeners.remove(listener);
+      if (remainingListeners.nonEmpty()) {
+        return remainingListeners;
+      }
+      // Happens atomically with the removal of the mapping, so that a concurrent `watch` either adds its listener
+      // before the key gets canceled (and hence keeps it alive), or sees the canceled key and registers again.
+      k.cancel();
+      return null;
+    });
+  }
+
+  private static void dispatchEvents(WatchService watchService) {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      var events = List.ofAll(key.pollEvents());
+      var listeners = LISTENERS_BY_KEY.getOrDefault(key, List.empty());
+      for (var listener : listeners) {
+        boolean isRelevant = events.exists(event -> event.kind().equals(OVERFLOW)
+            || (event.context() instanceof Path && listener.isRelevantFileName.test((Path) event.context())));
+        if (isRelevant) {
+          listener.onChange.run();
+        }
+      }
+      if (!key.reset()) {
+        // The directory is no longer accessible (e.g. has been deleted).
+        LISTENERS_BY_KEY.remove(key);
+        listeners.forEach(listener -> listener.onWatchCanceled.run());
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the thread waiting for a hook gets interrupted (and hence the hook gets killed),
+ * along with whatever the hook has output until then.
+ */
+@Getter
+final class HookInterruptedException extends InterruptedException {
+  private final String stdout;
+  private final String stderr;
+
+  HookInterruptedException(String message, String stdout, String stderr) {
+    super(message);
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+}
@@ -0,0 +1,95 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vavr.control.Try;
+import lombok.CustomLog;
+
+/**
+ * Reads an output stream of a hook process as it's being written, so that the hook never blocks on a full pipe.
+ * Only the first {@link #MAX_CAPTURED_BYTE_COUNT} bytes are kept, the rest is read and discarded.
+ */
+@CustomLog
+final class HookOutputDrainer {
+  private static final int MAX_CAPTURED_BYTE_COUNT = 64 * 1024;
+  private static final String TRUNCATION_NOTE = System.lineSeparator() + "[... output truncated ...]";
+
+  private static final AtomicInteger DRAINER_THREAD_COUNT = new AtomicInteger();
+
+  // Threads are mostly blocked on reading, so there's no point in bounding their number.
+  private static final ExecutorService DRAINER = Executors.newCachedThreadPool(runnable -> {
+    var thread = new Thread(runnable, "git-machete-hook-output-drainer-" + DRAINER_THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final InputStream input;
+  private final ByteArrayOutputStream captured;
+  private final AtomicBoolean isTruncated;
+  private final CompletableFuture<Void> completion;
+
+  private HookOutputDrainer(InputStream input, ByteArrayOutputStream captured, AtomicBoolean isTruncated) {
+    this.input = input;
+    this.captured = captured;
+    this.isTruncated = isTruncated;
+    // Not referring to `this` here, since the object is not fully initialized yet.
+    this.completion = CompletableFuture.runAsync(() -> drain(input, captured, isTruncated), DRAINER);
+  }
+
+  static HookOutputDrainer start(InputStream input) {
+    return new HookOutputDrainer(input, new ByteArrayOutputStream(), new AtomicBoolean(false));
+  }
+
+  private static void drain(InputStream input, ByteArrayOutputStream captured, AtomicBoolean isTruncated) {
+    byte[] chunk = new byte[8192];
+    try (input) {
+      int readCount = input.read(chunk);
+      while (readCount >= 0) {
+        int capturedCount = Math.min(readCount, MAX_CAPTURED_BYTE_COUNT - captured.size());
+        if (capturedCount > 0) {
+          captured.write(chunk, 0, capturedCount);
+        }
+        if (capturedCount < readCount) {
+          isTruncated.set(true);
+        }
+        readCount = input.read(chunk);
+      }
+    } catch (IOException e) {
+      // Most likely the stream has been closed by the hook runtime, since the drain took too long.
+      LOG.debug(() -> "Stopped draining the hook output: ${e}");
+    }
+  }
+
+  /**
+   * Waits (at most the given time) until the end of the stream, and then returns whatever has been read so far.
+   * Note that the end of the stream might never come even once the hook has exited,
+   * since the stream might still be held open by a (background) child process of the hook.
+   */
+  String awaitContent(long maxWaitMillis) throws InterruptedException {
+    try {
+      completion.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      Try.run(input::close);
+    }
+    return getContentSoFar();
+  }
+
+  /**
+   * @return whatever has been read so far, without waiting for the end of the stream
+   */
+  String getContentSoFar() {
+    return captured.toString(UTF_8) + (isTruncated.get() ? TRUNCATION_NOTE : "");
+  }
+}
@@ -0,0 +1,274 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+
+/**
+ * Common machinery for executing the hooks of a repository:
+ * <ul>
+ *   <li>resolves the hook files (taking {@code core.hooksPath} into account) and caches the resolution
+ *       until the hooks directory or the git config file changes,</li>
+ *   <li>drains the outputs of the hooks while they run, so that no hook ever blocks on a full pipe,</li>
+ *   <li>kills the hooks (along with their child processes) that time out or are no longer awaited,</li>
+ *   <li>keeps track of the latency of each hook.</li>
+ * </ul>
+ */
+@CustomLog
+public final class HookRuntime {
+  // After the hook exits, its output streams might still be held open by its (background) child processes.
+  private static final long OUTPUT_DRAIN_GRACE_MILLIS = 1_000;
+
+  // Just in case some change is not reported by the watch (like the change of `core.hooksPath` in the global git config).
+  private static final long MAX_RESOLUTION_AGE_MINUTES = 1;
+
+  private final File mainDirectory;
+  private final Path gitDirectoryPath;
+  private final IGitCoreRepository gitCoreRepository;
+
+  private final Cache<String, Option<ResolvedHook>> resolvedHookByName = Caffeine.newBuilder()
+      .expireAfterWrite(MAX_RESOLUTION_AGE_MINUTES, TimeUnit.MINUTES)
+      .build();
+  // Lets a resolution that raced with an invalidation not end up in the cache.
+  private final AtomicLong invalidationCount = new AtomicLong();
+  private final ConcurrentHashMap<Path, Runnable> unwatchByDirectoryPath = new ConcurrentHashMap<>();
+  private volatile boolean isDisposed = false;
+
+  private final ConcurrentHashMap<String, LatencyStats> latencyStatsByHookName = new ConcurrentHashMap<>();
+
+  public HookRuntime(Path mainDirectoryPath, Path gitDirectoryPath, IGitCoreRepository gitCoreRepository) {
+    this.mainDirectory = mainDirectoryPath.toFile();
+    this.gitDirectoryPath = gitDirectoryPath;
+    this.gitCoreRepository = gitCoreRepository;
+  }
+
+  /**
+   * A hook file that exists and can be executed, along with its content as of the resolution.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  @ToString(onlyExplicitlyIncluded = true)
+  static final class ResolvedHook {
+    @ToString.Include
+    private final String name;
+    @ToString.Include
+    private final File file;
+    private final long contentHash;
+    private final String content;
+  }
+
+  private static final class LatencyStats {
+    private final AtomicLong executionCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    void record(long elapsedMillis, boolean isTimedOut) {
+      executionCount.incrementAndGet();
+      if (isTimedOut) {
+        timeoutCount.incrementAndGet();
+      }
+      totalMillis.addAndGet(elapsedMillis);
+      maxMillis.accumulateAndGet(elapsedMillis, Math::max);
+    }
+
+    @Override
+    public String toString() {
+      long count = executionCount.get();
+      long averageMillis = count > 0 ? totalMillis.get() / count : 0;
+      return "${count} execution(s) (${timeoutCount.get()} timed out), " +
+          "average ${averageMillis} ms, max ${maxMillis.get()} ms";
+    }
+  }
+
+  /**
+   * @return the hook of the given name, or empty if the hook does not exist or cannot be executed (or read)
+   */
+  Option<ResolvedHook> resolveHook(String hookName) {
+    Option<ResolvedHook> cachedResolvedHook = resolvedHookByName.getIfPresent(hookName);
+    if (cachedResolvedHook != null) {
+      return cachedResolvedHook;
+    }
+
+    long invalidationCountBeforeResolution = invalidationCount.get();
+    Path hooksDirectoryPath = deriveHooksDirectoryPath();
+    // The config file is relevant since it might change `core.hooksPath`.
+    boolean isConfigWatched = watchDirectory(gitDirectoryPath, fileName -> fileName.toString().equals("config"));
+    boolean isHooksDirectoryWatched = watchDirectory(hooksDirectoryPath, fileName -> true);
+
+    Path hookFilePath = hooksDirectoryPath.resolve(hookName);
+    var resolvedHook = resolveHookFile(hookName, hookFilePath);
+    // The changes to the target of a symlink are not reported by the watch, hence symlinked hooks are never cached.
+    if (isConfigWatched && isHooksDirectoryWatched && !Files.isSymbolicLink(hookFilePath)
+        && invalidationCount.get() == invalidationCountBeforeResolution) {
+      resolvedHookByName.put(hookName, resolvedHook);
+    }
+    return resolvedHook;
+  }
+
+  private Path deriveHooksDirectoryPath() {
+    var configuredHooksPath = gitCoreRepository.deriveConfigValue("core", /* subsection */ null, "hooksPath")
+        .filter(hooksPath -> !hooksPath.isBlank()).getOrNull();
+    if (configuredHooksPath == null) {
+      return gitDirectoryPath.resolve("hooks");
+    }
+    var expandedHooksPath = configuredHooksPath.startsWith("~/")
+        ? System.getProperty("user.home") + configuredHooksPath.substring(1)
+        : configuredHooksPath;
+    // Just like git does, let's resolve a relative path against the directory where the hooks are run.
+    return mainDirectory.toPath().resolve(expandedHooksPath);
+  }
+
+  private boolean watchDirectory(Path directoryPath, Predicate<Path> isRelevantFileName) {
+    if (isDisposed) {
+      return false;
+    }
+    if (unwatchByDirectoryPath.containsKey(directoryPath)) {
+      return true;
+    }
+    var unwatch = HookFileWatcher.watch(directoryPath, isRelevantFileName, this::invalidate, () -> {
+      unwatchByDirectoryPath.remove(directoryPath);
+      invalidate();
+    }).getOrNull();
+    if (unwatch == null) {
+      return false;
+    }
+    // Either another thread has just started watching the same directory, or the runtime has just been disposed.
+    if (unwatchByDirectoryPath.putIfAbsent(directoryPath, unwatch) != null || isDisposed) {
+      unwatchByDirectoryPath.remove(directoryPath, unwatch);
+      unwatch.run();
+    }
+    return !isDisposed;
+  }
+
+  /**
+   * Stops watching the hooks directory and the git config file. Hooks can still be resolved and executed afterwards,
+   * but their resolution is no longer cached.
+   */
+  public void dispose() {
+    isDisposed = true;
+    unwatchByDirectoryPath.keySet().forEach(directoryPath -> {
+      var unwatch = unwatchByDirectoryPath.remove(directoryPath);
+      if (unwatch != null) {
+        unwatch.run();
+      }
+    });
+    invalidate();
+  }
+
+  private void invalidate() {
+    invalidationCount.incrementAndGet();
+    resolvedHookByName.invalidateAll();
+  }
+
+  private static Option<ResolvedHook> resolveHookFile(String hookName, Path hookFilePath) {
+    var hookFile = hookFilePath.toFile();
+    if (!hookFile.exists()) {
+      LOG.debug(() -> "Skipping ${hookName} hook execution: ${hookFilePath} does not exist");
+      return Option.none();
+    } else if (!hookFile.canExecute()) {
+      LOG.warn("Skipping ${hookName} hook execution: ${hookFilePath} cannot be executed");
+      return Option.none();
+    }
+    return Try.of(() -> {
+      byte[] content = Files.readAllBytes(hookFilePath);
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return new ResolvedHook(hookName, hookFile, ByteBuffer.wrap(digest).getLong(), new String(content, UTF_8));
+    }).onFailure(e -> LOG.warn("Skipping ${hookName} hook execution: cannot read ${hookFilePath}", e))
+        .toOption();
+  }
+
+  /**
+   * Starts the hook in the working directory and with the environment that git uses for the hooks.
+   * The output streams of the returned process need to be drained by the caller.
+   */
+  Process start(ResolvedHook hook, List<String> arguments, Map<String, String> extraEnvironment) throws IOException {
+    ProcessBuilder pb = new ProcessBuilder();
+    pb.command(arguments.prepend(hook.getFile().getAbsolutePath()).asJava());
+    extraEnvironment.forEach((name, value) -> pb.environment().put(name, value));
+    // According to git hooks spec (`git help hooks`):
+    //   Before Git invokes a hook, it changes its working directory to either $GIT_DIR in a bare repository
+    //   or the root of the working tree in a non-bare repository.
+    //   An exception are hooks triggered during a push (...) which are always executed in $GIT_DIR.
+    // We obviously assume a non-bare repository here, and none of git-machete hooks is related to push.
+    pb.directory(mainDirectory);
+    return pb.start();
+  }
+
+  /**
+   * Executes the hook and waits for it to complete. If the calling thread gets interrupted in the meantime,
+   * the hook is killed, so that it doesn't outlive the caller that's no longer interested in its result.
+   *
+   * @return the result of the execution, with the outputs stripped of trailing whitespace
+   * @throws HookInterruptedException if the calling thread gets interrupted (and hence the hook gets killed)
+   * @throws HookTimeoutException if the hook does not complete in time (and hence gets killed)
+   */
+  ExecutionResult execute(ResolvedHook hook, List<String> arguments, Map<String, String> extraEnvironment,
+      long timeoutMillis) throws IOException, InterruptedException, HookTimeoutException {
+    long startNanos = System.nanoTime();
+    Process process = start(hook, arguments, extraEnvironment);
+    var stdoutDrainer = HookOutputDrainer.start(process.getInputStream());
+    var stderrDrainer = HookOutputDrainer.start(process.getErrorStream());
+
+    boolean completed;
+    try {
+      completed = process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      LOG.debug(() -> "Interrupted while waiting for ${hook}; killing it");
+      kill(process);
+      // Not waiting for the drainers here, since the caller is no longer interested in the result.
+      var exception = new HookInterruptedException("${hook.getName()} hook (${hook.getFile().getAbsolutePath()}) " +
+          "has been interrupted", stdoutDrainer.getContentSoFar().stripTrailing(),
+          stderrDrainer.getContentSoFar().stripTrailing());
+      exception.initCause(e);
+      throw exception;
+    }
+    if (!completed) {
+      kill(process);
+    }
+
+    String strippedStdout = stdoutDrainer.awaitContent(OUTPUT_DRAIN_GRACE_MILLIS).stripTrailing();
+    String strippedStderr = stderrDrainer.awaitContent(OUTPUT_DRAIN_GRACE_MILLIS).stripTrailing();
+    recordLatency(hook.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), !completed);
+
+    if (!completed) {
+      throw new HookTimeoutException("${hook.getName()} hook (${hook.getFile().getAbsolutePath()}) " +
+          "did not complete within ${timeoutMillis} ms", strippedStdout, strippedStderr);
+    }
+    return ExecutionResult.of(process.exitValue(), strippedStdout, strippedStderr);
+  }
+
+  static void kill(Process process) {
+    process.descendants().forEach(ProcessHandle::destroyForcibly);
+    process.destroyForcibly();
+  }
+
+  void recordLatency(String hookName, long elapsedMillis, boolean isTimedOut) {
+    var latencyStats = latencyStatsByHookName.computeIfAbsent(hookName, name -> new LatencyStats());
+    latencyStats.record(elapsedMillis, isTimedOut);
+    var outcome = isTimedOut ? "timed out after" : "took";
+    LOG.debug(() -> "${hookName} hook ${outcome} ${elapsedMillis} ms; so far: ${latencyStats}");
+  }
+}
@@ -0,0 +1,20 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import java.util.concurrent.TimeoutException;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a hook does not complete in time (and hence gets killed), along with whatever the hook has output until then.
+ */
+@Getter
+final class HookTimeoutException extends TimeoutException {
+  private final String stdout;
+  private final String stderr;
+
+  HookTimeoutException(String message, String stdout, String stderr) {
+    super(message);
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+}
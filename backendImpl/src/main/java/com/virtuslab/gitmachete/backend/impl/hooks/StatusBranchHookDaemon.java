@@ -0,0 +1,267 @@
+package com.virtuslab.gitmachete.backend.impl.hooks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime.ResolvedHook;
+
+/**
+ * A long-running instance of machete-status-branch hook, serving the requests for all branches of a repository,
+ * so that a process doesn't need to be spawned for each branch.
+ *
+ * The hooks opt in to this mode by including {@link #OPT_IN_MARKER} anywhere in their content (typically in a comment).
+ * Such a hook is started without arguments, with {@code GIT_MACHETE_STATUS_HOOK_MODE=persistent} in its environment,
+ * and then:
+ * <ul>
+ *   <li>receives one request per line on stdin: {@code <request-id> <commit-hash> <branch-name>},</li>
+ *   <li>answers with one line per request on stdout: {@code <request-id> ok <output>}
+ *       or {@code <request-id> none} (the equivalent of a non-zero exit code of a one-shot hook),</li>
+ *   <li>exits once its stdin is closed.</li>
+ * </ul>
+ * Requests are pipelined (i.e. sent without waiting for the previous responses), so the responses might come in any order.
+ * The output must fit in a single line. Whatever the hook prints to stderr is ignored.
+ * Just like a one-shot hook, the persistent one is run (via {@link HookRuntime}) in the root of the working tree.
+ *
+ * If the hook exits unexpectedly, the pending requests fail and the hook is restarted upon the next request
+ * (unless it has crashed {@link #MAX_CONSECUTIVE_CRASH_COUNT} times in a row without answering any request).
+ *
+ * The requests are written to the hook by a dedicated thread, so that a hook that doesn't read its stdin
+ * (and hence lets the pipe fill up) never blocks the callers.
+ */
+@CustomLog
+final class StatusBranchHookDaemon {
+  static final String OPT_IN_MARKER = "git-machete-status-hook-protocol: persistent-v1";
+
+  private static final int MAX_CONSECUTIVE_CRASH_COUNT = 3;
+
+  private final HookRuntime hookRuntime;
+  private final ResolvedHook hook;
+  private final File hookFile;
+  private final long requestTimeoutMillis;
+
+  private final AtomicLong lastRequestId = new AtomicLong();
+  private final AtomicInteger consecutiveCrashCount = new AtomicInteger();
+
+  // Guards starting the process and queuing the requests (but not writing them, which might block).
+  private final ReentrantLock lock = new ReentrantLock();
+  private @Nullable Connection connection = null;
+  private volatile boolean isClosed = false;
+
+  StatusBranchHookDaemon(HookRuntime hookRuntime, ResolvedHook hook, long requestTimeoutMillis) {
+    this.hookRuntime = hookRuntime;
+    this.hook = hook;
+    this.hookFile = hook.getFile();
+    this.requestTimeoutMillis = requestTimeoutMillis;
+  }
+
+  /**
+   * @return true if this daemon runs the given version (i.e. path and content) of the hook
+   */
+  boolean isRunning(ResolvedHook otherHook) {
+    return hookFile.equals(otherHook.getFile()) && hook.getContentHash() == otherHook.getContentHash();
+  }
+
+  /**
+   * A single run of the hook process. Each run has its own pending requests, so that a crash of a previous run
+   * doesn't affect the requests already sent to the restarted one.
+   */
+  @RequiredArgsConstructor
+  private static final class Connection {
+    private final Process process;
+    private final Writer requestWriter;
+    // Single-threaded, so that the requests are written one by one and in order.
+    private final ExecutorService requestWritingExecutor;
+    private final ConcurrentHashMap<Long, CompletableFuture<Option<String>>> pendingRequestById = new ConcurrentHashMap<>();
+    // Set when the connection is closed deliberately (as opposed to the hook exiting on its own).
+    private volatile boolean isClosed = false;
+    // Set once the hook output has ended, i.e. no further response is going to be read.
+    private volatile boolean isExhausted = false;
+  }
+
+  /**
+   * @return the output of the hook for the given branch; completes exceptionally (hence is not cached by the caller)
+   *         if the hook could not be started, crashed or did not answer in time
+   */
+  CompletableFuture<Option<String>> request(String branchName, String commitHash) {
+    long requestId = lastRequestId.incrementAndGet();
+    long startNanos = System.nanoTime();
+    var future = new CompletableFuture<Option<String>>();
+    lock.lock();
+    try {
+      var currentConnection = deriveStartedConnection();
+      currentConnection.pendingRequestById.put(requestId, future);
+      // Let's not keep the requests that have timed out.
+      future.whenComplete((output, e) -> currentConnection.pendingRequestById.remove(requestId));
+      // The reader thread marks the connection as exhausted before failing the pending requests,
+      // so if the output ended right after the connection had been derived, the request is failed either here or there.
+      if (currentConnection.isExhausted) {
+        throw new IOException("Persistent machete-status-branch hook (${hookFile.getAbsolutePath()}) has exited");
+      }
+      var request = "${requestId} ${commitHash} ${branchName}\n";
+      currentConnection.requestWritingExecutor.execute(() -> writeRequest(currentConnection, request, future));
+    } catch (IOException | RejectedExecutionException e) {
+      // The latter happens if the hook output ended right after the check above.
+      LOG.warn("Cannot send a request to machete-status-branch hook (${hookFile.getAbsolutePath()}) for ${branchName}", e);
+      future.completeExceptionally(e);
+      return future;
+    } finally {
+      lock.unlock();
+    }
+
+    return future.orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS)
+        .whenComplete((output, e) -> {
+          long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+          hookRuntime.recordLatency(hook.getName(), elapsedMillis, e instanceof TimeoutException);
+          if (e instanceof TimeoutException) {
+            LOG.warn("machete-status-branch hook (${hookFile.getAbsolutePath()}) for ${branchName} " +
+                "did not answer within ${requestTimeoutMillis} ms; ignoring the output");
+          }
+        });
+  }
+
+  private void writeRequest(Connection writeConnection, String request, CompletableFuture<Option<String>> future) {
+    if (future.isDone()) {
+      // Timed out while waiting in the queue.
+      return;
+    }
+    try {
+      writeConnection.requestWriter.write(request);
+      writeConnection.requestWriter.flush();
+    } catch (IOException e) {
+      LOG.debug(() -> "Cannot write a request to machete-status-branch hook (${hookFile.getAbsolutePath()}): ${e}");
+      future.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Stops the hook, which won't be restarted anymore. The pending requests fail.
+   */
+  void close() {
+    lock.lock();
+    try {
+      isClosed = true;
+      var currentConnection = connection;
+      if (currentConnection != null) {
+        currentConnection.isClosed = true;
+        // Closing stdin (once the queued requests are written) is the signal for a well-behaved hook to exit,
+        // but let's not rely on that.
+        // The executor might have already been shut down, if the hook has exited on its own.
+        Try.run(() -> currentConnection.requestWritingExecutor
+            .execute(() -> Try.run(() -> currentConnection.requestWriter.close())));
+        currentConnection.requestWritingExecutor.shutdown();
+        HookRuntime.kill(currentConnection.process);
+        connection = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Connection deriveStartedConnection() throws IOException {
+    assert lock.isHeldByCurrentThread() : "Lock must be held when starting the hook";
+    var currentConnection = connection;
+    if (currentConnection != null && !currentConnection.isClosed && !currentConnection.isExhausted
+        && currentConnection.process.isAlive()) {
+      return currentConnection;
+    }
+    var hookFilePath = hookFile.getAbsolutePath();
+    if (isClosed) {
+      throw new IOException("Persistent machete-status-branch hook (${hookFilePath}) has already been stopped");
+    }
+    if (consecutiveCrashCount.get() >= MAX_CONSECUTIVE_CRASH_COUNT) {
+      throw new IOException("Persistent machete-status-branch hook (${hookFilePath}) exited " +
+          "${MAX_CONSECUTIVE_CRASH_COUNT} times in a row without answering any request; not restarting it anymore");
+    }
+
+    var action = currentConnection == null ? "Starting" : "Restarting";
+    LOG.info("${action} persistent machete-status-branch hook (${hookFilePath})");
+    // See StatusBranchHookExecutor for the rationale behind `ASCII_ONLY`.
+    Process process = hookRuntime.start(hook, List.empty(),
+        HashMap.of("ASCII_ONLY", "true", "GIT_MACHETE_STATUS_HOOK_MODE", "persistent"));
+    // Otherwise, a hook writing a lot to stderr could eventually block on a full pipe.
+    HookOutputDrainer.start(process.getErrorStream());
+    var requestWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), UTF_8));
+    var requestWritingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "git-machete-status-hook-daemon-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    var newConnection = new Connection(process, requestWriter, requestWritingExecutor);
+    connection = newConnection;
+    if (currentConnection != null) {
+      currentConnection.requestWritingExecutor.shutdownNow();
+    }
+
+    var readerThread = new Thread(() -> readResponses(newConnection), "git-machete-status-hook-daemon-reader");
+    readerThread.setDaemon(true);
+    readerThread.start();
+    return newConnection;
+  }
+
+  private void readResponses(Connection readConnection) {
+    try (var reader = new BufferedReader(new InputStreamReader(readConnection.process.getInputStream(), UTF_8))) {
+      @Nullable String line = reader.readLine();
+      while (line != null) {
+        handleResponse(readConnection, line);
+        line = reader.readLine();
+      }
+    } catch (IOException e) {
+      LOG.debug(() -> "Cannot read the output of machete-status-branch hook (${hookFile.getAbsolutePath()}): ${e}");
+    }
+
+    var exception = new IOException("Persistent machete-status-branch hook (${hookFile.getAbsolutePath()}) has exited");
+    if (!readConnection.isClosed) {
+      // Counted before the connection is marked as exhausted, so that the restart upon the next request takes it into account.
+      int crashCount = consecutiveCrashCount.incrementAndGet();
+      LOG.warn("Persistent machete-status-branch hook (${hookFile.getAbsolutePath()}) exited unexpectedly " +
+          "(${crashCount} time(s) in a row); failing ${readConnection.pendingRequestById.size()} pending request(s)");
+    }
+    readConnection.isExhausted = true;
+    // Any request still queued is going to fail on the closed pipe anyway.
+    readConnection.requestWritingExecutor.shutdown();
+    readConnection.pendingRequestById.values().forEach(future -> future.completeExceptionally(exception));
+    readConnection.pendingRequestById.clear();
+  }
+
+  private void handleResponse(Connection readConnection, String line) {
+    String[] parts = line.split(" ", 3);
+    @Nullable Long requestId = Try.of(() -> Long.parseLong(parts[0])).getOrNull();
+    var future = requestId != null ? readConnection.pendingRequestById.remove(requestId) : null;
+    if (future == null) {
+      // Most likely, a response to a request that has already timed out.
+      LOG.debug(() -> "Ignoring unexpected response from machete-status-branch hook: '${line}'");
+      return;
+    }
+    consecutiveCrashCount.set(0);
+    if (parts.length > 1 && parts[1].equals("ok")) {
+      future.complete(Option.some(parts.length > 2 ? parts[2].stripTrailing() : ""));
+    } else {
+      future.complete(Option.none());
+    }
+  }
+}
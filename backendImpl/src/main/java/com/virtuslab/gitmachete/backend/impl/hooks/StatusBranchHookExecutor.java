@@ -1,89 +1,311 @@
 package com.virtuslab.gitmachete.backend.impl.hooks;
 
-import java.io.File;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.vavr.Tuple;
-import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lombok.CustomLog;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import com.virtuslab.gitmachete.backend.impl.CommitOfManagedBranch;
+import com.virtuslab.gitmachete.backend.impl.CacheFiles;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime.ResolvedHook;
 
+/**
+ * Runs machete-status-branch hook for many branches at once: all the needed hooks are launched upfront,
+ * at most {@link #PARALLELISM} at a time, so that they run while the rest of the snapshot is being derived.
+ *
+ * The outputs are cached (in a bounded cache), and persisted to {@code .git/machete-cache/status-hook-outputs.bin}
+ * so that they survive IDE restarts. The cache is keyed by the branch name, the hash of the pointed commit
+ * and the hash of the content of the hook, so that the outputs are not reused once the hook has been modified.
+ *
+ * Hooks that opt in (see {@link StatusBranchHookDaemon}) are instead started just once and then kept running,
+ * answering the requests for all the branches; other hooks are executed once per branch, just like by git-machete CLI.
+ */
 @CustomLog
 public final class StatusBranchHookExecutor {
+  private static final String HOOK_NAME = "machete-status-branch";
   private static final int EXECUTION_TIMEOUT_SECONDS = 1;
 
-  private final File mainDirectory;
-  private final File hookFile;
+  // At most this many hooks run at the same time (across all repositories).
+  private static final int PARALLELISM = Math.max(1, Integer.getInteger("git-machete.status-hook.parallelism", 4));
+
+  // Snapshot creation waits at most this long for the hooks launched for the snapshot (all together, not each);
+  // the outputs of the hooks that don't complete in time only make it to the snapshots created afterwards.
+  private static final long TOTAL_TIME_BUDGET_MILLIS = Long.getLong("git-machete.status-hook.max-millis", 2_000);
+
+  // Requests to a persistent hook are pipelined, and hence might need to wait for the previous ones to be answered;
+  // that's why the timeout is more generous than for the one-shot hooks.
+  private static final long PERSISTENT_HOOK_REQUEST_TIMEOUT_MILLIS = Long
+      .getLong("git-machete.status-hook.persistent.request-timeout-millis", 5_000);
+
+  private static final String FILE_NAME = "status-hook-outputs.bin";
+  private static final int MAGIC = 0x474d5348; // "GMSH"
+  private static final int VERSION = 1;
+  private static final int MAX_CACHED_OUTPUT_COUNT = 10_000;
+  // Longer outputs are still cached in memory, just not persisted.
+  private static final int MAX_PERSISTED_OUTPUT_LENGTH = 1_000;
+  private static final long MAX_FILE_SIZE = 16L * 1024 * 1024;
+  // Hooks typically complete in bursts, so let's save once per burst rather than once per hook.
+  private static final long SAVE_DELAY_MILLIS = 1_000;
+
+  private static final AtomicInteger RUNNER_THREAD_COUNT = new AtomicInteger();
+
+  private static final ExecutorService RUNNER = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+    var thread = new Thread(runnable, "git-machete-status-hook-runner-" + RUNNER_THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final HookRuntime hookRuntime;
+  private final @Nullable Path filePath;
+  private final AtomicBoolean isSaveScheduled = new AtomicBoolean(false);
+  private final AtomicReference<@Nullable StatusBranchHookDaemon> daemon = new AtomicReference<>(null);
 
   // We're cheating a bit here: we're assuming that the hook's output is fixed for a given (branch-name, commit-hash) pair.
   // machete-status-branch hook spec doesn't impose any requirements like that, but:
   // 1. it's pretty unlikely that any practically useful hook won't conform to this assumption,
   // 2. this kind of caching is pretty useful wrt. performance.
-  private final java.util.Map<Tuple2<String, String>, Option<String>> hookOutputByBranchNameAndCommitHash = new ConcurrentHashMap<>();
+  // Note that the hooks that time out or fail to execute complete exceptionally, and hence are not cached.
+  private final AsyncCache<HookOutputKey, Option<String>> outputByKey = Caffeine.newBuilder()
+      .maximumSize(MAX_CACHED_OUTPUT_COUNT)
+      .buildAsync();
 
-  public StatusBranchHookExecutor(Path mainDirectoryPath, Path gitDirectoryPath) {
-    this.mainDirectory = mainDirectoryPath.toFile();
-    // TODO (#289): first take `git config core.hooksPath` into account; possibly JGit has a helper for that
-    this.hookFile = gitDirectoryPath.resolve("hooks").resolve("machete-status-branch").toFile();
+  public StatusBranchHookExecutor(HookRuntime hookRuntime, Path gitDirectoryPath) {
+    this.hookRuntime = hookRuntime;
+    this.filePath = CacheFiles.IS_PERSISTENCE_ENABLED ? CacheFiles.resolve(gitDirectoryPath, FILE_NAME) : null;
+    read();
   }
 
-  private Option<String> executeHookFor(String branchName) throws IOException, InterruptedException {
-    var hookFilePath = hookFile.getAbsolutePath();
-    if (!hookFile.exists()) {
-      LOG.debug(() -> "Skipping machete-status-branch hook execution for ${branchName}: " +
-          "${hookFilePath} does not exist");
-      return Option.none();
-    } else if (!hookFile.canExecute()) {
-      LOG.warn("Skipping machete-status-branch hook execution for ${branchName}: " +
-          "${hookFilePath} cannot be executed");
-      return Option.none();
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class HookOutputKey {
+    private final String branchName;
+    private final String commitHash;
+    private final long hookContentHash;
+  }
+
+  /**
+   * Launches the hook (in the background) for each of the given branches whose output is not known yet, and returns
+   * right away. Use {@link #awaitWithinTimeBudget} to wait for the outputs.
+   *
+   * @param commitHashByBranchName hashes of the commits pointed by the branches
+   * @return outputs of the hook (possibly still pending) by branch name; the futures never complete exceptionally
+   *         (a hook that fails or times out has no output)
+   */
+  public Map<String, CompletableFuture<Option<String>>> launchHooksFor(Map<String, String> commitHashByBranchName) {
+    ResolvedHook hook = hookRuntime.resolveHook(HOOK_NAME).getOrNull();
+    if (hook == null) {
+      stopDaemon();
+      return commitHashByBranchName.mapValues(commitHash -> CompletableFuture.completedFuture(Option.none()));
+    }
+    long hookContentHash = hook.getContentHash();
+    @Nullable StatusBranchHookDaemon currentDaemon = hook.getContent().contains(StatusBranchHookDaemon.OPT_IN_MARKER)
+        ? deriveDaemon(hook)
+        : null;
+    if (currentDaemon == null) {
+      stopDaemon();
+    }
+    var launchedCount = new AtomicInteger();
+    var result = commitHashByBranchName.map((branchName, commitHash) -> {
+      var key = new HookOutputKey(branchName, commitHash, hookContentHash);
+      CompletableFuture<Option<String>> future = outputByKey.get(key, (k, executor) -> {
+        launchedCount.incrementAndGet();
+        return currentDaemon != null
+            ? requestDaemonFor(currentDaemon, branchName, commitHash)
+            : launchHookFor(hook, branchName);
+      });
+      return Tuple.of(branchName, future.exceptionally(e -> Option.none()));
+    });
+    LOG.debug(() -> "Launched machete-status-branch hook for ${launchedCount.get()} out of " +
+        "${commitHashByBranchName.size()} branch(es)");
+    return result;
+  }
+
+  /**
+   * Waits for the given outputs, but not longer than the time budget shared by all the hooks launched together.
+   *
+   * @param launchMillis the time when the hooks have been launched
+   */
+  public static void awaitWithinTimeBudget(Iterable<CompletableFuture<Option<String>>> outputs, long launchMillis) {
+    long deadlineMillis = launchMillis + TOTAL_TIME_BUDGET_MILLIS;
+    try {
+      for (var output : outputs) {
+        long remainingMillis = deadlineMillis - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+          return;
+        }
+        output.get(remainingMillis, TimeUnit.MILLISECONDS);
+      }
+    } catch (ExecutionException | TimeoutException e) {
+      // The outputs that aren't there yet will only make it to the snapshots created afterwards.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private CompletableFuture<Option<String>> launchHookFor(ResolvedHook hook, String branchName) {
+    var future = CompletableFuture.supplyAsync(() -> Try.of(() -> executeHookFor(hook, branchName)).get(), RUNNER);
+    future.thenRun(this::scheduleSave);
+    return future;
+  }
+
+  private CompletableFuture<Option<String>> requestDaemonFor(
+      StatusBranchHookDaemon currentDaemon,
+      String branchName,
+      String commitHash) {
+    // Sending a request might involve (re)starting the hook, so let's not do that on the caller's thread.
+    var future = CompletableFuture.supplyAsync(() -> currentDaemon.request(branchName, commitHash), RUNNER)
+        .thenCompose(requestFuture -> requestFuture);
+    future.thenRun(this::scheduleSave);
+    return future;
+  }
+
+  /**
+   * @return the daemon running the given hook, replacing (and stopping) the one running a previous version of the hook
+   */
+  private StatusBranchHookDaemon deriveDaemon(ResolvedHook hook) {
+    while (true) {
+      var currentDaemon = daemon.get();
+      if (currentDaemon != null && currentDaemon.isRunning(hook)) {
+        return currentDaemon;
+      }
+      // The hook process is only started upon the first request, so creating a daemon that ends up unused is cheap.
+      var newDaemon = new StatusBranchHookDaemon(hookRuntime, hook, PERSISTENT_HOOK_REQUEST_TIMEOUT_MILLIS);
+      if (daemon.compareAndSet(currentDaemon, newDaemon)) {
+        if (currentDaemon != null) {
+          currentDaemon.close();
+        }
+        return newDaemon;
+      }
+    }
+  }
+
+  /**
+   * Stops the persistent hook (if running). The hooks can still be launched afterwards,
+   * in which case the persistent hook is started again.
+   */
+  public void dispose() {
+    stopDaemon();
+  }
+
+  private void stopDaemon() {
+    var currentDaemon = daemon.getAndSet(null);
+    if (currentDaemon != null) {
+      currentDaemon.close();
     }
+  }
 
-    LOG.startTimer().debug(() -> "Executing machete-status-branch hook (${hookFilePath}) " +
-        "for ${branchName} in cwd=${mainDirectory}");
-    ProcessBuilder pb = new ProcessBuilder();
-    pb.command(hookFilePath, branchName);
+  private Option<String> executeHookFor(ResolvedHook hook, String branchName)
+      throws IOException, InterruptedException, HookTimeoutException {
+    var hookFilePath = hook.getFile().getAbsolutePath();
+    LOG.startTimer().debug(() -> "Executing machete-status-branch hook (${hookFilePath}) for ${branchName}");
     // According to machete-status-branch hook spec (`git machete help hooks`),
     // the hook should receive `ASCII_ONLY=true` in its environment if only ASCII characters are expected in the output
     // (so that the hook knows not to output any ANSI escape codes etc.).
-    pb.environment().put("ASCII_ONLY", "true");
-    // According to git hooks spec (`git help hooks`):
-    //   Before Git invokes a hook, it changes its working directory to either $GIT_DIR in a bare repository
-    //   or the root of the working tree in a non-bare repository.
-    //   An exception are hooks triggered during a push (...) which are always executed in $GIT_DIR.
-    // We obviously assume a non-bare repository here, and machete-status-branch isn't related to push.
-    pb.directory(mainDirectory);
-
-    Process process = pb.start();
-    boolean completed = process.waitFor(EXECUTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    if (!completed) {
+    ExecutionResult result;
+    try {
+      result = hookRuntime.execute(hook, List.of(branchName), HashMap.of("ASCII_ONLY", "true"),
+          TimeUnit.SECONDS.toMillis(EXECUTION_TIMEOUT_SECONDS));
+    } catch (HookTimeoutException e) {
       LOG.withTimeElapsed().warn("machete-status-branch hook (${hookFilePath}) for ${branchName} " +
           "did not complete within ${EXECUTION_TIMEOUT_SECONDS} seconds; ignoring the output");
-      return Option.none();
+      // Unlike the outputs, timeouts are not cached, as the hook might well complete in time next time.
+      throw e;
     }
-    if (process.exitValue() != 0) {
+    if (result.getExitCode() != 0) {
       LOG.withTimeElapsed().warn("machete-status-branch hook (${hookFilePath}) for ${branchName} " +
-          "returned with non-zero (${process.exitValue()}) exit code; ignoring the output");
+          "returned with non-zero (${result.getExitCode()}) exit code; ignoring the output");
       return Option.none();
     }
 
-    // It's quite likely that the hook's output will be terminated with a newline,
-    // and we don't want that to be displayed.
-    String strippedStdout = new String(process.getInputStream().readAllBytes()).stripTrailing();
+    // Note that the output is already stripped of the trailing newline (which we don't want to be displayed).
+    String strippedStdout = result.getStdout();
     LOG.withTimeElapsed().debug(() -> "Output of machete-status-branch hook (${hookFilePath}) " +
         "for ${branchName} is '${strippedStdout}'");
     return Option.some(strippedStdout);
   }
 
-  public Option<String> deriveHookOutputFor(String branchName, CommitOfManagedBranch pointedCommit) {
-    var key = Tuple.of(branchName, pointedCommit.getHash());
-    return hookOutputByBranchNameAndCommitHash.computeIfAbsent(key,
-        k -> Try.of(() -> executeHookFor(k._1)).getOrElse(Option.none()));
+  private void scheduleSave() {
+    if (filePath == null || !isSaveScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    CacheFiles.WRITER.schedule(() -> {
+      isSaveScheduled.set(false);
+      write();
+    }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void read() {
+    var path = filePath;
+    if (path == null) {
+      return;
+    }
+    try {
+      DataInputStream input = CacheFiles.openForReading(path, MAGIC, VERSION, MAX_FILE_SIZE);
+      int outputCount = CacheFiles.readCount(input, MAX_CACHED_OUTPUT_COUNT);
+      for (int i = 0; i < outputCount; i++) {
+        var key = new HookOutputKey(input.readUTF(), input.readUTF(), input.readLong());
+        Option<String> output = input.readBoolean() ? Option.some(input.readUTF()) : Option.none();
+        outputByKey.put(key, CompletableFuture.completedFuture(output));
+      }
+      LOG.debug(() -> "Loaded ${outputCount} machete-status-branch hook output(s) from ${path}");
+
+    } catch (NoSuchFileException e) {
+      LOG.debug(() -> "${path} does not exist yet");
+    } catch (IOException e) {
+      LOG.warn("Ignoring unreadable (possibly corrupted) ${path}", e);
+      outputByKey.synchronous().invalidateAll();
+    }
+  }
+
+  private void write() {
+    var path = filePath;
+    if (path == null) {
+      return;
+    }
+    // The cache might temporarily exceed its maximum size until the pending evictions are done.
+    outputByKey.synchronous().cleanUp();
+    // Only contains the completed outputs.
+    // Capped, since a file with more entries than can be read would be rejected as a whole.
+    var entries = List.ofAll(outputByKey.synchronous().asMap().entrySet())
+        .filter(entry -> entry.getValue().forAll(output -> output.length() <= MAX_PERSISTED_OUTPUT_LENGTH))
+        .take(MAX_CACHED_OUTPUT_COUNT);
+    try {
+      CacheFiles.write(path, MAGIC, VERSION, output -> {
+        output.writeInt(entries.size());
+        for (var entry : entries) {
+          output.writeUTF(entry.getKey().branchName);
+          output.writeUTF(entry.getKey().commitHash);
+          output.writeLong(entry.getKey().hookContentHash);
+          output.writeBoolean(entry.getValue().isDefined());
+          if (entry.getValue().isDefined()) {
+            output.writeUTF(entry.getValue().get());
+          }
+        }
+      });
+      LOG.debug(() -> "Saved ${entries.size()} machete-status-branch hook output(s) to ${path}");
+    } catch (IOException e) {
+      LOG.warn("Cannot save ${path}", e);
+    }
   }
 }
@@ -0,0 +1,189 @@
+package com.virtuslab.gitmachete.backend.integration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import io.vavr.collection.HashSet;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitmachete.backend.api.GitMacheteRepositoryChanges;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryChangeDetector;
+import com.virtuslab.gitmachete.backend.impl.GitMacheteRepositoryCache;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitMacheteRepositoryChangeDetectorIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private final GitMacheteRepositoryCache gitMacheteRepositoryCache = new GitMacheteRepositoryCache();
+  private final Path macheteFilePath;
+  private final IGitMacheteRepositoryChangeDetector changeDetector;
+
+  @SneakyThrows
+  public GitMacheteRepositoryChangeDetectorIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    macheteFilePath = repositoryGitDir.resolve("machete");
+    changeDetector = gitMacheteRepositoryCache.getInstance(repositoryMainDir, repositoryGitDir)
+        .createChangeDetector(macheteFilePath);
+  }
+
+  @After
+  public void tearDown() {
+    gitMacheteRepositoryCache.evict(repositoryMainDir, repositoryGitDir);
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenNoPreviousCall_requiresFullRefresh() {
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertTrue(changes.isFullRefreshRequired());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenCommitOnBranch_reportsOnlyThatBranch() {
+    // given
+    changeDetector.detectChanges();
+    String newCommitHash = runGitCommand("commit-tree", "develop^{tree}", "-p", "develop", "-m", "New develop commit");
+    runGitCommand("update-ref", "-m", "commit: New develop commit", "refs/heads/develop", newCommitHash);
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertOnlyRefsChanged(changes);
+    assertEquals(HashSet.of("refs/heads/develop"), changes.getChangedRefFullNames());
+    assertEquals(HashSet.of("develop"), changes.getDirtyBranchNames());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenBranchCreated_reportsItsRef() {
+    // given
+    changeDetector.detectChanges();
+    runGitCommand("branch", "feature", "develop");
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertOnlyRefsChanged(changes);
+    assertEquals(HashSet.of("refs/heads/feature"), changes.getChangedRefFullNames());
+    assertEquals(HashSet.of("feature"), changes.getDirtyBranchNames());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenRemoteTrackingBranchMoved_reportsItsLocalBranchAsDirty() {
+    // given
+    changeDetector.detectChanges();
+    runGitCommand("update-ref", "-m", "fetch: forced-update", "refs/remotes/origin/call-ws", "develop");
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertOnlyRefsChanged(changes);
+    assertEquals(HashSet.of("refs/remotes/origin/call-ws"), changes.getChangedRefFullNames());
+    assertEquals(HashSet.of("call-ws"), changes.getDirtyBranchNames());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenForkPointOverridden_reportsThatBranch() {
+    // given
+    changeDetector.detectChanges();
+    String parentCommitHash = runGitCommand("rev-parse", "allow-ownership-link");
+    runGitCommand("config", "machete.overrideForkPoint.build-chain.to", parentCommitHash);
+    runGitCommand("config", "machete.overrideForkPoint.build-chain.whileDescendantOf", "build-chain");
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertOnlyRefsChanged(changes);
+    assertEquals(HashSet.of("refs/heads/build-chain"), changes.getChangedRefFullNames());
+    assertEquals(HashSet.of("build-chain"), changes.getDirtyBranchNames());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenCheckout_reportsOnlyHeadChange() {
+    // given
+    changeDetector.detectChanges();
+    runGitCommand("checkout", "develop");
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertFalse(changes.isFullRefreshRequired());
+    assertFalse(changes.isBranchLayoutFileChanged());
+    assertTrue(changes.isHeadChanged());
+    assertTrue(changes.getChangedRefFullNames().isEmpty());
+    assertTrue(changes.getDirtyBranchNames().isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenMacheteFileEdited_reportsOnlyBranchLayoutFileChange() {
+    // given
+    changeDetector.detectChanges();
+    Files.write(macheteFilePath, "drop-constraint\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertFalse(changes.isFullRefreshRequired());
+    assertTrue(changes.isBranchLayoutFileChanged());
+    assertFalse(changes.isHeadChanged());
+    assertTrue(changes.getChangedRefFullNames().isEmpty());
+    assertTrue(changes.getDirtyBranchNames().isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenRemoteAdded_requiresFullRefresh() {
+    // given
+    changeDetector.detectChanges();
+    runGitCommand("remote", "add", "upstream", "../machete-sandbox-remote");
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertTrue(changes.isFullRefreshRequired());
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectChanges_givenNoChangeSincePreviousCall_reportsNothing() {
+    // given
+    changeDetector.detectChanges();
+    runGitCommand("branch", "feature", "develop");
+    changeDetector.detectChanges();
+
+    // when
+    var changes = changeDetector.detectChanges();
+
+    // then
+    assertTrue(changes.isNothingChanged());
+  }
+
+  private static void assertOnlyRefsChanged(GitMacheteRepositoryChanges changes) {
+    assertFalse(changes.isFullRefreshRequired());
+    assertFalse(changes.isBranchLayoutFileChanged());
+    assertFalse(changes.isHeadChanged());
+  }
+}
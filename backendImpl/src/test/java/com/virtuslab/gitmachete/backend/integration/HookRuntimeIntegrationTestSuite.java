@@ -0,0 +1,267 @@
+package com.virtuslab.gitmachete.backend.integration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.binding.RuntimeBinding;
+import com.virtuslab.gitcore.api.IGitCoreRepositoryFactory;
+import com.virtuslab.gitmachete.backend.api.hooks.IExecutionResult;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class HookRuntimeIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final String HOOK_NAME = "machete-status-branch";
+  private static final long AWAIT_TIMEOUT_MILLIS = 10_000;
+
+  private final HookRuntime hookRuntime;
+  private final Path externalHooksDir = createTemporaryDirectory();
+
+  @SneakyThrows
+  public HookRuntimeIntegrationTestSuite() {
+    super(SETUP_FOR_NO_REMOTES);
+    var gitCoreRepository = RuntimeBinding.instantiateSoleImplementingClass(IGitCoreRepositoryFactory.class)
+        .create(repositoryMainDir, repositoryGitDir);
+    hookRuntime = new HookRuntime(repositoryMainDir, repositoryGitDir, gitCoreRepository);
+  }
+
+  @SneakyThrows
+  private static Path createTemporaryDirectory() {
+    return Files.createTempDirectory("machete-hooks-");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    hookRuntime.dispose();
+    cleanUpParentDir();
+    Files.walk(externalHooksDir).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+  }
+
+  @Test
+  public void resolveHook_givenNoHooksPath_resolvesHookInGitDirectory() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo default");
+
+    // then
+    assertEquals(Option.some(repositoryGitDir.resolve("hooks").resolve(HOOK_NAME).toFile()), resolveHookFile());
+  }
+
+  @Test
+  public void resolveHook_givenRelativeHooksPath_resolvesHookAgainstMainDirectory() {
+    // given
+    runGitCommand("config", "core.hooksPath", "custom-hooks");
+    writeHook(repositoryMainDir.resolve("custom-hooks"), "echo relative");
+
+    // then
+    assertEquals(Option.some(repositoryMainDir.resolve("custom-hooks").resolve(HOOK_NAME).toFile()), resolveHookFile());
+  }
+
+  @Test
+  public void resolveHook_givenAbsoluteHooksPath_resolvesHookInThatDirectory() {
+    // given
+    runGitCommand("config", "core.hooksPath", externalHooksDir.toString());
+    writeHook(externalHooksDir, "echo absolute");
+
+    // then
+    assertEquals(Option.some(externalHooksDir.resolve(HOOK_NAME).toFile()), resolveHookFile());
+  }
+
+  @Test
+  public void resolveHook_givenHooksPathChangedAfterResolution_resolvesHookInNewDirectory() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo default");
+    writeHook(externalHooksDir, "echo absolute");
+    assertEquals(Option.some(repositoryGitDir.resolve("hooks").resolve(HOOK_NAME).toFile()), resolveHookFile());
+
+    // when
+    runGitCommand("config", "core.hooksPath", externalHooksDir.toString());
+
+    // then
+    awaitUntil(() -> resolveHookFile().equals(Option.some(externalHooksDir.resolve(HOOK_NAME).toFile())));
+  }
+
+  @Test
+  public void resolveHook_givenNonExecutableHook_returnsEmpty() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo default");
+    assertTrue(repositoryGitDir.resolve("hooks").resolve(HOOK_NAME).toFile().setExecutable(false));
+
+    // then
+    assertEquals(Option.none(), resolveHookFile());
+  }
+
+  @Test
+  public void dispose_givenWatchedDirectories_stopsWatchingThemButKeepsResolvingHooks() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo first");
+    resolveHook();
+    java.util.Map<?, ?> unwatchByDirectoryPath = Whitebox.getInternalState(hookRuntime, "unwatchByDirectoryPath");
+    assertFalse(unwatchByDirectoryPath.isEmpty());
+
+    // when
+    hookRuntime.dispose();
+    writeHook(repositoryGitDir.resolve("hooks"), "echo second");
+
+    // then
+    assertTrue(unwatchByDirectoryPath.isEmpty());
+    assertEquals("second", execute(resolveHook(), /* timeoutMillis */ 10_000).getStdout());
+    assertTrue(unwatchByDirectoryPath.isEmpty());
+  }
+
+  @Test
+  public void execute_givenHookWritingToBothOutputs_returnsExitCodeAndStrippedOutputs() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo \"out $1 $EXTRA\"; echo 'err' >&2; exit 3");
+
+    // when
+    var result = execute(resolveHook(), List.of("arg"), HashMap.of("EXTRA", "env"), /* timeoutMillis */ 10_000);
+
+    // then
+    assertEquals(3, result.getExitCode());
+    assertEquals("out arg env", result.getStdout());
+    assertEquals("err", result.getStderr());
+  }
+
+  @Test
+  public void execute_givenHookOutputExceedingLimit_returnsTruncatedOutput() {
+    // given
+    // Much more than what fits into a pipe buffer, so the hook would block forever if the output wasn't drained.
+    writeHook(repositoryGitDir.resolve("hooks"), "head -c 1000000 /dev/zero | tr '\\0' 'a'");
+
+    // when
+    var result = execute(resolveHook(), /* timeoutMillis */ 10_000);
+
+    // then
+    assertEquals(0, result.getExitCode());
+    assertTrue(result.getStdout().startsWith("aaaa"));
+    assertTrue(result.getStdout().endsWith("[... output truncated ...]"));
+    assertTrue(result.getStdout().length() < 100_000);
+  }
+
+  @Test
+  public void execute_givenBackgroundChildHoldingOutputOpen_returnsOnceHookExits() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo before; sleep 30 & echo after");
+
+    // when
+    long startMillis = System.currentTimeMillis();
+    var result = execute(resolveHook(), /* timeoutMillis */ 10_000);
+
+    // then
+    assertTrue(System.currentTimeMillis() - startMillis < 10_000);
+    assertEquals(0, result.getExitCode());
+    assertEquals("before" + System.lineSeparator() + "after", result.getStdout());
+  }
+
+  @Test
+  @SneakyThrows
+  public void execute_givenHookNotCompletingInTime_killsItAlongWithChildren() {
+    // given
+    Path pidFilePath = parentDir.resolve("child.pid");
+    writeHook(repositoryGitDir.resolve("hooks"), "echo started; sleep 30 & echo $! > '${pidFilePath}'; wait");
+    var hook = resolveHook();
+
+    // when
+    long startMillis = System.currentTimeMillis();
+    try {
+      execute(hook, /* timeoutMillis */ 1_000);
+      fail("The hook should have timed out");
+    } catch (Exception e) {
+      // then
+      assertEquals("HookTimeoutException", e.getClass().getSimpleName());
+      assertEquals("started", Whitebox.<String>invokeMethod(e, "getStdout"));
+    }
+    assertTrue(System.currentTimeMillis() - startMillis < 10_000);
+    long childPid = Long.parseLong(Files.readString(pidFilePath).strip());
+    awaitUntil(() -> !ProcessHandle.of(childPid).map(ProcessHandle::isAlive).orElse(false));
+  }
+
+  @Test
+  @SneakyThrows
+  public void execute_givenCallingThreadInterrupted_killsHookAndReportsItsOutput() {
+    // given
+    writeHook(repositoryGitDir.resolve("hooks"), "echo started; exec sleep 30");
+    var hook = resolveHook();
+    var thrown = new AtomicReference<Throwable>();
+    var thread = new Thread(() -> {
+      try {
+        execute(hook, /* timeoutMillis */ 30_000);
+      } catch (Throwable e) {
+        thrown.set(e);
+      }
+    });
+
+    // when
+    thread.start();
+    // Let's give the hook some time to output anything.
+    Thread.sleep(1_000);
+    thread.interrupt();
+    thread.join(10_000);
+
+    // then
+    assertFalse(thread.isAlive());
+    assertEquals("HookInterruptedException", thrown.get().getClass().getSimpleName());
+    assertEquals("started", Whitebox.<String>invokeMethod(thrown.get(), "getStdout"));
+  }
+
+  @SneakyThrows
+  private static void writeHook(Path hooksDir, String script) {
+    Files.createDirectories(hooksDir);
+    Path hookFilePath = hooksDir.resolve(HOOK_NAME);
+    Files.write(hookFilePath, ("#!/bin/sh\n" + script + "\n").getBytes(UTF_8));
+    assertTrue(hookFilePath.toFile().setExecutable(true));
+  }
+
+  @SneakyThrows
+  private Option<?> resolveHookOption() {
+    return Whitebox.invokeMethod(hookRuntime, "resolveHook", HOOK_NAME);
+  }
+
+  private Object resolveHook() {
+    return resolveHookOption().getOrElseThrow(() -> new AssertionError("Hook should have been resolved"));
+  }
+
+  private Option<File> resolveHookFile() {
+    return resolveHookOption().map(hook -> Whitebox.<File>getInternalState(hook, "file"));
+  }
+
+  private IExecutionResult execute(Object hook, long timeoutMillis) {
+    return execute(hook, List.empty(), HashMap.empty(), timeoutMillis);
+  }
+
+  @SneakyThrows
+  private IExecutionResult execute(Object hook, List<String> arguments, Map<String, String> extraEnvironment,
+      long timeoutMillis) {
+    return Whitebox.invokeMethod(hookRuntime, "execute",
+        new Class<?>[]{hook.getClass(), List.class, Map.class, long.class}, hook, arguments, extraEnvironment, timeoutMillis);
+  }
+
+  @SneakyThrows
+  private static void awaitUntil(BooleanSupplier condition) {
+    long deadlineMillis = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      assertTrue("Condition not met within ${AWAIT_TIMEOUT_MILLIS} ms", System.currentTimeMillis() < deadlineMillis);
+      Thread.sleep(50);
+    }
+  }
+}
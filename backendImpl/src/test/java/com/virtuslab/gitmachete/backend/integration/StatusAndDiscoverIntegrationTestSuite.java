@@ -13,6 +13,8 @@ import static io.vavr.API.Case;
 import static io.vavr.API.Match;
 import static org.junit.runners.Parameterized.Parameters;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import io.vavr.collection.List;
 import lombok.SneakyThrows;
 import org.junit.Assert;
@@ -88,6 +90,91 @@ public class StatusAndDiscoverIntegrationTestSuite extends BaseGitRepositoryBack
     Assert.assertEquals(gitMacheteCliStatus, ourStatus);
   }
 
+  @Test
+  @SneakyThrows
+  public void yieldsSameStatusAsCliWhenCreatedIncrementally() {
+    String gitMacheteCliStatus = gitMacheteCliStatus();
+
+    IBranchLayout branchLayout = branchLayoutReader.read(repositoryGitDir.resolve("machete"));
+    var previousSnapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+    // Let's pretend that (the reflog of) one of the branches has changed.
+    var changedRefFullNames = previousSnapshot.getManagedBranches()
+        .map(branch -> branch.getFullName()).sorted().take(1).toSet();
+    gitMacheteRepositorySnapshot = gitMacheteRepository.createSnapshotForLayoutIncrementally(branchLayout,
+        previousSnapshot, changedRefFullNames);
+    String ourStatus = ourGitMacheteRepositorySnapshotAsString();
+
+    Assert.assertEquals(gitMacheteCliStatus, ourStatus);
+  }
+
+  @Test
+  @SneakyThrows
+  public void yieldsSameStatusWhenCreatedIncrementallyAsFromScratchAfterRefsHaveChanged() {
+    IBranchLayout branchLayout = branchLayoutReader.read(repositoryGitDir.resolve("machete"));
+    var changeDetector = gitMacheteRepository.createChangeDetector(repositoryGitDir.resolve("machete"));
+    changeDetector.detectChanges();
+    var previousSnapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+    String previousStatus = snapshotAsString(previousSnapshot);
+
+    var nonRootBranches = previousSnapshot.getManagedBranches()
+        .filter(branch -> branch.isNonRoot()).map(branch -> branch.asNonRoot()).sortBy(branch -> branch.getName());
+    // A new commit on top of a branch, as if made with `git commit`.
+    var branchToCommitOn = nonRootBranches.head();
+    String newCommitHash = runGitCommand("commit-tree", "${branchToCommitOn.getName()}^{tree}",
+        "-p", branchToCommitOn.getName(), "-m", "Commit made after the previous snapshot");
+    runGitCommand("update-ref", "-m", "commit: Commit made after the previous snapshot",
+        branchToCommitOn.getFullName(), newCommitHash);
+    // A new branch (not managed, but still relevant for fork points) pointing to a commit in the middle of a branch,
+    // which makes for a fork point closer than the previous one, even though the branch itself hasn't changed.
+    for (var branchToForkFrom : nonRootBranches.find(branch -> branch.getCommits().size() >= 2)) {
+      runGitCommand("branch", "forked-after-previous-snapshot", branchToForkFrom.getCommits().get(1).getHash());
+    }
+    // A remote tracking branch moved, as if with `git fetch`.
+    for (var branchToFetch : nonRootBranches.find(branch -> branch.getRemoteTrackingBranch().isDefined())) {
+      runGitCommand("update-ref", "-m", "fetch: forced-update", branchToFetch.getRemoteTrackingBranch().get().getFullName(),
+          branchToFetch.getParent().getPointedCommit().getHash());
+    }
+
+    var changes = changeDetector.detectChanges();
+    Assert.assertFalse(changes.isFullRefreshRequired());
+    var incrementalSnapshot = gitMacheteRepository.createSnapshotForLayoutIncrementally(branchLayout,
+        previousSnapshot, changes.getChangedRefFullNames());
+    var fullSnapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+
+    String fullStatus = snapshotAsString(fullSnapshot);
+    Assert.assertNotEquals(previousStatus, fullStatus);
+    Assert.assertEquals(fullStatus, snapshotAsString(incrementalSnapshot));
+  }
+
+  @Test
+  @SneakyThrows
+  public void propagatesExceptionThrownOnCancellationAsIs() {
+    IBranchLayout branchLayout = branchLayoutReader.read(repositoryGitDir.resolve("machete"));
+    var cancellation = new IllegalStateException("Canceled");
+    var checkCount = new AtomicInteger(0);
+
+    try {
+      gitMacheteRepository.createSnapshotForLayout(branchLayout, /* checkCanceled */ () -> {
+        // Once canceled, keeps throwing, just like ProgressIndicator#checkCanceled does.
+        if (checkCount.incrementAndGet() > 1) {
+          throw cancellation;
+        }
+      });
+      Assert.fail("Snapshot creation has not been canceled");
+    } catch (IllegalStateException e) {
+      Assert.assertSame(cancellation, e);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void detectsNoChangesWhenRepositoryIsUntouched() {
+    var changeDetector = gitMacheteRepository.createChangeDetector(repositoryGitDir.resolve("machete"));
+
+    Assert.assertTrue(changeDetector.detectChanges().isFullRefreshRequired());
+    Assert.assertTrue(changeDetector.detectChanges().isNothingChanged());
+  }
+
   @Test
   @SneakyThrows
   public void discoversSameLayoutAsCli() {
@@ -139,6 +226,11 @@ public class StatusAndDiscoverIntegrationTestSuite extends BaseGitRepositoryBack
         .mkString(System.lineSeparator());
   }
 
+  private String snapshotAsString(IGitMacheteRepositorySnapshot snapshot) {
+    gitMacheteRepositorySnapshot = snapshot;
+    return ourGitMacheteRepositorySnapshotAsString();
+  }
+
   private String ourGitMacheteRepositorySnapshotAsString() {
     var sb = new StringBuilder();
     var branches = gitMacheteRepositorySnapshot.getRootBranches();
@@ -0,0 +1,204 @@
+package com.virtuslab.gitmachete.backend.integration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.binding.RuntimeBinding;
+import com.virtuslab.gitcore.api.IGitCoreRepositoryFactory;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class StatusBranchHookDaemonIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final String HOOK_NAME = "machete-status-branch";
+  private static final String HOOK_PREAMBLE = "#!/bin/sh\n# git-machete-status-hook-protocol: persistent-v1\n";
+  private static final long REQUEST_TIMEOUT_MILLIS = 10_000;
+
+  private final HookRuntime hookRuntime;
+  private final Path startLogPath;
+  private @Nullable Object daemon = null;
+
+  @SneakyThrows
+  public StatusBranchHookDaemonIntegrationTestSuite() {
+    super(SETUP_FOR_NO_REMOTES);
+    var gitCoreRepository = RuntimeBinding.instantiateSoleImplementingClass(IGitCoreRepositoryFactory.class)
+        .create(repositoryMainDir, repositoryGitDir);
+    hookRuntime = new HookRuntime(repositoryMainDir, repositoryGitDir, gitCoreRepository);
+    startLogPath = parentDir.resolve("starts.log");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    if (daemon != null) {
+      Whitebox.invokeMethod(daemon, "close");
+    }
+    hookRuntime.dispose();
+    cleanUpParentDir();
+  }
+
+  @Test
+  public void request_givenHookAnsweringOnlyOnceTwoRequestsArrive_getsBothAnswersInAnyOrder() {
+    // given
+    // The hook would never answer if the second request was only sent once the first one was answered.
+    startDaemon("echo started >> '${startLogPath}'\n" +
+        "read id1 hash1 branch1; read id2 hash2 branch2\n" +
+        "echo \"$id2 ok second $branch2\"; echo \"$id1 ok first $branch1\"\n" +
+        "while read id hash branch; do echo \"$id none\"; done\n");
+
+    // when
+    var firstFuture = request("develop", "abc");
+    var secondFuture = request("master", "def");
+    var thirdFuture = request("hotfix", "ghi");
+
+    // then
+    assertEquals(Option.some("first develop"), await(firstFuture));
+    assertEquals(Option.some("second master"), await(secondFuture));
+    assertEquals(Option.none(), await(thirdFuture));
+    assertEquals(1, getStartCount());
+  }
+
+  @Test
+  public void request_givenHookExitedAfterAnswering_restartsIt() {
+    // given
+    startDaemon("echo started >> '${startLogPath}'\n" +
+        "read id hash branch; echo \"$id ok $branch\"\n");
+    assertEquals(Option.some("develop"), await(request("develop", "abc")));
+    awaitUntil(() -> !isProcessAlive());
+
+    // when
+    var output = await(request("master", "def"));
+
+    // then
+    assertEquals(Option.some("master"), output);
+    assertEquals(2, getStartCount());
+  }
+
+  @Test
+  public void request_givenHookRepeatedlyExitingWithoutAnswering_stopsRestartingIt() {
+    // given
+    startDaemon("echo started >> '${startLogPath}'\nexit 1\n");
+    int maxConsecutiveCrashCount = Whitebox.getInternalState(daemon, "MAX_CONSECUTIVE_CRASH_COUNT");
+
+    for (int i = 0; i < maxConsecutiveCrashCount + 2; i++) {
+      // when
+      var future = request("develop", "abc");
+
+      // then
+      assertFailsWithIOException(future);
+      int expectedCrashCount = Math.min(i + 1, maxConsecutiveCrashCount);
+      awaitUntil(() -> getConsecutiveCrashCount() == expectedCrashCount);
+    }
+    assertEquals(maxConsecutiveCrashCount, getStartCount());
+  }
+
+  @Test
+  public void request_givenHookNotReadingItsInput_doesNotBlockTheCaller() {
+    // given
+    startDaemon("echo started >> '${startLogPath}'\nexec sleep 30\n");
+    // A single request is short, but many of them are way more than what fits into a pipe buffer.
+    var branchName = "a".repeat(1_000);
+
+    // when
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < 1_000; i++) {
+      request(branchName, "abc");
+    }
+
+    // then
+    assertTrue(System.currentTimeMillis() - startMillis < REQUEST_TIMEOUT_MILLIS);
+  }
+
+  @Test
+  @SneakyThrows
+  public void close_givenRunningHook_killsItAndFailsSubsequentRequests() {
+    // given
+    startDaemon("echo started >> '${startLogPath}'\nwhile read id hash branch; do echo \"$id ok $branch\"; done\n");
+    assertEquals(Option.some("develop"), await(request("develop", "abc")));
+
+    // when
+    Whitebox.invokeMethod(daemon, "close");
+
+    // then
+    assertFailsWithIOException(request("master", "def"));
+    assertEquals(1, getStartCount());
+  }
+
+  @SneakyThrows
+  private void startDaemon(String script) {
+    Path hooksDir = repositoryGitDir.resolve("hooks");
+    Files.createDirectories(hooksDir);
+    Path hookFilePath = hooksDir.resolve(HOOK_NAME);
+    Files.write(hookFilePath, (HOOK_PREAMBLE + script).getBytes(UTF_8));
+    assertTrue(hookFilePath.toFile().setExecutable(true));
+
+    Option<?> hook = Whitebox.invokeMethod(hookRuntime, "resolveHook", HOOK_NAME);
+    var daemonClass = Class.forName("com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookDaemon");
+    var hookClass = Class.forName("com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime$ResolvedHook");
+    // The process is only started upon the first request.
+    daemon = Whitebox.invokeConstructor(daemonClass, new Class<?>[]{HookRuntime.class, hookClass, long.class},
+        new Object[]{hookRuntime, hook.get(), REQUEST_TIMEOUT_MILLIS});
+  }
+
+  @SneakyThrows
+  private CompletableFuture<Option<String>> request(String branchName, String commitHash) {
+    return Whitebox.invokeMethod(daemon, "request", branchName, commitHash);
+  }
+
+  @SneakyThrows
+  private boolean isProcessAlive() {
+    Object connection = Whitebox.getInternalState(daemon, "connection");
+    return connection != null && Whitebox.<Process>getInternalState(connection, "process").isAlive();
+  }
+
+  private int getConsecutiveCrashCount() {
+    return Whitebox.<AtomicInteger>getInternalState(daemon, "consecutiveCrashCount").get();
+  }
+
+  @SneakyThrows
+  private int getStartCount() {
+    return Files.exists(startLogPath) ? Files.readAllLines(startLogPath).size() : 0;
+  }
+
+  @SneakyThrows
+  private static Option<String> await(CompletableFuture<Option<String>> future) {
+    return future.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @SneakyThrows
+  private static void assertFailsWithIOException(CompletableFuture<Option<String>> future) {
+    try {
+      future.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      fail("The request should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  @SneakyThrows
+  private static void awaitUntil(BooleanSupplier condition) {
+    long deadlineMillis = System.currentTimeMillis() + REQUEST_TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      assertTrue("Condition not met within ${REQUEST_TIMEOUT_MILLIS} ms", System.currentTimeMillis() < deadlineMillis);
+      Thread.sleep(50);
+    }
+  }
+}
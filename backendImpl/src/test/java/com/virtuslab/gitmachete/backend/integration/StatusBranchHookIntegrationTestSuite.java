@@ -0,0 +1,105 @@
+package com.virtuslab.gitmachete.backend.integration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.binding.RuntimeBinding;
+import com.virtuslab.branchlayout.api.IBranchLayout;
+import com.virtuslab.branchlayout.api.readwrite.IBranchLayoutReader;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
+import com.virtuslab.gitmachete.backend.impl.GitMacheteRepositoryCache;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class StatusBranchHookIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final long AWAIT_TIMEOUT_MILLIS = 10_000;
+
+  private final IBranchLayoutReader branchLayoutReader = RuntimeBinding
+      .instantiateSoleImplementingClass(IBranchLayoutReader.class);
+  private final GitMacheteRepositoryCache gitMacheteRepositoryCache = new GitMacheteRepositoryCache();
+  private final IGitMacheteRepository gitMacheteRepository;
+  private final Path gateFilePath;
+
+  @SneakyThrows
+  public StatusBranchHookIntegrationTestSuite() {
+    super(SETUP_FOR_NO_REMOTES);
+    gitMacheteRepository = gitMacheteRepositoryCache.getInstance(repositoryMainDir, repositoryGitDir);
+    gateFilePath = parentDir.resolve("gate");
+  }
+
+  @After
+  public void tearDown() {
+    gitMacheteRepositoryCache.evict(repositoryMainDir, repositoryGitDir);
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void createSnapshotForLayout_givenHookNotAnsweringInTime_keepsSnapshotIntactAndShowsOutputInNextSnapshot() {
+    // given
+    // A persistent hook, since its requests are allowed to take longer than the time budget of the snapshot creation.
+    writeHook("#!/bin/sh\n# git-machete-status-hook-protocol: persistent-v1\n" +
+        "while [ ! -f '${gateFilePath}' ]; do sleep 0.05; done\n" +
+        "while read id hash branch; do echo \"$id ok status of $branch\"; done\n");
+    IBranchLayout branchLayout = branchLayoutReader.read(repositoryGitDir.resolve("machete"));
+    var snapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+    assertTrue(snapshot.getManagedBranches().nonEmpty());
+    assertTrue(snapshot.getManagedBranches().forAll(branch -> branch.isStatusHookOutputPending()));
+
+    // when
+    Files.createFile(gateFilePath);
+    boolean isAnyOutputDefined = snapshot.getPendingStatusHookOutputsCompletion().toCompletableFuture()
+        .get(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    var nextSnapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+
+    // then
+    assertTrue(isAnyOutputDefined);
+    for (var branch : snapshot.getManagedBranches()) {
+      assertTrue(branch.isStatusHookOutputPending());
+      assertEquals(Option.none(), branch.getStatusHookOutput());
+    }
+    for (var branch : nextSnapshot.getManagedBranches()) {
+      assertFalse(branch.isStatusHookOutputPending());
+      assertEquals(Option.some("status of " + branch.getName()), branch.getStatusHookOutput());
+    }
+    assertFalse(nextSnapshot.getPendingStatusHookOutputsCompletion().toCompletableFuture().get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void createSnapshotForLayout_givenHookAnsweringInTime_hasNoPendingOutputs() {
+    // given
+    writeHook("#!/bin/sh\necho \"status of $1\"\n");
+    IBranchLayout branchLayout = branchLayoutReader.read(repositoryGitDir.resolve("machete"));
+
+    // when
+    var snapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+
+    // then
+    for (var branch : snapshot.getManagedBranches()) {
+      assertFalse(branch.isStatusHookOutputPending());
+      assertEquals(Option.some("status of " + branch.getName()), branch.getStatusHookOutput());
+    }
+    assertFalse(snapshot.getPendingStatusHookOutputsCompletion().toCompletableFuture().get());
+  }
+
+  @SneakyThrows
+  private void writeHook(String script) {
+    Path hooksDir = repositoryGitDir.resolve("hooks");
+    Files.createDirectories(hooksDir);
+    Path hookFilePath = hooksDir.resolve("machete-status-branch");
+    Files.write(hookFilePath, script.getBytes(UTF_8));
+    assertTrue(hookFilePath.toFile().setExecutable(true));
+  }
+}
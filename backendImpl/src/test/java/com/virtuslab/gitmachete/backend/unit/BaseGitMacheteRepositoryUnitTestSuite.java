@@ -1,13 +1,22 @@
 package com.virtuslab.gitmachete.backend.unit;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
 import lombok.SneakyThrows;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.reflect.Whitebox;
 
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchResult;
+import com.virtuslab.gitcore.api.GitCoreGenerationFloor;
 import com.virtuslab.gitcore.api.IGitCoreBranchSnapshot;
+import com.virtuslab.gitcore.api.IGitCoreCommit;
 import com.virtuslab.gitcore.api.IGitCoreRepository;
 import com.virtuslab.gitmachete.backend.impl.GitMacheteRepository;
 import com.virtuslab.gitmachete.backend.impl.hooks.PreRebaseHookExecutor;
@@ -27,9 +36,30 @@ public class BaseGitMacheteRepositoryUnitTestSuite {
   @SneakyThrows
   protected Object aux(IGitCoreBranchSnapshot... localCoreBranches) {
     PowerMockito.doReturn(List.ofAll(Arrays.stream(localCoreBranches))).when(gitCoreRepository).deriveAllLocalBranches();
+    // Let's make the batch check consistent with whatever the single checks are stubbed to return.
+    PowerMockito.doAnswer(invocation -> {
+      IGitCoreCommit presumedAncestor = invocation.getArgument(0);
+      List<IGitCoreCommit> presumedDescendants = invocation.getArgument(1);
+      return presumedDescendants.map(presumedDescendant -> Try
+          .of(() -> gitCoreRepository.isAncestor(presumedAncestor, presumedDescendant)).get());
+    }).when(gitCoreRepository).isAncestorOfEach(any(), any());
 
     return Whitebox
         .getConstructor(AUX_CLASS, IGitCoreRepository.class, StatusBranchHookExecutor.class, PreRebaseHookExecutor.class)
         .newInstance(gitCoreRepository, /* statusBranchHookExecutor */ null, /* preRebaseHookExecutor */ null);
   }
+
+  /**
+   * Makes {@link IGitCoreRepository#findFirstAncestor} behave as if the given commit had the given ancestors.
+   */
+  @SneakyThrows
+  protected void stubAncestorsOf(IGitCoreCommit commitInclusive, Stream<IGitCoreCommit> ancestors) {
+    PowerMockito.doReturn(GitCoreGenerationFloor.NONE).when(gitCoreRepository).deriveGenerationFloor(any());
+    PowerMockito.doAnswer(invocation -> {
+      Predicate<IGitCoreCommit> isSought = invocation.getArgument(1);
+      return ancestors.find(isSought)
+          .map(GitCoreAncestorSearchResult::found)
+          .getOrElse(GitCoreAncestorSearchResult::notFound);
+    }).when(gitCoreRepository).findFirstAncestor(eq(commitInclusive), any(), any(), any());
+  }
 }
@@ -0,0 +1,171 @@
+package com.virtuslab.gitmachete.backend.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitmachete.backend.api.CommitCount;
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
+
+public class CommitRangeOfManagedBranchUnitTestSuite {
+
+  private static final int LIMIT = 2;
+
+  private final IGitCoreRepository gitCoreRepository = PowerMockito.mock(IGitCoreRepository.class);
+  private final IGitCoreCommit fromInclusive = commit();
+  private final IGitCoreCommit untilExclusive = commit();
+  private final AtomicInteger walkCount = new AtomicInteger(0);
+
+  @Test
+  @SneakyThrows
+  public void getCommits_givenRangeLongerThanLimit_returnsCommitsUpToLimitAndInexactCount() {
+    // given
+    var coreCommits = List.of(commit(), commit(), commit());
+    stubCommitRange(coreCommits);
+    var commitRange = createCommitRange(untilExclusive);
+
+    // when
+    List<ICommitOfManagedBranch> commits = getCommits(commitRange);
+
+    // then
+    assertEquals(coreCommits.take(LIMIT).map(commit -> commit.getHash().getHashString()),
+        commits.map(commit -> commit.getHash()));
+    assertEquals(CommitCount.atLeast(LIMIT + 1), getCommitCount(commitRange));
+  }
+
+  @Test
+  @SneakyThrows
+  public void getCommits_givenRangeNotLongerThanLimit_returnsAllCommitsAndExactCount() {
+    // given
+    var coreCommits = List.of(commit(), commit());
+    stubCommitRange(coreCommits);
+    var commitRange = createCommitRange(untilExclusive);
+
+    // when
+    List<ICommitOfManagedBranch> commits = getCommits(commitRange);
+
+    // then
+    assertEquals(coreCommits.map(commit -> commit.getHash().getHashString()), commits.map(commit -> commit.getHash()));
+    assertEquals(CommitCount.exact(LIMIT), getCommitCount(commitRange));
+  }
+
+  @Test
+  @SneakyThrows
+  public void getCommits_givenRepeatedCalls_walksTheRangeOnlyOnceAndOnlyWhenAskedFor() {
+    // given
+    stubCommitRange(List.of(commit()));
+
+    // when
+    var commitRange = createCommitRange(untilExclusive);
+
+    // then
+    assertEquals(0, walkCount.get());
+    getCommits(commitRange);
+    getCommitCount(commitRange);
+    getCommits(commitRange);
+    assertEquals(1, walkCount.get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void getCommits_givenUnknownForkPoint_returnsNoCommitsWithoutWalking() {
+    // given
+    stubCommitRange(List.of(commit()));
+    var commitRange = createCommitRange(/* untilExclusive */ null);
+
+    // when
+    List<ICommitOfManagedBranch> commits = getCommits(commitRange);
+
+    // then
+    assertEquals(List.empty(), commits);
+    assertEquals(CommitCount.exact(0), getCommitCount(commitRange));
+    assertEquals(0, walkCount.get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void getCommitsPage_givenPageWithinAlreadyDerivedCommits_returnsThemWithoutWalking() {
+    // given
+    var coreCommits = List.of(commit(), commit(), commit());
+    stubCommitRange(coreCommits);
+    var commitRange = createCommitRange(untilExclusive);
+    getCommits(commitRange);
+
+    // when
+    List<ICommitOfManagedBranch> commits = getCommits(commitRange, /* offset */ 1, /* limit */ 1);
+
+    // then
+    assertEquals(coreCommits.drop(1).take(1).map(commit -> commit.getHash().getHashString()),
+        commits.map(commit -> commit.getHash()));
+    assertEquals(1, walkCount.get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void getCommitsPage_givenPageBeyondLimit_walksTheRangeForThatPage() {
+    // given
+    var coreCommits = List.of(commit(), commit(), commit(), commit());
+    stubCommitRange(coreCommits);
+    var commitRange = createCommitRange(untilExclusive);
+    getCommits(commitRange);
+
+    // when
+    List<ICommitOfManagedBranch> commits = getCommits(commitRange, /* offset */ LIMIT, /* limit */ LIMIT);
+
+    // then
+    assertEquals(coreCommits.drop(LIMIT).map(commit -> commit.getHash().getHashString()),
+        commits.map(commit -> commit.getHash()));
+    assertEquals(2, walkCount.get());
+  }
+
+  private static IGitCoreCommit commit() {
+    // Unlike the commits created by UnitTestUtils, the hash of these ones stays the same across the calls.
+    IGitCoreCommit commit = PowerMockito.mock(IGitCoreCommit.class);
+    PowerMockito.doReturn(new UnitTestUtils.TestGitCoreCommitHash()).when(commit).getHash();
+    return commit;
+  }
+
+  @SneakyThrows
+  private void stubCommitRange(List<IGitCoreCommit> coreCommits) {
+    PowerMockito.doAnswer(invocation -> {
+      walkCount.incrementAndGet();
+      int offset = invocation.getArgument(2);
+      int limit = invocation.getArgument(3);
+      return coreCommits.drop(offset).take(limit);
+    }).when(gitCoreRepository).deriveCommitRange(eq(fromInclusive), eq(untilExclusive), anyInt(), anyInt());
+  }
+
+  @SneakyThrows
+  private Object createCommitRange(@Nullable IGitCoreCommit until) {
+    var commitRangeClass = Class.forName("com.virtuslab.gitmachete.backend.impl.CommitRangeOfManagedBranch");
+    return Whitebox.invokeConstructor(commitRangeClass,
+        new Class<?>[]{IGitCoreRepository.class, IGitCoreCommit.class, IGitCoreCommit.class, int.class},
+        new Object[]{gitCoreRepository, fromInclusive, until, LIMIT});
+  }
+
+  @SneakyThrows
+  private static List<ICommitOfManagedBranch> getCommits(Object commitRange) {
+    return Whitebox.invokeMethod(commitRange, "getCommits");
+  }
+
+  @SneakyThrows
+  private static List<ICommitOfManagedBranch> getCommits(Object commitRange, int offset, int limit) {
+    return Whitebox.invokeMethod(commitRange, "getCommits", offset, limit);
+  }
+
+  @SneakyThrows
+  private static CommitCount getCommitCount(Object commitRange) {
+    return Whitebox.invokeMethod(commitRange, "getCommitCount");
+  }
+}
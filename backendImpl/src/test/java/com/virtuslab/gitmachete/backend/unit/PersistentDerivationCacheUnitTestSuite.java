@@ -0,0 +1,260 @@
+package com.virtuslab.gitmachete.backend.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitmachete.backend.api.IBranchReference;
+import com.virtuslab.gitmachete.backend.impl.CacheFiles;
+
+public class PersistentDerivationCacheUnitTestSuite {
+
+  private static final Class<?> CACHE_CLASS = getCacheClass();
+
+  private final Path gitDirectoryPath = createTemporaryDirectory();
+  private final Path filePath = CacheFiles.resolve(gitDirectoryPath, "derivations.bin");
+
+  private final IGitCoreCommitHash hashA = new UnitTestUtils.TestGitCoreCommitHash();
+  private final IGitCoreCommitHash hashB = new UnitTestUtils.TestGitCoreCommitHash();
+  private final IGitCoreCommitHash hashC = new UnitTestUtils.TestGitCoreCommitHash();
+
+  @SneakyThrows
+  private static Class<?> getCacheClass() {
+    return Class.forName("com.virtuslab.gitmachete.backend.impl.PersistentDerivationCache");
+  }
+
+  @SneakyThrows
+  private static Path createTemporaryDirectory() {
+    return Files.createTempDirectory("machete-derivation-cache-test");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    Files.walk(gitDirectoryPath).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+  }
+
+  @Test
+  public void load_givenSavedCache_returnsAllSavedResults() {
+    // given
+    var cache = load();
+    putIsAncestor(cache, hashA, hashB, true);
+    putIsAncestor(cache, hashB, hashA, false);
+    putRelativeCommitCount(cache, hashA, hashB, Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 3, /* behind */ 1)));
+    putRelativeCommitCount(cache, hashA, hashC, Option.none());
+    putForkPoint(cache, "develop", hashB, /* reflogFingerprint */ 42L, hashA);
+    putForkPoint(cache, "hotfix/add-trigger", hashC, /* reflogFingerprint */ -1L, null);
+
+    // when
+    write(cache);
+    var loadedCache = load();
+
+    // then
+    assertEquals(Option.some(true), getIsAncestor(loadedCache, hashA, hashB));
+    assertEquals(Option.some(false), getIsAncestor(loadedCache, hashB, hashA));
+    assertEquals(Option.none(), getIsAncestor(loadedCache, hashA, hashC));
+    assertEquals(Option.some(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 3, /* behind */ 1))),
+        getRelativeCommitCount(loadedCache, hashA, hashB));
+    assertEquals(Option.some(Option.none()), getRelativeCommitCount(loadedCache, hashA, hashC));
+    assertEquals(Option.none(), getRelativeCommitCount(loadedCache, hashB, hashA));
+    assertEquals(Option.some(Option.some(hashA.getHashString())),
+        getForkPointHashString(loadedCache, "develop", hashB, /* reflogFingerprint */ 42L));
+    assertEquals(Option.some(Option.none()),
+        getForkPointHashString(loadedCache, "hotfix/add-trigger", hashC, /* reflogFingerprint */ -1L));
+    assertEquals(Option.none(), getForkPointHashString(loadedCache, "develop", hashB, /* reflogFingerprint */ 43L));
+    assertEquals(Option.none(), getForkPointHashString(loadedCache, "develop", hashC, /* reflogFingerprint */ 42L));
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenCorruptedFile_ignoresItsContent() {
+    // given
+    var cache = load();
+    putIsAncestor(cache, hashA, hashB, true);
+    write(cache);
+    byte[] bytes = Files.readAllBytes(filePath);
+    bytes[bytes.length / 2] ^= 0x01;
+    Files.write(filePath, bytes);
+
+    // when
+    var loadedCache = load();
+
+    // then
+    assertEquals(Option.none(), getIsAncestor(loadedCache, hashA, hashB));
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenTruncatedFile_ignoresItsContent() {
+    // given
+    var cache = load();
+    putIsAncestor(cache, hashA, hashB, true);
+    write(cache);
+    byte[] bytes = Files.readAllBytes(filePath);
+    Files.write(filePath, Arrays.copyOf(bytes, bytes.length - 3));
+
+    // when
+    var loadedCache = load();
+
+    // then
+    assertEquals(Option.none(), getIsAncestor(loadedCache, hashA, hashB));
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenFileOfOtherVersion_ignoresItsContent() {
+    // given
+    var cache = load();
+    putIsAncestor(cache, hashA, hashB, true);
+    write(cache);
+    byte[] bytes = Files.readAllBytes(filePath);
+    int version = Whitebox.getInternalState(CACHE_CLASS, "VERSION");
+    int magic = Whitebox.getInternalState(CACHE_CLASS, "MAGIC");
+    // The very same content, but under a different version (and with a valid checksum).
+    CacheFiles.write(filePath, magic, version + 1, output -> output.write(bytes, 8, bytes.length - 8 - Long.BYTES));
+
+    // when
+    var loadedCache = load();
+
+    // then
+    assertEquals(Option.none(), getIsAncestor(loadedCache, hashA, hashB));
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenValidChecksumButInvalidEntryCount_ignoresItsContent() {
+    // given
+    int version = Whitebox.getInternalState(CACHE_CLASS, "VERSION");
+    int magic = Whitebox.getInternalState(CACHE_CLASS, "MAGIC");
+    CacheFiles.write(filePath, magic, version, output -> output.writeInt(Integer.MAX_VALUE));
+
+    // when
+    var loadedCache = load();
+
+    // then
+    assertEquals(Option.none(), getIsAncestor(loadedCache, hashA, hashB));
+  }
+
+  @Test
+  public void write_givenMoreEntriesThanCanBeRead_savesAFileThatCanBeLoaded() {
+    // given
+    int maxForkPointEntryCount = Whitebox.getInternalState(CACHE_CLASS, "MAX_FORK_POINT_ENTRY_COUNT");
+    var cache = load();
+    for (int i = 0; i <= maxForkPointEntryCount; i++) {
+      putForkPoint(cache, "branch-${i}", hashA, /* reflogFingerprint */ 0L, hashB);
+    }
+    putIsAncestor(cache, hashA, hashB, true);
+
+    // when
+    write(cache);
+    var loadedCache = load();
+
+    // then
+    // The file would have been rejected as a whole if too many entries had been saved.
+    assertEquals(Option.some(true), getIsAncestor(loadedCache, hashA, hashB));
+    int loadedForkPointCount = List.range(0, maxForkPointEntryCount + 1)
+        .count(i -> getForkPointHashString(loadedCache, "branch-${i}", hashA, /* reflogFingerprint */ 0L).isDefined());
+    assertTrue(loadedForkPointCount > 0);
+    assertTrue(loadedForkPointCount <= maxForkPointEntryCount);
+  }
+
+  @Test
+  @SneakyThrows
+  public void fingerprintReflog_givenReflogChangedAtEitherEnd_changesFingerprint() {
+    // given
+    IBranchReference branch = PowerMockito.mock(IBranchReference.class);
+    PowerMockito.doReturn("refs/heads/develop").when(branch).getFullName();
+    PowerMockito.doReturn(false).when(branch).isRemote();
+    var reflog = List.of(reflogEntry(hashB), reflogEntry(hashA));
+
+    // when
+    long fingerprint = fingerprintReflog(branch, reflog);
+
+    // then
+    assertEquals(fingerprint, fingerprintReflog(branch, List.of(reflogEntry(hashB), reflogEntry(hashA))));
+    assertNotEquals(fingerprint, fingerprintReflog(branch, reflog.prepend(reflogEntry(hashC))));
+    assertNotEquals(fingerprint, fingerprintReflog(branch, reflog.append(reflogEntry(hashC))));
+    assertNotEquals(fingerprint, fingerprintReflog(branch, reflog.init()));
+    assertNotEquals(fingerprint, fingerprintReflog(branch, List.empty()));
+  }
+
+  @SneakyThrows
+  private Object load() {
+    return Whitebox.invokeMethod(CACHE_CLASS, "load", gitDirectoryPath);
+  }
+
+  @SneakyThrows
+  private static void write(Object cache) {
+    Whitebox.invokeMethod(cache, "write");
+  }
+
+  @SneakyThrows
+  private static long fingerprintReflog(IBranchReference branch, List<IGitCoreReflogEntry> reflog) {
+    return Whitebox.<Long>invokeMethod(CACHE_CLASS, "fingerprintReflog", branch, reflog);
+  }
+
+  @SneakyThrows
+  private static void putIsAncestor(Object cache, IGitCoreCommitHash ancestor, IGitCoreCommitHash descendant,
+      boolean isAncestor) {
+    Whitebox.invokeMethod(cache, "putIsAncestor",
+        new Class<?>[]{IGitCoreCommitHash.class, IGitCoreCommitHash.class, boolean.class},
+        ancestor, descendant, isAncestor);
+  }
+
+  @SneakyThrows
+  private static Option<Boolean> getIsAncestor(Object cache, IGitCoreCommitHash ancestor, IGitCoreCommitHash descendant) {
+    return Whitebox.invokeMethod(cache, "getIsAncestor", ancestor, descendant);
+  }
+
+  @SneakyThrows
+  private static void putRelativeCommitCount(Object cache, IGitCoreCommitHash from, IGitCoreCommitHash to,
+      Option<GitCoreRelativeCommitCount> count) {
+    Whitebox.invokeMethod(cache, "putRelativeCommitCount",
+        new Class<?>[]{IGitCoreCommitHash.class, IGitCoreCommitHash.class, Option.class}, from, to, count);
+  }
+
+  @SneakyThrows
+  private static Option<Option<GitCoreRelativeCommitCount>> getRelativeCommitCount(Object cache, IGitCoreCommitHash from,
+      IGitCoreCommitHash to) {
+    return Whitebox.invokeMethod(cache, "getRelativeCommitCount", from, to);
+  }
+
+  @SneakyThrows
+  private static void putForkPoint(Object cache, String branchName, IGitCoreCommitHash tip, long reflogFingerprint,
+      @Nullable IGitCoreCommitHash forkPoint) {
+    Whitebox.invokeMethod(cache, "putForkPoint",
+        new Class<?>[]{String.class, IGitCoreCommitHash.class, long.class, IGitCoreCommitHash.class},
+        branchName, tip, reflogFingerprint, forkPoint);
+  }
+
+  @SneakyThrows
+  private static Option<Option<String>> getForkPointHashString(Object cache, String branchName, IGitCoreCommitHash tip,
+      long reflogFingerprint) {
+    return Whitebox.invokeMethod(cache, "getForkPointHashString",
+        new Class<?>[]{String.class, IGitCoreCommitHash.class, long.class}, branchName, tip, reflogFingerprint);
+  }
+
+  private static IGitCoreReflogEntry reflogEntry(IGitCoreCommitHash newCommitHash) {
+    IGitCoreReflogEntry entry = PowerMockito.mock(IGitCoreReflogEntry.class);
+    PowerMockito.doReturn(newCommitHash).when(entry).getNewCommitHash();
+    return entry;
+  }
+}
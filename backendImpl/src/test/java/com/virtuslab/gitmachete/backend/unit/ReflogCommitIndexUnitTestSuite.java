@@ -0,0 +1,240 @@
+package com.virtuslab.gitmachete.backend.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.gitcore.api.IGitCoreCheckoutEntry;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitmachete.backend.api.IBranchReference;
+
+public class ReflogCommitIndexUnitTestSuite {
+
+  private static final Class<?> INDEX_CLASS = getIndexClass();
+
+  // The initial capacity of the table is 1024 slots, and the table is kept at most half full.
+  private static final int COMMIT_COUNT_EXCEEDING_INITIAL_CAPACITY = 2000;
+
+  private final IBranchReference branchA = PowerMockito.mock(IBranchReference.class);
+  private final IBranchReference branchB = PowerMockito.mock(IBranchReference.class);
+  private final IBranchReference branchC = PowerMockito.mock(IBranchReference.class);
+
+  @SneakyThrows
+  private static Class<?> getIndexClass() {
+    return Class.forName("com.virtuslab.gitmachete.backend.impl.ReflogCommitIndex");
+  }
+
+  @Test
+  public void getBranchesContaining_givenCommitsInReflogsOfManyBranches_returnsAllOfThem() {
+    // given
+    var index = updated(emptyIndex(), HashMap.of(
+        branchA, reflog(hash(1), hash(2)),
+        branchB, reflog(hash(2), hash(3))));
+
+    // then
+    assertEquals(HashSet.of(branchA), branchesContaining(index, hash(1)));
+    assertEquals(HashSet.of(branchA, branchB), branchesContaining(index, hash(2)));
+    assertEquals(HashSet.of(branchB), branchesContaining(index, hash(3)));
+    assertTrue(branchesContaining(index, hash(4)).isEmpty());
+  }
+
+  @Test
+  public void getBranchesContaining_givenHashesCollidingInTheTable_tellsThemApart() {
+    // given
+    // All these hashes share the first word, hence the initial slot as well.
+    List<IGitCoreCommitHash> collidingHashes = List.range(0, 100).map(i -> hash(/* firstWord */ 7, /* lastWord */ i));
+    var index = updated(emptyIndex(), HashMap.of(
+        branchA, reflog(collidingHashes.filter(hash -> hash.getHashWord(4) % 2 == 0)),
+        branchB, reflog(collidingHashes.filter(hash -> hash.getHashWord(4) % 2 == 1))));
+
+    // then
+    for (var hash : collidingHashes) {
+      var expectedBranch = hash.getHashWord(4) % 2 == 0 ? branchA : branchB;
+      assertEquals(HashSet.of(expectedBranch), branchesContaining(index, hash));
+    }
+    assertTrue(branchesContaining(index, hash(/* firstWord */ 7, /* lastWord */ 100)).isEmpty());
+  }
+
+  @Test
+  public void getBranchesContaining_givenMoreCommitsThanInitialCapacity_findsAllOfThemAfterRehash() {
+    // given
+    List<IGitCoreCommitHash> hashes = List.range(0, COMMIT_COUNT_EXCEEDING_INITIAL_CAPACITY).map(i -> hash(i));
+    var index = updated(emptyIndex(), HashMap.of(branchA, reflog(hashes.take(10))));
+
+    // when
+    var grownIndex = updated(index, HashMap.of(branchA, reflog(hashes)));
+
+    // then
+    assertTrue(Whitebox.<Integer>getInternalState(grownIndex, "capacity") >= 2 * COMMIT_COUNT_EXCEEDING_INITIAL_CAPACITY);
+    for (var hash : hashes) {
+      assertEquals(HashSet.of(branchA), branchesContaining(grownIndex, hash));
+    }
+  }
+
+  @Test
+  public void getBranchesContaining_givenBranchRemoved_noLongerReturnsIt() {
+    // given
+    var index = updated(emptyIndex(), HashMap.of(
+        branchA, reflog(hash(1), hash(2)),
+        branchB, reflog(hash(2))));
+
+    // when
+    var updatedIndex = updated(index, HashMap.of(branchB, reflog(hash(2))));
+
+    // then
+    assertTrue(branchesContaining(updatedIndex, hash(1)).isEmpty());
+    assertEquals(HashSet.of(branchB), branchesContaining(updatedIndex, hash(2)));
+  }
+
+  @Test
+  public void getBranchesContaining_givenReflogRewritten_returnsBranchOnlyForNewEntries() {
+    // given
+    var index = updated(emptyIndex(), HashMap.of(branchA, reflog(hash(1), hash(2))));
+
+    // when
+    var updatedIndex = updated(index, HashMap.of(branchA, reflog(hash(3), hash(2))));
+
+    // then
+    assertTrue(branchesContaining(updatedIndex, hash(1)).isEmpty());
+    assertEquals(HashSet.of(branchA), branchesContaining(updatedIndex, hash(2)));
+    assertEquals(HashSet.of(branchA), branchesContaining(updatedIndex, hash(3)));
+  }
+
+  @Test
+  public void updatedWith_givenAnyChanges_leavesPreviousIndexIntact() {
+    // given
+    List<IGitCoreCommitHash> hashes = List.range(0, COMMIT_COUNT_EXCEEDING_INITIAL_CAPACITY).map(i -> hash(i));
+    var previousIndex = updated(emptyIndex(), HashMap.of(
+        branchA, reflog(hash(1), hash(2)),
+        branchB, reflog(hash(3))));
+
+    // when
+    updated(previousIndex, HashMap.of(
+        branchB, reflog(hashes.prepend(hash(4))),
+        branchC, reflog(hash(1))));
+
+    // then
+    assertEquals(HashSet.of(branchA), branchesContaining(previousIndex, hash(1)));
+    assertEquals(HashSet.of(branchA), branchesContaining(previousIndex, hash(2)));
+    assertEquals(HashSet.of(branchB), branchesContaining(previousIndex, hash(3)));
+    assertTrue(branchesContaining(previousIndex, hash(4)).isEmpty());
+    assertTrue(branchesContaining(emptyIndex(), hash(1)).isEmpty());
+  }
+
+  @Test
+  public void updatedWith_givenBranchesRepeatedlyRemovedAndAdded_reusesBranchIds() {
+    // given
+    var index = updated(emptyIndex(), HashMap.of(branchA, reflog(hash(1))));
+
+    for (int i = 0; i < 100; i++) {
+      // when
+      index = updated(index, HashMap.of(
+          branchA, reflog(hash(1)),
+          PowerMockito.mock(IBranchReference.class), reflog(hash(2))));
+
+      // then
+      Vector<?> branchById = Whitebox.getInternalState(index, "branchById");
+      assertEquals(2, branchById.size());
+      assertEquals(HashSet.of(branchA), branchesContaining(index, hash(1)));
+      assertEquals(1, branchesContaining(index, hash(2)).size());
+    }
+  }
+
+  @SneakyThrows
+  private static Object emptyIndex() {
+    return Whitebox.invokeMethod(INDEX_CLASS, "empty");
+  }
+
+  @SneakyThrows
+  private static Object updated(Object index, Map<IBranchReference, List<IGitCoreReflogEntry>> filteredReflogByBranch) {
+    return Whitebox.invokeMethod(index, "updatedWith", filteredReflogByBranch);
+  }
+
+  @SneakyThrows
+  private static Set<IBranchReference> branchesContaining(Object index, IGitCoreCommitHash commitHash) {
+    List<IBranchReference> result = Whitebox.invokeMethod(index, "getBranchesContaining", commitHash);
+    return result.toSet();
+  }
+
+  private static IGitCoreCommitHash hash(int lastWord) {
+    return hash(/* firstWord */ lastWord, lastWord);
+  }
+
+  private static IGitCoreCommitHash hash(int firstWord, int lastWord) {
+    return new TestCommitHash(String.format("%08x%032x", firstWord, lastWord));
+  }
+
+  private static List<IGitCoreReflogEntry> reflog(IGitCoreCommitHash... newCommitHashes) {
+    return reflog(List.of(newCommitHashes));
+  }
+
+  private static List<IGitCoreReflogEntry> reflog(List<IGitCoreCommitHash> newCommitHashes) {
+    return newCommitHashes.map(TestReflogEntry::new);
+  }
+
+  @RequiredArgsConstructor
+  private static final class TestCommitHash implements IGitCoreCommitHash {
+    private final String hashString;
+
+    @Override
+    public String getHashString() {
+      return hashString;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return IGitCoreCommitHash.defaultEquals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return IGitCoreCommitHash.defaultHashCode(this);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static final class TestReflogEntry implements IGitCoreReflogEntry {
+    private final IGitCoreCommitHash newCommitHash;
+
+    @Override
+    public String getComment() {
+      return "commit: Lorem ipsum";
+    }
+
+    @Override
+    public Instant getTimestamp() {
+      return Instant.EPOCH;
+    }
+
+    @Override
+    public Option<IGitCoreCommitHash> getOldCommitHash() {
+      return Option.none();
+    }
+
+    @Override
+    public IGitCoreCommitHash getNewCommitHash() {
+      return newCommitHash;
+    }
+
+    @Override
+    public Option<IGitCoreCheckoutEntry> parseCheckout() {
+      return Option.none();
+    }
+  }
+}
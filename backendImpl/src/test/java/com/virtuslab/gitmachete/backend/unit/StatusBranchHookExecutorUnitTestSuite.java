@@ -0,0 +1,65 @@
+package com.virtuslab.gitmachete.backend.unit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.reflect.Whitebox;
+
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitmachete.backend.impl.hooks.HookRuntime;
+import com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookExecutor;
+
+public class StatusBranchHookExecutorUnitTestSuite {
+
+  private final Path gitDirectoryPath = createTemporaryDirectory();
+  private final HookRuntime hookRuntime = new HookRuntime(gitDirectoryPath, gitDirectoryPath,
+      PowerMockito.mock(IGitCoreRepository.class));
+
+  @SneakyThrows
+  private static Path createTemporaryDirectory() {
+    return Files.createTempDirectory("machete-status-hook-test");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    Files.walk(gitDirectoryPath).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+  }
+
+  @Test
+  @SneakyThrows
+  public void write_givenMoreOutputsThanCanBeRead_savesAFileThatCanBeLoaded() {
+    // given
+    int maxCachedOutputCount = Whitebox.getInternalState(StatusBranchHookExecutor.class, "MAX_CACHED_OUTPUT_COUNT");
+    var keyClass = Class.forName("com.virtuslab.gitmachete.backend.impl.hooks.StatusBranchHookExecutor$HookOutputKey");
+    var executor = new StatusBranchHookExecutor(hookRuntime, gitDirectoryPath);
+    AsyncCache<Object, Option<String>> outputByKey = Whitebox.getInternalState(executor, "outputByKey");
+    for (int i = 0; i < maxCachedOutputCount + 100; i++) {
+      Object key = Whitebox.invokeConstructor(keyClass, new Class<?>[]{String.class, String.class, long.class},
+          new Object[]{"branch-${i}", "abc", /* hookContentHash */ 0L});
+      outputByKey.put(key, CompletableFuture.completedFuture(Option.some("output")));
+    }
+
+    // when
+    Whitebox.invokeMethod(executor, "write");
+    var loadedExecutor = new StatusBranchHookExecutor(hookRuntime, gitDirectoryPath);
+
+    // then
+    // The file would have been rejected as a whole if too many entries had been saved.
+    AsyncCache<Object, Option<String>> loadedOutputByKey = Whitebox.getInternalState(loadedExecutor, "outputByKey");
+    long loadedOutputCount = loadedOutputByKey.synchronous().estimatedSize();
+    assertTrue(loadedOutputCount > 0);
+    assertTrue(loadedOutputCount <= maxCachedOutputCount);
+  }
+}
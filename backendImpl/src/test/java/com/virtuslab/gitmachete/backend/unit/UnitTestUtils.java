@@ -47,7 +47,9 @@ class UnitTestUtils {
 
     @Override
     public String getHashString() {
-      return String.valueOf(id).repeat(40);
+      // Let's keep the hash a valid 40-digit hex string, just like a real SHA-1.
+      String hexId = Integer.toHexString(id);
+      return "0".repeat(40 - hexId.length()) + hexId;
     }
 
     @Override
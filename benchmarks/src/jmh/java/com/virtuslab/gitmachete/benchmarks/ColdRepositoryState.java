@@ -0,0 +1,58 @@
+package com.virtuslab.gitmachete.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
+import com.virtuslab.gitmachete.backend.impl.CacheFiles;
+import com.virtuslab.gitmachete.backend.impl.GitMacheteRepositoryCache;
+
+/**
+ * A fresh {@link IGitMacheteRepository} instance for each benchmark invocation, created just like upon opening a project:
+ * with empty in-memory caches (merge bases, commits, reflog index etc.) and with no persistent cache under
+ * {@code .git/machete-cache/}.
+ * Note that the caches outside of the plugin (JGit's pack file window cache and the OS page cache) still stay warm.
+ */
+@State(Scope.Thread)
+public class ColdRepositoryState {
+
+  private final GitMacheteRepositoryCache gitMacheteRepositoryCache = new GitMacheteRepositoryCache();
+
+  private IGitMacheteRepository gitMacheteRepository;
+
+  @Setup(Level.Invocation)
+  public void setUp(SyntheticRepositoryState state) throws Exception {
+    Path mainDirectoryPath = state.getMainDirectoryPath();
+    Path gitDirectoryPath = state.getSyntheticRepository().getGitDirectoryPath();
+
+    gitMacheteRepositoryCache.evict(mainDirectoryPath, gitDirectoryPath);
+    // Let the saves scheduled by the previous invocation complete, so that they don't re-create the files deleted below.
+    CacheFiles.WRITER.submit(() -> {}).get();
+    deleteRecursively(CacheFiles.resolveDirectory(gitDirectoryPath));
+
+    gitMacheteRepository = gitMacheteRepositoryCache.getInstance(mainDirectoryPath, gitDirectoryPath);
+  }
+
+  private static void deleteRecursively(Path directoryPath) throws IOException {
+    if (!Files.exists(directoryPath)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(directoryPath)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  public IGitMacheteRepository getGitMacheteRepository() {
+    return gitMacheteRepository;
+  }
+}
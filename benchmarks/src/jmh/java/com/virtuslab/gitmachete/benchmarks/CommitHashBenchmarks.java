@@ -0,0 +1,62 @@
+package com.virtuslab.gitmachete.benchmarks;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.virtuslab.binding.RuntimeBinding;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitcore.api.IGitCoreLocalBranchSnapshot;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitcore.api.IGitCoreRepositoryFactory;
+
+/**
+ * Benchmarks of commit hash equality and hashing, as performed on each probe into hash-keyed maps and sets
+ * (like the ones used by fork point and merge base lookups). Neither of them should allocate.
+ */
+public class CommitHashBenchmarks {
+
+  @State(Scope.Benchmark)
+  public static class CommitHashState {
+    private IGitCoreCommitHash[] commitHashes;
+    private Set<IGitCoreCommitHash> commitHashSet;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticRepositoryState repositoryState) throws Exception {
+      SyntheticRepository syntheticRepository = repositoryState.getSyntheticRepository();
+      IGitCoreRepository gitCoreRepository = RuntimeBinding.instantiateSoleImplementingClass(IGitCoreRepositoryFactory.class)
+          .create(syntheticRepository.getMainDirectoryPath(), syntheticRepository.getGitDirectoryPath());
+
+      // Hashes obtained from the reflogs are distinct instances from the ones obtained from the pointed commits,
+      // so the probes below don't get away with just reference equality.
+      commitHashSet = HashSet.empty();
+      for (IGitCoreLocalBranchSnapshot branch : gitCoreRepository.deriveAllLocalBranches()) {
+        commitHashSet = commitHashSet.addAll(branch.getReflogFromMostRecent().map(IGitCoreReflogEntry::getNewCommitHash));
+      }
+      commitHashes = gitCoreRepository.deriveAllLocalBranches()
+          .map(branch -> branch.getPointedCommit().getHash())
+          .toJavaArray(IGitCoreCommitHash[]::new);
+    }
+  }
+
+  @Benchmark
+  public int probeCommitHashSet(CommitHashState state) {
+    int foundCount = 0;
+    for (IGitCoreCommitHash commitHash : state.commitHashes) {
+      if (state.commitHashSet.contains(commitHash)) {
+        foundCount++;
+      }
+    }
+    return foundCount;
+  }
+
+  @Benchmark
+  public Set<IGitCoreCommitHash> buildCommitHashSet(CommitHashState state) {
+    return HashSet.of(state.commitHashes);
+  }
+}
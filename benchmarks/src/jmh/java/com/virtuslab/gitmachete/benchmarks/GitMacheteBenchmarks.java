@@ -0,0 +1,64 @@
+package com.virtuslab.gitmachete.benchmarks;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import com.virtuslab.branchlayout.api.IBranchLayout;
+import com.virtuslab.branchlayout.impl.readwrite.BranchLayoutFileReader;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+import com.virtuslab.gitmachete.backend.api.ILocalBranchReference;
+import com.virtuslab.gitmachete.frontend.graph.api.repository.IRepositoryGraph;
+import com.virtuslab.gitmachete.frontend.graph.impl.repository.RepositoryGraphBuilder;
+
+/**
+ * Benchmarks of the operations performed on each refresh of the Git Machete tab, and of parent inference.
+ * The {@code *Cold} variants measure the first snapshot created after the project is opened (with empty caches).
+ * Note that each of their invocations is preceded by a setup taking roughly as long as the invocation itself.
+ * The results are returned from the benchmark methods so that JIT cannot eliminate the computations as dead code.
+ */
+public class GitMacheteBenchmarks {
+
+  @Benchmark
+  public IGitMacheteRepositorySnapshot createSnapshotForLayout(SyntheticRepositoryState state) throws Exception {
+    return state.getGitMacheteRepository().createSnapshotForLayout(state.getBranchLayout());
+  }
+
+  @Benchmark
+  public IGitMacheteRepositorySnapshot createSnapshotForLayoutCold(SyntheticRepositoryState state,
+      ColdRepositoryState coldState) throws Exception {
+    return coldState.getGitMacheteRepository().createSnapshotForLayout(state.getBranchLayout());
+  }
+
+  @Benchmark
+  public IGitMacheteRepositorySnapshot discoverLayoutAndCreateSnapshot(SyntheticRepositoryState state) throws Exception {
+    return state.getGitMacheteRepository().discoverLayoutAndCreateSnapshot();
+  }
+
+  @Benchmark
+  public IGitMacheteRepositorySnapshot discoverLayoutAndCreateSnapshotCold(ColdRepositoryState coldState)
+      throws Exception {
+    return coldState.getGitMacheteRepository().discoverLayoutAndCreateSnapshot();
+  }
+
+  /** Infers the parent of the last branch of the layout (one of the deepest, if the last chain is complete). */
+  @Benchmark
+  public Option<ILocalBranchReference> inferParentForLocalBranch(SyntheticRepositoryState state) throws Exception {
+    List<String> branchNames = state.getSyntheticRepository().getBranchNames();
+    String localBranchName = branchNames.last();
+    Set<String> eligibleLocalBranchNames = HashSet.ofAll(branchNames).remove(localBranchName);
+    return state.getGitMacheteRepository().inferParentForLocalBranch(eligibleLocalBranchNames, localBranchName);
+  }
+
+  @Benchmark
+  public IBranchLayout readBranchLayout(SyntheticRepositoryState state) throws Exception {
+    return new BranchLayoutFileReader().read(state.getSyntheticRepository().getBranchLayoutFilePath());
+  }
+
+  @Benchmark
+  public IRepositoryGraph buildRepositoryGraph(SyntheticRepositoryState state) {
+    return new RepositoryGraphBuilder().repositorySnapshot(state.getRepositorySnapshot()).build();
+  }
+}
@@ -0,0 +1,230 @@
+package com.virtuslab.gitmachete.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.vavr.collection.List;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+/**
+ * A synthetic git repository along with its branch layout file ({@code .git/machete}).
+ *
+ * The layout consists of a single root branch and {@code branchCount - 1} other branches,
+ * arranged into chains of (at most) {@code treeDepth} branches each, all hanging off the root.
+ * Each branch has {@code commitsPerBranch} commits on top of its parent,
+ * and {@code reflogLength} extra entries in its reflog (on top of the entries for its creation and commits).
+ * Each branch has a counterpart in each of {@code remoteCount} remotes; every other such counterpart is behind the branch.
+ */
+public final class SyntheticRepository {
+
+  public static final String ROOT_BRANCH_NAME = "master";
+
+  private static final String COMMITTER_NAME = "Benchmark";
+  private static final String COMMITTER_EMAIL = "benchmark@example.com";
+  private static final long INITIAL_COMMIT_TIME_SECONDS = 1_577_836_800L; // 2020-01-01
+
+  private final Path mainDirectoryPath;
+  private final Path gitDirectoryPath;
+  private final List<String> branchNames;
+
+  private SyntheticRepository(Path mainDirectoryPath, List<String> branchNames) {
+    this.mainDirectoryPath = mainDirectoryPath;
+    this.gitDirectoryPath = mainDirectoryPath.resolve(Constants.DOT_GIT);
+    this.branchNames = branchNames;
+  }
+
+  public Path getMainDirectoryPath() {
+    return mainDirectoryPath;
+  }
+
+  public Path getGitDirectoryPath() {
+    return gitDirectoryPath;
+  }
+
+  public Path getBranchLayoutFilePath() {
+    return gitDirectoryPath.resolve("machete");
+  }
+
+  /**
+   * @return names of all branches, in the order of the branch layout file (hence the root branch comes first)
+   */
+  public List<String> getBranchNames() {
+    return branchNames;
+  }
+
+  public static SyntheticRepository generate(
+      Path mainDirectoryPath,
+      int branchCount,
+      int treeDepth,
+      int commitsPerBranch,
+      int reflogLength,
+      int remoteCount) throws IOException {
+    if (branchCount < 1 || treeDepth < 1 || commitsPerBranch < 1 || reflogLength < 0 || remoteCount < 0) {
+      throw new IllegalArgumentException("Invalid synthetic repository parameters: branchCount = ${branchCount}, " +
+          "treeDepth = ${treeDepth}, commitsPerBranch = ${commitsPerBranch}, reflogLength = ${reflogLength}, " +
+          "remoteCount = ${remoteCount}");
+    }
+
+    var generator = new Generator(mainDirectoryPath.resolve(Constants.DOT_GIT), commitsPerBranch, reflogLength,
+        remoteCount);
+    List<String> branchNames = generator.generate(branchCount, treeDepth);
+    return new SyntheticRepository(mainDirectoryPath, branchNames);
+  }
+
+  private static final class Generator {
+    private final Path gitDirectoryPath;
+    private final int commitsPerBranch;
+    private final int reflogLength;
+    private final List<String> remoteNames;
+
+    private long commitTimeSeconds = INITIAL_COMMIT_TIME_SECONDS;
+
+    Generator(Path gitDirectoryPath, int commitsPerBranch, int reflogLength, int remoteCount) {
+      this.gitDirectoryPath = gitDirectoryPath;
+      this.commitsPerBranch = commitsPerBranch;
+      this.reflogLength = reflogLength;
+      this.remoteNames = List.range(0, remoteCount).map(i -> i == 0 ? "origin" : "remote-" + i);
+    }
+
+    List<String> generate(int branchCount, int treeDepth) throws IOException {
+      Files.createDirectories(gitDirectoryPath);
+      try (Repository repository = FileRepositoryBuilder.create(gitDirectoryPath.toFile())) {
+        repository.create();
+        configure(repository);
+
+        var layoutLines = new StringBuilder();
+        List<String> branchNames = List.of(ROOT_BRANCH_NAME);
+        layoutLines.append(ROOT_BRANCH_NAME).append(System.lineSeparator());
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+          ObjectId treeId = inserter.insert(new TreeFormatter());
+          ObjectId rootTip = createBranch(repository, inserter, treeId, ROOT_BRANCH_NAME, /* parentName */ null,
+              /* parentTip */ null, /* index */ 0);
+
+          String parentName = ROOT_BRANCH_NAME;
+          ObjectId parentTip = rootTip;
+          for (int index = 1; index < branchCount; index++) {
+            // Branches are arranged into chains of `treeDepth` branches, each chain starting at the root branch.
+            int depth = (index - 1) % treeDepth + 1;
+            if (depth == 1) {
+              parentName = ROOT_BRANCH_NAME;
+              parentTip = rootTip;
+            }
+            int chain = (index - 1) / treeDepth;
+            String branchName = "feature/chain-${chain}/level-${depth}";
+            ObjectId tip = createBranch(repository, inserter, treeId, branchName, parentName, parentTip, index);
+
+            branchNames = branchNames.append(branchName);
+            layoutLines.append("  ".repeat(depth)).append(branchName).append(System.lineSeparator());
+            parentName = branchName;
+            parentTip = tip;
+          }
+        }
+
+        RefUpdate headUpdate = repository.updateRef(Constants.HEAD);
+        headUpdate.disableRefLog();
+        headUpdate.link(Constants.R_HEADS + ROOT_BRANCH_NAME);
+
+        Files.writeString(gitDirectoryPath.resolve("machete"), layoutLines.toString());
+        return branchNames;
+      }
+    }
+
+    private void configure(Repository repository) throws IOException {
+      StoredConfig config = repository.getConfig();
+      config.setString("user", null, "name", COMMITTER_NAME);
+      config.setString("user", null, "email", COMMITTER_EMAIL);
+      config.setBoolean("core", null, "logAllRefUpdates", true);
+      for (String remoteName : remoteNames) {
+        config.setString("remote", remoteName, "url", "https://example.com/${remoteName}.git");
+        config.setString("remote", remoteName, "fetch", "+refs/heads/*:refs/remotes/${remoteName}/*");
+      }
+      config.save();
+    }
+
+    private ObjectId createBranch(
+        Repository repository,
+        ObjectInserter inserter,
+        ObjectId treeId,
+        String branchName,
+        String parentName,
+        ObjectId parentTip,
+        int index) throws IOException {
+      String branchFullName = Constants.R_HEADS + branchName;
+
+      ObjectId tip = parentTip;
+      if (parentTip != null) {
+        updateRef(repository, branchFullName, parentTip, "branch: Created from ${parentName}");
+      }
+      ObjectId previousTip = tip;
+      for (int i = 0; i < commitsPerBranch; i++) {
+        previousTip = tip;
+        tip = insertCommit(inserter, treeId, tip, "${branchName}: commit ${i}");
+        inserter.flush();
+        updateRef(repository, branchFullName, tip, (previousTip == null ? "commit (initial): " : "commit: ") + i);
+      }
+
+      // Let's make the reflog longer by amending the tip back and forth; the branch ends up at the original tip anyway.
+      if (reflogLength > 0) {
+        ObjectId amendedTip = insertCommit(inserter, treeId, previousTip, "${branchName}: amended commit");
+        inserter.flush();
+        for (int i = 0; i < reflogLength; i++) {
+          boolean isLast = i == reflogLength - 1;
+          ObjectId newTip = (reflogLength - i) % 2 == 0 ? amendedTip : tip;
+          updateRef(repository, branchFullName, isLast ? tip : newTip, "commit (amend): ${i}");
+        }
+      }
+
+      for (String remoteName : remoteNames) {
+        // Every other remote branch is behind its local counterpart.
+        ObjectId remoteTip = index % 2 == 0 || previousTip == null ? tip : previousTip;
+        updateRef(repository, Constants.R_REMOTES + remoteName + "/" + branchName, remoteTip,
+            "fetch: storing head");
+      }
+      return tip;
+    }
+
+    private ObjectId insertCommit(ObjectInserter inserter, ObjectId treeId, ObjectId parentId, String message)
+        throws IOException {
+      var ident = new PersonIdent(COMMITTER_NAME, COMMITTER_EMAIL, commitTimeSeconds * 1000, /* tz */ 0);
+      commitTimeSeconds += 60;
+
+      var commitBuilder = new CommitBuilder();
+      commitBuilder.setTreeId(treeId);
+      if (parentId != null) {
+        commitBuilder.setParentId(parentId);
+      }
+      commitBuilder.setAuthor(ident);
+      commitBuilder.setCommitter(ident);
+      commitBuilder.setMessage(message);
+      return inserter.insert(commitBuilder);
+    }
+
+    private static void updateRef(Repository repository, String refFullName, ObjectId objectId, String reflogMessage)
+        throws IOException {
+      RefUpdate refUpdate = repository.updateRef(refFullName);
+      refUpdate.setNewObjectId(objectId);
+      refUpdate.setForceUpdate(true);
+      refUpdate.setRefLogMessage(reflogMessage, /* appendStatus */ false);
+      RefUpdate.Result result = refUpdate.update();
+      switch (result) {
+        case NEW :
+        case FORCED :
+        case FAST_FORWARD :
+        case NO_CHANGE :
+          return;
+        default :
+          throw new IOException("Cannot update ${refFullName} to ${objectId.getName()}: ${result}");
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.virtuslab.gitmachete.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.virtuslab.branchlayout.api.IBranchLayout;
+import com.virtuslab.branchlayout.impl.readwrite.BranchLayoutFileReader;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+import com.virtuslab.gitmachete.backend.impl.GitMacheteRepositoryCache;
+
+/**
+ * A synthetic repository generated once per trial, shared by all the benchmark iterations.
+ * Since the same {@link IGitMacheteRepository} instance serves all the invocations, the benchmarks using it measure
+ * the warm path, with all the in-memory and on-disk caches populated; see {@link ColdRepositoryState} for the cold one.
+ * The parameters can be overridden with JMH's {@code -p} option (e.g. {@code -p branchCount=1000})
+ * when running the benchmark jar ({@code benchmarks/build/libs/*-jmh.jar}) directly.
+ */
+@State(Scope.Benchmark)
+public class SyntheticRepositoryState {
+
+  @Param({"10", "100"})
+  public int branchCount;
+
+  @Param({"3"})
+  public int treeDepth;
+
+  @Param({"10"})
+  public int commitsPerBranch;
+
+  @Param({"10"})
+  public int reflogLength;
+
+  @Param({"1"})
+  public int remoteCount;
+
+  private Path mainDirectoryPath;
+  private SyntheticRepository syntheticRepository;
+  private IGitMacheteRepository gitMacheteRepository;
+  private IBranchLayout branchLayout;
+  private IGitMacheteRepositorySnapshot repositorySnapshot;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    mainDirectoryPath = Files.createTempDirectory("machete-benchmark-");
+    syntheticRepository = SyntheticRepository.generate(mainDirectoryPath, branchCount, treeDepth, commitsPerBranch,
+        reflogLength, remoteCount);
+
+    gitMacheteRepository = new GitMacheteRepositoryCache().getInstance(mainDirectoryPath,
+        syntheticRepository.getGitDirectoryPath());
+    branchLayout = new BranchLayoutFileReader().read(syntheticRepository.getBranchLayoutFilePath());
+    repositorySnapshot = gitMacheteRepository.createSnapshotForLayout(branchLayout);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(mainDirectoryPath)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  public Path getMainDirectoryPath() {
+    return mainDirectoryPath;
+  }
+
+  public SyntheticRepository getSyntheticRepository() {
+    return syntheticRepository;
+  }
+
+  public IGitMacheteRepository getGitMacheteRepository() {
+    return gitMacheteRepository;
+  }
+
+  public IBranchLayout getBranchLayout() {
+    return branchLayout;
+  }
+
+  public IGitMacheteRepositorySnapshot getRepositorySnapshot() {
+    return repositorySnapshot;
+  }
+}
@@ -0,0 +1,93 @@
+package com.virtuslab.branchlayout.impl.readwrite;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vavr.control.Option;
+import lombok.RequiredArgsConstructor;
+
+import com.virtuslab.branchlayout.api.BranchLayout;
+
+/**
+ * The most recently read (or written) branch layout of each file, along with the fingerprint
+ * (size, modification time and content hash) of the file at that moment.
+ * Shared by {@link BranchLayoutFileReader} and {@link BranchLayoutFileWriter},
+ * so that a layout that has just been written doesn't need to be parsed again when read.
+ */
+final class BranchLayoutFileCache {
+  private BranchLayoutFileCache() {}
+
+  // Same size and modification time don't prove that the content is unchanged if the file had been modified just before
+  // it got fingerprinted, since a subsequent modification might still end up with the same (coarse-grained) timestamp.
+  // The content of such a file is verified against the hash on each read.
+  private static final long RACY_MODIFICATION_WINDOW_MILLIS = 2_000;
+
+  private static final ConcurrentHashMap<Path, CachedBranchLayout> CACHED_BRANCH_LAYOUT_BY_PATH = new ConcurrentHashMap<>();
+
+  @RequiredArgsConstructor
+  private static final class CachedBranchLayout {
+    private final long size;
+    private final long lastModifiedMillis;
+    private final long contentHash;
+    private final long fingerprintedAtMillis;
+    private final BranchLayout branchLayout;
+
+    boolean isUnmodified(BasicFileAttributes attributes) {
+      long currentLastModifiedMillis = attributes.lastModifiedTime().toMillis();
+      return size == attributes.size() && lastModifiedMillis == currentLastModifiedMillis
+          && fingerprintedAtMillis - currentLastModifiedMillis >= RACY_MODIFICATION_WINDOW_MILLIS;
+    }
+  }
+
+  /**
+   * @return the cached layout if the size and modification time of the file are the same as when it got cached
+   *         (and the file had not been modified just before that), empty otherwise
+   */
+  static Option<BranchLayout> getIfUnmodified(Path path, BasicFileAttributes attributes) {
+    var cachedBranchLayout = CACHED_BRANCH_LAYOUT_BY_PATH.get(toKey(path));
+    return cachedBranchLayout != null && cachedBranchLayout.isUnmodified(attributes)
+        ? Option.some(cachedBranchLayout.branchLayout)
+        : Option.none();
+  }
+
+  /**
+   * @return the cached layout if the content of the file is the same as when it got cached, empty otherwise
+   */
+  static Option<BranchLayout> getIfContentUnchanged(Path path, long contentHash) {
+    var cachedBranchLayout = CACHED_BRANCH_LAYOUT_BY_PATH.get(toKey(path));
+    return cachedBranchLayout != null && cachedBranchLayout.contentHash == contentHash
+        ? Option.some(cachedBranchLayout.branchLayout)
+        : Option.none();
+  }
+
+  /**
+   * @param attributes attributes of the file read no later than its content (so that any modification in between
+   *                   makes the fingerprint mismatch, rather than go unnoticed)
+   */
+  static void put(Path path, BasicFileAttributes attributes, long contentHash, BranchLayout branchLayout) {
+    CACHED_BRANCH_LAYOUT_BY_PATH.put(toKey(path), new CachedBranchLayout(attributes.size(),
+        attributes.lastModifiedTime().toMillis(), contentHash, System.currentTimeMillis(), branchLayout));
+  }
+
+  static void invalidate(Path path) {
+    CACHED_BRANCH_LAYOUT_BY_PATH.remove(toKey(path));
+  }
+
+  static long hash(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return ByteBuffer.wrap(digest).getLong();
+    } catch (NoSuchAlgorithmException e) {
+      // Every implementation of the Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Path toKey(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+}
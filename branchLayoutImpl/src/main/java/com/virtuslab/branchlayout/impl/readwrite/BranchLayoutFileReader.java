@@ -1,14 +1,24 @@
 package com.virtuslab.branchlayout.impl.readwrite;
 
+import static com.virtuslab.branchlayout.impl.readwrite.IndentSpec.SPACE;
+import static com.virtuslab.branchlayout.impl.readwrite.IndentSpec.TAB;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Iterator;
 
-import io.vavr.Tuple2;
-import io.vavr.collection.Array;
 import io.vavr.collection.List;
 import lombok.CustomLog;
-import org.checkerframework.checker.index.qual.GTENegativeOne;
+import lombok.RequiredArgsConstructor;
 import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.virtuslab.branchlayout.api.BranchLayout;
 import com.virtuslab.branchlayout.api.BranchLayoutEntry;
@@ -21,141 +31,181 @@ public class BranchLayoutFileReader implements IBranchLayoutReader {
 
   @Override
   public BranchLayout read(Path path) throws BranchLayoutException {
-    boolean isBranchLayoutPresent = Files.isRegularFile(path);
-    IndentSpec indentSpec = isBranchLayoutPresent
-        ? BranchLayoutFileUtils.deriveIndentSpec(path)
-        : BranchLayoutFileUtils.getDefaultSpec();
-
-    LOG.debug(() -> "Entering: Reading branch layout from ${path} with indent character ASCII " +
-        "code = ${(int)indentSpec.getIndentCharacter()} and indent width = ${indentSpec.getIndentWidth()}");
-
-    List<String> lines = BranchLayoutFileUtils.readFileLines(path);
-    List<String> linesWithoutBlank = lines.reject(String::isBlank);
-
-    LOG.debug(() -> "${lines.length()} line(s) found");
+    if (!Files.isRegularFile(path)) {
+      // Most likely, this is going to fail with an error anyway.
+      List<String> lines = BranchLayoutFileUtils.readFileLines(path);
+      return parse(path, lines.iterator(), BranchLayoutFileUtils.getDefaultSpec());
+    }
 
-    List<IBranchLayoutEntry> roots = List.empty();
-    if (!linesWithoutBlank.isEmpty()) {
-      Array<Tuple2<Integer, Integer>> lineIndexToIndentLevelAndParentLineIndex = parseToArrayRepresentation(path, indentSpec,
-          lines);
-      LOG.debug(() -> "lineIndexToIndentLevelAndParentLineIndex = ${lineIndexToIndentLevelAndParentLineIndex}");
+    // The attributes are read before the content, see BranchLayoutFileCache#put.
+    BasicFileAttributes attributes;
+    byte[] content;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      var unmodifiedBranchLayout = BranchLayoutFileCache.getIfUnmodified(path, attributes);
+      if (unmodifiedBranchLayout.isDefined()) {
+        LOG.debug(() -> "Branch layout file (${path}) has not been modified; skipping parsing");
+        return unmodifiedBranchLayout.get();
+      }
+      content = Files.readAllBytes(path);
+    } catch (IOException e) {
+      throw new BranchLayoutException("Error while loading branch layout file (${path.toAbsolutePath()})", e);
+    }
 
-      roots = buildEntriesStructure(linesWithoutBlank, lineIndexToIndentLevelAndParentLineIndex, /* parentLineIndex */ -1);
+    long contentHash = BranchLayoutFileCache.hash(content);
+    var branchLayout = BranchLayoutFileCache.getIfContentUnchanged(path, contentHash).getOrNull();
+    if (branchLayout != null) {
+      LOG.debug(() -> "Content of branch layout file (${path}) has not changed; skipping parsing");
     } else {
-      LOG.debug("Branch layout file is empty");
+      branchLayout = parse(path, content);
     }
-
-    return new BranchLayout(roots);
+    BranchLayoutFileCache.put(path, attributes, contentHash, branchLayout);
+    return branchLayout;
   }
 
   /**
-   * @param lines
-   *          list of lines read from branch layout file
-   * @param lineIndexToParentLineIndex
-   *          as it says ({@code lines} metadata containing structure, see {@link #parseToArrayRepresentation})
-   * @param parentLineIndex
-   *          index of the line whose children are to be built
-   *
-   * @return list of entries with recursively built lists of children
+   * Parses the layout from the (already read) content of the file, deriving the indent spec along the way.
    */
-  @SuppressWarnings("index:argument.type.incompatible")
-  private List<IBranchLayoutEntry> buildEntriesStructure(
-      List<String> lines,
-      Array<Tuple2<Integer, Integer>> lineIndexToParentLineIndex,
-      @GTENegativeOne int parentLineIndex) {
-
-    return lineIndexToParentLineIndex
-        .zipWithIndex()
-        .filter(t -> t._1()._2() == parentLineIndex)
-        .map(t -> createEntry(lines.get(t._2()),
-            buildEntriesStructure(lines, lineIndexToParentLineIndex, t._2())))
-        .toList();
+  BranchLayout parse(Path path, byte[] content) throws BranchLayoutException {
+    return parse(path, decode(path, content).lines().iterator(), /* indentSpec */ null);
   }
 
   /**
-   * Parses line to {@link BranchLayoutEntry#BranchLayoutEntry} arguments and creates an
-   * entry with the specified {@code children}.
+   * Unlike {@link String#String(byte[], java.nio.charset.Charset)}, fails on malformed input
+   * rather than silently replacing it (just like {@link Files#readAllLines} does).
    */
-  private IBranchLayoutEntry createEntry(String line, List<IBranchLayoutEntry> children) {
-    LOG.debug(() -> "Entering: line = '${line}', children = ${children}");
-
-    String trimmedLine = line.trim();
-    String branchName;
-    String customAnnotation;
-    int indexOfSpace = trimmedLine.indexOf(' ');
-    if (indexOfSpace > -1) {
-      branchName = trimmedLine.substring(0, indexOfSpace);
-      customAnnotation = trimmedLine.substring(indexOfSpace + 1).trim();
-    } else {
-      branchName = trimmedLine;
-      customAnnotation = null;
+  private static String decode(Path path, byte[] content) throws BranchLayoutException {
+    try {
+      return UTF_8.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPORT)
+          .onUnmappableCharacter(CodingErrorAction.REPORT)
+          .decode(ByteBuffer.wrap(content))
+          .toString();
+    } catch (CharacterCodingException e) {
+      throw new BranchLayoutException("Branch layout file (${path.toAbsolutePath()}) is not a valid UTF-8 file", e);
     }
+  }
 
-    var result = new BranchLayoutEntry(branchName, customAnnotation, children);
-    LOG.debug(() -> "Created ${result}");
-    return result;
+  /**
+   * An entry whose line has already been read, but whose children might still be coming.
+   */
+  @RequiredArgsConstructor
+  private static final class OpenEntry {
+    private final String line;
+    // Kept in the reverse order, so that adding a child is O(1).
+    private List<IBranchLayoutEntry> reversedChildren = List.empty();
   }
 
   /**
-   * @return an array containing the indent level and parent entry describing line index which indices correspond to
-   *         provided {@code lines} indices. It may be understood as a helper metadata needed to build entries structure
+   * Builds the entries in a single pass over the lines: the entries whose children might still be coming
+   * (i.e. the path from a root to the most recent entry) are kept on a stack, and each entry gets created
+   * as soon as a line at the same or lower level (or the end of the file) shows that it has no more children.
+   *
+   * @param indentSpec indent spec to use, or null to derive it from the first indented line
    */
-  private Array<Tuple2<Integer, Integer>> parseToArrayRepresentation(Path path, IndentSpec indentSpec, List<String> lines)
+  private BranchLayout parse(Path path, Iterator<String> lines, @Nullable IndentSpec indentSpec)
       throws BranchLayoutException {
+    LOG.debug(() -> "Entering: Reading branch layout from ${path}");
 
-    List<String> linesWithoutBlank = lines.reject(String::isBlank);
-
-    if (linesWithoutBlank.nonEmpty() && BranchLayoutFileUtils.getIndentWidth(linesWithoutBlank.head(),
-        indentSpec.getIndentCharacter()) > 0) {
-      int firstNonEmptyLineIndex = lines.indexOf(linesWithoutBlank.head());
-      assert firstNonEmptyLineIndex >= 0 : "Non-empty line not found";
-      throw new BranchLayoutException(firstNonEmptyLineIndex + 1,
-          "The initial line of branch layout file (${path.toAbsolutePath()}) must not be indented");
-    }
-
-    Array<Tuple2<Integer, Integer>> lineIndexToIndentLevelAndParentLineIndex = Array.fill(linesWithoutBlank.size(),
-        new Tuple2<>(-1, -1));
-    Array<Integer> levelToPresentParent = Array.fill(linesWithoutBlank.size(), -1);
-
+    @Nullable IndentSpec currentIndentSpec = indentSpec;
+    var openEntries = new ArrayDeque<OpenEntry>();
+    List<IBranchLayoutEntry> reversedRoots = List.empty();
+    boolean isFirstNonBlankLine = true;
     int previousLevel = 0;
-    int lineIndex = 0;
-    for (int realLineNumber = 0; realLineNumber < lines.length(); ++realLineNumber) {
-      String line = lines.get(realLineNumber);
+    int realLineNumber = 0;
+
+    while (lines.hasNext()) {
+      String line = lines.next();
+      realLineNumber++;
       if (line.isBlank()) {
         // Can't use lambda because `realLineNumber` is not effectively final
-        LOG.debug("Line no ${realLineNumber + 1} is blank. Skipping");
+        LOG.debug("Line no ${realLineNumber} is blank. Skipping");
         continue;
       }
 
-      if (!BranchLayoutFileUtils.hasProperIndentationCharacter(line, indentSpec.getIndentCharacter())) {
-        LOG.error("Line no ${realLineNumber + 1} has unexpected indentation character inconsistent with previous one");
-        throw new BranchLayoutException(realLineNumber + 1,
-            "Line no ${realLineNumber + 1} in branch layout file (${path.toAbsolutePath()}) has unexpected indentation "
+      // Redundant non-emptiness check to satisfy IndexChecker
+      if (currentIndentSpec == null && !line.isEmpty() && (line.charAt(0) == SPACE || line.charAt(0) == TAB)) {
+        currentIndentSpec = new IndentSpec(line.charAt(0), BranchLayoutFileUtils.getIndentWidth(line, line.charAt(0)));
+        LOG.debug("Derived indent spec from line no ${realLineNumber}: ${currentIndentSpec}");
+      }
+      IndentSpec effectiveIndentSpec = currentIndentSpec != null ? currentIndentSpec : BranchLayoutFileUtils.getDefaultSpec();
+
+      if (isFirstNonBlankLine && BranchLayoutFileUtils.getIndentWidth(line, effectiveIndentSpec.getIndentCharacter()) > 0) {
+        throw new BranchLayoutException(realLineNumber,
+            "The initial line of branch layout file (${path.toAbsolutePath()}) must not be indented");
+      }
+      isFirstNonBlankLine = false;
+
+      if (!BranchLayoutFileUtils.hasProperIndentationCharacter(line, effectiveIndentSpec.getIndentCharacter())) {
+        LOG.error("Line no ${realLineNumber} has unexpected indentation character inconsistent with previous one");
+        throw new BranchLayoutException(realLineNumber,
+            "Line no ${realLineNumber} in branch layout file (${path.toAbsolutePath()}) has unexpected indentation "
                 + "character inconsistent with previous one");
       }
 
-      int lineIndentWidth = BranchLayoutFileUtils.getIndentWidth(line, indentSpec.getIndentCharacter());
-      int level = getIndentLevel(path, indentSpec, lineIndentWidth, realLineNumber);
+      int lineIndentWidth = BranchLayoutFileUtils.getIndentWidth(line, effectiveIndentSpec.getIndentCharacter());
+      int level = getIndentLevel(path, effectiveIndentSpec, lineIndentWidth, realLineNumber - 1);
 
       if (level - previousLevel > 1) {
-        throw new BranchLayoutException(realLineNumber + 1,
+        throw new BranchLayoutException(realLineNumber,
             "One of branches in branch layout file (${path.toAbsolutePath()}) has incorrect level in relation to its parent branch");
       }
 
-      @SuppressWarnings("index:argument.type.incompatible") Integer parentLineIndex = level <= 0
-          ? -1
-          : levelToPresentParent.get(level - 1);
-      Tuple2<Integer, Integer> levelAndParentLineIndex = new Tuple2<>(level, parentLineIndex);
+      // All the entries at this level or deeper have no more children.
+      while (openEntries.size() > level) {
+        reversedRoots = closeEntry(openEntries, reversedRoots);
+      }
+      openEntries.push(new OpenEntry(line));
+      previousLevel = level;
+    }
 
-      lineIndexToIndentLevelAndParentLineIndex = lineIndexToIndentLevelAndParentLineIndex.update(lineIndex,
-          levelAndParentLineIndex);
-      levelToPresentParent = levelToPresentParent.update(level, lineIndex);
+    while (!openEntries.isEmpty()) {
+      reversedRoots = closeEntry(openEntries, reversedRoots);
+    }
 
-      previousLevel = level;
-      lineIndex++;
+    int lineCount = realLineNumber;
+    LOG.debug(() -> "${lineCount} line(s) found");
+    return new BranchLayout(reversedRoots.reverse());
+  }
+
+  /**
+   * Creates the entry on top of the stack and adds it to the children of its parent (or to the roots, if there's no parent).
+   *
+   * @return the roots (in the reverse order)
+   */
+  private List<IBranchLayoutEntry> closeEntry(ArrayDeque<OpenEntry> openEntries, List<IBranchLayoutEntry> reversedRoots) {
+    OpenEntry openEntry = openEntries.pop();
+    IBranchLayoutEntry entry = createEntry(openEntry.line, openEntry.reversedChildren.reverse());
+    @Nullable OpenEntry parent = openEntries.peek();
+    if (parent == null) {
+      return reversedRoots.prepend(entry);
+    }
+    parent.reversedChildren = parent.reversedChildren.prepend(entry);
+    return reversedRoots;
+  }
+
+  /**
+   * Parses line to {@link BranchLayoutEntry#BranchLayoutEntry} arguments and creates an
+   * entry with the specified {@code children}.
+   */
+  private IBranchLayoutEntry createEntry(String line, List<IBranchLayoutEntry> children) {
+    LOG.debug(() -> "Entering: line = '${line}', children = ${children}");
+
+    String trimmedLine = line.trim();
+    String branchName;
+    String customAnnotation;
+    int indexOfSpace = trimmedLine.indexOf(' ');
+    if (indexOfSpace > -1) {
+      branchName = trimmedLine.substring(0, indexOfSpace);
+      customAnnotation = trimmedLine.substring(indexOfSpace + 1).trim();
+    } else {
+      branchName = trimmedLine;
+      customAnnotation = null;
     }
 
-    return lineIndexToIndentLevelAndParentLineIndex;
+    var result = new BranchLayoutEntry(branchName, customAnnotation, children);
+    LOG.debug(() -> "Created ${result}");
+    return result;
   }
 
   private @NonNegative int getIndentLevel(Path path, IndentSpec indentSpec, @NonNegative int indent,
@@ -1,8 +1,11 @@
 package com.virtuslab.branchlayout.impl.readwrite;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import io.vavr.collection.List;
 import io.vavr.control.Option;
@@ -20,6 +23,8 @@ import com.virtuslab.branchlayout.api.readwrite.IBranchLayoutWriter;
 @RequiredArgsConstructor
 public class BranchLayoutFileWriter implements IBranchLayoutWriter {
 
+  private final BranchLayoutFileReader reader = new BranchLayoutFileReader();
+
   @Override
   public void write(Path path, IBranchLayout branchLayout, boolean backupOldFile) throws BranchLayoutException {
     LOG.debug(() -> "Entering: path = ${path}, branchLayout = ${branchLayout}, backupOldFile = ${backupOldFile}");
@@ -40,8 +45,28 @@ public class BranchLayoutFileWriter implements IBranchLayoutWriter {
         "code = ${indentSpec.getIndentCharacter()} and indent width = ${indentSpec.getIndentWidth()}");
     lines.forEach(LOG::debug);
 
-    Try.of(() -> Files.write(path, lines))
+    // Same as `Files.write(path, lines)` would write, but the exact content is needed for the cache.
+    byte[] content = lines.map(line -> line + System.lineSeparator()).mkString().getBytes(UTF_8);
+    Try.of(() -> Files.write(path, content))
         .getOrElseThrow(e -> new BranchLayoutException("Unable to write new branch layout file to ${path}", e));
+
+    updateCache(path, content);
+  }
+
+  /**
+   * Caches the layout as it's going to be read from the newly written content, so that the next read doesn't need to parse it.
+   * The layout is parsed back from the content (rather than taken as passed) since e.g. the custom annotations are trimmed
+   * when read.
+   */
+  private void updateCache(Path path, byte[] content) {
+    Try.run(() -> {
+      // The attributes are read after the content is written, so any subsequent modification makes the fingerprint mismatch.
+      var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      BranchLayoutFileCache.put(path, attributes, BranchLayoutFileCache.hash(content), reader.parse(path, content));
+    }).onFailure(e -> {
+      LOG.debug(() -> "Unable to cache the branch layout written to ${path}: ${e}");
+      BranchLayoutFileCache.invalidate(path);
+    });
   }
 
   private List<String> printEntriesOntoStringList(
@@ -0,0 +1,147 @@
+package com.virtuslab.branchlayout.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.branchlayout.api.BranchLayout;
+import com.virtuslab.branchlayout.api.BranchLayoutEntry;
+import com.virtuslab.branchlayout.api.BranchLayoutException;
+import com.virtuslab.branchlayout.impl.readwrite.BranchLayoutFileReader;
+import com.virtuslab.branchlayout.impl.readwrite.BranchLayoutFileWriter;
+
+public class BranchLayoutFileCacheTestSuite {
+
+  private final BranchLayoutFileReader reader = new BranchLayoutFileReader();
+  private final BranchLayoutFileWriter writer = new BranchLayoutFileWriter();
+
+  private final Path directoryPath;
+  private final Path path;
+
+  @SneakyThrows
+  public BranchLayoutFileCacheTestSuite() {
+    directoryPath = Files.createTempDirectory("machete-branch-layout-tests-");
+    path = directoryPath.resolve("machete");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(directoryPath);
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenUnchangedFile_returnsSameLayout() {
+    // given
+    Files.write(path, List.of("A", "  B", "C").asJava());
+
+    // when
+    BranchLayout firstBranchLayout = reader.read(path);
+    BranchLayout secondBranchLayout = reader.read(path);
+
+    // then
+    assertSame(firstBranchLayout, secondBranchLayout);
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenChangedFile_returnsNewLayout() {
+    // given
+    Files.write(path, List.of("A", "  B").asJava());
+    BranchLayout firstBranchLayout = reader.read(path);
+
+    // when
+    Files.write(path, List.of("A", "  C").asJava());
+    BranchLayout secondBranchLayout = reader.read(path);
+
+    // then
+    assertNotSame(firstBranchLayout, secondBranchLayout);
+    assertTrue(secondBranchLayout.findEntryByName("C").isDefined());
+    assertTrue(secondBranchLayout.findEntryByName("B").isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileJustWritten_returnsLayoutCachedByWriter() {
+    // given
+    var childEntry = new BranchLayoutEntry("B", /* customAnnotation */ "  annotation ", List.empty());
+    var rootEntry = new BranchLayoutEntry("A", /* customAnnotation */ null, List.of(childEntry));
+    writer.write(path, new BranchLayout(List.of(rootEntry)), /* backupOldFile */ false);
+
+    // when
+    BranchLayout firstBranchLayout = reader.read(path);
+    BranchLayout secondBranchLayout = reader.read(path);
+
+    // then
+    assertSame(firstBranchLayout, secondBranchLayout);
+    // The layout is cached as read from the file, not as passed to the writer.
+    assertEquals("annotation", firstBranchLayout.findEntryByName("B").get().getCustomAnnotation().get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileModifiedLongBeforeBeingCached_skipsReadingContentIfSizeAndModificationTimeAreUnchanged() {
+    // given
+    var lastModifiedTime = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+    Files.write(path, List.of("A", "  B").asJava());
+    Files.setLastModifiedTime(path, lastModifiedTime);
+    BranchLayout firstBranchLayout = reader.read(path);
+
+    // when
+    // Same size and modification time, so only the attributes of the file are supposed to be checked.
+    Files.write(path, List.of("A", "  C").asJava());
+    Files.setLastModifiedTime(path, lastModifiedTime);
+    BranchLayout secondBranchLayout = reader.read(path);
+
+    // then
+    assertSame(firstBranchLayout, secondBranchLayout);
+    assertTrue(secondBranchLayout.findEntryByName("B").isDefined());
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileModifiedJustBeforeBeingCached_detectsChangeThatKeepsSizeAndModificationTime() {
+    // given
+    Files.write(path, List.of("A", "  B").asJava());
+    FileTime lastModifiedTime = Files.getLastModifiedTime(path);
+    BranchLayout firstBranchLayout = reader.read(path);
+
+    // when
+    Files.write(path, List.of("A", "  C").asJava());
+    Files.setLastModifiedTime(path, lastModifiedTime);
+    BranchLayout secondBranchLayout = reader.read(path);
+
+    // then
+    assertNotSame(firstBranchLayout, secondBranchLayout);
+    assertTrue(secondBranchLayout.findEntryByName("C").isDefined());
+    assertTrue(secondBranchLayout.findEntryByName("B").isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileWithMalformedUtf8_throwsException() {
+    // given
+    Files.write(path, new byte[]{'A', '\n', ' ', ' ', (byte) 0xC3, (byte) 0x28, '\n'});
+
+    // when
+    BranchLayoutException exception = assertThrows(BranchLayoutException.class, () -> reader.read(path));
+
+    // then
+    assertTrue(exception.getMessage().contains("UTF-8"));
+  }
+}
@@ -0,0 +1,116 @@
+package com.virtuslab.branchlayout.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.branchlayout.api.BranchLayout;
+import com.virtuslab.branchlayout.api.BranchLayoutException;
+import com.virtuslab.branchlayout.impl.readwrite.BranchLayoutFileReader;
+
+/**
+ * Unlike {@link BranchLayoutFileReaderTestSuite}, reads actual files, and hence goes through the same path
+ * (including deriving the indent spec from the content) as when reading the branch layout file of a repository.
+ */
+public class BranchLayoutFileReaderOnFileTestSuite {
+
+  private final BranchLayoutFileReader reader = new BranchLayoutFileReader();
+
+  private final Path directoryPath;
+  private final Path path;
+
+  @SneakyThrows
+  public BranchLayoutFileReaderOnFileTestSuite() {
+    directoryPath = Files.createTempDirectory("machete-branch-layout-tests-");
+    path = directoryPath.resolve("machete");
+  }
+
+  @After
+  @SneakyThrows
+  public void tearDown() {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(directoryPath);
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileIndentedWithTabs_reads() {
+    // given
+    Files.write(path, List.of("A", "\tB", "\t\tC", "\tD annotation", "E").asJava());
+
+    // when
+    BranchLayout branchLayout = reader.read(path);
+
+    // then
+    var roots = branchLayout.getRootEntries();
+    assertEquals(List.of("A", "E"), roots.map(e -> e.getName()));
+    assertEquals(List.of("B", "D"), roots.get(0).getChildren().map(e -> e.getName()));
+    assertEquals(List.of("C"), roots.get(0).getChildren().get(0).getChildren().map(e -> e.getName()));
+    assertEquals("annotation", roots.get(0).getChildren().get(1).getCustomAnnotation().get());
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileIndentedWithMultipleSpaces_reads() {
+    // given
+    Files.write(path, List.of("A", "    B", "        C", "", "    D").asJava());
+
+    // when
+    BranchLayout branchLayout = reader.read(path);
+
+    // then
+    var roots = branchLayout.getRootEntries();
+    assertEquals(List.of("A"), roots.map(e -> e.getName()));
+    assertEquals(List.of("B", "D"), roots.get(0).getChildren().map(e -> e.getName()));
+    assertEquals(List.of("C"), roots.get(0).getChildren().get(0).getChildren().map(e -> e.getName()));
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileWithIndentedFirstEntry_throwsException() {
+    // given
+    Files.write(path, List.of("", "  A", "  B").asJava());
+
+    // when
+    BranchLayoutException exception = assertThrows(BranchLayoutException.class, () -> reader.read(path));
+
+    // then
+    int i = exception.getErrorLine().get();
+    assertEquals(2, i);
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileWithIndentCharacterInconsistentWithDerivedOne_throwsException() {
+    // given
+    Files.write(path, List.of("A", "  B", "  C", "\tD").asJava());
+
+    // when
+    BranchLayoutException exception = assertThrows(BranchLayoutException.class, () -> reader.read(path));
+
+    // then
+    int i = exception.getErrorLine().get();
+    assertEquals(4, i);
+  }
+
+  @Test
+  @SneakyThrows
+  public void read_givenFileWithIndentWidthInconsistentWithDerivedOne_throwsException() {
+    // given
+    Files.write(path, List.of("A", "  B", "   C").asJava());
+
+    // when
+    BranchLayoutException exception = assertThrows(BranchLayoutException.class, () -> reader.read(path));
+
+    // then
+    int i = exception.getErrorLine().get();
+    assertEquals(3, i);
+  }
+}
@@ -78,6 +78,24 @@ public class BranchLayoutFileReaderTestSuite {
     Assert.assertEquals(2, branchLayout.getRootEntries().size());
   }
 
+  @Test
+  @SneakyThrows
+  public void read_givenNestedFile_readsEntriesInOrder() {
+    // given
+    List<String> linesToReturn = List.of("A", " B", "  C", "", "  D", " E", "F", " G");
+    BranchLayoutFileReader reader = getBranchLayoutFileReaderForLines(linesToReturn, /* indentWidth */ 1);
+
+    // when
+    BranchLayout branchLayout = reader.read(path);
+
+    // then
+    var roots = branchLayout.getRootEntries();
+    assertEquals(List.of("A", "F"), roots.map(e -> e.getName()));
+    assertEquals(List.of("B", "E"), roots.get(0).getChildren().map(e -> e.getName()));
+    assertEquals(List.of("C", "D"), roots.get(0).getChildren().get(0).getChildren().map(e -> e.getName()));
+    assertEquals(List.of("G"), roots.get(1).getChildren().map(e -> e.getName()));
+  }
+
   @Test
   @SneakyThrows
   public void read_givenEmptyFile_reads() {
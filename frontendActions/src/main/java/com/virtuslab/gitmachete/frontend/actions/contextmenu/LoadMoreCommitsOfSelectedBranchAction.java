@@ -0,0 +1,100 @@
+package com.virtuslab.gitmachete.frontend.actions.contextmenu;
+
+import static com.intellij.openapi.application.ModalityState.NON_MODAL;
+import static com.virtuslab.gitmachete.frontend.resourcebundles.GitMacheteBundle.format;
+import static com.virtuslab.gitmachete.frontend.resourcebundles.GitMacheteBundle.getString;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.vcs.VcsNotifier;
+import com.intellij.ui.GuiUtils;
+import io.vavr.control.Option;
+import lombok.CustomLog;
+import org.checkerframework.checker.guieffect.qual.UIEffect;
+
+import com.virtuslab.gitmachete.backend.api.GitMacheteException;
+import com.virtuslab.gitmachete.backend.api.INonRootManagedBranchSnapshot;
+import com.virtuslab.gitmachete.frontend.actions.base.BaseGitMacheteRepositoryReadyAction;
+import com.virtuslab.gitmachete.frontend.actions.expectedkeys.IExpectsKeySelectedBranchName;
+import com.virtuslab.logger.IEnhancedLambdaLogger;
+
+/**
+ * Only the most recent commits of each branch are listed upfront (see {@link INonRootManagedBranchSnapshot#getCommits()}).
+ * This action lists the next page of the commits of the selected branch, e.g. to see where a branch with a broken
+ * fork point actually diverges from its parent.
+ */
+@CustomLog
+public class LoadMoreCommitsOfSelectedBranchAction extends BaseGitMacheteRepositoryReadyAction
+    implements
+      IExpectsKeySelectedBranchName {
+
+  private static final int PAGE_SIZE = Integer.getInteger("git-machete.commit-listing.page-size", 1_000);
+
+  @Override
+  public IEnhancedLambdaLogger log() {
+    return LOG;
+  }
+
+  @Override
+  @UIEffect
+  protected void onUpdate(AnActionEvent anActionEvent) {
+    super.onUpdate(anActionEvent);
+
+    var presentation = anActionEvent.getPresentation();
+    if (!presentation.isEnabledAndVisible()) {
+      return;
+    }
+
+    // The commits (and their count) have already been derived off the UI thread by the time the snapshot is available.
+    boolean areMoreCommitsAvailable = getGraphTable(anActionEvent).isListingCommits()
+        && getSelectedNonRootBranch(anActionEvent)
+            .map(branch -> !branch.getCommitCount().isExact()
+                && !getGraphTable(anActionEvent).areAllCommitsListed(branch.getName()))
+            .getOrElse(false);
+    presentation.setEnabledAndVisible(areMoreCommitsAvailable);
+  }
+
+  @Override
+  @UIEffect
+  public void actionPerformed(AnActionEvent anActionEvent) {
+    var branch = getSelectedNonRootBranch(anActionEvent).getOrNull();
+    if (branch == null) {
+      return;
+    }
+
+    var project = getProject(anActionEvent);
+    var graphTable = getGraphTable(anActionEvent);
+    int offset = branch.getCommits().size() + graphTable.getFurtherCommits(branch.getName()).size();
+
+    log().debug(() -> "Queuing loading of commits of '${branch.getName()}' from offset ${offset}");
+    new Task.Backgroundable(project, getString("action.GitMachete.LoadMoreCommitsOfSelectedBranchAction.task-title")) {
+      @Override
+      public void run(ProgressIndicator indicator) {
+        try {
+          // Asking for one commit more than the page size is enough to tell whether this is the last page.
+          var commits = branch.getCommits(offset, PAGE_SIZE + 1);
+          boolean areAllCommitsListed = commits.size() <= PAGE_SIZE;
+          GuiUtils.invokeLaterIfNeeded(() -> {
+            graphTable.addFurtherCommits(branch, commits.take(PAGE_SIZE), areAllCommitsListed);
+            graphTable.refreshModel();
+          }, NON_MODAL);
+        } catch (GitMacheteException e) {
+          LOG.warn("Cannot load commits of branch '${branch.getName()}'", e);
+          GuiUtils.invokeLaterIfNeeded(() -> VcsNotifier.getInstance(project).notifyError(
+              format(getString("action.GitMachete.LoadMoreCommitsOfSelectedBranchAction.notification.title.load-fail"),
+                  branch.getName()),
+              e.getMessage() != null ? e.getMessage() : ""), NON_MODAL);
+        }
+      }
+    }.queue();
+  }
+
+  @UIEffect
+  private Option<INonRootManagedBranchSnapshot> getSelectedNonRootBranch(AnActionEvent anActionEvent) {
+    return getSelectedBranchName(anActionEvent)
+        .flatMap(branchName -> getManagedBranchByName(anActionEvent, branchName))
+        .filter(branch -> branch.isNonRoot())
+        .map(branch -> branch.asNonRoot());
+  }
+}
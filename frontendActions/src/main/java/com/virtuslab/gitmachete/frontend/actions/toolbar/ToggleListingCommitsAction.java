@@ -42,9 +42,10 @@ public class ToggleListingCommitsAction extends BaseGitMacheteRepositoryReadyAct
       return;
     }
 
+    // The commit counts have already been derived (off the UI thread) by the time the snapshot is available.
     boolean anyCommitExists = getGitMacheteRepositorySnapshot(anActionEvent)
         .map(repo -> repo.getManagedBranches()
-            .exists(b -> b.isNonRoot() && b.asNonRoot().getCommits().nonEmpty()))
+            .exists(b -> b.isNonRoot() && b.asNonRoot().getCommitCount().getValue() > 0))
         .getOrElse(false);
 
     if (anyCommitExists) {
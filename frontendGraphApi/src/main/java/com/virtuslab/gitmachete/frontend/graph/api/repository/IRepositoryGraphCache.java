@@ -1,10 +1,28 @@
 package com.virtuslab.gitmachete.frontend.graph.api.repository;
 
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import org.checkerframework.checker.guieffect.qual.UIEffect;
 
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+import com.virtuslab.gitmachete.backend.api.INonRootManagedBranchSnapshot;
 
 public interface IRepositoryGraphCache {
   @UIEffect
-  IRepositoryGraph getRepositoryGraph(IGitMacheteRepositorySnapshot givenRepositorySnapshot, boolean isListingCommits);
+  default IRepositoryGraph getRepositoryGraph(IGitMacheteRepositorySnapshot givenRepositorySnapshot, boolean isListingCommits) {
+    return getRepositoryGraph(givenRepositorySnapshot, isListingCommits, /* furtherCommitsByBranchName */ HashMap.empty());
+  }
+
+  /**
+   * @param furtherCommitsByBranchName commits loaded on request
+   *                                   (see {@link INonRootManagedBranchSnapshot#getCommits(int, int)}),
+   *                                   listed beyond the ones returned by {@link INonRootManagedBranchSnapshot#getCommits()}
+   */
+  @UIEffect
+  IRepositoryGraph getRepositoryGraph(
+      IGitMacheteRepositorySnapshot givenRepositorySnapshot,
+      boolean isListingCommits,
+      Map<String, List<ICommitOfManagedBranch>> furtherCommitsByBranchName);
 }
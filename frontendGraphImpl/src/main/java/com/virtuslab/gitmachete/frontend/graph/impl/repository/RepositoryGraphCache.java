@@ -1,9 +1,14 @@
 package com.virtuslab.gitmachete.frontend.graph.impl.repository;
 
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+import com.virtuslab.gitmachete.frontend.graph.api.repository.IBranchGetCommitsStrategy;
 import com.virtuslab.gitmachete.frontend.graph.api.repository.IRepositoryGraph;
 import com.virtuslab.gitmachete.frontend.graph.api.repository.IRepositoryGraphCache;
 
@@ -12,23 +17,42 @@ public class RepositoryGraphCache implements IRepositoryGraphCache {
   private @MonotonicNonNull IRepositoryGraph repositoryGraphWithCommits = null;
   private @MonotonicNonNull IRepositoryGraph repositoryGraphWithoutCommits = null;
   private @MonotonicNonNull IGitMacheteRepositorySnapshot repositorySnapshot = null;
+  private Map<String, List<ICommitOfManagedBranch>> furtherCommitsByBranchName = HashMap.empty();
 
   @Override
   @SuppressWarnings("regexp") // to allow for `synchronized`
   public synchronized IRepositoryGraph getRepositoryGraph(
       @FindDistinct IGitMacheteRepositorySnapshot givenRepositorySnapshot,
-      boolean isListingCommits) {
+      boolean isListingCommits,
+      Map<String, List<ICommitOfManagedBranch>> givenFurtherCommitsByBranchName) {
 
     if (givenRepositorySnapshot != this.repositorySnapshot || repositoryGraphWithCommits == null
         || repositoryGraphWithoutCommits == null) {
 
       this.repositorySnapshot = givenRepositorySnapshot;
+      this.furtherCommitsByBranchName = givenFurtherCommitsByBranchName;
       RepositoryGraphBuilder repositoryGraphBuilder = new RepositoryGraphBuilder().repositorySnapshot(givenRepositorySnapshot);
       repositoryGraphWithCommits = repositoryGraphBuilder
-          .branchGetCommitsStrategy(RepositoryGraphBuilder.DEFAULT_GET_COMMITS).build();
+          .branchGetCommitsStrategy(deriveGetCommitsStrategy(givenFurtherCommitsByBranchName)).build();
       repositoryGraphWithoutCommits = repositoryGraphBuilder
           .branchGetCommitsStrategy(RepositoryGraphBuilder.EMPTY_GET_COMMITS).build();
+
+    } else if (!givenFurtherCommitsByBranchName.equals(this.furtherCommitsByBranchName)) {
+      // Only the graph with commits depends on the further commits.
+      this.furtherCommitsByBranchName = givenFurtherCommitsByBranchName;
+      repositoryGraphWithCommits = new RepositoryGraphBuilder().repositorySnapshot(givenRepositorySnapshot)
+          .branchGetCommitsStrategy(deriveGetCommitsStrategy(givenFurtherCommitsByBranchName)).build();
     }
     return isListingCommits ? repositoryGraphWithCommits : repositoryGraphWithoutCommits;
   }
+
+  private static IBranchGetCommitsStrategy deriveGetCommitsStrategy(
+      Map<String, List<ICommitOfManagedBranch>> furtherCommitsByBranchName) {
+    if (furtherCommitsByBranchName.isEmpty()) {
+      return RepositoryGraphBuilder.DEFAULT_GET_COMMITS;
+    }
+    // The further commits are older than the ones returned by getCommits(), hence they go after them.
+    return branch -> branch.getCommits()
+        .appendAll(furtherCommitsByBranchName.get(branch.getName()).getOrElse(List.empty()));
+  }
 }
@@ -1,7 +1,9 @@
 package com.virtuslab.gitmachete.frontend.ui.providerservice;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.Service;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import lombok.Getter;
 
 import com.virtuslab.binding.RuntimeBinding;
@@ -9,7 +11,7 @@ import com.virtuslab.gitmachete.frontend.ui.api.table.BaseEnhancedGraphTable;
 import com.virtuslab.gitmachete.frontend.ui.api.table.IBaseEnhancedGraphTableFactory;
 
 @Service
-public final class GraphTableProvider {
+public final class GraphTableProvider implements Disposable {
 
   @Getter
   private final BaseEnhancedGraphTable graphTable;
@@ -19,4 +21,10 @@ public final class GraphTableProvider {
         .instantiateSoleImplementingClass(IBaseEnhancedGraphTableFactory.class)
         .create(project);
   }
+
+  /** Invoked when the project is closed. */
+  @Override
+  public void dispose() {
+    Disposer.dispose(graphTable);
+  }
 }
@@ -4,22 +4,53 @@ import java.nio.file.Path;
 
 import javax.swing.table.AbstractTableModel;
 
+import com.intellij.openapi.Disposable;
+import io.vavr.collection.List;
 import org.checkerframework.checker.guieffect.qual.UI;
 import org.checkerframework.checker.guieffect.qual.UIEffect;
 
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
+import com.virtuslab.gitmachete.backend.api.INonRootManagedBranchSnapshot;
+
 /**
- *  This class compared to SimpleGraphTable has graph table refreshing
+ *  This class compared to SimpleGraphTable has graph table refreshing.
+ *  Once disposed, it releases the resources held on behalf of the repositories it has shown.
  */
 
-public abstract class BaseEnhancedGraphTable extends BaseGraphTable {
+public abstract class BaseEnhancedGraphTable extends BaseGraphTable implements Disposable {
   @UIEffect
   protected BaseEnhancedGraphTable(AbstractTableModel model) {
     super(model);
   }
 
+  @UIEffect
+  public abstract boolean isListingCommits();
+
   @UIEffect
   public abstract void setListingCommits(boolean isListingCommits);
 
+  /**
+   * @return the commits of the given branch that have been loaded on request so far (see {@link #addFurtherCommits}),
+   *         i.e. the ones listed beyond {@link INonRootManagedBranchSnapshot#getCommits()}
+   */
+  @UIEffect
+  public abstract List<ICommitOfManagedBranch> getFurtherCommits(String branchName);
+
+  @UIEffect
+  public abstract boolean areAllCommitsListed(String branchName);
+
+  /**
+   * Lists the given commits beyond the ones already listed for the given branch, unless the repository snapshot
+   * that the branch comes from has been replaced in the meantime. Does NOT refresh the model.
+   *
+   * @param areAllCommitsListed whether there are no more commits of the branch to load
+   */
+  @UIEffect
+  public abstract void addFurtherCommits(
+      INonRootManagedBranchSnapshot branch,
+      List<ICommitOfManagedBranch> commits,
+      boolean areAllCommitsListed);
+
   /**
    * Refresh the model synchronously (i.e. in a blocking manner).
    * Must be called from the UI thread (hence {@link UIEffect}).
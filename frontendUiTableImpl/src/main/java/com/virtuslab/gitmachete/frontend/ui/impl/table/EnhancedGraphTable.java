@@ -44,18 +44,25 @@ import com.intellij.util.messages.Topic;
 import com.intellij.util.ui.JBUI;
 import git4idea.repo.GitRepository;
 import git4idea.repo.GitRepositoryChangeListener;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import io.vavr.control.Option;
 import lombok.CustomLog;
 import lombok.Getter;
 import lombok.Setter;
 import org.checkerframework.checker.guieffect.qual.UI;
 import org.checkerframework.checker.guieffect.qual.UIEffect;
+import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.virtuslab.binding.RuntimeBinding;
 import com.virtuslab.branchlayout.api.readwrite.IBranchLayoutReader;
+import com.virtuslab.gitmachete.backend.api.ICommitOfManagedBranch;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+import com.virtuslab.gitmachete.backend.api.INonRootManagedBranchSnapshot;
 import com.virtuslab.gitmachete.frontend.datakeys.DataKeys;
 import com.virtuslab.gitmachete.frontend.defs.ActionGroupIds;
 import com.virtuslab.gitmachete.frontend.graph.api.items.IGraphItem;
@@ -98,6 +105,19 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
   @UIEffect
   private @Nullable String selectedBranchName;
 
+  // Commits loaded on request, beyond the ones listed upfront; only valid for the current snapshot.
+  @UIEffect
+  private Map<String, List<ICommitOfManagedBranch>> furtherCommitsByBranchName = HashMap.empty();
+
+  @UIEffect
+  private Set<String> fullyListedBranchNames = HashSet.empty();
+
+  @UIEffect
+  private Map<GitRepository, GitMacheteRepositoryUpdateScheduler> updateSchedulerByGitRepository = HashMap.empty();
+
+  @UIEffect
+  private boolean isDisposed = false;
+
   @UIEffect
   public EnhancedGraphTable(Project project) {
     super(new GraphTableModel(NullRepositoryGraph.getInstance()));
@@ -142,7 +162,7 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
   private void subscribeToGitRepositoryFilesChanges() {
     Topic<GitRepositoryChangeListener> topic = GitRepository.GIT_REPO_CHANGE;
     GitRepositoryChangeListener listener = repository -> queueRepositoryUpdateAndModelRefresh();
-    project.getMessageBus().connect().subscribe(topic, listener);
+    project.getMessageBus().connect(/* parentDisposable */ this).subscribe(topic, listener);
   }
 
   private void subscribeToSelectedGitRepositoryChange() {
@@ -174,7 +194,8 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
     if (gitMacheteRepositorySnapshot == null) {
       repositoryGraph = NullRepositoryGraph.getInstance();
     } else {
-      repositoryGraph = repositoryGraphCache.getRepositoryGraph(gitMacheteRepositorySnapshot, isListingCommits);
+      repositoryGraph = repositoryGraphCache.getRepositoryGraph(gitMacheteRepositorySnapshot, isListingCommits,
+          furtherCommitsByBranchName);
       if (gitMacheteRepositorySnapshot.getRootBranches().isEmpty()) {
         if (gitMacheteRepositorySnapshot.getSkippedBranchNames().isEmpty()) {
           LOG.info("Machete file (${macheteFilePath}) is empty, so auto discover is running");
@@ -210,6 +231,29 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
     repaint();
     revalidate();
     doOnUIThreadWhenReady.run();
+
+    if (gitMacheteRepositorySnapshot != null) {
+      queueRepositoryUpdateOnceStatusHookOutputsArrive(gitMacheteRepositorySnapshot);
+    }
+  }
+
+  /**
+   * Snapshots are immutable, so the outputs of machete-status-branch hooks that didn't complete in time for the snapshot
+   * only show up in a subsequent one. Let's queue an update once they arrive, unless the snapshot gets replaced
+   * or the table gets disposed in the meantime.
+   */
+  @UIEffect
+  private void queueRepositoryUpdateOnceStatusHookOutputsArrive(
+      @FindDistinct IGitMacheteRepositorySnapshot repositorySnapshot) {
+    repositorySnapshot.getPendingStatusHookOutputsCompletion().thenAccept(isAnyOutputDefined -> {
+      if (isAnyOutputDefined) {
+        GuiUtils.invokeLaterIfNeeded(() -> {
+          if (!isDisposed && repositorySnapshot == gitMacheteRepositorySnapshot) {
+            queueRepositoryUpdateAndModelRefresh();
+          }
+        }, NON_MODAL);
+      }
+    });
   }
 
   public void queueDiscover(Path macheteFilePath, @UI Runnable doOnUIThreadWhenReady) {
@@ -224,7 +268,7 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
   private Consumer<IGitMacheteRepositorySnapshot> getSuccessfulDiscoverRepositoryConsumer(@UI Runnable doOnUIThreadWhenReady) {
     return (IGitMacheteRepositorySnapshot repositorySnapshot) -> GuiUtils.invokeLaterIfNeeded(
         () -> {
-          gitMacheteRepositorySnapshot = repositorySnapshot;
+          setGitMacheteRepositorySnapshot(repositorySnapshot);
           queueRepositoryUpdateAndModelRefresh(doOnUIThreadWhenReady);
 
           VcsNotifier.getInstance(project)
@@ -241,6 +285,45 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
         NON_MODAL);
   }
 
+  @UIEffect
+  private void setGitMacheteRepositorySnapshot(@Nullable IGitMacheteRepositorySnapshot newGitMacheteRepositorySnapshot) {
+    gitMacheteRepositorySnapshot = newGitMacheteRepositorySnapshot;
+    // The commits of the branches might have changed, so the further commits need to be loaded from scratch (if at all).
+    furtherCommitsByBranchName = HashMap.empty();
+    fullyListedBranchNames = HashSet.empty();
+  }
+
+  @Override
+  @UIEffect
+  public List<ICommitOfManagedBranch> getFurtherCommits(String branchName) {
+    return furtherCommitsByBranchName.get(branchName).getOrElse(List.empty());
+  }
+
+  @Override
+  @UIEffect
+  public boolean areAllCommitsListed(String branchName) {
+    return fullyListedBranchNames.contains(branchName);
+  }
+
+  @Override
+  @UIEffect
+  public void addFurtherCommits(
+      @FindDistinct INonRootManagedBranchSnapshot branch,
+      List<ICommitOfManagedBranch> commits,
+      boolean areAllCommitsListed) {
+    var snapshot = gitMacheteRepositorySnapshot;
+    var branchInSnapshot = snapshot != null ? snapshot.getManagedBranchByName(branch.getName()).getOrNull() : null;
+    if (branchInSnapshot != branch) {
+      LOG.debug(() -> "Repository snapshot has been replaced since the commits of ${branch.getName()} were loaded");
+      return;
+    }
+    furtherCommitsByBranchName = furtherCommitsByBranchName.put(branch.getName(),
+        getFurtherCommits(branch.getName()).appendAll(commits));
+    if (areAllCommitsListed) {
+      fullyListedBranchNames = fullyListedBranchNames.add(branch.getName());
+    }
+  }
+
   @Override
   @UIEffect
   public void refreshModel() {
@@ -267,6 +350,10 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
 
     if (!project.isDisposed()) {
       GuiUtils.invokeLaterIfNeeded(() -> {
+        if (isDisposed) {
+          LOG.debug("Table is disposed");
+          return;
+        }
         var gitRepositorySelectionProvider = getGitRepositorySelectionProvider();
         var gitRepository = gitRepositorySelectionProvider.getSelectedGitRepository().getOrNull();
         if (gitRepository == null) {
@@ -274,19 +361,9 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
           return;
         }
 
-        @UI Consumer<Option<IGitMacheteRepositorySnapshot>> doRefreshModel = newGitMacheteRepositorySnapshot -> {
-          this.gitMacheteRepositorySnapshot = newGitMacheteRepositorySnapshot.getOrNull();
-          refreshModel(gitRepository,
-              this.gitMacheteRepositorySnapshot != null
-                  ? this.gitMacheteRepositorySnapshot.getSkippedBranchNames()
-                  : List.empty(),
-              doOnUIThreadWhenReady);
-        };
-
         setTextForEmptyTable(getString("string.GitMachete.EnhancedGraphTable.empty-table-text.loading"));
 
-        LOG.debug("Queuing repository update onto a non-UI thread");
-        new GitMacheteRepositoryUpdateBackgroundable(project, gitRepository, branchLayoutReader, doRefreshModel).queue();
+        getUpdateScheduler(gitRepository).queueUpdate(doOnUIThreadWhenReady);
 
         GitVfsUtils.getMacheteFile(gitRepository).forEach(macheteFile -> VfsUtil.markDirtyAndRefresh(/* async */ true,
             /* recursive */ false, /* reloadChildren */ false, macheteFile));
@@ -296,6 +373,35 @@ public final class EnhancedGraphTable extends BaseEnhancedGraphTable
     }
   }
 
+  @UIEffect
+  private GitMacheteRepositoryUpdateScheduler getUpdateScheduler(GitRepository gitRepository) {
+    var existingUpdateScheduler = updateSchedulerByGitRepository.get(gitRepository).getOrNull();
+    if (existingUpdateScheduler != null) {
+      return existingUpdateScheduler;
+    }
+
+    var updateScheduler = new GitMacheteRepositoryUpdateScheduler(project, gitRepository, branchLayoutReader,
+        (newGitMacheteRepositorySnapshot, doOnUIThreadWhenReady) -> {
+          setGitMacheteRepositorySnapshot(newGitMacheteRepositorySnapshot.getOrNull());
+          refreshModel(gitRepository,
+              this.gitMacheteRepositorySnapshot != null
+                  ? this.gitMacheteRepositorySnapshot.getSkippedBranchNames()
+                  : List.empty(),
+              doOnUIThreadWhenReady);
+        });
+    updateSchedulerByGitRepository = updateSchedulerByGitRepository.put(gitRepository, updateScheduler);
+    return updateScheduler;
+  }
+
+  @Override
+  @UIEffect
+  public void dispose() {
+    LOG.debug("Disposing the table");
+    isDisposed = true;
+    updateSchedulerByGitRepository.values().forEach(GitMacheteRepositoryUpdateScheduler::dispose);
+    updateSchedulerByGitRepository = HashMap.empty();
+  }
+
   @Override
   public @Nullable Object getData(String dataId) {
     return Match(dataId).of(
@@ -57,6 +57,8 @@ public class GitMacheteRepositoryDiscoverer {
         }
 
         var repositorySnapshot = discoverRunResult.get();
+        GitMacheteRepositoryUpdateBackgroundable.deriveCommitsOfBranches(repositorySnapshot,
+            /* checkCanceled */ indicator::checkCanceled);
 
         if (repositorySnapshot.getRootBranches().size() == 0) {
           onFailurePathConsumer.accept(macheteFilePath);
@@ -8,6 +8,7 @@ import static com.virtuslab.gitmachete.frontend.vfsutils.GitVfsUtils.getMainDire
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import com.intellij.openapi.progress.ProgressIndicator;
@@ -21,12 +22,16 @@ import io.vavr.control.Try;
 import lombok.CustomLog;
 import org.checkerframework.checker.guieffect.qual.UI;
 import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.virtuslab.binding.RuntimeBinding;
 import com.virtuslab.branchlayout.api.BranchLayoutException;
 import com.virtuslab.branchlayout.api.IBranchLayout;
 import com.virtuslab.branchlayout.api.readwrite.IBranchLayoutReader;
+import com.virtuslab.gitmachete.backend.api.GitMacheteException;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepository;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryCache;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryChangeDetector;
 import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
 import com.virtuslab.gitmachete.backend.api.MacheteFileReaderException;
 
@@ -35,36 +40,81 @@ public final class GitMacheteRepositoryUpdateBackgroundable extends Task.Backgro
 
   private final GitRepository gitRepository;
   private final IBranchLayoutReader branchLayoutReader;
+  private final @Nullable IGitMacheteRepositorySnapshot previousSnapshot;
+  private final AtomicReference<@Nullable IGitMacheteRepositoryChangeDetector> changeDetector;
   private final @UI Consumer<Option<IGitMacheteRepositorySnapshot>> doOnUIThreadWhenDone;
 
   private final IGitMacheteRepositoryCache gitMacheteRepositoryCache;
 
+  private volatile boolean isCancelRequested = false;
+  private volatile @Nullable ProgressIndicator progressIndicator = null;
+
+  /**
+   * @param previousSnapshot the snapshot created by the previous (successful) update, if any;
+   *                         if given, the new snapshot is created incrementally, based on the changes reported by
+   *                         {@code changeDetector} since then
+   * @param changeDetector the change detector of the repository, created on the first update;
+   *                       note that it's shared with the subsequent updates (which never run concurrently, though)
+   */
   public GitMacheteRepositoryUpdateBackgroundable(
       Project project,
       GitRepository gitRepository,
       IBranchLayoutReader branchLayoutReader,
+      @Nullable IGitMacheteRepositorySnapshot previousSnapshot,
+      AtomicReference<@Nullable IGitMacheteRepositoryChangeDetector> changeDetector,
       @UI Consumer<Option<IGitMacheteRepositorySnapshot>> doOnUIThreadWhenDone) {
     super(project, getString("action.GitMachete.GitMacheteRepositoryUpdateBackgroundable.task-title"));
 
     this.gitRepository = gitRepository;
     this.branchLayoutReader = branchLayoutReader;
+    this.previousSnapshot = previousSnapshot;
+    this.changeDetector = changeDetector;
     this.doOnUIThreadWhenDone = doOnUIThreadWhenDone;
 
     this.gitMacheteRepositoryCache = RuntimeBinding.instantiateSoleImplementingClass(IGitMacheteRepositoryCache.class);
   }
 
+  /**
+   * Cancels the update, regardless of whether it has already started or not.
+   * Note that {@code doOnUIThreadWhenDone} is invoked for a canceled update as well,
+   * so it's up to the caller to check {@link #isCanceled} and drop the (possibly incomplete) result.
+   */
+  public void cancel() {
+    isCancelRequested = true;
+    var indicator = progressIndicator;
+    if (indicator != null) {
+      indicator.cancel();
+    }
+  }
+
+  public boolean isCanceled() {
+    return isCancelRequested;
+  }
+
   @Override
   public void run(ProgressIndicator indicator) {
+    // `progressIndicator` must be set before `isCancelRequested` is checked, see `cancel`.
+    progressIndicator = indicator;
+    if (isCancelRequested) {
+      indicator.cancel();
+    }
+
     // We can't queue repository update (onto a non-UI thread) and `doOnUIThreadWhenDone` (onto the UI thread) separately
     // since those two actions happen on two separate threads
     // and `doOnUIThreadWhenDone` can only start once repository update is complete.
 
     // Thus, we synchronously run repository update first...
-    Option<IGitMacheteRepositorySnapshot> gitMacheteRepositorySnapshot = updateRepositorySnapshot();
-
-    // ... and only once it completes, we queue `doOnUIThreadWhenDone` onto the UI thread.
-    LOG.debug("Queuing graph table refresh onto the UI thread");
-    GuiUtils.invokeLaterIfNeeded(() -> doOnUIThreadWhenDone.accept(gitMacheteRepositorySnapshot), NON_MODAL);
+    Option<IGitMacheteRepositorySnapshot> gitMacheteRepositorySnapshot = Option.none();
+    try {
+      gitMacheteRepositorySnapshot = updateRepositorySnapshot(indicator);
+    } finally {
+      // ... and only once it completes, we queue `doOnUIThreadWhenDone` onto the UI thread.
+      // This happens even if the update has been canceled (and ProcessCanceledException is propagating),
+      // since the caller needs to learn that the update is done either way.
+      LOG.debug("Queuing graph table refresh onto the UI thread");
+      var result = gitMacheteRepositorySnapshot;
+      GuiUtils.invokeLaterIfNeeded(() -> doOnUIThreadWhenDone.accept(result), NON_MODAL);
+    }
   }
 
   /**
@@ -73,7 +123,7 @@ public final class GitMacheteRepositoryUpdateBackgroundable extends Task.Backgro
    *
    * This method is heavyweight and must never be invoked on the UI thread.
    */
-  private Option<IGitMacheteRepositorySnapshot> updateRepositorySnapshot() {
+  private Option<IGitMacheteRepositorySnapshot> updateRepositorySnapshot(ProgressIndicator indicator) {
     Path mainDirectoryPath = getMainDirectoryPath(gitRepository);
     Path gitDirectoryPath = getGitDirectoryPath(gitRepository);
     Path macheteFilePath = getMacheteFilePath(gitRepository);
@@ -84,16 +134,60 @@ public final class GitMacheteRepositoryUpdateBackgroundable extends Task.Backgro
     if (isMacheteFilePresent) {
       LOG.debug("Machete file is present. Trying to create a repository snapshot");
 
-      return Try.of(() -> {
+      // Note that ProcessCanceledException (thrown by `checkCanceled` once the update is canceled)
+      // must never be caught, so it's only the checked exceptions that are handled here.
+      try {
         IBranchLayout branchLayout = createBranchLayout(macheteFilePath);
-        return gitMacheteRepositoryCache.getInstance(mainDirectoryPath, gitDirectoryPath).createSnapshotForLayout(branchLayout);
-      }).onFailure(this::handleUpdateRepositoryException).toOption();
+        var gitMacheteRepository = gitMacheteRepositoryCache.getInstance(mainDirectoryPath, gitDirectoryPath);
+        var repositorySnapshot = createSnapshot(gitMacheteRepository, branchLayout, macheteFilePath, indicator);
+        deriveCommitsOfBranches(repositorySnapshot, /* checkCanceled */ indicator::checkCanceled);
+        return Option.some(repositorySnapshot);
+      } catch (MacheteFileReaderException | GitMacheteException e) {
+        handleUpdateRepositoryException(e);
+        return Option.none();
+      }
     } else {
       LOG.debug("Machete file is absent");
       return Option.none();
     }
   }
 
+  private IGitMacheteRepositorySnapshot createSnapshot(
+      IGitMacheteRepository gitMacheteRepository,
+      IBranchLayout branchLayout,
+      Path macheteFilePath,
+      ProgressIndicator indicator) throws GitMacheteException {
+    var detector = changeDetector.get();
+    if (detector == null) {
+      detector = gitMacheteRepository.createChangeDetector(macheteFilePath);
+      changeDetector.set(detector);
+    }
+    // The changes need to be detected before the snapshot is created, so that whatever changes in the meantime
+    // is reported to the next update.
+    var changes = detector.detectChanges();
+    var previous = previousSnapshot;
+    if (previous == null || changes.isFullRefreshRequired()) {
+      LOG.debug("Creating the snapshot from scratch");
+      return gitMacheteRepository.createSnapshotForLayout(branchLayout, /* checkCanceled */ indicator::checkCanceled);
+    }
+    LOG.debug(() -> "Creating the snapshot incrementally; detected changes: ${changes}");
+    return gitMacheteRepository.createSnapshotForLayoutIncrementally(branchLayout, previous,
+        changes.getChangedRefFullNames(), /* checkCanceled */ indicator::checkCanceled);
+  }
+
+  /**
+   * The commits of the branches are derived lazily, and they're needed on the UI thread (to build the graph,
+   * also to tell whether listing the commits makes sense at all), so let's have them derived beforehand.
+   */
+  static void deriveCommitsOfBranches(IGitMacheteRepositorySnapshot repositorySnapshot, Runnable checkCanceled) {
+    for (var branch : repositorySnapshot.getManagedBranches()) {
+      checkCanceled.run();
+      if (branch.isNonRoot()) {
+        branch.asNonRoot().getCommitCount();
+      }
+    }
+  }
+
   private IBranchLayout createBranchLayout(Path path) throws MacheteFileReaderException {
     return Try.of(() -> branchLayoutReader.read(path))
         .getOrElseThrow(e -> {
@@ -0,0 +1,204 @@
+package com.virtuslab.gitmachete.frontend.ui.impl.table;
+
+import static com.intellij.openapi.application.ModalityState.NON_MODAL;
+import static com.virtuslab.gitmachete.frontend.vfsutils.GitVfsUtils.getGitDirectoryPath;
+import static com.virtuslab.gitmachete.frontend.vfsutils.GitVfsUtils.getMainDirectoryPath;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.ui.GuiUtils;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import git4idea.repo.GitRepository;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.CustomLog;
+import org.checkerframework.checker.guieffect.qual.UI;
+import org.checkerframework.checker.guieffect.qual.UIEffect;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.binding.RuntimeBinding;
+import com.virtuslab.branchlayout.api.readwrite.IBranchLayoutReader;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryCache;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositoryChangeDetector;
+import com.virtuslab.gitmachete.backend.api.IGitMacheteRepositorySnapshot;
+
+/**
+ * Coalesces the repository update requests for a single git repository, so that a burst of requests
+ * (like the one caused by {@code GIT_REPO_CHANGE} events emitted during checkout or fetch)
+ * results in a single repository snapshot being created.
+ *
+ * The requests are debounced within a window configured by {@code MACHETE.refresh.debounce.millis} registry key.
+ * At most one update is running and at most one is pending at any given moment.
+ * A running update made obsolete by a newer request is canceled and its result is dropped.
+ * Each update is based on the snapshot created by the previous one (and the changes since then), if only available.
+ *
+ * All the state is confined to the UI thread, except for the change detector, which is only accessed
+ * by the (at most one) running update.
+ */
+@CustomLog
+public final class GitMacheteRepositoryUpdateScheduler {
+
+  private static final String DEBOUNCE_WINDOW_REGISTRY_KEY = "MACHETE.refresh.debounce.millis";
+
+  private final Project project;
+  private final GitRepository gitRepository;
+  private final IBranchLayoutReader branchLayoutReader;
+  private final @UI BiConsumer<Option<IGitMacheteRepositorySnapshot>, @UI Runnable> doOnUIThreadWhenDone;
+
+  private @Nullable ScheduledFuture<?> debounceFuture = null;
+
+  private @Nullable GitMacheteRepositoryUpdateBackgroundable runningUpdate = null;
+  private List<@UI Runnable> callbacksOfRunningUpdate = List.empty();
+
+  private boolean isUpdatePending = false;
+  private List<@UI Runnable> callbacksOfPendingUpdate = List.empty();
+
+  private boolean isDisposed = false;
+
+  // Null until the first update succeeds, and after any update fails or gets canceled, since the change detector
+  // has already observed the changes that such an update was supposed to reflect.
+  private @Nullable IGitMacheteRepositorySnapshot latestSnapshot = null;
+  private final AtomicReference<@Nullable IGitMacheteRepositoryChangeDetector> changeDetector = new AtomicReference<>(null);
+
+  /**
+   * @param doOnUIThreadWhenDone invoked with the newly created snapshot and an action (combining the actions
+   *                             of all the requests coalesced into the update) to execute once the model is refreshed
+   */
+  public GitMacheteRepositoryUpdateScheduler(
+      Project project,
+      GitRepository gitRepository,
+      IBranchLayoutReader branchLayoutReader,
+      @UI BiConsumer<Option<IGitMacheteRepositorySnapshot>, @UI Runnable> doOnUIThreadWhenDone) {
+    this.project = project;
+    this.gitRepository = gitRepository;
+    this.branchLayoutReader = branchLayoutReader;
+    this.doOnUIThreadWhenDone = doOnUIThreadWhenDone;
+  }
+
+  @UIEffect
+  public void queueUpdate(@UI Runnable doOnUIThreadWhenReady) {
+    if (isDisposed) {
+      LOG.debug("Scheduler is disposed; ignoring the request");
+      return;
+    }
+    if (isUpdatePending) {
+      LOG.debug("Coalescing the request into the already pending repository update");
+    }
+    isUpdatePending = true;
+    callbacksOfPendingUpdate = callbacksOfPendingUpdate.append(doOnUIThreadWhenReady);
+
+    var update = runningUpdate;
+    if (update != null && !update.isCanceled()) {
+      LOG.debug("Canceling the running repository update since it's been made obsolete by a newer request");
+      update.cancel();
+      // The actions of the requests served by the canceled update now need to wait for the pending update.
+      callbacksOfPendingUpdate = callbacksOfRunningUpdate.appendAll(callbacksOfPendingUpdate);
+      callbacksOfRunningUpdate = List.empty();
+    }
+
+    if (debounceFuture != null) {
+      debounceFuture.cancel(/* mayInterruptIfRunning */ false);
+    }
+    int debounceWindowMillis = Registry.intValue(DEBOUNCE_WINDOW_REGISTRY_KEY);
+    debounceFuture = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+        () -> GuiUtils.invokeLaterIfNeeded(this::onDebounceWindowElapsed, NON_MODAL),
+        debounceWindowMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Cancels the running and pending updates (none of their actions is going to be executed),
+   * and evicts the repository from the backend cache once no update is running anymore.
+   */
+  @UIEffect
+  public void dispose() {
+    isDisposed = true;
+    if (debounceFuture != null) {
+      debounceFuture.cancel(/* mayInterruptIfRunning */ false);
+      debounceFuture = null;
+    }
+    isUpdatePending = false;
+    callbacksOfPendingUpdate = List.empty();
+    callbacksOfRunningUpdate = List.empty();
+
+    var update = runningUpdate;
+    if (update != null) {
+      // Otherwise, the running update could re-create the repository right after it's been evicted.
+      update.cancel();
+    } else {
+      evictRepository();
+    }
+  }
+
+  @UIEffect
+  private void evictRepository() {
+    LOG.debug(() -> "Evicting the repository of ${gitRepository}");
+    RuntimeBinding.instantiateSoleImplementingClass(IGitMacheteRepositoryCache.class)
+        .evict(getMainDirectoryPath(gitRepository), getGitDirectoryPath(gitRepository));
+  }
+
+  @UIEffect
+  private void onDebounceWindowElapsed() {
+    debounceFuture = null;
+    // If an update is still running, the pending one is going to be started once the running one is done.
+    if (runningUpdate == null) {
+      startPendingUpdate();
+    }
+  }
+
+  @UIEffect
+  private void startPendingUpdate() {
+    if (!isUpdatePending) {
+      return;
+    }
+    if (project.isDisposed()) {
+      LOG.debug("Project is disposed");
+      return;
+    }
+
+    isUpdatePending = false;
+    callbacksOfRunningUpdate = callbacksOfPendingUpdate;
+    callbacksOfPendingUpdate = List.empty();
+
+    LOG.debug("Queuing repository update onto a non-UI thread");
+    var update = new GitMacheteRepositoryUpdateBackgroundable(project, gitRepository, branchLayoutReader, latestSnapshot,
+        changeDetector, this::onRunningUpdateDone);
+    runningUpdate = update;
+    update.queue();
+  }
+
+  /**
+   * Since a new update is never started until the running one is done, the callback always refers to {@code runningUpdate}.
+   */
+  @UIEffect
+  private void onRunningUpdateDone(Option<IGitMacheteRepositorySnapshot> gitMacheteRepositorySnapshot) {
+    var update = runningUpdate;
+    if (update == null) {
+      LOG.warn("No repository update is running; ignoring its result");
+      return;
+    }
+    runningUpdate = null;
+
+    if (isDisposed) {
+      evictRepository();
+      return;
+    }
+
+    latestSnapshot = update.isCanceled() ? null : gitMacheteRepositorySnapshot.getOrNull();
+    if (update.isCanceled()) {
+      LOG.debug("Dropped the result of a canceled repository update");
+    } else {
+      List<@UI Runnable> callbacks = callbacksOfRunningUpdate;
+      callbacksOfRunningUpdate = List.empty();
+      doOnUIThreadWhenDone.accept(gitMacheteRepositorySnapshot, () -> callbacks.forEach(Runnable::run));
+    }
+
+    if (debounceFuture == null) {
+      startPendingUpdate();
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.virtuslab.gitcore.api;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Limits the amount of history that {@link IGitCoreRepository#findFirstAncestor} is allowed to walk through
+ * (and {@link IGitCoreRepository#findFirstAncestors} is allowed to walk through on behalf of each source).
+ */
+@Data(staticConstructor = "of")
+@ToString
+public class GitCoreAncestorSearchBudget {
+  private final int maxVisitedCommitCount;
+  private final long maxMillis;
+}
@@ -0,0 +1,28 @@
+package com.virtuslab.gitcore.api;
+
+import lombok.Data;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+@Data(staticConstructor = "of")
+// So that Interning Checker doesn't complain about enum comparison (by `equals` and not by `==`) in Lombok-generated `equals`
+@SuppressWarnings("interning:unnecessary.equals")
+public class GitCoreAncestorSearchResult {
+  public enum Outcome {
+    Found, NotFound, NotFoundWithinBudget
+  }
+
+  public static GitCoreAncestorSearchResult found(IGitCoreCommit commit) {
+    return of(Outcome.Found, commit);
+  }
+
+  public static GitCoreAncestorSearchResult notFound() {
+    return of(Outcome.NotFound, null);
+  }
+
+  public static GitCoreAncestorSearchResult notFoundWithinBudget() {
+    return of(Outcome.NotFoundWithinBudget, null);
+  }
+
+  private final Outcome outcome;
+  private final @Nullable IGitCoreCommit foundCommit;
+}
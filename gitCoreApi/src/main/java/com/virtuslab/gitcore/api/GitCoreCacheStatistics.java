@@ -0,0 +1,13 @@
+package com.virtuslab.gitcore.api;
+
+import lombok.Data;
+import lombok.ToString;
+
+@Data(staticConstructor = "of")
+@ToString
+public class GitCoreCacheStatistics {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long estimatedSize;
+}
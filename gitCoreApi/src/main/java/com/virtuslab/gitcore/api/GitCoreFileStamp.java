@@ -0,0 +1,14 @@
+package com.virtuslab.gitcore.api;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * A cheap approximation of file contents identity, sufficient to detect appends and rewrites.
+ */
+@Data(staticConstructor = "of")
+@ToString
+public class GitCoreFileStamp {
+  private final long length;
+  private final long lastModifiedMillis;
+}
@@ -0,0 +1,26 @@
+package com.virtuslab.gitcore.api;
+
+import lombok.Data;
+import lombok.ToString;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The lowest generation number (as stored in git's commit-graph file) among a set of sought commits.
+ * Any commit with a lower generation number can NOT reach any of the sought commits.
+ */
+@Data(staticConstructor = "of")
+@ToString
+public class GitCoreGenerationFloor {
+  /**
+   * Lets no commit be skipped, e.g. when there is no commit-graph file in the repository.
+   */
+  public static final GitCoreGenerationFloor NONE = of(0, null);
+
+  private final long generation;
+
+  /**
+   * The stamp of the commit-graph file that {@link #generation} has been derived from;
+   * the floor is ignored once the file changes.
+   */
+  private final @Nullable GitCoreFileStamp commitGraphFileStamp;
+}
@@ -0,0 +1,39 @@
+package com.virtuslab.gitcore.api;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Captures all the parts of the repository state that snapshots of branches depend on,
+ * but is much cheaper to derive than the snapshots themselves (no commits or reflog entries are parsed).
+ */
+@Data(staticConstructor = "of")
+@ToString
+public class GitCoreRefStateFingerprint {
+  /**
+   * Full name of the branch pointed by HEAD, or commit hash in case of detached HEAD
+   */
+  private final String headTarget;
+
+  /**
+   * Covers both local branches ({@code refs/heads/...}) and remote branches ({@code refs/remotes/...}),
+   * regardless of whether these are stored as loose refs or in {@code packed-refs}
+   */
+  private final Map<String, String> pointedCommitHashByRefFullName;
+
+  /**
+   * Covers the same refs as {@link #pointedCommitHashByRefFullName} plus {@code HEAD}
+   */
+  private final Map<String, GitCoreFileStamp> reflogStampByRefFullName;
+
+  private final Map<String, String> remoteTrackingRefFullNameByLocalBranchName;
+
+  /**
+   * Values of {@code machete.overrideForkPoint.<branch>.*} git config keys, grouped by branch name
+   */
+  private final Map<String, Map<String, String>> forkPointOverrideConfigByLocalBranchName;
+
+  private final List<String> remoteNames;
+}
@@ -28,7 +28,11 @@ public interface IGitCoreBranchSnapshot {
 
   IGitCoreCommit getPointedCommit();
 
-  List<IGitCoreReflogEntry> getReflogFromMostRecent();
+  /**
+   * @return the entire reflog of the branch; read lazily upon the first call
+   * @throws GitCoreException when the reflog exists, but cannot be read
+   */
+  List<IGitCoreReflogEntry> getReflogFromMostRecent() throws GitCoreException;
 
   @EnsuresNonNullIf(expression = "#2", result = true)
   static boolean defaultEquals(@FindDistinct IGitCoreBranchSnapshot self, @Nullable Object other) {
@@ -7,13 +7,28 @@ import org.checkerframework.common.value.qual.ArrayLen;
 
 /**
  * The only criterion for equality of any instances of any class implementing this interface is equality of
- * {@link #getHashString}
+ * {@link #getHashString}, which is equivalent to equality of all the {@link #getHashWord}s.
+ * Note that {@link #defaultEquals} and {@link #defaultHashCode} only ever look at the words,
+ * so that comparing and hashing does NOT require hex-encoding the hashes into strings.
  */
 public interface IGitCoreCommitHash {
 
+  /** SHA-1 hash consists of 160 bits, i.e. 5 words of 32 bits each (or 40 hex digits, 8 per word). */
+  int HASH_WORD_COUNT = 5;
+
   @ArrayLen(40)
   String getHashString();
 
+  /**
+   * @param index index of the word (from 0 to {@link #HASH_WORD_COUNT} - 1), with 0 standing for the most significant one
+   * @return the given 32-bit word of the raw hash, equal to the corresponding 8 hex digits of {@link #getHashString}
+   */
+  @SuppressWarnings("index:argument.type.incompatible")
+  default int getHashWord(int index) {
+    int beginIndex = index * 8;
+    return Integer.parseUnsignedInt(getHashString(), beginIndex, beginIndex + 8, /* radix */ 16);
+  }
+
   /**
    * @return hash string abbreviated to the first 7 characters, without a guarantee on being unique within the repository
    */
@@ -30,11 +45,18 @@ public interface IGitCoreCommitHash {
     } else if (!(other instanceof IGitCoreCommitHash)) {
       return false;
     } else {
-      return self.getHashString().equals(((IGitCoreCommitHash) other).getHashString());
+      var otherHash = (IGitCoreCommitHash) other;
+      for (int i = 0; i < HASH_WORD_COUNT; i++) {
+        if (self.getHashWord(i) != otherHash.getHashWord(i)) {
+          return false;
+        }
+      }
+      return true;
     }
   }
 
   static int defaultHashCode(IGitCoreCommitHash self) {
-    return self.getHashString().hashCode();
+    // SHA-1 hashes are uniformly distributed, so any of their words is a good hash code on its own.
+    return self.getHashWord(1);
   }
 }
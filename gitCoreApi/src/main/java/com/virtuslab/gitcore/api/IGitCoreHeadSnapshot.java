@@ -1,5 +1,6 @@
 package com.virtuslab.gitcore.api;
 
+import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.control.Option;
 
@@ -13,5 +14,16 @@ public interface IGitCoreHeadSnapshot {
    */
   Option<IGitCoreLocalBranchSnapshot> getTargetBranch();
 
-  List<IGitCoreReflogEntry> getReflogFromMostRecent();
+  /**
+   * @return the entire reflog of HEAD; read lazily upon the first call
+   * @throws GitCoreException when the reflog exists, but cannot be read
+   */
+  List<IGitCoreReflogEntry> getReflogFromMostRecent() throws GitCoreException;
+
+  /**
+   * @return an iterator over the same entries as {@link #getReflogFromMostRecent}, which (unless the entire reflog has
+   *         already been read) only reads as many entries as actually iterated over, so that it's cheap to stop early
+   * @throws GitCoreException when the reflog exists, but cannot be read
+   */
+  Iterator<IGitCoreReflogEntry> iterateReflogFromMostRecent() throws GitCoreException;
 }
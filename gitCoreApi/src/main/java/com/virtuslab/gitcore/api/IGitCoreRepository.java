@@ -1,11 +1,19 @@
 package com.virtuslab.gitcore.api;
 
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
 import io.vavr.collection.List;
-import io.vavr.collection.Stream;
 import io.vavr.control.Option;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public interface IGitCoreRepository {
-  Option<String> deriveConfigValue(String section, String subsection, String name);
+  /**
+   * @param subsection null for the keys directly under the section (like {@code core.hooksPath})
+   * @return the value of the given key in the git config (the repository one, or the global or system one as a fallback)
+   */
+  Option<String> deriveConfigValue(String section, @Nullable String subsection, String name);
 
   Option<IGitCoreCommit> parseRevision(String revision) throws GitCoreException;
 
@@ -25,9 +33,95 @@ public interface IGitCoreRepository {
 
   boolean isAncestor(IGitCoreCommit presumedAncestor, IGitCoreCommit presumedDescendant) throws GitCoreException;
 
-  Stream<IGitCoreCommit> ancestorsOf(IGitCoreCommit commitInclusive) throws GitCoreException;
+  /**
+   * A batch counterpart of {@link #isAncestor}: the histories of all {@code presumedDescendants} are walked at once.
+   *
+   * @return for each of {@code presumedDescendants} (in the same order),
+   *         whether {@code presumedAncestor} is an ancestor of (or is equal to) the given commit
+   */
+  List<Boolean> isAncestorOfEach(IGitCoreCommit presumedAncestor, List<IGitCoreCommit> presumedDescendants)
+      throws GitCoreException;
+
+  /**
+   * @param commitHashes commits that {@link #findFirstAncestor} or {@link #findFirstAncestors} is going to look for
+   * @return the floor to pass to {@link #findFirstAncestor} or {@link #findFirstAncestors},
+   *         or {@link GitCoreGenerationFloor#NONE} if the repository has no (usable) commit-graph file
+   */
+  GitCoreGenerationFloor deriveGenerationFloor(Iterable<IGitCoreCommitHash> commitHashes);
+
+  /**
+   * Yields the first (in topological order) ancestor of {@code commitInclusive} that satisfies {@code isSought},
+   * but does not walk below {@code soughtGenerationFloor} (when known from git's commit-graph file)
+   * and gives up once {@code budget} is exhausted.
+   * Ancestors are ordered by their height (the length of the longest path from the ancestor down the walked history)
+   * and then by commit time, both descending, so that the order doesn't depend on which other commits are walked at once
+   * (see {@link #findFirstAncestors}).
+   *
+   * @param soughtGenerationFloor generation floor of a superset of the commits that satisfy {@code isSought}
+   * @throws GitCoreException when reading git repository data fails
+   */
+  GitCoreAncestorSearchResult findFirstAncestor(
+      IGitCoreCommit commitInclusive,
+      Predicate<IGitCoreCommit> isSought,
+      GitCoreGenerationFloor soughtGenerationFloor,
+      GitCoreAncestorSearchBudget budget) throws GitCoreException;
+
+  /**
+   * A batch counterpart of {@link #findFirstAncestor}: the shared history of all {@code commitsInclusive} is walked just once,
+   * with each commit tracking which of {@code commitsInclusive} (called sources here) it is reachable from.
+   * For each source, the result is the same as the one of {@link #findFirstAncestor} run for this source alone.
+   *
+   * @param deriveIsSoughtForSource given an ancestor, yields a predicate telling for which sources
+   *                                (indices into {@code commitsInclusive}) the ancestor is sought;
+   *                                invoked at most once per ancestor
+   * @param soughtGenerationFloor generation floor of a superset of the commits sought for any of the sources
+   * @param budget limits the walk on behalf of each source separately (except for the time limit, which is shared),
+   *               so that a source with a long history can't exhaust the budget of the other sources
+   * @return results in the order of {@code commitsInclusive}
+   * @throws GitCoreException when reading git repository data fails
+   */
+  List<GitCoreAncestorSearchResult> findFirstAncestors(
+      List<IGitCoreCommit> commitsInclusive,
+      Function<IGitCoreCommit, IntPredicate> deriveIsSoughtForSource,
+      GitCoreGenerationFloor soughtGenerationFloor,
+      GitCoreAncestorSearchBudget budget) throws GitCoreException;
 
   List<IGitCoreCommit> deriveCommitRange(IGitCoreCommit fromInclusive, IGitCoreCommit untilExclusive) throws GitCoreException;
 
+  /**
+   * A single page of {@link #deriveCommitRange(IGitCoreCommit, IGitCoreCommit)}: only (roughly) the commits of the range
+   * up to {@code offset + limit} are walked, so this is cheap for the first pages of even a huge range.
+   *
+   * @param offset number of the (most recent) commits of the range to skip
+   * @param limit maximum number of commits to return
+   * @return commits of the range from {@code offset} (inclusive) to {@code offset + limit} (exclusive)
+   * @throws GitCoreException when reading git repository data fails
+   */
+  List<IGitCoreCommit> deriveCommitRange(IGitCoreCommit fromInclusive, IGitCoreCommit untilExclusive, int offset, int limit)
+      throws GitCoreException;
+
   GitCoreRepositoryState deriveRepositoryState();
+
+  GitCoreRefStateFingerprint deriveRefStateFingerprint() throws GitCoreException;
+
+  /**
+   * Walk sessions are meant to be opened once per a larger batch of operations (like building an entire snapshot),
+   * so that the commits parsed by one operation don't need to be parsed again by the subsequent ones.
+   * Messages (and identities) of the commits are not retained by the walk, they're read on demand instead.
+   *
+   * @return a session bound to the current thread, to be closed (preferably via try-with-resources) on the same thread
+   */
+  IGitCoreWalkSession openWalkSession();
+
+  /**
+   * @return statistics of the (shared between all repositories) cache of the results
+   *         of {@link #isAncestor} and {@link #isAncestorOfEach}
+   */
+  GitCoreCacheStatistics deriveIsAncestorCacheStatistics();
+
+  /**
+   * @return statistics of the (shared between all repositories) cache of the results
+   *         of {@link #deriveRelativeCommitCount}
+   */
+  GitCoreCacheStatistics deriveRelativeCommitCountCacheStatistics();
 }
@@ -0,0 +1,11 @@
+package com.virtuslab.gitcore.api;
+
+/**
+ * A scope in which all commit graph walks performed by a given {@link IGitCoreRepository} on the current thread
+ * share the same underlying object reader and the same table of already parsed commits.
+ * Must be closed on the same thread it has been opened on.
+ */
+public interface IGitCoreWalkSession extends AutoCloseable {
+  @Override
+  void close();
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.virtuslab.gitcore.api.GitCoreException;
 import com.virtuslab.gitcore.api.IGitCoreBranchSnapshot;
 import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 
@@ -19,8 +20,13 @@ public abstract class BaseGitCoreBranchSnapshot implements IGitCoreBranchSnapsho
   @Getter
   private final GitCoreCommit pointedCommit;
 
-  @Getter
-  private final List<IGitCoreReflogEntry> reflogFromMostRecent;
+  // Read lazily, as e.g. the reflogs of remote branches are often not needed at all.
+  private final GitCoreReflog reflog;
+
+  @Override
+  public List<IGitCoreReflogEntry> getReflogFromMostRecent() throws GitCoreException {
+    return reflog.getEntriesFromMostRecent();
+  }
 
   public abstract String getBranchTypeString(boolean capitalized);
 
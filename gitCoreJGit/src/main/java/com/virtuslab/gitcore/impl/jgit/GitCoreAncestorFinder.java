@@ -0,0 +1,296 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import io.vavr.collection.List;
+import lombok.CustomLog;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.aliasing.qual.Unique;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdSubclassMap;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchBudget;
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchResult;
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+
+/**
+ * Finds the first sought ancestor of each of the given commits (called sources here) in a single walk of their history.
+ *
+ * Each walked commit carries a bitset of the sources it's reachable from. A commit reached from new sources
+ * after it's been walked is walked again, but only on behalf of these new sources, so each commit is parsed (at most) once.
+ * Each source has a budget of its own, and is no longer tracked once it's reached more commits than its budget allows.
+ * Commits whose generation (from the commit-graph file) is lower than the given floor are not walked at all.
+ *
+ * Once all the ancestors are walked, they're ordered by their height (the generation, if not known from the commit-graph,
+ * is derived from the heights of the parents) and then by commit time, both descending, which is a topological order.
+ * The height of a commit depends on its own ancestors only, so the ancestors of a source are ordered the same way
+ * regardless of which other sources take part in the walk. Hence, each source is assigned the same (first sought)
+ * ancestor as if it was the only source.
+ */
+@CustomLog
+final class GitCoreAncestorFinder {
+
+  // How many commits are walked between the subsequent checks of the time budget.
+  private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+  private final RevWalk walk;
+  private final @Nullable GitCoreCommitGraph commitGraph;
+  private final long floor;
+  private final GitCoreAncestorSearchBudget budget;
+  private final long deadlineMillis;
+
+  private final ObjectIdSubclassMap<Ancestor> ancestorsByCommit = new ObjectIdSubclassMap<>();
+  private final ArrayDeque<Ancestor> queue = new ArrayDeque<>();
+  private final int[] reachedCountBySource;
+  private final BitSet exhaustedSources = new BitSet();
+  private int walkedCount = 0;
+
+  private GitCoreAncestorFinder(
+      RevWalk walk,
+      @Nullable GitCoreCommitGraph commitGraph,
+      long floor,
+      int sourceCount,
+      GitCoreAncestorSearchBudget budget) {
+    this.walk = walk;
+    this.commitGraph = commitGraph;
+    this.floor = floor;
+    this.budget = budget;
+    this.deadlineMillis = System.currentTimeMillis() + budget.getMaxMillis();
+    this.reachedCountBySource = new int[sourceCount];
+  }
+
+  /**
+   * @param floor generation below which no commit is walked, or {@link GitCoreCommitGraph#UNKNOWN_GENERATION}
+   * @return results in the order of {@code sourceIds}
+   */
+  static List<GitCoreAncestorSearchResult> findFirstAncestors(
+      RevWalk walk,
+      GitCoreCommitStore commitStore,
+      @Nullable GitCoreCommitGraph commitGraph,
+      long floor,
+      List<ObjectId> sourceIds,
+      Function<IGitCoreCommit, IntPredicate> deriveIsSoughtForSource,
+      GitCoreAncestorSearchBudget budget) throws IOException {
+    var finder = new GitCoreAncestorFinder(walk, commitGraph, floor, sourceIds.size(), budget);
+    finder.walk(sourceIds);
+    return finder.findFirstSought(commitStore, sourceIds.size(), deriveIsSoughtForSource);
+  }
+
+  private void walk(List<ObjectId> sourceIds) throws IOException {
+    int sourceIndex = 0;
+    for (ObjectId sourceId : sourceIds) {
+      var source = new BitSet();
+      source.set(sourceIndex++);
+      enqueue(sourceId, source);
+    }
+
+    while (!queue.isEmpty()) {
+      var ancestor = queue.removeFirst();
+      BitSet sources = ancestor.takeNotYetPropagated();
+      sources.andNot(exhaustedSources);
+      if (sources.isEmpty()) {
+        continue;
+      }
+      if (++walkedCount % CLOCK_CHECK_INTERVAL == 0 && System.currentTimeMillis() > deadlineMillis) {
+        LOG.debug(() -> "Time budget exhausted after walking ${walkedCount} commit(s)");
+        exhaustedSources.set(0, reachedCountBySource.length);
+        return;
+      }
+
+      // The commit has already been parsed if the ancestor has been walked before, so then this is just a lookup.
+      @Unique RevCommit commit = walk.parseCommit(ancestor);
+      boolean isFirstWalk = !ancestor.isWalked;
+      ancestor.isWalked = true;
+      if (isFirstWalk) {
+        ancestor.commitTime = commit.getCommitTime();
+      }
+      var walkedParents = List.<Ancestor>empty();
+      for (ObjectId parentId : commit.getParents()) {
+        var parent = enqueue(parentId, sources);
+        if (parent != null) {
+          walkedParents = walkedParents.append(parent);
+        } else if (isFirstWalk) {
+          ancestor.prunedParentsHeight = Math.max(ancestor.prunedParentsHeight, deriveGeneration(parentId));
+        }
+      }
+      if (isFirstWalk) {
+        ancestor.parents = walkedParents.toJavaArray(Ancestor[]::new);
+      }
+    }
+  }
+
+  /**
+   * @return the ancestor for the given commit, or null if the commit is below the floor (and hence not walked)
+   */
+  private @Nullable Ancestor enqueue(AnyObjectId objectId, BitSet sources) {
+    var ancestor = ancestorsByCommit.get(objectId);
+    if (ancestor == null) {
+      long generation = deriveGeneration(objectId);
+      if (floor != GitCoreCommitGraph.UNKNOWN_GENERATION && generation != GitCoreCommitGraph.UNKNOWN_GENERATION
+          && generation < floor) {
+        return null;
+      }
+      ancestor = new Ancestor(objectId, generation);
+      ancestorsByCommit.add(ancestor);
+    }
+
+    var newSources = (BitSet) sources.clone();
+    newSources.andNot(ancestor.sources);
+    for (int i = newSources.nextSetBit(0); i >= 0; i = newSources.nextSetBit(i + 1)) {
+      if (++reachedCountBySource[i] > budget.getMaxVisitedCommitCount()) {
+        int sourceIndex = i;
+        LOG.debug(() -> "Budget of source #${sourceIndex} exhausted");
+        exhaustedSources.set(i);
+      }
+    }
+    newSources.andNot(exhaustedSources);
+    if (newSources.isEmpty()) {
+      return ancestor;
+    }
+    ancestor.sources.or(newSources);
+    ancestor.notYetPropagated.or(newSources);
+    if (!ancestor.isQueued) {
+      ancestor.isQueued = true;
+      queue.add(ancestor);
+    }
+    return ancestor;
+  }
+
+  private List<GitCoreAncestorSearchResult> findFirstSought(
+      GitCoreCommitStore commitStore,
+      int sourceCount,
+      Function<IGitCoreCommit, IntPredicate> deriveIsSoughtForSource) throws IOException {
+    var results = new GitCoreAncestorSearchResult[sourceCount];
+    Arrays.fill(results, GitCoreAncestorSearchResult.notFound());
+    for (int i = exhaustedSources.nextSetBit(0); i >= 0; i = exhaustedSources.nextSetBit(i + 1)) {
+      results[i] = GitCoreAncestorSearchResult.notFoundWithinBudget();
+    }
+    var unresolvedSources = new BitSet(sourceCount);
+    unresolvedSources.set(0, sourceCount);
+    unresolvedSources.andNot(exhaustedSources);
+
+    // All the parents of an ancestor reachable from a tracked source are reachable from this source as well,
+    // so the heights of such ancestors never depend on the ancestors that are left out here.
+    var ancestors = List.ofAll(ancestorsByCommit).filter(a -> a.sources.intersects(unresolvedSources))
+        .toJavaArray(Ancestor[]::new);
+    deriveHeights(ancestors);
+    Arrays.sort(ancestors, GitCoreAncestorFinder::compareTopologically);
+
+    int checkedCount = 0;
+    for (Ancestor ancestor : ancestors) {
+      if (unresolvedSources.isEmpty()) {
+        break;
+      }
+      var sources = (BitSet) ancestor.sources.clone();
+      sources.and(unresolvedSources);
+      if (sources.isEmpty()) {
+        continue;
+      }
+      checkedCount++;
+      var coreCommit = new GitCoreCommit(walk.parseCommit(ancestor), commitStore);
+      IntPredicate isSoughtForSource = deriveIsSoughtForSource.apply(coreCommit);
+      for (int i = sources.nextSetBit(0); i >= 0; i = sources.nextSetBit(i + 1)) {
+        if (isSoughtForSource.test(i)) {
+          results[i] = GitCoreAncestorSearchResult.found(coreCommit);
+          unresolvedSources.clear(i);
+        }
+      }
+    }
+
+    int finalCheckedCount = checkedCount;
+    LOG.debug(() -> "Walked ${walkedCount} commit(s) and checked ${finalCheckedCount} of them " +
+        "on behalf of ${sourceCount} source(s)");
+    return List.of(results);
+  }
+
+  private long deriveGeneration(AnyObjectId objectId) {
+    if (commitGraph == null) {
+      return GitCoreCommitGraph.UNKNOWN_GENERATION;
+    }
+    int position = commitGraph.findPosition(objectId);
+    return position != GitCoreCommitGraph.NO_POSITION
+        ? commitGraph.getGeneration(position)
+        : GitCoreCommitGraph.UNKNOWN_GENERATION;
+  }
+
+  /**
+   * Done without recursion, as the history might be way deeper than the stack.
+   */
+  private static void deriveHeights(Ancestor[] ancestors) {
+    var stack = new ArrayDeque<Ancestor>();
+    for (Ancestor ancestor : ancestors) {
+      stack.push(ancestor);
+      while (!stack.isEmpty()) {
+        var top = stack.getFirst();
+        if (top.height != GitCoreCommitGraph.UNKNOWN_GENERATION) {
+          stack.removeFirst();
+          continue;
+        }
+        long maxParentHeight = top.prunedParentsHeight;
+        boolean areParentHeightsKnown = true;
+        for (Ancestor parent : top.parents) {
+          if (parent.height == GitCoreCommitGraph.UNKNOWN_GENERATION) {
+            stack.push(parent);
+            areParentHeightsKnown = false;
+          } else {
+            maxParentHeight = Math.max(maxParentHeight, parent.height);
+          }
+        }
+        if (areParentHeightsKnown) {
+          top.height = maxParentHeight + 1;
+          stack.removeFirst();
+        }
+      }
+    }
+  }
+
+  /**
+   * Highest commits first; as a commit is always higher than any of its parents, this is a topological order.
+   * The commit times and then the ids break the ties, so that the order is deterministic.
+   */
+  private static int compareTopologically(Ancestor a, Ancestor b) {
+    if (a.height != b.height) {
+      return Long.compare(b.height, a.height);
+    }
+    if (a.commitTime != b.commitTime) {
+      return Integer.compare(b.commitTime, a.commitTime);
+    }
+    return a.compareTo(b);
+  }
+
+  private static final class Ancestor extends ObjectId {
+    private static final Ancestor[] NO_PARENTS = new Ancestor[0];
+
+    private final BitSet sources = new BitSet();
+    private BitSet notYetPropagated = new BitSet();
+    private boolean isQueued = false;
+    private boolean isWalked = false;
+    private int commitTime = 0;
+    // Parents that are walked as well, i.e. are not below the floor.
+    private Ancestor[] parents = NO_PARENTS;
+    // The greatest generation of the parents below the floor.
+    private long prunedParentsHeight = 0;
+    // Known upfront for the commits from the commit-graph, derived after the walk for the others.
+    private long height;
+
+    Ancestor(AnyObjectId objectId, long generation) {
+      super(objectId);
+      this.height = generation;
+    }
+
+    BitSet takeNotYetPropagated() {
+      isQueued = false;
+      var result = notYetPropagated;
+      notYetPropagated = new BitSet();
+      return result;
+    }
+  }
+}
@@ -3,7 +3,6 @@ package com.virtuslab.gitcore.impl.jgit;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.eclipse.jgit.lib.CheckoutEntry;
 
 import com.virtuslab.gitcore.api.IGitCoreCheckoutEntry;
 
@@ -13,7 +12,7 @@ public class GitCoreCheckoutEntry implements IGitCoreCheckoutEntry {
   private final String fromBranchName;
   private final String toBranchName;
 
-  static GitCoreCheckoutEntry of(CheckoutEntry checkoutEntry) {
-    return new GitCoreCheckoutEntry(checkoutEntry.getFromBranch(), checkoutEntry.getToBranch());
+  static GitCoreCheckoutEntry of(String fromBranchName, String toBranchName) {
+    return new GitCoreCheckoutEntry(fromBranchName, toBranchName);
   }
 }
@@ -2,7 +2,6 @@ package com.virtuslab.gitcore.impl.jgit;
 
 import java.time.Instant;
 
-import lombok.Getter;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.aliasing.qual.NonLeaked;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -10,34 +9,80 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import com.virtuslab.gitcore.api.IGitCoreCommit;
 import com.virtuslab.gitcore.api.IGitCoreCommitHash;
 
-@Getter
-public class GitCoreCommit implements IGitCoreCommit {
-  private final String shortMessage;
-  private final GitCorePersonIdentity author;
-  private final GitCorePersonIdentity committer;
-  private final Instant commitTime;
-  private final IGitCoreCommitHash hash;
+/**
+ * A lightweight handle of a commit: only the id and the commit time (already parsed by the walk anyway) are stored upfront,
+ * while the message and the identities are decoded by the {@link GitCoreCommitStore} once first asked for.
+ * Hence, creating a commit that is only ever compared against other commits (as in fork point searches) is cheap.
+ */
+public final class GitCoreCommit implements IGitCoreCommit {
+  private final GitCoreCommitHash hash;
+  private final int commitTimeSeconds;
+  private final GitCoreCommitStore store;
 
-  public GitCoreCommit(@NonLeaked RevCommit commit) {
-    this.shortMessage = commit.getShortMessage();
-    this.author = GitCorePersonIdentity.of(commit.getAuthorIdent());
-    this.committer = GitCorePersonIdentity.of(commit.getCommitterIdent());
-    this.commitTime = Instant.ofEpochSecond(commit.getCommitTime());
-    this.hash = GitCoreCommitHash.of(commit.getId());
+  private volatile GitCoreCommitStore.@Nullable Metadata metadata = null;
+
+  GitCoreCommit(@NonLeaked RevCommit commit, GitCoreCommitStore store) {
+    // Let's not retain the RevCommit itself (which is what `getId()` returns), as it might belong to a long-lived walk
+    // and keeps references to its parents (and hence, transitively, to the entire parsed part of the commit graph).
+    this.hash = GitCoreCommitHash.of(commit.copy());
+    this.commitTimeSeconds = commit.getCommitTime();
+    this.store = store;
+  }
+
+  private GitCoreCommitStore.Metadata getMetadata() {
+    var result = metadata;
+    if (result == null) {
+      // A benign race: in the worst case, the metadata is looked up more than once.
+      result = store.getMetadata(hash.getObjectId());
+      // Let's retry next time if the commit couldn't be read (e.g. due to a transient I/O error).
+      if (!store.isUnreadable(result)) {
+        metadata = result;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String getShortMessage() {
+    return getMetadata().getShortMessage();
+  }
+
+  @Override
+  public GitCorePersonIdentity getAuthor() {
+    return getMetadata().getAuthor();
+  }
+
+  @Override
+  public GitCorePersonIdentity getCommitter() {
+    return getMetadata().getCommitter();
+  }
+
+  @Override
+  public Instant getCommitTime() {
+    return Instant.ofEpochSecond(commitTimeSeconds);
+  }
+
+  @Override
+  public IGitCoreCommitHash getHash() {
+    return hash;
   }
 
   @Override
   public String toString() {
-    return hash.getShortHashString() + " ('" + shortMessage + "')";
+    // Let's not decode the message just for the sake of (e.g. debug-logging) the commit.
+    var decodedMetadata = metadata;
+    return decodedMetadata != null
+        ? hash.getShortHashString() + " ('" + decodedMetadata.getShortMessage() + "')"
+        : hash.getShortHashString();
   }
 
   @Override
-  public final boolean equals(@Nullable Object other) {
+  public boolean equals(@Nullable Object other) {
     return IGitCoreCommit.defaultEquals(this, other);
   }
 
   @Override
-  public final int hashCode() {
+  public int hashCode() {
     return IGitCoreCommit.defaultHashCode(this);
   }
 }
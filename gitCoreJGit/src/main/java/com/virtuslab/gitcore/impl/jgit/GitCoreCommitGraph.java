@@ -0,0 +1,261 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import lombok.CustomLog;
+import lombok.Getter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import com.virtuslab.gitcore.api.GitCoreFileStamp;
+
+/**
+ * A read-only view of git's commit-graph file (see {@code Documentation/technical/commit-graph-format.txt} in git sources),
+ * which provides parents and generation numbers (a.k.a. topological levels) of commits without parsing the commit objects.
+ * Only a single {@code objects/info/commit-graph} file is supported, split commit-graph chains are ignored.
+ * Note that the commit-graph is closed under taking parents, i.e. all the ancestors of a commit present in the graph
+ * are present in the graph as well.
+ */
+@CustomLog
+@SuppressWarnings("index") // all the offsets are validated against chunk boundaries when the file is loaded
+final class GitCoreCommitGraph {
+
+  static final int NO_POSITION = -1;
+
+  /**
+   * The generation of commits that are either absent from the graph, or have been written by git that did not compute
+   * generation numbers yet. Nothing can be inferred about reachability of such commits.
+   */
+  static final long UNKNOWN_GENERATION = 0;
+
+  private static final int SIGNATURE = 0x43475048; // "CGPH"
+  private static final int OID_FANOUT_CHUNK_ID = 0x4f494446; // "OIDF"
+  private static final int OID_LOOKUP_CHUNK_ID = 0x4f49444c; // "OIDL"
+  private static final int COMMIT_DATA_CHUNK_ID = 0x43444154; // "CDAT"
+  private static final int EXTRA_EDGE_LIST_CHUNK_ID = 0x45444745; // "EDGE"
+
+  private static final int HEADER_LENGTH = 8;
+  private static final int CHECKSUM_LENGTH = Constants.OBJECT_ID_LENGTH;
+  private static final int CHUNK_LOOKUP_ENTRY_LENGTH = 12;
+  private static final int FANOUT_ENTRY_COUNT = 256;
+  private static final int COMMIT_DATA_ENTRY_LENGTH = Constants.OBJECT_ID_LENGTH + 16;
+
+  private static final int PARENT_NONE = 0x70000000;
+  private static final int PARENT_EXTRA_EDGE_LIST = 0x80000000;
+  private static final int PARENT_POSITION_MASK = 0x7fffffff;
+
+  @Getter
+  private final GitCoreFileStamp fileStamp;
+  private final ByteBuffer buffer;
+  private final int fanoutOffset;
+  private final int oidLookupOffset;
+  private final int commitDataOffset;
+  private final int extraEdgeListOffset;
+
+  private GitCoreCommitGraph(
+      GitCoreFileStamp fileStamp,
+      ByteBuffer buffer,
+      int fanoutOffset,
+      int oidLookupOffset,
+      int commitDataOffset,
+      int extraEdgeListOffset) {
+    this.fileStamp = fileStamp;
+    this.buffer = buffer;
+    this.fanoutOffset = fanoutOffset;
+    this.oidLookupOffset = oidLookupOffset;
+    this.commitDataOffset = commitDataOffset;
+    this.extraEdgeListOffset = extraEdgeListOffset;
+  }
+
+  static Path getFilePath(Path objectsDirectoryPath) {
+    return objectsDirectoryPath.resolve("info").resolve("commit-graph");
+  }
+
+  /**
+   * @return the commit-graph, or null if the file is absent or in an unsupported format
+   */
+  @SuppressWarnings("IllegalCatch")
+  static @Nullable GitCoreCommitGraph load(Path filePath, GitCoreFileStamp fileStamp) {
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      // The mapping remains valid after the channel is closed.
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, /* position */ 0, channel.size());
+      return parse(buffer, fileStamp);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Cannot read commit-graph file ${filePath}", e);
+      return null;
+    }
+  }
+
+  private static @Nullable GitCoreCommitGraph parse(ByteBuffer buffer, GitCoreFileStamp fileStamp) {
+    if (buffer.limit() < HEADER_LENGTH + CHECKSUM_LENGTH || buffer.getInt(0) != SIGNATURE) {
+      LOG.warn("Commit-graph file has an invalid signature");
+      return null;
+    }
+    if (!isChecksumValid(buffer)) {
+      LOG.warn("Commit-graph file has an invalid checksum");
+      return null;
+    }
+    // No chunk can overlap with the trailing checksum.
+    int length = buffer.limit() - CHECKSUM_LENGTH;
+    int version = buffer.get(4);
+    int hashVersion = buffer.get(5);
+    int chunkCount = buffer.get(6) & 0xff;
+    int baseGraphCount = buffer.get(7) & 0xff;
+    if (version != 1 || hashVersion != 1 || baseGraphCount != 0) {
+      LOG.info("Unsupported commit-graph file: version = ${version}, hash version = ${hashVersion}, " +
+          "base graph count = ${baseGraphCount}");
+      return null;
+    }
+
+    int fanoutOffset = -1;
+    int oidLookupOffset = -1;
+    int commitDataOffset = -1;
+    int extraEdgeListOffset = -1;
+    for (int i = 0; i < chunkCount; i++) {
+      int entryOffset = HEADER_LENGTH + i * CHUNK_LOOKUP_ENTRY_LENGTH;
+      if (entryOffset + CHUNK_LOOKUP_ENTRY_LENGTH > length) {
+        return null;
+      }
+      int chunkId = buffer.getInt(entryOffset);
+      long chunkOffset = buffer.getLong(entryOffset + 4);
+      if (chunkOffset < 0 || chunkOffset > length) {
+        return null;
+      }
+      if (chunkId == OID_FANOUT_CHUNK_ID) {
+        fanoutOffset = (int) chunkOffset;
+      } else if (chunkId == OID_LOOKUP_CHUNK_ID) {
+        oidLookupOffset = (int) chunkOffset;
+      } else if (chunkId == COMMIT_DATA_CHUNK_ID) {
+        commitDataOffset = (int) chunkOffset;
+      } else if (chunkId == EXTRA_EDGE_LIST_CHUNK_ID) {
+        extraEdgeListOffset = (int) chunkOffset;
+      }
+    }
+    if (fanoutOffset < 0 || oidLookupOffset < 0 || commitDataOffset < 0
+        || fanoutOffset + FANOUT_ENTRY_COUNT * 4 > length) {
+      LOG.warn("Commit-graph file lacks some of the required chunks");
+      return null;
+    }
+
+    int commitCount = buffer.getInt(fanoutOffset + (FANOUT_ENTRY_COUNT - 1) * 4);
+    if (commitCount < 0
+        || oidLookupOffset + (long) commitCount * Constants.OBJECT_ID_LENGTH > length
+        || commitDataOffset + (long) commitCount * COMMIT_DATA_ENTRY_LENGTH > length) {
+      LOG.warn("Commit-graph file is truncated");
+      return null;
+    }
+
+    return new GitCoreCommitGraph(fileStamp, buffer, fanoutOffset, oidLookupOffset, commitDataOffset,
+        extraEdgeListOffset);
+  }
+
+  /**
+   * Verifying the checksum takes a single pass over the file, but the file is only loaded once it's been rewritten by git.
+   * Without the verification, a file that's been partially overwritten (rather than replaced) could go unnoticed.
+   */
+  private static boolean isChecksumValid(ByteBuffer buffer) {
+    int contentLength = buffer.limit() - CHECKSUM_LENGTH;
+    MessageDigest digest = Constants.newMessageDigest();
+    ByteBuffer content = buffer.duplicate();
+    content.position(0).limit(contentLength);
+    digest.update(content);
+    byte[] expectedChecksum = digest.digest();
+    for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+      if (buffer.get(contentLength + i) != expectedChecksum[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the position of the given commit in the graph, or {@link #NO_POSITION} if the commit is absent
+   */
+  int findPosition(AnyObjectId objectId) {
+    int firstByte = objectId.getFirstByte();
+    int low = firstByte == 0 ? 0 : buffer.getInt(fanoutOffset + (firstByte - 1) * 4);
+    int high = buffer.getInt(fanoutOffset + firstByte * 4) - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareObjectIdAt(middle, objectId);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return NO_POSITION;
+  }
+
+  ObjectId getObjectId(int position) {
+    byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    int offset = oidLookupOffset + position * Constants.OBJECT_ID_LENGTH;
+    for (int i = 0; i < Constants.OBJECT_ID_LENGTH; i++) {
+      raw[i] = buffer.get(offset + i);
+    }
+    return ObjectId.fromRaw(raw);
+  }
+
+  /**
+   * @return the generation number of the commit at the given position, or {@link #UNKNOWN_GENERATION}
+   */
+  long getGeneration(int position) {
+    int offset = commitDataOffset + position * COMMIT_DATA_ENTRY_LENGTH + Constants.OBJECT_ID_LENGTH + 8;
+    // The topmost 30 bits hold the generation, the remaining 34 bits hold the commit time.
+    return buffer.getInt(offset) >>> 2;
+  }
+
+  /**
+   * @return the positions of the parents of the commit at the given position
+   */
+  int[] getParentPositions(int position) {
+    int offset = commitDataOffset + position * COMMIT_DATA_ENTRY_LENGTH + Constants.OBJECT_ID_LENGTH;
+    int firstParent = buffer.getInt(offset);
+    int secondParent = buffer.getInt(offset + 4);
+    if (firstParent == PARENT_NONE) {
+      return new int[0];
+    }
+    if (secondParent == PARENT_NONE) {
+      return new int[]{firstParent};
+    }
+    if ((secondParent & PARENT_EXTRA_EDGE_LIST) == 0) {
+      return new int[]{firstParent, secondParent};
+    }
+
+    // An octopus merge: all the parents except the first one are stored in the extra edge list.
+    if (extraEdgeListOffset < 0) {
+      throw new IllegalStateException("Commit-graph file lacks the extra edge list chunk");
+    }
+    int edgeOffset = extraEdgeListOffset + (secondParent & PARENT_POSITION_MASK) * 4;
+    int extraParentCount = 1;
+    while ((buffer.getInt(edgeOffset + (extraParentCount - 1) * 4) & PARENT_EXTRA_EDGE_LIST) == 0) {
+      extraParentCount++;
+    }
+    int[] result = new int[1 + extraParentCount];
+    result[0] = firstParent;
+    for (int i = 0; i < extraParentCount; i++) {
+      result[1 + i] = buffer.getInt(edgeOffset + i * 4) & PARENT_POSITION_MASK;
+    }
+    return result;
+  }
+
+  private int compareObjectIdAt(int position, AnyObjectId objectId) {
+    int offset = oidLookupOffset + position * Constants.OBJECT_ID_LENGTH;
+    for (int i = 0; i < Constants.OBJECT_ID_LENGTH; i++) {
+      int comparison = Integer.compare(buffer.get(offset + i) & 0xff, objectId.getByte(i) & 0xff);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+}
@@ -20,11 +20,25 @@ public final class GitCoreCommitHash implements IGitCoreCommitHash {
     return objectId.equals(ObjectId.zeroId()) ? Option.none() : Option.some(of(objectId));
   }
 
+  /**
+   * Note that the hex string is NOT retained, as it's only needed for display (and for the backend API);
+   * equality and hashing only rely on {@link #getHashWord}s.
+   */
   @Override
   public @ArrayLen(40) String getHashString() {
     return objectId.getName();
   }
 
+  @Override
+  public int getHashWord(int index) {
+    // Let's not go through `ObjectId#copyRawTo` so as not to allocate a byte array on each call.
+    int byteIndex = index * 4;
+    return objectId.getByte(byteIndex) << 24
+        | (objectId.getByte(byteIndex + 1) & 0xff) << 16
+        | (objectId.getByte(byteIndex + 2) & 0xff) << 8
+        | (objectId.getByte(byteIndex + 3) & 0xff);
+  }
+
   @Override
   public String toString() {
     return "<" + getHashString() + ">";
@@ -32,6 +46,10 @@ public final class GitCoreCommitHash implements IGitCoreCommitHash {
 
   @Override
   public boolean equals(@Nullable Object other) {
+    if (other instanceof GitCoreCommitHash) {
+      // A shortcut for the most common case: JGit compares the five words of object ids directly.
+      return objectId.equals(((GitCoreCommitHash) other).objectId);
+    }
     return IGitCoreCommitHash.defaultEquals(this, other);
   }
 
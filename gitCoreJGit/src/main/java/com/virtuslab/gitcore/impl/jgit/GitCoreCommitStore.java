@@ -0,0 +1,103 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.common.aliasing.qual.Unique;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Decodes the metadata (message and identities) of the commits of a single repository on demand,
+ * so that {@link GitCoreCommit}s can be created for every commit visited by a walk at the cost of just copying its id.
+ * Person identities are interned, since the same few identities are typically shared by thousands of commits.
+ */
+@CustomLog
+final class GitCoreCommitStore {
+
+  private static final int METADATA_CACHE_MAXIMUM_SIZE = 10_000;
+  private static final int IDENTITY_CACHE_MAXIMUM_SIZE = 10_000;
+
+  private static final Metadata UNREADABLE_METADATA = new Metadata(/* shortMessage */ "",
+      GitCorePersonIdentity.of(new PersonIdent("", "")), GitCorePersonIdentity.of(new PersonIdent("", "")));
+
+  private final Repository jgitRepo;
+
+  // Different instances of GitCoreCommit for the same commit (e.g. from subsequent snapshots) share the metadata.
+  private final Cache<ObjectId, Metadata> metadataByObjectId = Caffeine.newBuilder()
+      .maximumSize(METADATA_CACHE_MAXIMUM_SIZE)
+      .build();
+
+  private final Cache<GitCorePersonIdentity, GitCorePersonIdentity> internedIdentities = Caffeine.newBuilder()
+      .maximumSize(IDENTITY_CACHE_MAXIMUM_SIZE)
+      .build();
+
+  private final AtomicInteger unreadableCommitCount = new AtomicInteger();
+
+  GitCoreCommitStore(Repository jgitRepo) {
+    this.jgitRepo = jgitRepo;
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  static final class Metadata {
+    private final String shortMessage;
+    private final GitCorePersonIdentity author;
+    private final GitCorePersonIdentity committer;
+  }
+
+  Metadata getMetadata(ObjectId objectId) {
+    var cachedMetadata = metadataByObjectId.getIfPresent(objectId);
+    if (cachedMetadata != null) {
+      return cachedMetadata;
+    }
+    var metadata = decodeMetadata(objectId);
+    metadataByObjectId.put(objectId.copy(), metadata);
+    return metadata;
+  }
+
+  /**
+   * @return whether the metadata stands for a commit that couldn't be read (and hence has an empty message and identities)
+   */
+  boolean isUnreadable(Metadata metadata) {
+    return metadata == UNREADABLE_METADATA;
+  }
+
+  @SuppressWarnings("IllegalCatch")
+  private Metadata decodeMetadata(ObjectId objectId) {
+    try (ObjectReader reader = jgitRepo.newObjectReader()) {
+      byte[] raw = reader.open(objectId, Constants.OBJ_COMMIT).getCachedBytes();
+      @Unique RevCommit commit = RevCommit.parse(raw);
+      return new Metadata(commit.getShortMessage(), intern(commit.getAuthorIdent()), intern(commit.getCommitterIdent()));
+    } catch (IOException | RuntimeException e) {
+      // The commit might have been garbage-collected in the meantime, or be corrupt.
+      // Failures are not cached (so that they can be retried), but let's not flood the log with the same warning.
+      if (unreadableCommitCount.getAndIncrement() == 0) {
+        LOG.warn("Cannot read commit ${objectId.getName()}; its message and identities are going to be empty", e);
+      } else {
+        LOG.debug(() -> "Cannot read commit ${objectId.getName()}: ${e}");
+      }
+      return UNREADABLE_METADATA;
+    }
+  }
+
+  private GitCorePersonIdentity intern(PersonIdent person) {
+    var identity = GitCorePersonIdentity.of(person);
+    var internedIdentity = internedIdentities.getIfPresent(identity);
+    if (internedIdentity != null) {
+      return internedIdentity;
+    }
+    // Two threads might intern equal identities at the same time, which is harmless (if just slightly wasteful).
+    internedIdentities.put(identity, identity);
+    return identity;
+  }
+}
@@ -1,28 +1,40 @@
 package com.virtuslab.gitcore.impl.jgit;
 
+import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.control.Option;
-import lombok.Getter;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.virtuslab.gitcore.api.GitCoreException;
 import com.virtuslab.gitcore.api.IGitCoreHeadSnapshot;
 import com.virtuslab.gitcore.api.IGitCoreLocalBranchSnapshot;
 import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 @ToString(onlyExplicitlyIncluded = true)
 public class GitCoreHeadSnapshot implements IGitCoreHeadSnapshot {
 
   @ToString.Include
   private final @Nullable IGitCoreLocalBranchSnapshot targetBranch;
 
-  @Getter
-  private final List<IGitCoreReflogEntry> reflogFromMostRecent;
+  // Read lazily, as HEAD reflog might be huge, and is only needed when discovering the branch layout.
+  private final GitCoreReflog reflog;
 
   @Override
   public Option<IGitCoreLocalBranchSnapshot> getTargetBranch() {
     return Option.of(targetBranch);
   }
+
+  @Override
+  public List<IGitCoreReflogEntry> getReflogFromMostRecent() throws GitCoreException {
+    return reflog.getEntriesFromMostRecent();
+  }
+
+  @Override
+  public Iterator<IGitCoreReflogEntry> iterateReflogFromMostRecent() throws GitCoreException {
+    return reflog.iterateFromMostRecent();
+  }
 }
@@ -0,0 +1,157 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.util.PriorityQueue;
+
+import io.vavr.control.Option;
+import lombok.CustomLog;
+import org.checkerframework.common.aliasing.qual.Unique;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdSubclassMap;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
+
+/**
+ * Counts the commits reachable from only one of the two given commits in a single walk,
+ * just like {@code git rev-list --left-right --count left...right}.
+ *
+ * Commits are visited from the most recent one (by commit time), and each visited commit is painted with the side(s)
+ * it's reachable from; the walk stops once every commit left in the queue is reachable from both sides
+ * and every already visited commit that has been reached from a new side since then has passed that side on to its parents.
+ * Unlike a merge-base search followed by two separate counting walks, each commit is parsed (at most) once.
+ */
+@CustomLog
+final class GitCoreLeftRightCounter {
+
+  private static final int LEFT = 1;
+  private static final int RIGHT = 2;
+  private static final int BOTH = LEFT | RIGHT;
+
+  private final RevWalk walk;
+  private final ObjectIdSubclassMap<Sides> sidesByCommit = new ObjectIdSubclassMap<>();
+  // The sides rather than the RevCommits are queued, so that the latter don't outlive a single visit.
+  private final PriorityQueue<Sides> queue = new PriorityQueue<>(GitCoreLeftRightCounter::compareByRecency);
+  // The number of queued commits which are NOT reachable from both sides (as far as known so far).
+  private int nonStaleQueuedCount = 0;
+  // The number of queued commits which have already been visited, but have been reached from a new side since then.
+  private int revisitQueuedCount = 0;
+  private boolean isAnyCommonCommitFound = false;
+
+  private GitCoreLeftRightCounter(RevWalk walk) {
+    this.walk = walk;
+  }
+
+  /**
+   * @return the numbers of commits reachable only from {@code left} (ahead) and only from {@code right} (behind),
+   *         or empty if the commits have no common ancestor
+   */
+  static Option<GitCoreRelativeCommitCount> count(RevWalk walk, AnyObjectId left, AnyObjectId right) throws IOException {
+    var counter = new GitCoreLeftRightCounter(walk);
+    counter.paint(walk.parseCommit(left), LEFT);
+    counter.paint(walk.parseCommit(right), RIGHT);
+    return counter.walkAndCount();
+  }
+
+  private Option<GitCoreRelativeCommitCount> walkAndCount() throws IOException {
+    int visitedCount = 0;
+    // Note that a revisited commit is always stale (it can only get the missing side), but its ancestors might not be.
+    while (nonStaleQueuedCount > 0 || revisitQueuedCount > 0) {
+      var sides = queue.remove();
+      sides.isQueued = false;
+      if (sides.isVisited) {
+        revisitQueuedCount--;
+      }
+      sides.isVisited = true;
+      if (sides.value != BOTH) {
+        nonStaleQueuedCount--;
+      }
+      visitedCount++;
+
+      // The commit has already been parsed when painted, so this is just a lookup.
+      @Unique RevCommit commit = walk.parseCommit(sides);
+      for (ObjectId parentId : commit.getParents()) {
+        paint(walk.parseCommit(parentId), sides.value);
+      }
+    }
+
+    int finalVisitedCount = visitedCount;
+    LOG.debug(() -> "Visited ${finalVisitedCount} commit(s)");
+    if (!isAnyCommonCommitFound) {
+      return Option.none();
+    }
+
+    int aheadCount = 0;
+    int behindCount = 0;
+    for (Sides sides : sidesByCommit) {
+      if (sides.value == LEFT) {
+        aheadCount++;
+      } else if (sides.value == RIGHT) {
+        behindCount++;
+      }
+    }
+    return Option.some(GitCoreRelativeCommitCount.of(aheadCount, behindCount));
+  }
+
+  /**
+   * Most recent commits first; the ids break the ties, so that the order of the walk is deterministic.
+   */
+  private static int compareByRecency(Sides a, Sides b) {
+    if (a.commitTime != b.commitTime) {
+      return Integer.compare(b.commitTime, a.commitTime);
+    }
+    return a.compareTo(b);
+  }
+
+  private void paint(@Unique RevCommit commit, int newSides) {
+    var sides = sidesByCommit.get(commit);
+    if (sides == null) {
+      sides = new Sides(commit, commit.getCommitTime());
+      sidesByCommit.add(sides);
+    }
+    int oldValue = sides.value;
+    int newValue = oldValue | newSides;
+    if (newValue == oldValue) {
+      return;
+    }
+    sides.value = newValue;
+    if (newValue == BOTH) {
+      isAnyCommonCommitFound = true;
+    }
+
+    if (sides.isQueued) {
+      if (newValue == BOTH) {
+        nonStaleQueuedCount--;
+      }
+    } else {
+      // The commit might have been already visited with fewer sides, in which case the new sides need to be propagated
+      // to its ancestors again (this only happens when commit times are skewed).
+      sides.isQueued = true;
+      queue.add(sides);
+      if (sides.isVisited) {
+        revisitQueuedCount++;
+      }
+      if (newValue != BOTH) {
+        nonStaleQueuedCount++;
+      }
+    }
+  }
+
+  /**
+   * The sides a commit is reachable from; a separate object (rather than a {@link org.eclipse.jgit.revwalk.RevFlag})
+   * so that no flags are left behind in the possibly shared {@link RevWalk}.
+   */
+  private static final class Sides extends ObjectId {
+    private final int commitTime;
+    private int value = 0;
+    private boolean isQueued = false;
+    private boolean isVisited = false;
+
+    Sides(AnyObjectId objectId, int commitTime) {
+      super(objectId);
+      this.commitTime = commitTime;
+    }
+  }
+}
@@ -1,21 +1,19 @@
 package com.virtuslab.gitcore.impl.jgit;
 
-import io.vavr.collection.List;
 import io.vavr.control.Option;
 import org.eclipse.jgit.annotations.Nullable;
 
 import com.virtuslab.gitcore.api.IGitCoreLocalBranchSnapshot;
-import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 import com.virtuslab.gitcore.api.IGitCoreRemoteBranchSnapshot;
 
 public class GitCoreLocalBranchSnapshot extends BaseGitCoreBranchSnapshot implements IGitCoreLocalBranchSnapshot {
 
   private @Nullable final IGitCoreRemoteBranchSnapshot remoteBranch;
 
-  public GitCoreLocalBranchSnapshot(
+  GitCoreLocalBranchSnapshot(
       String shortBranchName,
       GitCoreCommit pointedCommit,
-      List<IGitCoreReflogEntry> reflog,
+      GitCoreReflog reflog,
       @Nullable IGitCoreRemoteBranchSnapshot remoteBranch) {
     super(shortBranchName, pointedCommit, reflog);
     this.remoteBranch = remoteBranch;
@@ -0,0 +1,223 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+import io.vavr.collection.List;
+import lombok.CustomLog;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.aliasing.qual.Unique;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapIndex.Bitmap;
+import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdSubclassMap;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Answers whether a commit is an ancestor of each of the given commits, without computing any merge bases.
+ *
+ * The ancestors of all the presumed descendants are walked at once (most recent first), and the walk is pruned:
+ * <ul>
+ *   <li>at commits that have a reachability bitmap in the pack (if the pack has bitmaps at all),
+ *       since the bitmap tells right away whether the presumed ancestor is reachable,</li>
+ *   <li>at commits whose generation (from the commit-graph file) is not greater than the one of the presumed ancestor.</li>
+ * </ul>
+ * Commit times are NOT used for pruning, as they are not necessarily monotonic along the history
+ * (clocks of committers might be skewed), and a wrong result would end up cached.
+ * Hence, if the generations are unknown (no commit-graph, or commits not yet covered by it), the walk is not pruned.
+ * Hence, checking whether e.g. a tip of {@code master} is an ancestor of a feature branch only walks the commits
+ * of the feature branch, regardless of how long the history of {@code master} is.
+ */
+@CustomLog
+final class GitCoreReachabilityChecker {
+
+  private final RevWalk walk;
+  private final @Nullable BitmapIndex bitmapIndex;
+  private final @Nullable GitCoreCommitGraph commitGraph;
+  private final ObjectId presumedAncestor;
+  private final long presumedAncestorGeneration;
+  // Reused for all the bitmaps checked in the walk, and kept empty in between the checks.
+  private final @Nullable BitmapBuilder bitmapBuilder;
+
+  private final ObjectIdSubclassMap<ReachingDescendants> reachingDescendantsByCommit = new ObjectIdSubclassMap<>();
+  // The descendants rather than the RevCommits are queued, so that the latter don't outlive a single visit.
+  private final PriorityQueue<ReachingDescendants> queue = new PriorityQueue<>(GitCoreReachabilityChecker::compareByRecency);
+
+  private GitCoreReachabilityChecker(
+      RevWalk walk,
+      @Nullable BitmapIndex bitmapIndex,
+      @Nullable GitCoreCommitGraph commitGraph,
+      ObjectId presumedAncestor) {
+    this.walk = walk;
+    this.bitmapIndex = bitmapIndex;
+    this.commitGraph = commitGraph;
+    this.presumedAncestor = presumedAncestor;
+    this.presumedAncestorGeneration = deriveGeneration(commitGraph, presumedAncestor);
+    this.bitmapBuilder = bitmapIndex != null ? bitmapIndex.newBitmapBuilder() : null;
+  }
+
+  /**
+   * @return for each of {@code presumedDescendantIds} (in the same order),
+   *         whether {@code presumedAncestorId} is an ancestor of (or is equal to) the given commit
+   */
+  static List<Boolean> isAncestorOfEach(
+      RevWalk walk,
+      @Nullable GitCoreCommitGraph commitGraph,
+      ObjectId presumedAncestorId,
+      List<ObjectId> presumedDescendantIds) throws IOException {
+    // Null if the repository has no pack with bitmaps.
+    BitmapIndex bitmapIndex = walk.getObjectReader().getBitmapIndex();
+    // Let's make sure that the presumed ancestor exists at all.
+    ObjectId presumedAncestor = walk.parseCommit(presumedAncestorId).copy();
+    var checker = new GitCoreReachabilityChecker(walk, bitmapIndex, commitGraph, presumedAncestor);
+    return checker.check(presumedDescendantIds);
+  }
+
+  private List<Boolean> check(List<ObjectId> presumedDescendantIds) throws IOException {
+    int descendantCount = presumedDescendantIds.size();
+    var results = new boolean[descendantCount];
+    var unresolvedDescendants = new BitSet(descendantCount);
+    unresolvedDescendants.set(0, descendantCount);
+
+    int descendantIndex = 0;
+    for (ObjectId presumedDescendantId : presumedDescendantIds) {
+      var descendant = new BitSet(descendantCount);
+      descendant.set(descendantIndex++);
+      enqueue(walk.parseCommit(presumedDescendantId), descendant);
+    }
+
+    int visitedCount = 0;
+    while (!queue.isEmpty() && !unresolvedDescendants.isEmpty()) {
+      var reachingDescendants = queue.remove();
+      BitSet descendants = reachingDescendants.takeNotYetPropagated();
+      descendants.and(unresolvedDescendants);
+      if (descendants.isEmpty()) {
+        continue;
+      }
+      visitedCount++;
+      // The commit has already been parsed when enqueued, so this is just a lookup.
+      @Unique RevCommit commit = walk.parseCommit(reachingDescendants);
+
+      // Only some of the commits (typically the tips of branches at the moment of repacking) have a bitmap.
+      Bitmap bitmap = bitmapIndex != null ? bitmapIndex.getBitmap(commit) : null;
+      if (commit.equals(presumedAncestor) || (bitmap != null && isPresumedAncestorInBitmap(bitmap))) {
+        for (int i = descendants.nextSetBit(0); i >= 0; i = descendants.nextSetBit(i + 1)) {
+          results[i] = true;
+        }
+        unresolvedDescendants.andNot(descendants);
+        continue;
+      }
+      // The bitmap covers all the ancestors of the commit, so there is no point in walking them.
+      if (bitmap != null || !canReachPresumedAncestor(commit)) {
+        continue;
+      }
+      for (ObjectId parentId : commit.getParents()) {
+        enqueue(walk.parseCommit(parentId), descendants);
+      }
+    }
+
+    int finalVisitedCount = visitedCount;
+    LOG.debug(() -> "Visited ${finalVisitedCount} commit(s) while checking ${descendantCount} presumed descendant(s) " +
+        "of ${presumedAncestor.getName()}");
+    var resultList = List.<Boolean>empty();
+    for (int i = descendantCount - 1; i >= 0; i--) {
+      resultList = resultList.prepend(results[i]);
+    }
+    return resultList;
+  }
+
+  private void enqueue(@Unique RevCommit commit, BitSet descendants) {
+    var reachingDescendants = reachingDescendantsByCommit.get(commit);
+    if (reachingDescendants == null) {
+      reachingDescendants = new ReachingDescendants(commit, commit.getCommitTime());
+      reachingDescendantsByCommit.add(reachingDescendants);
+    }
+    // The commit might have been already visited (when reached from some other descendants),
+    // in which case it needs to be visited again, but only on behalf of the newly reaching descendants.
+    if (reachingDescendants.addAll(descendants) && !reachingDescendants.isQueued) {
+      reachingDescendants.isQueued = true;
+      queue.add(reachingDescendants);
+    }
+  }
+
+  private boolean isPresumedAncestorInBitmap(Bitmap bitmap) {
+    var builder = bitmapBuilder;
+    if (builder == null) {
+      return false;
+    }
+    boolean result = builder.or(bitmap).contains(presumedAncestor);
+    // Since the builder has been empty before, this brings it back to empty.
+    builder.andNot(bitmap);
+    return result;
+  }
+
+  private boolean canReachPresumedAncestor(@Unique RevCommit commit) {
+    long generation = deriveGeneration(commitGraph, commit);
+    if (generation != GitCoreCommitGraph.UNKNOWN_GENERATION
+        && presumedAncestorGeneration != GitCoreCommitGraph.UNKNOWN_GENERATION) {
+      // Generation of a commit is always greater than the generation of any of its parents.
+      return generation > presumedAncestorGeneration;
+    }
+    return true;
+  }
+
+  private static long deriveGeneration(@Nullable GitCoreCommitGraph commitGraph, AnyObjectId objectId) {
+    if (commitGraph == null) {
+      return GitCoreCommitGraph.UNKNOWN_GENERATION;
+    }
+    int position = commitGraph.findPosition(objectId);
+    return position != GitCoreCommitGraph.NO_POSITION
+        ? commitGraph.getGeneration(position)
+        : GitCoreCommitGraph.UNKNOWN_GENERATION;
+  }
+
+  /**
+   * Most recent commits first, so that a commit is typically reached from all its descendants before being visited.
+   */
+  private static int compareByRecency(ReachingDescendants a, ReachingDescendants b) {
+    if (a.commitTime != b.commitTime) {
+      return Integer.compare(b.commitTime, a.commitTime);
+    }
+    return a.compareTo(b);
+  }
+
+  /**
+   * The presumed descendants that reach the given commit.
+   */
+  private static final class ReachingDescendants extends ObjectId {
+    private final int commitTime;
+    private final BitSet descendants = new BitSet();
+    private BitSet notYetPropagated = new BitSet();
+    private boolean isQueued = false;
+
+    ReachingDescendants(AnyObjectId objectId, int commitTime) {
+      super(objectId);
+      this.commitTime = commitTime;
+    }
+
+    /**
+     * @return whether any of the given descendants is new
+     */
+    boolean addAll(BitSet newDescendants) {
+      var added = (BitSet) newDescendants.clone();
+      added.andNot(descendants);
+      if (added.isEmpty()) {
+        return false;
+      }
+      descendants.or(added);
+      notYetPropagated.or(added);
+      return true;
+    }
+
+    BitSet takeNotYetPropagated() {
+      isQueued = false;
+      var result = notYetPropagated;
+      notYetPropagated = new BitSet();
+      return result;
+    }
+  }
+}
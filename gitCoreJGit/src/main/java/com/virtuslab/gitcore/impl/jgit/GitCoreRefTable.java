@@ -0,0 +1,160 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static com.virtuslab.gitcore.impl.jgit.BranchFullNameUtils.getRemoteBranchFullName;
+import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_BRANCH_SECTION;
+import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_KEY_MERGE;
+import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_KEY_REMOTE;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.AccessLevel;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+
+/**
+ * An in-memory snapshot of local branch refs, remote branch refs and the {@code branch.*} config section.
+ * It's loaded with a single scan of the ref database, so that the remote tracking branches of ALL local branches
+ * can be resolved without resolving refs (or reading git config) once per each local branch and each remote.
+ */
+@CustomLog
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class GitCoreRefTable {
+
+  private static final String ORIGIN = "origin";
+
+  /** Non-symbolic local and remote branch refs, in the order of the ref database (i.e. sorted by full name). */
+  @Getter
+  private final List<Ref> refs;
+
+  /** Includes symbolic refs (resolved to the commit pointed by their target), just like {@code git for-each-ref}. */
+  private final Map<String, ObjectId> objectIdByLocalBranchName;
+
+  private final Map<String, ObjectId> objectIdByRemoteBranchFullName;
+
+  /** Origin comes first, and then the other remotes sorted by name. */
+  @Getter
+  private final List<String> remoteNames;
+
+  private final Map<String, String> configuredRemoteNameByLocalBranchName;
+
+  private final Map<String, String> configuredRemoteBranchNameByLocalBranchName;
+
+  static GitCoreRefTable load(Repository jgitRepo) throws GitCoreException {
+    // Note that JGit's ref database takes care of both loose refs and packed-refs (and re-reads them only if modified).
+    List<Ref> allRefs = Try.of(() -> List.ofAll(jgitRepo.getRefDatabase()
+        .getRefsByPrefix(Constants.R_HEADS, Constants.R_REMOTES)))
+        .getOrElseThrow(e -> new GitCoreException("Error while getting list of branches", e));
+    return load(jgitRepo, allRefs);
+  }
+
+  /**
+   * Unlike {@link #load(Repository)}, only resolves the refs that the given local branch
+   * and its remote tracking branch might point to, rather than scanning all the refs.
+   */
+  static GitCoreRefTable loadForLocalBranch(Repository jgitRepo, String localBranchName) throws GitCoreException {
+    Config config = jgitRepo.getConfig();
+    List<String> candidateRefFullNames = List.of(Constants.R_HEADS + localBranchName)
+        .appendAll(Option.of(config.getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_REMOTE))
+            .flatMap(remoteName -> Option.of(config.getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_MERGE))
+                .map(branchFullName -> getRemoteBranchFullName(remoteName,
+                    branchFullName.replace(Constants.R_HEADS, /* replacement */ "")))))
+        .appendAll(List.ofAll(jgitRepo.getRemoteNames())
+            .map(remoteName -> getRemoteBranchFullName(remoteName, localBranchName)))
+        .distinct();
+    List<Ref> refs = Try.of(() -> List.ofAll(jgitRepo.getRefDatabase()
+        .exactRef(candidateRefFullNames.toJavaArray(String[]::new)).values()))
+        .getOrElseThrow(e -> new GitCoreException("Error while getting branch ${localBranchName}", e));
+    return load(jgitRepo, refs.sortBy(ref -> ref.getName()));
+  }
+
+  private static GitCoreRefTable load(Repository jgitRepo, List<Ref> allRefs) throws GitCoreException {
+    Map<String, ObjectId> localBranchObjectIds = LinkedHashMap.empty();
+    Map<String, ObjectId> remoteBranchObjectIds = HashMap.empty();
+    for (Ref ref : allRefs) {
+      String refFullName = ref.getName();
+      ObjectId objectId = ref.getObjectId();
+      if (refFullName.startsWith(Constants.R_HEADS)) {
+        if (objectId == null) {
+          throw new GitCoreException("Cannot access git object id corresponding to ${refFullName}");
+        }
+        localBranchObjectIds = localBranchObjectIds.put(refFullName.substring(Constants.R_HEADS.length()), objectId);
+      } else if (objectId != null && !ref.isSymbolic()) {
+        // Let's skip symbolic refs like refs/remotes/origin/HEAD
+        remoteBranchObjectIds = remoteBranchObjectIds.put(refFullName, objectId);
+      }
+    }
+    Map<String, ObjectId> objectIdByLocalBranchName = localBranchObjectIds;
+    Map<String, ObjectId> objectIdByRemoteBranchFullName = remoteBranchObjectIds;
+
+    Config config = jgitRepo.getConfig();
+    List<String> remoteNames = List.ofAll(jgitRepo.getRemoteNames()).sorted()
+        .sortBy(remoteName -> remoteName.equals(ORIGIN) ? 0 : 1);
+    List<String> configuredLocalBranchNames = List.ofAll(config.getSubsections(CONFIG_BRANCH_SECTION));
+    Map<String, String> configuredRemoteNameByLocalBranchName = HashMap.ofEntries(configuredLocalBranchNames
+        .flatMap(localBranchName -> Option.of(config.getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_REMOTE))
+            .map(remoteName -> Tuple.of(localBranchName, remoteName))));
+    Map<String, String> configuredRemoteBranchNameByLocalBranchName = HashMap.ofEntries(configuredLocalBranchNames
+        .flatMap(localBranchName -> Option.of(config.getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_MERGE))
+            .map(branchFullName -> Tuple.of(localBranchName,
+                branchFullName.replace(Constants.R_HEADS, /* replacement */ "")))));
+
+    LOG.debug(() -> "Loaded ${objectIdByLocalBranchName.size()} local branch(es), " +
+        "${objectIdByRemoteBranchFullName.size()} remote branch(es) of ${remoteNames.size()} remote(s)");
+    return new GitCoreRefTable(allRefs.reject(ref -> ref.isSymbolic() || ref.getObjectId() == null),
+        objectIdByLocalBranchName, objectIdByRemoteBranchFullName, remoteNames,
+        configuredRemoteNameByLocalBranchName, configuredRemoteBranchNameByLocalBranchName);
+  }
+
+  /**
+   * @return names and pointed commits of all local branches, in the order of the ref database
+   */
+  List<Tuple2<String, ObjectId>> getLocalBranches() {
+    return objectIdByLocalBranchName.toList();
+  }
+
+  Option<ObjectId> getLocalBranchObjectId(String localBranchName) {
+    return objectIdByLocalBranchName.get(localBranchName);
+  }
+
+  Option<ObjectId> getRemoteBranchObjectId(String remoteBranchFullName) {
+    return objectIdByRemoteBranchFullName.get(remoteBranchFullName);
+  }
+
+  /**
+   * The remote tracking branch is the one configured via {@code branch.<name>.remote} and {@code branch.<name>.merge}
+   * (if it exists), or otherwise the branch of the same name in origin, or otherwise in any other remote.
+   *
+   * @return the remote name and the (short) remote branch name of the remote tracking branch of the given local branch
+   */
+  Option<Tuple2<String, String>> deriveRemoteTrackingBranch(String localBranchName) {
+    var configuredRemoteTrackingBranch = configuredRemoteNameByLocalBranchName.get(localBranchName)
+        .flatMap(remoteName -> configuredRemoteBranchNameByLocalBranchName.get(localBranchName)
+            .map(remoteBranchName -> Tuple.of(remoteName, remoteBranchName)))
+        .filter(this::isRemoteBranchPresent);
+    if (configuredRemoteTrackingBranch.isDefined()) {
+      return configuredRemoteTrackingBranch;
+    }
+    return remoteNames
+        .map(remoteName -> Tuple.of(remoteName, localBranchName))
+        .find(this::isRemoteBranchPresent);
+  }
+
+  private boolean isRemoteBranchPresent(Tuple2<String, String> remoteNameAndRemoteBranchName) {
+    return objectIdByRemoteBranchFullName.containsKey(
+        getRemoteBranchFullName(remoteNameAndRemoteBranchName._1, remoteNameAndRemoteBranchName._2));
+  }
+}
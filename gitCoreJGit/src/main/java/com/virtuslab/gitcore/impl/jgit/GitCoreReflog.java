@@ -0,0 +1,45 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+
+/**
+ * The reflog of a single ref, read from disk only once it's actually needed, and then memoized.
+ * {@link #iterateFromMostRecent} makes it possible to read just the most recent entries
+ * without parsing the entire reflog (which might consist of hundreds of thousands of entries in case of HEAD).
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+final class GitCoreReflog {
+
+  private final GitCoreReflogReader reflogReader;
+  private final String refFullName;
+
+  private volatile @Nullable List<IGitCoreReflogEntry> entriesFromMostRecent = null;
+
+  List<IGitCoreReflogEntry> getEntriesFromMostRecent() throws GitCoreException {
+    var entries = entriesFromMostRecent;
+    if (entries == null) {
+      // A benign race: in the worst case, the reflog is read more than once, but any of the results is valid.
+      entries = reflogReader.readEntriesFromMostRecent(refFullName);
+      entriesFromMostRecent = entries;
+    }
+    return entries;
+  }
+
+  /**
+   * @return an iterator that parses the entries as the iteration proceeds, unless the entire reflog has already been read
+   */
+  Iterator<IGitCoreReflogEntry> iterateFromMostRecent() throws GitCoreException {
+    var entries = entriesFromMostRecent;
+    if (entries != null) {
+      return entries.iterator();
+    }
+    return reflogReader.iterateEntriesFromMostRecent(refFullName);
+  }
+}
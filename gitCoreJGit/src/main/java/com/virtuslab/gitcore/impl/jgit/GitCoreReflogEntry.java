@@ -1,5 +1,7 @@
 package com.virtuslab.gitcore.impl.jgit;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 import io.vavr.control.Option;
@@ -7,45 +9,124 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import org.checkerframework.checker.interning.qual.UsesObjectEquals;
-import org.eclipse.jgit.lib.ReflogEntry;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.jgit.lib.ObjectId;
 
 import com.virtuslab.gitcore.api.IGitCoreCheckoutEntry;
 import com.virtuslab.gitcore.api.IGitCoreCommitHash;
 import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 
-@RequiredArgsConstructor(access = AccessLevel.MODULE)
+/**
+ * A reflog entry backed by the line of the (possibly memory-mapped) reflog file,
+ * in the format of {@code <old-id> SP <new-id> SP <name> SP <email> SP <epoch-seconds> SP <tz> TAB <comment>}.
+ * Only the object ids are decoded upfront; the timestamp and the comment are only parsed once asked for.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 @ToString(onlyExplicitlyIncluded = true)
 @UsesObjectEquals
+@SuppressWarnings("index") // all the offsets are bounded by the line, which has been validated when the entry was created
 public class GitCoreReflogEntry implements IGitCoreReflogEntry {
 
-  private final ReflogEntry reflogEntry;
+  private static final String CHECKOUT_PREFIX = "checkout: moving from ";
+  private static final String CHECKOUT_TO = " to ";
+
+  private final ByteBuffer buffer;
+  private final int lineStart;
+  private final int lineEnd;
+  private final ObjectId oldId;
+  private final ObjectId newId;
+
+  // Both memoized, since e.g. the comment is checked multiple times when filtering reflogs.
+  private @Nullable String comment = null;
+  private @Nullable Instant timestamp = null;
 
   @Override
   @ToString.Include(name = "comment")
   public String getComment() {
-    return reflogEntry.getComment();
+    var result = comment;
+    if (result == null) {
+      result = parseComment();
+      comment = result;
+    }
+    return result;
   }
 
   @Override
   @ToString.Include(name = "timestamp")
   public Instant getTimestamp() {
-    return reflogEntry.getWho().getWhen().toInstant();
+    var result = timestamp;
+    if (result == null) {
+      result = parseTimestamp();
+      timestamp = result;
+    }
+    return result;
   }
 
   @Override
   @ToString.Include(name = "oldCommitHash")
   public Option<IGitCoreCommitHash> getOldCommitHash() {
-    return GitCoreCommitHash.ofZeroable(reflogEntry.getOldId());
+    return GitCoreCommitHash.ofZeroable(oldId);
   }
 
   @Override
   @ToString.Include(name = "newCommitHash")
   public IGitCoreCommitHash getNewCommitHash() {
-    return GitCoreCommitHash.of(reflogEntry.getNewId());
+    return GitCoreCommitHash.of(newId);
   }
 
   @Override
   public Option<IGitCoreCheckoutEntry> parseCheckout() {
-    return Option.of(reflogEntry.parseCheckout()).map(GitCoreCheckoutEntry::of);
+    // The same format as recognized by JGit's `ReflogEntry#parseCheckout`.
+    String fullComment = getComment();
+    if (!fullComment.startsWith(CHECKOUT_PREFIX)) {
+      return Option.none();
+    }
+    int toIndex = fullComment.indexOf(CHECKOUT_TO, CHECKOUT_PREFIX.length());
+    if (toIndex < 0) {
+      return Option.none();
+    }
+    return Option.some(GitCoreCheckoutEntry.of(fullComment.substring(CHECKOUT_PREFIX.length(), toIndex),
+        fullComment.substring(toIndex + CHECKOUT_TO.length())));
+  }
+
+  /**
+   * @return the index of the {@code >} that closes the email, or -1 if the line is malformed
+   */
+  private int findEndOfEmail() {
+    // The identity starts right after the two object ids.
+    for (int i = lineStart + GitCoreReflogReader.OBJECT_IDS_LENGTH; i < lineEnd; i++) {
+      if (buffer.get(i) == '>') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private String parseComment() {
+    int endOfEmail = findEndOfEmail();
+    for (int i = Math.max(endOfEmail, lineStart); i < lineEnd; i++) {
+      if (buffer.get(i) == '\t') {
+        ByteBuffer commentBytes = buffer.duplicate();
+        commentBytes.limit(lineEnd).position(i + 1);
+        return StandardCharsets.UTF_8.decode(commentBytes).toString();
+      }
+    }
+    return "";
+  }
+
+  private Instant parseTimestamp() {
+    int endOfEmail = findEndOfEmail();
+    long epochSeconds = 0;
+    if (endOfEmail >= 0) {
+      // Let's skip the space after the email.
+      for (int i = endOfEmail + 2; i < lineEnd; i++) {
+        byte b = buffer.get(i);
+        if (b < '0' || b > '9') {
+          break;
+        }
+        epochSeconds = epochSeconds * 10 + (b - '0');
+      }
+    }
+    return Instant.ofEpochSecond(epochSeconds);
   }
 }
@@ -0,0 +1,262 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+
+/**
+ * Reads reflog files (under {@code .git/logs/}) without going through JGit's {@code ReflogReader},
+ * which reads the entire file into a byte array and eagerly parses each entry (including the identity and the comment).
+ * Large files are memory-mapped rather than read, and the lines are scanned from the end without copying;
+ * see {@link GitCoreReflogEntry} for what's parsed upfront and what's parsed on demand.
+ *
+ * Since reflogs are append-only (unless expired or deleted), the entries parsed for each ref are retained
+ * along with the length of the parsed part of the file, so that the subsequent reads only parse the appended bytes.
+ * The retained entries are always parsed from heap buffers, never from mappings.
+ */
+@CustomLog
+@SuppressWarnings("index") // all the offsets are bounded by the buffer limit
+final class GitCoreReflogReader {
+
+  /** The length of {@code <old-id> SP <new-id> SP} prefix of each reflog line. */
+  static final int OBJECT_IDS_LENGTH = 2 * (Constants.OBJECT_ID_STRING_LENGTH + 1);
+
+  private static final byte LF = 0x0a;
+  private static final byte SP = 0x20;
+  private static final int HEX_DIGITS_PER_WORD = 8;
+
+  // Mapping has a fixed cost (and, on Windows, prevents the file from being deleted while mapped),
+  // so it only pays off for large files like the reflog of HEAD; the typical branch reflog is just a few lines long.
+  private static final int MEMORY_MAPPING_THRESHOLD = 64 * 1024;
+
+  private static final int PARSED_REFLOG_CACHE_MAXIMUM_SIZE = 10_000;
+
+  private static final ParsedReflog NOTHING_PARSED = new ParsedReflog(List.empty(), /* parsedLength */ 0,
+      /* lastParsedLine */ new byte[0]);
+
+  private final Path logsDirectoryPath;
+
+  private final Cache<String, ParsedReflog> parsedReflogByRefFullName = Caffeine.newBuilder()
+      .maximumSize(PARSED_REFLOG_CACHE_MAXIMUM_SIZE)
+      .build();
+
+  GitCoreReflogReader(Path logsDirectoryPath) {
+    this.logsDirectoryPath = logsDirectoryPath;
+  }
+
+  @RequiredArgsConstructor
+  private static final class ParsedReflog {
+    private final List<IGitCoreReflogEntry> entriesFromMostRecent;
+    private final long parsedLength;
+    // A copy of the last parsed line (including the trailing LF),
+    // used to verify that the parsed part of the file hasn't been rewritten in the meantime.
+    private final byte[] lastParsedLine;
+  }
+
+  /**
+   * @return all the entries of the reflog of the given ref, or an empty list if there is no such reflog
+   * @throws GitCoreException when the reflog exists, but cannot be read
+   */
+  List<IGitCoreReflogEntry> readEntriesFromMostRecent(String refFullName) throws GitCoreException {
+    Path path = logsDirectoryPath.resolve(refFullName);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long length = channel.size();
+      ParsedReflog parsedReflog = getParsedReflogIfStillPrefixOf(refFullName, channel, length);
+      long parsedLength = parsedReflog.parsedLength;
+      if (parsedLength == length) {
+        return parsedReflog.entriesFromMostRecent;
+      }
+
+      // The entries are retained in the cache, and each of them keeps a view of the buffer it's been parsed from.
+      // Hence, the buffer needs to be on heap: a mapping would be held (along with its address space) for as long
+      // as any of the entries remains reachable.
+      ByteBuffer appendedBytes = readIntoHeap(channel, parsedLength, length - parsedLength);
+      // The last line might still be in the middle of being written; let's leave it for the next read.
+      int completeLinesEnd = findLastLF(appendedBytes, appendedBytes.limit()) + 1;
+      List<IGitCoreReflogEntry> appendedEntries = iterateEntriesBackward(appendedBytes, completeLinesEnd).toList();
+      LOG.debug(() -> "Parsed ${appendedEntries.size()} new entries of the reflog of ${refFullName} " +
+          "(${completeLinesEnd} bytes starting at offset ${parsedLength})");
+
+      var result = appendedEntries.appendAll(parsedReflog.entriesFromMostRecent);
+      byte[] lastParsedLine = completeLinesEnd > 0
+          ? copyLastLine(appendedBytes, completeLinesEnd)
+          : parsedReflog.lastParsedLine;
+      parsedReflogByRefFullName.put(refFullName,
+          new ParsedReflog(result, parsedLength + completeLinesEnd, lastParsedLine));
+      return result;
+
+    } catch (NoSuchFileException e) {
+      parsedReflogByRefFullName.invalidate(refFullName);
+      return List.empty();
+    } catch (IOException e) {
+      throw new GitCoreException("Cannot read the reflog of ${refFullName}", e);
+    }
+  }
+
+  /**
+   * @return an iterator that parses the entries lazily, starting from the most recent one, as the iteration proceeds;
+   *         only the entries appended since the previous {@link #readEntriesFromMostRecent} are parsed,
+   *         the earlier ones are taken from the cache
+   * @throws GitCoreException when the reflog exists, but cannot be read
+   */
+  Iterator<IGitCoreReflogEntry> iterateEntriesFromMostRecent(String refFullName) throws GitCoreException {
+    Path path = logsDirectoryPath.resolve(refFullName);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long length = channel.size();
+      ParsedReflog parsedReflog = getParsedReflogIfStillPrefixOf(refFullName, channel, length);
+      long parsedLength = parsedReflog.parsedLength;
+      if (parsedLength == length) {
+        return parsedReflog.entriesFromMostRecent.iterator();
+      }
+      // Unlike in `readEntriesFromMostRecent`, the entries are not cached, so the buffer can as well be a mapping.
+      ByteBuffer appendedBytes = read(channel, parsedLength, length - parsedLength);
+      return iterateEntriesBackward(appendedBytes, findLastLF(appendedBytes, appendedBytes.limit()) + 1)
+          .concat(parsedReflog.entriesFromMostRecent.iterator());
+
+    } catch (NoSuchFileException e) {
+      return Iterator.empty();
+    } catch (IOException e) {
+      throw new GitCoreException("Cannot read the reflog of ${refFullName}", e);
+    }
+  }
+
+  /**
+   * @return the entries parsed so far for the given ref, or {@link #NOTHING_PARSED} if none are cached,
+   *         or if the file has been rewritten (e.g. by {@code git reflog expire}) since they've been parsed
+   */
+  private ParsedReflog getParsedReflogIfStillPrefixOf(String refFullName, FileChannel channel, long length)
+      throws IOException {
+    ParsedReflog parsedReflog = parsedReflogByRefFullName.getIfPresent(refFullName);
+    if (parsedReflog == null) {
+      return NOTHING_PARSED;
+    }
+    byte[] lastParsedLine = parsedReflog.lastParsedLine;
+    if (parsedReflog.parsedLength > length) {
+      return NOTHING_PARSED;
+    }
+    if (lastParsedLine.length == 0) {
+      return parsedReflog;
+    }
+    ByteBuffer bytes = readIntoHeap(channel, parsedReflog.parsedLength - lastParsedLine.length, lastParsedLine.length);
+    return bytes.equals(ByteBuffer.wrap(lastParsedLine)) ? parsedReflog : NOTHING_PARSED;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, long size) throws IOException {
+    if (size >= MEMORY_MAPPING_THRESHOLD && size <= Integer.MAX_VALUE) {
+      // The mapping remains valid after the channel is closed.
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+    return readIntoHeap(channel, position, size);
+  }
+
+  private static ByteBuffer readIntoHeap(FileChannel channel, long position, long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Reflog file is too large (${size} bytes)");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining()) {
+      // The file might turn out shorter than expected if it's been rewritten in the meantime.
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @return the index of the last LF before {@code end}, or -1 if there is none
+   */
+  private static int findLastLF(ByteBuffer bytes, int end) {
+    int index = end - 1;
+    while (index >= 0 && bytes.get(index) != LF) {
+      index--;
+    }
+    return index;
+  }
+
+  private static byte[] copyLastLine(ByteBuffer bytes, int completeLinesEnd) {
+    int lineStart = findLastLF(bytes, completeLinesEnd - 1) + 1;
+    byte[] result = new byte[completeLinesEnd - lineStart];
+    bytes.duplicate().position(lineStart).get(result);
+    return result;
+  }
+
+  /**
+   * @param end the index right after the LF that terminates the last line to parse
+   */
+  private static Iterator<IGitCoreReflogEntry> iterateEntriesBackward(ByteBuffer bytes, int end) {
+    return Iterator.<Option<IGitCoreReflogEntry>, Integer>unfoldRight(end, regionEnd -> {
+      if (regionEnd <= 0) {
+        return Option.none();
+      }
+      int lineEnd = regionEnd - 1;
+      int lineStart = findLastLF(bytes, lineEnd) + 1;
+      Tuple2<Option<IGitCoreReflogEntry>, Integer> entryAndNextRegionEnd = Tuple.of(parseLine(bytes, lineStart, lineEnd),
+          lineStart);
+      return Option.some(entryAndNextRegionEnd);
+    }).flatMap(entry -> entry);
+  }
+
+  private static Option<IGitCoreReflogEntry> parseLine(ByteBuffer bytes, int lineStart, int lineEnd) {
+    if (lineEnd - lineStart < OBJECT_IDS_LENGTH
+        || bytes.get(lineStart + Constants.OBJECT_ID_STRING_LENGTH) != SP
+        || bytes.get(lineStart + OBJECT_IDS_LENGTH - 1) != SP) {
+      LOG.warn("Skipping a malformed reflog line");
+      return Option.none();
+    }
+    ObjectId oldId = parseObjectId(bytes, lineStart);
+    ObjectId newId = parseObjectId(bytes, lineStart + Constants.OBJECT_ID_STRING_LENGTH + 1);
+    if (oldId == null || newId == null) {
+      LOG.warn("Skipping a reflog line with malformed object ids");
+      return Option.none();
+    }
+    return Option.some(new GitCoreReflogEntry(bytes, lineStart, lineEnd, oldId, newId));
+  }
+
+  private static @Nullable ObjectId parseObjectId(ByteBuffer bytes, int offset) {
+    long word1 = parseHexWord(bytes, offset);
+    long word2 = parseHexWord(bytes, offset + HEX_DIGITS_PER_WORD);
+    long word3 = parseHexWord(bytes, offset + 2 * HEX_DIGITS_PER_WORD);
+    long word4 = parseHexWord(bytes, offset + 3 * HEX_DIGITS_PER_WORD);
+    long word5 = parseHexWord(bytes, offset + 4 * HEX_DIGITS_PER_WORD);
+    if (word1 < 0 || word2 < 0 || word3 < 0 || word4 < 0 || word5 < 0) {
+      return null;
+    }
+    return new ObjectId((int) word1, (int) word2, (int) word3, (int) word4, (int) word5);
+  }
+
+  /**
+   * @return the (unsigned) value of the 8 hex digits starting at the given offset, or -1 if any of them is not a hex digit
+   */
+  private static long parseHexWord(ByteBuffer bytes, int offset) {
+    long result = 0;
+    for (int i = 0; i < HEX_DIGITS_PER_WORD; i++) {
+      int digit = Character.digit(bytes.get(offset + i), /* radix */ 16);
+      if (digit < 0) {
+        return -1;
+      }
+      result = result << 4 | digit;
+    }
+    return result;
+  }
+}
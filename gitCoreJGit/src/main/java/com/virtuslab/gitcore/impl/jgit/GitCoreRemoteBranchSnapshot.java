@@ -1,9 +1,7 @@
 package com.virtuslab.gitcore.impl.jgit;
 
-import io.vavr.collection.List;
 import lombok.Getter;
 
-import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 import com.virtuslab.gitcore.api.IGitCoreRemoteBranchSnapshot;
 
 public class GitCoreRemoteBranchSnapshot extends BaseGitCoreBranchSnapshot implements IGitCoreRemoteBranchSnapshot {
@@ -11,10 +9,10 @@ public class GitCoreRemoteBranchSnapshot extends BaseGitCoreBranchSnapshot imple
   @Getter
   private final String remoteName;
 
-  public GitCoreRemoteBranchSnapshot(
+  GitCoreRemoteBranchSnapshot(
       String shortName,
       GitCoreCommit pointedCommit,
-      List<IGitCoreReflogEntry> reflog,
+      GitCoreReflog reflog,
       String remoteName) {
     super(shortName, pointedCommit, reflog);
     this.remoteName = remoteName;
@@ -6,49 +6,58 @@ import static io.vavr.API.$;
 import static io.vavr.API.Case;
 import static io.vavr.API.Match;
 import static io.vavr.Predicates.isIn;
-import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_BRANCH_SECTION;
-import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_KEY_MERGE;
-import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_KEY_REMOTE;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.vavr.CheckedFunction1;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
 import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lombok.CustomLog;
 import lombok.SneakyThrows;
 import lombok.ToString;
-import org.checkerframework.common.aliasing.qual.Unique;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.lib.ReflogReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryState;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.revwalk.RevWalkUtils;
-import org.eclipse.jgit.revwalk.filter.RevFilter;
 
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchBudget;
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchResult;
+import com.virtuslab.gitcore.api.GitCoreCacheStatistics;
 import com.virtuslab.gitcore.api.GitCoreCannotAccessGitDirectoryException;
 import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.GitCoreFileStamp;
+import com.virtuslab.gitcore.api.GitCoreGenerationFloor;
 import com.virtuslab.gitcore.api.GitCoreNoSuchRevisionException;
+import com.virtuslab.gitcore.api.GitCoreRefStateFingerprint;
 import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
 import com.virtuslab.gitcore.api.GitCoreRepositoryState;
 import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
 import com.virtuslab.gitcore.api.IGitCoreHeadSnapshot;
 import com.virtuslab.gitcore.api.IGitCoreLocalBranchSnapshot;
-import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
 import com.virtuslab.gitcore.api.IGitCoreRepository;
+import com.virtuslab.gitcore.api.IGitCoreWalkSession;
 
 @CustomLog
 @ToString(onlyExplicitlyIncluded = true)
@@ -58,8 +67,17 @@ public final class GitCoreRepository implements IGitCoreRepository {
   @ToString.Include
   private final Path gitDirectoryPath;
   private final Repository jgitRepo;
+  // Retains the already parsed entries of reflogs, so that only the entries appended in the meantime are parsed.
+  private final GitCoreReflogReader reflogReader;
+  // Decodes commit messages and identities on demand, so that commits can be created for every commit visited by a walk.
+  private final GitCoreCommitStore commitStore;
+  private final ThreadLocal<@Nullable GitCoreWalkSession> walkSessionOfCurrentThread = new ThreadLocal<>();
 
-  private static final String ORIGIN = "origin";
+  // Reloaded whenever git rewrites the commit-graph file (e.g. on `git gc` or `git commit-graph write`).
+  private volatile @Nullable GitCoreCommitGraph commitGraph = null;
+
+  private static final boolean IS_COMMIT_GRAPH_ENABLED = Boolean
+      .parseBoolean(System.getProperty("git-machete.commit-graph.enabled", "true"));
 
   public GitCoreRepository(Path mainDirectoryPath, Path gitDirectoryPath) throws GitCoreException {
     this.mainDirectoryPath = mainDirectoryPath;
@@ -67,12 +85,14 @@ public final class GitCoreRepository implements IGitCoreRepository {
 
     this.jgitRepo = Try.of(() -> new FileRepository(gitDirectoryPath.toString())).getOrElseThrow(
         e -> new GitCoreCannotAccessGitDirectoryException("Cannot access .git directory under ${gitDirectoryPath}", e));
+    this.reflogReader = new GitCoreReflogReader(jgitRepo.getDirectory().toPath().resolve(Constants.LOGS));
+    this.commitStore = new GitCoreCommitStore(jgitRepo);
 
     LOG.debug(() -> "Created ${this})");
   }
 
   @Override
-  public Option<String> deriveConfigValue(String section, String subsection, String name) {
+  public Option<String> deriveConfigValue(String section, @Nullable String subsection, String name) {
     return Option.of(jgitRepo.getConfig().getString(section, subsection, name));
   }
 
@@ -81,10 +101,15 @@ public final class GitCoreRepository implements IGitCoreRepository {
     return Option.narrow(convertRevisionToGitCoreCommit(revision));
   }
 
+  @Override
+  public IGitCoreWalkSession openWalkSession() {
+    return GitCoreWalkSession.open(walkSessionOfCurrentThread, jgitRepo);
+  }
+
   @SuppressWarnings("IllegalCatch")
   private <T> T withRevWalk(CheckedFunction1<RevWalk, T> fun) throws GitCoreException {
-    try (RevWalk walk = new RevWalk(jgitRepo)) {
-      return fun.apply(walk);
+    try {
+      return withSharedOrFreshRevWalk(fun);
     } catch (Throwable e) {
       throw new GitCoreException(e);
     }
@@ -92,26 +117,29 @@ public final class GitCoreRepository implements IGitCoreRepository {
 
   @SneakyThrows
   private <T> T withRevWalkUnchecked(CheckedFunction1<RevWalk, T> fun) {
+    return withSharedOrFreshRevWalk(fun);
+  }
+
+  private <T> T withSharedOrFreshRevWalk(CheckedFunction1<RevWalk, T> fun) throws Throwable {
+    var walkSession = walkSessionOfCurrentThread.get();
+    // The shared walk might be already in use if this method has been called from within another walk operation.
+    if (walkSession != null && walkSession.isWalkAvailable()) {
+      return walkSession.withSharedWalk(fun);
+    }
     try (RevWalk walk = new RevWalk(jgitRepo)) {
+      // Messages are decoded on demand by the commit store anyway.
+      walk.setRetainBody(false);
       return fun.apply(walk);
     }
   }
 
-  private boolean isBranchPresent(String branchFullName) {
-    return Try.of(() -> jgitRepo.resolve(branchFullName)).getOrNull() != null;
-  }
-
-  private GitCoreCommit convertExistingRevisionToGitCoreCommit(String revision) throws GitCoreException {
-    return withRevWalk(walk -> new GitCoreCommit(walk.parseCommit(convertExistingRevisionToObjectId(revision))));
-  }
-
   private GitCoreCommit convertObjectIdToGitCoreCommit(ObjectId objectId) throws GitCoreException {
-    return withRevWalk(walk -> new GitCoreCommit(walk.parseCommit(objectId)));
+    return withRevWalk(walk -> new GitCoreCommit(walk.parseCommit(objectId), commitStore));
   }
 
   private Option<GitCoreCommit> convertRevisionToGitCoreCommit(String revision) throws GitCoreException {
     return convertRevisionToObjectId(revision)
-        .map(objectId -> withRevWalkUnchecked(walk -> new GitCoreCommit(walk.parseCommit(objectId))));
+        .map(objectId -> withRevWalkUnchecked(walk -> new GitCoreCommit(walk.parseCommit(objectId), commitStore)));
   }
 
   private ObjectId convertExistingRevisionToObjectId(String revision) throws GitCoreException {
@@ -131,6 +159,21 @@ public final class GitCoreRepository implements IGitCoreRepository {
     return convertExistingRevisionToObjectId(commit.getHash().getHashString());
   }
 
+  /**
+   * Unlike {@link #convertGitCoreCommitToObjectId}, does NOT hit the repository to check whether the commit exists.
+   */
+  private static ObjectId convertGitCoreCommitToRawObjectId(IGitCoreCommit commit) {
+    return convertGitCoreCommitHashToRawObjectId(commit.getHash());
+  }
+
+  private static ObjectId convertGitCoreCommitHashToRawObjectId(IGitCoreCommitHash hash) {
+    if (hash instanceof GitCoreCommitHash) {
+      return ((GitCoreCommitHash) hash).getObjectId();
+    }
+    return new ObjectId(hash.getHashWord(0), hash.getHashWord(1), hash.getHashWord(2), hash.getHashWord(3),
+        hash.getHashWord(4));
+  }
+
   @Override
   public IGitCoreHeadSnapshot deriveHead() throws GitCoreException {
     Ref ref = Try.of(() -> jgitRepo.getRefDatabase().findRef(Constants.HEAD))
@@ -169,20 +212,26 @@ public final class GitCoreRepository implements IGitCoreRepository {
     return new GitCoreHeadSnapshot(targetBranch, reflog);
   }
 
-  private List<IGitCoreReflogEntry> deriveReflogByRefFullName(String refFullName) throws GitCoreException {
-    try {
-      ReflogReader reflogReader = jgitRepo.getReflogReader(refFullName);
-      if (reflogReader == null) {
-        throw new GitCoreNoSuchRevisionException("Ref '${refFullName}' does not exist in this repository");
-      }
-      return reflogReader
-          .getReverseEntries()
-          .stream()
-          .map(GitCoreReflogEntry::new)
-          .collect(List.collector());
-    } catch (IOException e) {
-      throw new GitCoreException(e);
-    }
+  private GitCoreReflog deriveReflogByRefFullName(String refFullName) {
+    return new GitCoreReflog(reflogReader, refFullName);
+  }
+
+  private static final int RELATIVE_COMMIT_COUNT_CACHE_MAXIMUM_SIZE = 10_000;
+
+  // Just like the is-ancestor cache, shared between repositories since the counts for the given two commits never change.
+  // Most branches (and their remote tracking branches) don't move between the subsequent snapshots,
+  // so the counts are typically found in the cache.
+  private static final Cache<Tuple2<ObjectId, ObjectId>, Option<GitCoreRelativeCommitCount>> relativeCommitCountCache = Caffeine
+      .newBuilder()
+      .maximumSize(RELATIVE_COMMIT_COUNT_CACHE_MAXIMUM_SIZE)
+      .recordStats()
+      .build();
+
+  @Override
+  public GitCoreCacheStatistics deriveRelativeCommitCountCacheStatistics() {
+    CacheStats stats = relativeCommitCountCache.stats();
+    return GitCoreCacheStatistics.of(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+        relativeCommitCountCache.estimatedSize());
   }
 
   @Override
@@ -190,82 +239,56 @@ public final class GitCoreRepository implements IGitCoreRepository {
       IGitCoreCommit fromPerspectiveOf,
       IGitCoreCommit asComparedTo) throws GitCoreException {
 
-    return withRevWalk(walk -> {
-      var mergeBaseHash = deriveMergeBaseIfNeeded(fromPerspectiveOf, asComparedTo);
-      if (mergeBaseHash.isEmpty()) {
-        return Option.none();
-      }
-
-      @Unique RevCommit fromPerspectiveOfCommit = walk.parseCommit(convertGitCoreCommitToObjectId(fromPerspectiveOf));
-      @Unique RevCommit asComparedToCommit = walk.parseCommit(convertGitCoreCommitToObjectId(asComparedTo));
-      @Unique RevCommit mergeBase = walk.parseCommit(mergeBaseHash.get().getObjectId());
-
-      // Yes, `walk` is leaked here.
-      // `count()` calls `walk.reset()` at the very beginning but NOT at the end.
-      // `walk` must NOT be used afterwards (or at least without a prior `reset()` call).
-      int aheadCount = RevWalkUtils.count(walk, fromPerspectiveOfCommit, mergeBase);
-      int behindCount = RevWalkUtils.count(walk, asComparedToCommit, mergeBase);
+    var key = Tuple.of(convertGitCoreCommitToRawObjectId(fromPerspectiveOf).copy(),
+        convertGitCoreCommitToRawObjectId(asComparedTo).copy());
+    var cachedResult = relativeCommitCountCache.getIfPresent(key);
+    if (cachedResult != null) {
+      return cachedResult;
+    }
 
-      return Option.some(GitCoreRelativeCommitCount.of(aheadCount, behindCount));
-    });
+    // Ahead and behind counts are derived in a single walk, without looking for the merge base first.
+    var result = withRevWalk(walk -> GitCoreLeftRightCounter.count(walk,
+        convertGitCoreCommitToObjectId(fromPerspectiveOf), convertGitCoreCommitToObjectId(asComparedTo)));
+    relativeCommitCountCache.put(key, result);
+    return result;
   }
 
   private Option<IGitCoreLocalBranchSnapshot> deriveLocalBranchByName(String localBranchName) throws GitCoreException {
-    String localBranchFullName = getLocalBranchFullName(localBranchName);
-    if (!isBranchPresent(localBranchFullName)) {
+    // Only the refs of this very branch (and its remote tracking branch candidates) are resolved.
+    var refTable = GitCoreRefTable.loadForLocalBranch(jgitRepo, localBranchName);
+    var objectId = refTable.getLocalBranchObjectId(localBranchName).getOrNull();
+    if (objectId == null) {
       return Option.none();
     }
 
-    var remoteBranch = Try.of(() -> deriveRemoteBranchForLocalBranch(localBranchName).getOrNull()).getOrNull();
     var localBranch = new GitCoreLocalBranchSnapshot(
         localBranchName,
-        convertExistingRevisionToGitCoreCommit(localBranchFullName),
-        deriveReflogByRefFullName(localBranchFullName),
-        remoteBranch);
+        convertObjectIdToGitCoreCommit(objectId),
+        deriveReflogByRefFullName(getLocalBranchFullName(localBranchName)),
+        deriveRemoteBranchForLocalBranch(refTable, localBranchName));
 
     return Option.some(localBranch);
   }
 
-  private Option<GitCoreRemoteBranchSnapshot> deriveRemoteBranchByName(
-      String remoteName,
-      String remoteBranchName) throws GitCoreException {
-
-    String remoteBranchFullName = getRemoteBranchFullName(remoteName, remoteBranchName);
-    if (!isBranchPresent(remoteBranchFullName)) {
-      return Option.none();
-    }
-    var remoteBranch = new GitCoreRemoteBranchSnapshot(
-        remoteBranchName,
-        convertExistingRevisionToGitCoreCommit(remoteBranchFullName),
-        deriveReflogByRefFullName(remoteBranchFullName),
-        remoteName);
-    return Option.some(remoteBranch);
-  }
-
   @Override
   public List<IGitCoreLocalBranchSnapshot> deriveAllLocalBranches() throws GitCoreException {
     LOG.debug(() -> "Entering: this = ${this}");
+    // All the refs (and the config of branches) are read at once, rather than resolved one by one for each branch.
+    var refTable = GitCoreRefTable.load(jgitRepo);
+
     LOG.debug("List of local branches:");
-    var result = Try.of(() -> jgitRepo.getRefDatabase().getRefsByPrefix(Constants.R_HEADS))
-        .getOrElseThrow(e -> new GitCoreException("Error while getting list of local branches", e))
-        .stream()
-        .filter(branch -> !branch.getName().equals(Constants.HEAD))
-        .map(ref -> Try.of(() -> {
-          String localBranchFullName = ref.getName();
+    var result = refTable.getLocalBranches()
+        .map(localBranchNameAndObjectId -> Try.of(() -> {
+          String localBranchName = localBranchNameAndObjectId._1;
+          String localBranchFullName = getLocalBranchFullName(localBranchName);
           LOG.debug(() -> "* " + localBranchFullName);
 
-          String localBranchName = localBranchFullName.replace(Constants.R_HEADS, /* replacement */ "");
-          var objectId = ref.getObjectId();
-          if (objectId == null) {
-            throw new GitCoreException("Cannot access git object id corresponding to ${localBranchFullName}");
-          }
-          var pointedCommit = convertObjectIdToGitCoreCommit(objectId);
+          var pointedCommit = convertObjectIdToGitCoreCommit(localBranchNameAndObjectId._2);
           var reflog = deriveReflogByRefFullName(localBranchFullName);
-          var remoteBranch = deriveRemoteBranchForLocalBranch(localBranchName).getOrNull();
+          var remoteBranch = deriveRemoteBranchForLocalBranch(refTable, localBranchName);
 
           return new GitCoreLocalBranchSnapshot(localBranchName, pointedCommit, reflog, remoteBranch);
-        }))
-        .collect(List.collector());
+        }));
     return List.narrow(Try.sequence(result).getOrElseThrow(GitCoreException::getOrWrap).toList().sortBy(b -> b.getName()));
   }
 
@@ -274,94 +297,46 @@ public final class GitCoreRepository implements IGitCoreRepository {
     return List.ofAll(jgitRepo.getRemoteNames());
   }
 
-  private Option<GitCoreRemoteBranchSnapshot> deriveRemoteBranchForLocalBranch(String localBranchName) {
-    return deriveConfiguredRemoteBranchForLocalBranch(localBranchName)
-        .orElse(() -> Try.of(() -> deriveInferredRemoteBranchForLocalBranch(localBranchName)).getOrElse(Option.none()));
-  }
-
-  private Option<GitCoreRemoteBranchSnapshot> deriveConfiguredRemoteBranchForLocalBranch(String localBranchName) {
-    return deriveConfiguredRemoteNameForLocalBranch(localBranchName)
-        .flatMap(remoteName -> deriveConfiguredRemoteBranchNameForLocalBranch(localBranchName)
-            .flatMap(remoteShortBranchName -> Try.of(() -> deriveRemoteBranchByName(remoteName, remoteShortBranchName))
-                .getOrElse(Option.none())));
-  }
-
-  private Option<String> deriveConfiguredRemoteNameForLocalBranch(String localBranchName) {
-    return Option.of(jgitRepo.getConfig().getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_REMOTE));
-  }
-
-  private Option<String> deriveConfiguredRemoteBranchNameForLocalBranch(String localBranchName) {
-    return Option.of(jgitRepo.getConfig().getString(CONFIG_BRANCH_SECTION, localBranchName, CONFIG_KEY_MERGE))
-        .map(branchFullName -> branchFullName.replace(Constants.R_HEADS, /* replacement */ ""));
-  }
-
-  private Option<GitCoreRemoteBranchSnapshot> deriveInferredRemoteBranchForLocalBranch(String localBranchName)
-      throws GitCoreException {
-    var remotes = deriveAllRemoteNames();
-
-    if (remotes.contains(ORIGIN)) {
-      var maybeRemoteBranch = deriveRemoteBranchByName(ORIGIN, localBranchName);
-      if (maybeRemoteBranch.isDefined()) {
-        return maybeRemoteBranch;
-      }
+  /**
+   * @return the remote tracking branch, or null if there is none (or if it can't be read)
+   */
+  private @Nullable GitCoreRemoteBranchSnapshot deriveRemoteBranchForLocalBranch(
+      GitCoreRefTable refTable,
+      String localBranchName) {
+    var remoteNameAndRemoteBranchName = refTable.deriveRemoteTrackingBranch(localBranchName).getOrNull();
+    if (remoteNameAndRemoteBranchName == null) {
+      return null;
     }
-    for (String otherRemote : remotes.reject(r -> r.equals(ORIGIN))) {
-      var maybeRemoteBranch = deriveRemoteBranchByName(otherRemote, localBranchName);
-      if (maybeRemoteBranch.isDefined()) {
-        return maybeRemoteBranch;
-      }
+    String remoteName = remoteNameAndRemoteBranchName._1;
+    String remoteBranchName = remoteNameAndRemoteBranchName._2;
+    String remoteBranchFullName = getRemoteBranchFullName(remoteName, remoteBranchName);
+    var objectId = refTable.getRemoteBranchObjectId(remoteBranchFullName).getOrNull();
+    if (objectId == null) {
+      return null;
     }
-    return Option.none();
+    return Try.of(() -> new GitCoreRemoteBranchSnapshot(
+        remoteBranchName,
+        convertObjectIdToGitCoreCommit(objectId),
+        deriveReflogByRefFullName(remoteBranchFullName),
+        remoteName)).getOrNull();
   }
 
-  private Option<GitCoreCommitHash> deriveMergeBase(IGitCoreCommit c1, IGitCoreCommit c2) throws GitCoreException {
-    LOG.debug(() -> "Entering: this = ${this}");
-
-    return withRevWalk(walk -> {
-      walk.setRevFilter(RevFilter.MERGE_BASE);
-      walk.markStart(walk.parseCommit(convertGitCoreCommitToObjectId(c1)));
-      walk.markStart(walk.parseCommit(convertGitCoreCommitToObjectId(c2)));
-
-      // Note that we're asking for only one merge-base here
-      // even if there is more than one (in the rare case of criss-cross histories).
-      // This is still okay from the perspective of is-ancestor checks:
-      // * if any of c1, c2 is an ancestor of another,
-      //   then there is exactly one merge-base - the ancestor,
-      // * if neither of c1, c2 is an ancestor of another,
-      //   then none of the (possibly more than one) merge-bases is equal to either of c1 or c2 anyway.
-      // This might NOT necessarily be OK from the perspective of remote tracking status
-      // i.e. the number of commits ahead of/behind remote, but in case of criss-cross histories
-      // it's basically impossible to get these numbers correctly in a unambiguous manner.
-      @Unique RevCommit mergeBase = walk.next();
-      LOG.debug(() -> "Detected merge base for ${c1.getHash().getHashString()} " +
-          "and ${c2.getHash().getHashString()} is ${mergeBase.getId().getName()}");
-      if (mergeBase != null) {
-        return Option.some(GitCoreCommitHash.of(mergeBase.getId()));
-      } else {
-        return Option.none();
-      }
-    });
-  }
+  private static final int IS_ANCESTOR_CACHE_MAXIMUM_SIZE = 10_000;
 
-  // Note that this cache can be static since merge-base for the given two commits
+  // Note that this cache can be static (i.e. shared between repositories) since the ancestry of the given two commits
   // will never change thanks to git commit graph immutability.
-  private static final java.util.Map<Tuple2<IGitCoreCommit, IGitCoreCommit>, Option<GitCoreCommitHash>> mergeBaseCache = new java.util.HashMap<>();
-
-  private Option<GitCoreCommitHash> deriveMergeBaseIfNeeded(IGitCoreCommit a, IGitCoreCommit b) throws GitCoreException {
-    LOG.debug(() -> "Entering: commit1 = ${a.getHash().getHashString()}, commit2 = ${b.getHash().getHashString()}");
-    var abKey = Tuple.of(a, b);
-    var baKey = Tuple.of(b, a);
-    if (mergeBaseCache.containsKey(abKey)) {
-      LOG.debug(() -> "Merge base for ${a.getHash().getHashString()} and ${b.getHash().getHashString()} found in cache");
-      return mergeBaseCache.get(abKey);
-    } else if (mergeBaseCache.containsKey(baKey)) {
-      LOG.debug(() -> "Merge base for ${b.getHash().getHashString()} and ${a.getHash().getHashString()} found in cache");
-      return mergeBaseCache.get(baKey);
-    } else {
-      var result = deriveMergeBase(a, b);
-      mergeBaseCache.put(abKey, result);
-      return result;
-    }
+  // The cache is bounded and thread-safe since snapshots of multiple repositories can be created concurrently.
+  // Keys are pairs of (presumed ancestor, presumed descendant).
+  private static final Cache<Tuple2<ObjectId, ObjectId>, Boolean> isAncestorCache = Caffeine.newBuilder()
+      .maximumSize(IS_ANCESTOR_CACHE_MAXIMUM_SIZE)
+      .recordStats()
+      .build();
+
+  @Override
+  public GitCoreCacheStatistics deriveIsAncestorCacheStatistics() {
+    CacheStats stats = isAncestorCache.stats();
+    return GitCoreCacheStatistics.of(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+        isAncestorCache.estimatedSize());
   }
 
   @Override
@@ -373,40 +348,126 @@ public final class GitCoreRepository implements IGitCoreRepository {
       LOG.debug("presumedAncestor is equal to presumedDescendant");
       return true;
     }
-    var mergeBaseHash = deriveMergeBaseIfNeeded(presumedAncestor, presumedDescendant);
-    if (mergeBaseHash.isEmpty()) {
-      LOG.debug("Merge base of presumedAncestor and presumedDescendant not found " +
-          "=> presumedAncestor is not ancestor of presumedDescendant");
-      return false;
+    return isAncestorOfEach(presumedAncestor, List.of(presumedDescendant)).head();
+  }
+
+  @Override
+  public List<Boolean> isAncestorOfEach(IGitCoreCommit presumedAncestor, List<IGitCoreCommit> presumedDescendants)
+      throws GitCoreException {
+    ObjectId presumedAncestorRawObjectId = convertGitCoreCommitToRawObjectId(presumedAncestor).copy();
+    List<Tuple2<ObjectId, ObjectId>> keys = presumedDescendants
+        .map(presumedDescendant -> Tuple.of(presumedAncestorRawObjectId,
+            convertGitCoreCommitToRawObjectId(presumedDescendant).copy()));
+    List<@Nullable Boolean> cachedResults = keys.map(isAncestorCache::getIfPresent);
+    List<ObjectId> uncachedDescendantRawObjectIds = keys.zip(cachedResults)
+        .filter(keyAndCachedResult -> keyAndCachedResult._2 == null)
+        .map(keyAndCachedResult -> keyAndCachedResult._1._2)
+        .distinct();
+    if (uncachedDescendantRawObjectIds.isEmpty()) {
+      return cachedResults.map(cachedResult -> cachedResult != null && cachedResult);
     }
-    boolean isAncestor = mergeBaseHash.get().equals(presumedAncestor.getHash());
-    LOG.debug("Merge base of presumedAncestor and presumedDescendant is equal to presumedAncestor " +
-        "=> presumedAncestor is ancestor of presumedDescendant");
-    return isAncestor;
+
+    ObjectId presumedAncestorObjectId = convertGitCoreCommitToObjectId(presumedAncestor);
+    var graph = deriveCommitGraph();
+    List<Boolean> uncachedResults = withRevWalk(walk -> GitCoreReachabilityChecker.isAncestorOfEach(walk, graph,
+        presumedAncestorObjectId, uncachedDescendantRawObjectIds));
+    var uncachedResultByDescendant = HashMap.ofEntries(uncachedDescendantRawObjectIds.zip(uncachedResults));
+    uncachedResultByDescendant.forEach((descendant, result) -> isAncestorCache.put(
+        Tuple.of(presumedAncestorRawObjectId, descendant), result));
+
+    return keys.zip(cachedResults).map(keyAndCachedResult -> {
+      Boolean cachedResult = keyAndCachedResult._2;
+      return cachedResult != null ? cachedResult : uncachedResultByDescendant.get(keyAndCachedResult._1._2).getOrElse(false);
+    });
   }
 
   @Override
   public List<IGitCoreCommit> deriveCommitRange(IGitCoreCommit fromInclusive, IGitCoreCommit untilExclusive)
       throws GitCoreException {
-    LOG.debug(() -> "Entering: fromInclusive = '${fromInclusive}', untilExclusive = '${untilExclusive}'");
+    return deriveCommitRange(fromInclusive, untilExclusive, /* offset */ 0, /* limit */ Integer.MAX_VALUE);
+  }
+
+  @Override
+  public List<IGitCoreCommit> deriveCommitRange(
+      IGitCoreCommit fromInclusive,
+      IGitCoreCommit untilExclusive,
+      int offset,
+      int limit) throws GitCoreException {
+    LOG.debug(() -> "Entering: fromInclusive = '${fromInclusive}', untilExclusive = '${untilExclusive}', " +
+        "offset = ${offset}, limit = ${limit}");
 
     return withRevWalk(walk -> {
-      walk.sort(RevSort.TOPO);
+      // No TOPO sort here: it would make the walk buffer the entire range before returning the first commit.
+      // In the default (commit time) order, commits are returned as the walk proceeds,
+      // so only (roughly) the first offset + limit commits of the range are ever parsed.
       walk.sort(RevSort.BOUNDARY);
 
       walk.markStart(walk.parseCommit(convertGitCoreCommitToObjectId(fromInclusive)));
-      walk.markUninteresting(walk.parseCommit(convertGitCoreCommitToObjectId(untilExclusive)));
+      ObjectId untilExclusiveObjectId = convertGitCoreCommitToObjectId(untilExclusive);
+      walk.markUninteresting(walk.parseCommit(untilExclusiveObjectId));
 
       LOG.debug("Starting revwalk");
       return Iterator.ofAll(walk.iterator())
-          .toJavaStream()
-          .takeWhile(revCommit -> !revCommit.getId().getName().equals(untilExclusive.getHash().getHashString()))
+          .takeWhile(revCommit -> !revCommit.getId().equals(untilExclusiveObjectId))
+          .drop(offset)
+          .take(limit)
           .peek(revCommit -> LOG.debug(() -> "* " + revCommit.getId().getName()))
-          .map(GitCoreCommit::new)
+          .map(revCommit -> new GitCoreCommit(revCommit, commitStore))
           .collect(List.collector());
     });
   }
 
+  @Override
+  public GitCoreRefStateFingerprint deriveRefStateFingerprint() throws GitCoreException {
+    LOG.debug(() -> "Entering: this = ${this}");
+    var refDatabase = jgitRepo.getRefDatabase();
+
+    Ref head = Try.of(() -> refDatabase.exactRef(Constants.HEAD))
+        .getOrElseThrow(e -> new GitCoreException("Cannot get HEAD", e));
+    if (head == null) {
+      throw new GitCoreException("Error occurred while getting HEAD ref");
+    }
+    String headTarget = head.isSymbolic()
+        ? head.getTarget().getName()
+        : Option.of(head.getObjectId()).map(objectId -> objectId.getName()).getOrElse("");
+
+    var refTable = GitCoreRefTable.load(jgitRepo);
+    Map<String, String> pointedCommitHashByRefFullName = HashMap.ofEntries(refTable.getRefs()
+        .flatMap(ref -> Option.of(ref.getObjectId()).map(objectId -> Tuple.of(ref.getName(), objectId.getName()))));
+    Set<String> refFullNames = pointedCommitHashByRefFullName.keySet();
+
+    Path logsDirectoryPath = jgitRepo.getDirectory().toPath().resolve(Constants.LOGS);
+    Map<String, GitCoreFileStamp> reflogStampByRefFullName = HashMap.ofEntries(refFullNames.add(Constants.HEAD)
+        .flatMap(refFullName -> deriveFileStamp(logsDirectoryPath.resolve(refFullName))
+            .map(stamp -> Tuple.of(refFullName, stamp))));
+
+    var remoteNames = refTable.getRemoteNames().sorted();
+    Map<String, String> remoteTrackingRefFullNameByLocalBranchName = HashMap.ofEntries(refFullNames
+        .filter(refFullName -> refFullName.startsWith(Constants.R_HEADS))
+        .map(localBranchFullName -> localBranchFullName.substring(Constants.R_HEADS.length()))
+        .flatMap(localBranchName -> refTable.deriveRemoteTrackingBranch(localBranchName)
+            .map(remote -> Tuple.of(localBranchName, getRemoteBranchFullName(remote._1, remote._2)))));
+
+    return GitCoreRefStateFingerprint.of(headTarget, pointedCommitHashByRefFullName, reflogStampByRefFullName,
+        remoteTrackingRefFullNameByLocalBranchName, deriveForkPointOverrideConfigByLocalBranchName(), remoteNames);
+  }
+
+  private static Option<GitCoreFileStamp> deriveFileStamp(Path path) {
+    var file = path.toFile();
+    return file.isFile() ? Option.some(GitCoreFileStamp.of(file.length(), file.lastModified())) : Option.none();
+  }
+
+  private Map<String, Map<String, String>> deriveForkPointOverrideConfigByLocalBranchName() {
+    var config = jgitRepo.getConfig();
+    String section = "machete";
+    String subsectionPrefix = "overrideForkPoint.";
+    return HashMap.<String, Map<String, String>>ofEntries(Stream.ofAll(config.getSubsections(section))
+        .filter(subsection -> subsection.startsWith(subsectionPrefix))
+        .map(subsection -> Tuple.of(subsection.substring(subsectionPrefix.length()),
+            HashMap.ofEntries(Stream.ofAll(config.getNames(section, subsection))
+                .map(name -> Tuple.of(name, Option.of(config.getString(section, subsection, name)).getOrElse("")))))));
+  }
+
   @Override
   public GitCoreRepositoryState deriveRepositoryState() {
     return Match(jgitRepo.getRepositoryState()).of(
@@ -427,15 +488,89 @@ public final class GitCoreRepository implements IGitCoreRepository {
     // @formatter:on
   }
 
+  private @Nullable GitCoreCommitGraph deriveCommitGraph() {
+    if (!IS_COMMIT_GRAPH_ENABLED) {
+      return null;
+    }
+    Path objectsDirectoryPath = jgitRepo instanceof FileRepository
+        ? ((FileRepository) jgitRepo).getObjectsDirectory().toPath()
+        : jgitRepo.getDirectory().toPath().resolve(Constants.OBJECTS);
+    Path filePath = GitCoreCommitGraph.getFilePath(objectsDirectoryPath);
+    GitCoreFileStamp fileStamp = deriveFileStamp(filePath).getOrNull();
+    if (fileStamp == null) {
+      commitGraph = null;
+      return null;
+    }
+
+    var cachedCommitGraph = commitGraph;
+    if (cachedCommitGraph != null && cachedCommitGraph.getFileStamp().equals(fileStamp)) {
+      return cachedCommitGraph;
+    }
+    LOG.debug(() -> "Loading commit-graph file ${filePath}");
+    // Two threads might load the file at the same time, but then both end up with equivalent graphs anyway.
+    var loadedCommitGraph = GitCoreCommitGraph.load(filePath, fileStamp);
+    commitGraph = loadedCommitGraph;
+    return loadedCommitGraph;
+  }
+
   @Override
-  public Stream<IGitCoreCommit> ancestorsOf(IGitCoreCommit commitInclusive) throws GitCoreException {
-    RevWalk walk = new RevWalk(jgitRepo);
-    walk.sort(RevSort.TOPO);
+  public GitCoreGenerationFloor deriveGenerationFloor(Iterable<IGitCoreCommitHash> commitHashes) {
+    var graph = deriveCommitGraph();
+    if (graph == null) {
+      return GitCoreGenerationFloor.NONE;
+    }
 
-    ObjectId objectId = convertGitCoreCommitToObjectId(commitInclusive);
-    Try.run(() -> walk.markStart(walk.parseCommit(objectId)))
-        .getOrElseThrow(e -> new GitCoreException(e));
+    // Commits absent from the graph are skipped: since the graph is closed under taking parents,
+    // they can't be reached from any commit in the graph anyway.
+    long floor = Long.MAX_VALUE;
+    for (var commitHash : commitHashes) {
+      int position = graph.findPosition(convertGitCoreCommitHashToRawObjectId(commitHash));
+      if (position == GitCoreCommitGraph.NO_POSITION) {
+        continue;
+      }
+      long generation = graph.getGeneration(position);
+      if (generation == GitCoreCommitGraph.UNKNOWN_GENERATION) {
+        return GitCoreGenerationFloor.NONE;
+      }
+      floor = Math.min(floor, generation);
+    }
+    return GitCoreGenerationFloor.of(floor, graph.getFileStamp());
+  }
+
+  @Override
+  public GitCoreAncestorSearchResult findFirstAncestor(
+      IGitCoreCommit commitInclusive,
+      Predicate<IGitCoreCommit> isSought,
+      GitCoreGenerationFloor soughtGenerationFloor,
+      GitCoreAncestorSearchBudget budget) throws GitCoreException {
+    // For a single source, the shared walk is just the regular walk from the given commit.
+    return findFirstAncestors(List.of(commitInclusive), commit -> {
+      boolean isCommitSought = isSought.test(commit);
+      return sourceIndex -> isCommitSought;
+    }, soughtGenerationFloor, budget).head();
+  }
 
-    return Stream.ofAll(walk).map(GitCoreCommit::new);
+  @Override
+  public List<GitCoreAncestorSearchResult> findFirstAncestors(
+      List<IGitCoreCommit> commitsInclusive,
+      Function<IGitCoreCommit, IntPredicate> deriveIsSoughtForSource,
+      GitCoreGenerationFloor soughtGenerationFloor,
+      GitCoreAncestorSearchBudget budget) throws GitCoreException {
+    LOG.debug(() -> "Entering: commitsInclusive = ${commitsInclusive.mkString(\", \")}, " +
+        "soughtGenerationFloor = ${soughtGenerationFloor}, budget = ${budget}");
+
+    List<ObjectId> startObjectIds = List.empty();
+    for (var commit : commitsInclusive) {
+      startObjectIds = startObjectIds.append(convertGitCoreCommitToObjectId(commit));
+    }
+    var finalStartObjectIds = startObjectIds;
+    var graph = deriveCommitGraph();
+    // The floor is only meaningful for the very same commit-graph file that it's been derived from.
+    long floor = graph != null && graph.getFileStamp().equals(soughtGenerationFloor.getCommitGraphFileStamp())
+        ? soughtGenerationFloor.getGeneration()
+        : GitCoreCommitGraph.UNKNOWN_GENERATION;
+
+    return withRevWalk(walk -> GitCoreAncestorFinder.findFirstAncestors(walk, commitStore, graph, floor,
+        finalStartObjectIds, deriveIsSoughtForSource, budget));
   }
 }
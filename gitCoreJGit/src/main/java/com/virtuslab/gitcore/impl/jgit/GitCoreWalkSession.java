@@ -0,0 +1,79 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import io.vavr.CheckedFunction1;
+import lombok.CustomLog;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import com.virtuslab.gitcore.api.IGitCoreWalkSession;
+
+/**
+ * Sessions are reference-counted: opening a session on a thread that already has one bound
+ * just returns the existing session, and only the last {@link #close} actually releases the walk.
+ */
+@CustomLog
+final class GitCoreWalkSession implements IGitCoreWalkSession {
+  private final ThreadLocal<@Nullable GitCoreWalkSession> sessionOfCurrentThread;
+  private final RevWalk walk;
+  private int openCount = 1;
+  private boolean isWalkInUse = false;
+
+  private GitCoreWalkSession(ThreadLocal<@Nullable GitCoreWalkSession> sessionOfCurrentThread, Repository jgitRepo) {
+    this.sessionOfCurrentThread = sessionOfCurrentThread;
+    this.walk = new RevWalk(jgitRepo);
+    // Messages are decoded on demand by the commit store, so there's no point in retaining them
+    // for all the commits parsed during the session.
+    this.walk.setRetainBody(false);
+  }
+
+  static GitCoreWalkSession open(ThreadLocal<@Nullable GitCoreWalkSession> sessionOfCurrentThread, Repository jgitRepo) {
+    var existingSession = sessionOfCurrentThread.get();
+    if (existingSession != null) {
+      existingSession.openCount++;
+      return existingSession;
+    }
+    LOG.debug("Opening a new walk session");
+    var newSession = new GitCoreWalkSession(sessionOfCurrentThread, jgitRepo);
+    sessionOfCurrentThread.set(newSession);
+    return newSession;
+  }
+
+  /**
+   * @return true if the shared walk is currently free i.e. is NOT being used by an outer operation
+   *         (in which case the caller should fall back to a fresh walk)
+   */
+  boolean isWalkAvailable() {
+    return openCount > 0 && !isWalkInUse;
+  }
+
+  <T> T withSharedWalk(CheckedFunction1<RevWalk, T> fun) throws Throwable {
+    assert isWalkAvailable() : "Shared walk is not available";
+    isWalkInUse = true;
+    try {
+      // Flags, start points, filter and sorting all need to be cleared,
+      // but the already parsed commits are retained by the walk - which is the whole point of sharing it.
+      walk.reset();
+      walk.setRevFilter(RevFilter.ALL);
+      walk.sort(RevSort.NONE);
+      return fun.apply(walk);
+    } finally {
+      isWalkInUse = false;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (openCount == 0) {
+      return;
+    }
+    openCount--;
+    if (openCount == 0) {
+      LOG.debug("Closing walk session");
+      sessionOfCurrentThread.remove();
+      walk.close();
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.GitCoreFileStamp;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreCommitGraphIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final GitCoreFileStamp FILE_STAMP = GitCoreFileStamp.of(/* length */ 0, /* lastModifiedMillis */ 0);
+
+  private final Path commitGraphFilePath;
+
+  @SneakyThrows
+  public GitCoreCommitGraphIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    // An octopus merge, so that the extra edge list chunk is present in the commit-graph as well.
+    runGitCommand("checkout", "master");
+    runGitCommand("merge", "--no-edit", "build-chain", "call-ws");
+    runGitCommand("commit-graph", "write", "--reachable");
+    commitGraphFilePath = GitCoreCommitGraph.getFilePath(repositoryGitDir.resolve("objects"));
+  }
+
+  @After
+  public void tearDown() {
+    cleanUpParentDir();
+  }
+
+  @Test
+  public void load_givenValidFile_findsAllCommitsAlongWithTheirParents() {
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(commitGraphFilePath, FILE_STAMP);
+
+    // then
+    assertNotNull(graph);
+    for (List<ObjectId> commitAndParents : deriveAllCommitsAlongWithTheirParents()) {
+      int position = graph.findPosition(commitAndParents.head());
+      assertNotEquals(GitCoreCommitGraph.NO_POSITION, position);
+      assertEquals(commitAndParents.head(), graph.getObjectId(position));
+      assertEquals(commitAndParents.tail(), List.ofAll(Arrays.stream(graph.getParentPositions(position)).boxed())
+          .map(graph::getObjectId));
+    }
+    assertEquals(3, graph.getParentPositions(graph.findPosition(resolve("master"))).length);
+  }
+
+  @Test
+  public void getGeneration_givenAnyCommit_returnsOneMoreThanTheHighestGenerationOfParents() {
+    // given
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(commitGraphFilePath, FILE_STAMP);
+    assertNotNull(graph);
+
+    for (List<ObjectId> commitAndParents : deriveAllCommitsAlongWithTheirParents()) {
+      // when
+      long generation = graph.getGeneration(graph.findPosition(commitAndParents.head()));
+
+      // then
+      long expectedGeneration = 1 + commitAndParents.tail()
+          .map(parent -> graph.getGeneration(graph.findPosition(parent)))
+          .max().getOrElse(0L);
+      assertEquals(expectedGeneration, generation);
+    }
+  }
+
+  @Test
+  public void findPosition_givenCommitCreatedAfterFileHasBeenWritten_returnsNoPosition() {
+    // given
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(commitGraphFilePath, FILE_STAMP);
+    assertNotNull(graph);
+
+    // when
+    runGitCommand("commit", "--allow-empty", "-m", "Not in the commit-graph");
+    int position = graph.findPosition(resolve("HEAD"));
+
+    // then
+    assertEquals(GitCoreCommitGraph.NO_POSITION, position);
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenMissingFile_returnsNull() {
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(parentDir.resolve("no-such-commit-graph"), FILE_STAMP);
+
+    // then
+    assertNull(graph);
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenTruncatedFile_returnsNull() {
+    // given
+    byte[] content = Files.readAllBytes(commitGraphFilePath);
+    Path truncatedFilePath = writeFile(Arrays.copyOf(content, content.length / 2));
+
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(truncatedFilePath, FILE_STAMP);
+
+    // then
+    assertNull(graph);
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenTruncatedFileWithValidChecksum_returnsNull() {
+    // given
+    byte[] content = Files.readAllBytes(commitGraphFilePath);
+    byte[] truncatedContent = Arrays.copyOf(content, content.length / 2);
+    byte[] checksum = Constants.newMessageDigest().digest(truncatedContent);
+    byte[] truncatedContentWithChecksum = Arrays.copyOf(truncatedContent, truncatedContent.length + checksum.length);
+    System.arraycopy(checksum, 0, truncatedContentWithChecksum, truncatedContent.length, checksum.length);
+    Path truncatedFilePath = writeFile(truncatedContentWithChecksum);
+
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(truncatedFilePath, FILE_STAMP);
+
+    // then
+    assertNull(graph);
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenFileWithBadChecksum_returnsNull() {
+    // given
+    byte[] content = Files.readAllBytes(commitGraphFilePath);
+    content[content.length - 1] ^= 1;
+    Path corruptedFilePath = writeFile(content);
+
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(corruptedFilePath, FILE_STAMP);
+
+    // then
+    assertNull(graph);
+  }
+
+  @Test
+  @SneakyThrows
+  public void load_givenFileWithCorruptedContent_returnsNull() {
+    // given
+    byte[] content = Files.readAllBytes(commitGraphFilePath);
+    // Somewhere within the chunks, so that the structure of the file remains intact.
+    content[content.length / 2] ^= 1;
+    Path corruptedFilePath = writeFile(content);
+
+    // when
+    GitCoreCommitGraph graph = GitCoreCommitGraph.load(corruptedFilePath, FILE_STAMP);
+
+    // then
+    assertNull(graph);
+  }
+
+  /**
+   * @return each commit reachable from any ref, followed by its parents (in order)
+   */
+  private List<List<ObjectId>> deriveAllCommitsAlongWithTheirParents() {
+    return List.of(runGitCommand("rev-list", "--all", "--parents").split("\n"))
+        .map(line -> List.of(line.split(" ")).map(ObjectId::fromString));
+  }
+
+  private ObjectId resolve(String revision) {
+    return ObjectId.fromString(runGitCommand("rev-parse", revision));
+  }
+
+  @SneakyThrows
+  private Path writeFile(byte[] content) {
+    Path filePath = parentDir.resolve("commit-graph-copy");
+    Files.write(filePath, content);
+    return filePath;
+  }
+}
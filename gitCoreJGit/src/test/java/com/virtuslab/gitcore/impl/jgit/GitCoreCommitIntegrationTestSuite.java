@@ -0,0 +1,101 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreCommitIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private final Repository jgitRepo;
+  private final GitCoreCommitStore commitStore;
+
+  @SneakyThrows
+  public GitCoreCommitIntegrationTestSuite() {
+    super(SETUP_FOR_NO_REMOTES);
+    jgitRepo = new FileRepository(repositoryGitDir.toString());
+    commitStore = new GitCoreCommitStore(jgitRepo);
+  }
+
+  @After
+  public void tearDown() {
+    jgitRepo.close();
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void toString_givenMessageNotDecodedYet_doesNotDecodeMessage() {
+    // given
+    GitCoreCommit commit;
+    try (RevWalk walk = new RevWalk(jgitRepo)) {
+      commit = new GitCoreCommit(walk.parseCommit(resolve("develop")), commitStore);
+    }
+    String shortHash = commit.getHash().getShortHashString();
+
+    // when
+    String stringBeforeDecoding = commit.toString();
+    String shortMessage = commit.getShortMessage();
+    String stringAfterDecoding = commit.toString();
+
+    // then
+    assertEquals(shortHash, stringBeforeDecoding);
+    assertEquals(runGitCommand("log", "-1", "--format=%s", "develop"), shortMessage);
+    assertEquals("${shortHash} ('${shortMessage}')", stringAfterDecoding);
+  }
+
+  @Test
+  @SneakyThrows
+  public void getShortMessage_givenMissingCommit_returnsEmptyMessageAndRetriesLater() {
+    // given
+    var missingCommitId = ObjectId.fromString("0123456789012345678901234567890123456789");
+    GitCoreCommit commit;
+    try (RevWalk walk = new RevWalk(jgitRepo)) {
+      // Note that the commit is only looked up, and not parsed.
+      commit = new GitCoreCommit(walk.lookupCommit(missingCommitId), commitStore);
+    }
+
+    // when
+    String firstShortMessage = commit.getShortMessage();
+    String secondShortMessage = commit.getShortMessage();
+
+    // then
+    assertEquals("", firstShortMessage);
+    assertEquals("", secondShortMessage);
+    // The unreadable metadata is not memoized, so the commit is not shown as if it had been decoded.
+    assertEquals(commit.getHash().getShortHashString(), commit.toString());
+  }
+
+  @Test
+  @SneakyThrows
+  public void getShortMessage_givenCommitsFromWalkSession_decodesMessagesNotRetainedByWalk() {
+    // given
+    var gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+    List<IGitCoreCommit> commits;
+    try (var walkSession = gitCoreRepository.openWalkSession()) {
+      commits = gitCoreRepository.deriveCommitRange(gitCoreRepository.parseRevision("call-ws").get(),
+          gitCoreRepository.parseRevision("develop").get());
+    }
+
+    // when
+    List<String> shortMessages = commits.map(commit -> commit.getShortMessage());
+    List<String> authorEmails = commits.map(commit -> commit.getAuthor().getEmail());
+
+    // then
+    assertEquals(List.of(runGitCommand("log", "--format=%s", "develop..call-ws").split("\n")), shortMessages);
+    assertEquals(List.of(runGitCommand("log", "--format=%ae", "develop..call-ws").split("\n")), authorEmails);
+  }
+
+  private ObjectId resolve(String revision) {
+    return ObjectId.fromString(runGitCommand("rev-parse", revision));
+  }
+}
@@ -0,0 +1,218 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.SneakyThrows;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.GitCoreRelativeCommitCount;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreLeftRightCounterIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private final Repository jgitRepo;
+
+  @SneakyThrows
+  public GitCoreLeftRightCounterIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    jgitRepo = new FileRepository(repositoryGitDir.toString());
+  }
+
+  @After
+  public void tearDown() {
+    jgitRepo.close();
+    cleanUpParentDir();
+  }
+
+  @Test
+  public void count_givenDivergedBranches_countsBothSides() {
+    // when
+    var result = count("allow-ownership-link", "develop");
+
+    // then
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 1, /* behind */ 1)), result);
+    assertEquals(countWithGit("allow-ownership-link", "develop"), result);
+  }
+
+  @Test
+  public void count_givenBranchAheadOfOther_countsAheadOnly() {
+    // when
+    var result = count("call-ws", "develop");
+
+    // then
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 3, /* behind */ 0)), result);
+  }
+
+  @Test
+  public void count_givenBranchBehindOther_countsBehindOnly() {
+    // when
+    var result = count("develop", "call-ws");
+
+    // then
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 0, /* behind */ 3)), result);
+  }
+
+  @Test
+  public void count_givenSameCommit_countsNothing() {
+    // when
+    var result = count("develop", "develop");
+
+    // then
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 0, /* behind */ 0)), result);
+  }
+
+  @Test
+  public void count_givenMergesOnBothSides_agreesWithGit() {
+    // given
+    runGitCommand("checkout", "call-ws");
+    runGitCommand("merge", "--no-edit", "master");
+    runGitCommand("checkout", "build-chain");
+    runGitCommand("merge", "--no-edit", "master", "hotfix/add-trigger");
+    runGitCommand("commit", "--allow-empty", "-m", "After merge");
+
+    // when
+    var result = count("call-ws", "build-chain");
+
+    // then
+    assertEquals(countWithGit("call-ws", "build-chain"), result);
+  }
+
+  @Test
+  public void count_givenAllPairsOfBranches_agreesWithGit() {
+    List<String> branchNames = List.of(runGitCommand("for-each-ref", "--format=%(refname)").split("\n"));
+    for (String left : branchNames) {
+      for (String right : branchNames) {
+        assertEquals("${left}...${right}", countWithGit(left, right), count(left, right));
+      }
+    }
+  }
+
+  @Test
+  public void count_givenUnrelatedHistories_returnsEmpty() {
+    // given
+    runGitCommand("checkout", "--orphan", "unrelated");
+    runGitCommand("commit", "--allow-empty", "-m", "Unrelated root");
+
+    // when
+    var result = count("unrelated", "develop");
+
+    // then
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void count_givenSkewedCommitTimes_passesLateSideOnToAlreadyVisitedAncestors() {
+    // given
+    // Parents: left -> skewed -> skewed-middle -> base -> root, right -> (late, base) and late -> skewed.
+    // Commit times are chosen so that `skewed-middle` is visited (from the left side only) before `late` is,
+    // and that every commit left in the queue at that point is already reachable from both sides.
+    try (ObjectInserter inserter = jgitRepo.newObjectInserter()) {
+      ObjectId emptyTree = inserter.insert(Constants.OBJ_TREE, new byte[0]);
+      ObjectId root = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 10);
+      ObjectId base = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 100, root);
+      ObjectId skewedMiddle = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 900, base);
+      ObjectId skewed = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 1000, skewedMiddle);
+      ObjectId left = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 2000, skewed);
+      ObjectId late = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 50, skewed);
+      ObjectId right = insertCommit(inserter, emptyTree, /* commitTimeSeconds */ 1500, late, base);
+      inserter.flush();
+
+      // when
+      Option<GitCoreRelativeCommitCount> result;
+      try (RevWalk walk = new RevWalk(jgitRepo)) {
+        result = GitCoreLeftRightCounter.count(walk, left, right);
+      }
+
+      // then
+      // Only `left` is reachable from the left side only; `late` and `right` are reachable from the right side only.
+      assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 1, /* behind */ 2)), result);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveRelativeCommitCount_givenRefMovedBackAndForth_yieldsCountsOfCurrentlyPointedCommits() {
+    // given
+    var gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+    var develop = gitCoreRepository.parseRevision("develop").get();
+    var initialCallWs = gitCoreRepository.parseRevision("call-ws").get();
+    var initialResult = gitCoreRepository.deriveRelativeCommitCount(initialCallWs, develop);
+
+    // when
+    runGitCommand("checkout", "call-ws");
+    runGitCommand("commit", "--allow-empty", "-m", "3rd round of fixes");
+    var movedCallWs = gitCoreRepository.parseRevision("call-ws").get();
+    var resultAfterMove = gitCoreRepository.deriveRelativeCommitCount(movedCallWs, develop);
+    runGitCommand("reset", "--keep", "HEAD~1");
+    // This time, the result is expected to come from the cache.
+    var resultAfterMoveBack = gitCoreRepository
+        .deriveRelativeCommitCount(gitCoreRepository.parseRevision("call-ws").get(), develop);
+
+    // then
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 3, /* behind */ 0)), initialResult);
+    assertEquals(Option.some(GitCoreRelativeCommitCount.of(/* ahead */ 4, /* behind */ 0)), resultAfterMove);
+    assertEquals(initialResult, resultAfterMoveBack);
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveRelativeCommitCount_givenSameCommitsAsBefore_recordsCacheHit() {
+    // given
+    var gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+    var develop = gitCoreRepository.parseRevision("develop").get();
+    var callWs = gitCoreRepository.parseRevision("call-ws").get();
+    gitCoreRepository.deriveRelativeCommitCount(callWs, develop);
+    // The cache is shared between all repositories (also the ones of the other tests), hence only the deltas are checked.
+    var statisticsBefore = gitCoreRepository.deriveRelativeCommitCountCacheStatistics();
+
+    // when
+    gitCoreRepository.deriveRelativeCommitCount(callWs, develop);
+
+    // then
+    var statisticsAfter = gitCoreRepository.deriveRelativeCommitCountCacheStatistics();
+    assertEquals(statisticsBefore.getHitCount() + 1, statisticsAfter.getHitCount());
+    assertEquals(statisticsBefore.getMissCount(), statisticsAfter.getMissCount());
+  }
+
+  @SneakyThrows
+  private Option<GitCoreRelativeCommitCount> count(String left, String right) {
+    try (RevWalk walk = new RevWalk(jgitRepo)) {
+      return GitCoreLeftRightCounter.count(walk, resolve(left), resolve(right));
+    }
+  }
+
+  @SneakyThrows
+  private static ObjectId insertCommit(ObjectInserter inserter, ObjectId tree, long commitTimeSeconds,
+      ObjectId... parents) {
+    var ident = new PersonIdent("Test", "test@example.com", commitTimeSeconds * 1000, /* tz */ 0);
+    var commitBuilder = new CommitBuilder();
+    commitBuilder.setTreeId(tree);
+    commitBuilder.setParentIds(parents);
+    commitBuilder.setAuthor(ident);
+    commitBuilder.setCommitter(ident);
+    commitBuilder.setMessage("Commit at ${commitTimeSeconds}");
+    return inserter.insert(commitBuilder);
+  }
+
+  private Option<GitCoreRelativeCommitCount> countWithGit(String left, String right) {
+    String[] counts = runGitCommand("rev-list", "--left-right", "--count", "${left}...${right}").split("\t");
+    return Option.some(GitCoreRelativeCommitCount.of(Integer.parseInt(counts[0]), Integer.parseInt(counts[1])));
+  }
+
+  private ObjectId resolve(String revision) {
+    return ObjectId.fromString(runGitCommand("rev-parse", revision));
+  }
+}
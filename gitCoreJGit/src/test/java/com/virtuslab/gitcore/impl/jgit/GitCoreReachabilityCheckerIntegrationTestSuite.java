@@ -0,0 +1,167 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lombok.SneakyThrows;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.GitCoreFileStamp;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreReachabilityCheckerIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+  private final Repository jgitRepo;
+
+  @SneakyThrows
+  public GitCoreReachabilityCheckerIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    runGitCommand("checkout", "master");
+    runGitCommand("merge", "--no-edit", "build-chain", "call-ws");
+    jgitRepo = new FileRepository(repositoryGitDir.toString());
+  }
+
+  @After
+  public void tearDown() {
+    jgitRepo.close();
+    cleanUpParentDir();
+  }
+
+  @Test
+  public void isAncestorOfEach_givenNoCommitGraph_agreesWithGit() {
+    assertAgreesWithGitForAllPairsOfCommits(/* commitGraph */ null);
+  }
+
+  @Test
+  public void isAncestorOfEach_givenCommitGraph_agreesWithGit() {
+    runGitCommand("commit-graph", "write", "--reachable");
+
+    assertAgreesWithGitForAllPairsOfCommits(loadCommitGraph());
+  }
+
+  @Test
+  public void isAncestorOfEach_givenCommitGraphNotCoveringRecentCommits_agreesWithGit() {
+    runGitCommand("commit-graph", "write", "--reachable");
+    runGitCommand("checkout", "develop");
+    runGitCommand("commit", "--allow-empty", "-m", "Not in the commit-graph");
+    runGitCommand("merge", "--no-edit", "master");
+
+    assertAgreesWithGitForAllPairsOfCommits(loadCommitGraph());
+  }
+
+  @Test
+  public void isAncestorOfEach_givenBitmaps_agreesWithGit() {
+    runGitCommand("repack", "-a", "-d", "--write-bitmap-index");
+    runGitCommand("checkout", "develop");
+    runGitCommand("commit", "--allow-empty", "-m", "Not in the pack");
+
+    assertAgreesWithGitForAllPairsOfCommits(/* commitGraph */ null);
+  }
+
+  @Test
+  @SneakyThrows
+  public void isAncestorOfEach_givenDescendantsWithSkewedCommitTimeAndNoCommitGraph_walksUntilAncestorFound() {
+    // given
+    ObjectId ancestorId = resolve("develop");
+    ObjectId descendantId = createCommitsWithSkewedCommitTime(ancestorId);
+
+    // when
+    List<Boolean> result = isAncestorOfEach(/* commitGraph */ null, ancestorId, List.of(descendantId, ancestorId));
+
+    // then
+    assertEquals(List.of(true, true), result);
+  }
+
+  @Test
+  @SneakyThrows
+  public void isAncestorOfEach_givenDescendantsWithSkewedCommitTimeAndCommitGraph_walksUntilAncestorFound() {
+    // given
+    ObjectId ancestorId = resolve("develop");
+    ObjectId descendantId = createCommitsWithSkewedCommitTime(ancestorId);
+    runGitCommand("branch", "skewed", descendantId.getName());
+    runGitCommand("commit-graph", "write", "--reachable");
+
+    // when
+    List<Boolean> result = isAncestorOfEach(loadCommitGraph(), ancestorId, List.of(descendantId, resolve("master")));
+
+    // then
+    assertEquals(List.of(true, true), result);
+  }
+
+  private void assertAgreesWithGitForAllPairsOfCommits(@Nullable GitCoreCommitGraph commitGraph) {
+    List<ObjectId> commitIds = List.of(runGitCommand("rev-list", "--all").split("\n")).map(ObjectId::fromString);
+    List<Set<ObjectId>> ancestorIdsOfEach = commitIds.map(commitId -> List
+        .of(runGitCommand("rev-list", commitId.getName()).split("\n")).map(ObjectId::fromString).toSet());
+
+    for (ObjectId presumedAncestorId : commitIds) {
+      // when
+      List<Boolean> result = isAncestorOfEach(commitGraph, presumedAncestorId, commitIds);
+
+      // then
+      assertEquals("Presumed ancestor: ${presumedAncestorId.getName()}",
+          ancestorIdsOfEach.map(ancestorIds -> ancestorIds.contains(presumedAncestorId)), result);
+    }
+  }
+
+  @SneakyThrows
+  private List<Boolean> isAncestorOfEach(
+      @Nullable GitCoreCommitGraph commitGraph,
+      ObjectId presumedAncestorId,
+      List<ObjectId> presumedDescendantIds) {
+    try (RevWalk walk = new RevWalk(jgitRepo)) {
+      return GitCoreReachabilityChecker.isAncestorOfEach(walk, commitGraph, presumedAncestorId, presumedDescendantIds);
+    }
+  }
+
+  private GitCoreCommitGraph loadCommitGraph() {
+    var commitGraph = GitCoreCommitGraph.load(GitCoreCommitGraph.getFilePath(repositoryGitDir.resolve("objects")),
+        GitCoreFileStamp.of(/* length */ 0, /* lastModifiedMillis */ 0));
+    assertNotNull(commitGraph);
+    return commitGraph;
+  }
+
+  /**
+   * @return the last of a chain of commits on top of the given one, each made (according to its commit time)
+   *         a few days earlier than its parent
+   */
+  @SneakyThrows
+  private ObjectId createCommitsWithSkewedCommitTime(ObjectId baseId) {
+    ObjectId result = baseId;
+    try (var walk = new RevWalk(jgitRepo); var inserter = jgitRepo.newObjectInserter()) {
+      for (int i = 0; i < 3; i++) {
+        RevCommit parent = walk.parseCommit(result);
+        var ident = new PersonIdent("Skewed Clock", "skewed@example.com",
+            new Date(parent.getCommitTime() * 1000L - 3 * DAY_MILLIS), TimeZone.getTimeZone("UTC"));
+        var commitBuilder = new CommitBuilder();
+        commitBuilder.setTreeId(parent.getTree());
+        commitBuilder.setParentId(parent);
+        commitBuilder.setAuthor(ident);
+        commitBuilder.setCommitter(ident);
+        commitBuilder.setMessage("Skewed commit ${i}");
+        result = inserter.insert(commitBuilder);
+      }
+      inserter.flush();
+    }
+    return result;
+  }
+
+  private ObjectId resolve(String revision) {
+    return ObjectId.fromString(runGitCommand("rev-parse", revision));
+  }
+}
@@ -0,0 +1,327 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.GitCoreException;
+import com.virtuslab.gitcore.api.IGitCoreReflogEntry;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreReflogReaderIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final String SYNTHETIC_REF_FULL_NAME = "refs/heads/synthetic";
+
+  // Well above the threshold for memory-mapping the file.
+  private static final int LARGE_REFLOG_LINE_COUNT = 2000;
+
+  private final Path logsDirectoryPath;
+  private final GitCoreReflogReader reflogReader;
+
+  public GitCoreReflogReaderIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    logsDirectoryPath = repositoryGitDir.resolve(Constants.LOGS);
+    reflogReader = new GitCoreReflogReader(logsDirectoryPath);
+  }
+
+  @After
+  public void tearDown() {
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenReflogsWrittenByGit_agreesWithGit() {
+    List<String> refFullNames = List.of(runGitCommand("for-each-ref", "--format=%(refname)", "refs/heads/").split("\n"))
+        .append(Constants.HEAD);
+    for (String refFullName : refFullNames) {
+      // when
+      List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(refFullName);
+
+      // then
+      assertEquals(refFullName, gitReflog("%H", refFullName), entries.map(e -> e.getNewCommitHash().getHashString()));
+      assertEquals(refFullName, gitReflog("%gs", refFullName), entries.map(e -> e.getComment()));
+      assertEquals(refFullName, gitReflog("%gd", refFullName).map(selector -> Instant.ofEpochSecond(Long.parseLong(
+          selector.substring(selector.indexOf('{') + 1, selector.indexOf('}'))))), entries.map(e -> e.getTimestamp()));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenLineWrittenByHand_parsesAllFields() {
+    // given
+    writeReflog(line(/* oldId */ 0, /* newId */ 1, /* epochSeconds */ 1600000000, "branch: Created from HEAD"),
+        line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1600000042, "checkout: moving from develop to master"));
+
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // then
+    assertEquals(2, entries.size());
+    var mostRecentEntry = entries.get(0);
+    assertEquals(objectId(1).getName(), mostRecentEntry.getOldCommitHash().get().getHashString());
+    assertEquals(objectId(2).getName(), mostRecentEntry.getNewCommitHash().getHashString());
+    assertEquals(Instant.ofEpochSecond(1600000042), mostRecentEntry.getTimestamp());
+    assertEquals("develop", mostRecentEntry.parseCheckout().get().getFromBranchName());
+    assertEquals("master", mostRecentEntry.parseCheckout().get().getToBranchName());
+    var oldestEntry = entries.get(1);
+    assertTrue(oldestEntry.getOldCommitHash().isEmpty());
+    assertEquals("branch: Created from HEAD", oldestEntry.getComment());
+    assertTrue(oldestEntry.parseCheckout().isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenMalformedLines_skipsThem() {
+    // given
+    writeReflog(line(/* oldId */ 0, /* newId */ 1, /* epochSeconds */ 1600000000, "first"),
+        "not a reflog line\n",
+        line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1600000001, "second").replace('0', 'x'),
+        line(/* oldId */ 1, /* newId */ 3, /* epochSeconds */ 1600000002, "third"));
+
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // then
+    assertEquals(List.of("third", "first"), entries.map(e -> e.getComment()));
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenMissingReflog_returnsEmpty() {
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent("refs/heads/no-such-branch");
+
+    // then
+    assertTrue(entries.isEmpty());
+    assertTrue(reflogReader.iterateEntriesFromMostRecent("refs/heads/no-such-branch").isEmpty());
+  }
+
+  @Test(expected = GitCoreException.class)
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenUnreadableReflog_throwsException() {
+    // given
+    makeReflogUnreadable();
+
+    // when
+    reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+  }
+
+  @Test(expected = GitCoreException.class)
+  @SneakyThrows
+  public void iterateEntriesFromMostRecent_givenUnreadableReflog_throwsException() {
+    // given
+    makeReflogUnreadable();
+
+    // when
+    reflogReader.iterateEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+  }
+
+  @Test(expected = GitCoreException.class)
+  @SneakyThrows
+  public void getReflogFromMostRecent_givenReflogTurnedUnreadableAfterBranchWasDerived_throwsException() {
+    // given
+    var gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+    var branch = gitCoreRepository.deriveAllLocalBranches().find(b -> b.getName().equals("develop")).get();
+    Path reflogPath = logsDirectoryPath.resolve("refs/heads/develop");
+    Files.delete(reflogPath);
+    Files.createDirectories(reflogPath.resolve("not-a-reflog"));
+
+    // when
+    branch.getReflogFromMostRecent();
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenEntriesAppendedByGit_parsesOnlyAppendedEntries() {
+    // given
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+    runGitCommand("checkout", "develop");
+    runGitCommand("commit", "--allow-empty", "-m", "Appended to the reflog");
+
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+
+    // then
+    assertEquals(gitReflog("%H", "refs/heads/develop"), entries.map(e -> e.getNewCommitHash().getHashString()));
+    assertEquals(initialEntries.size() + 1, entries.size());
+    assertEntriesSame(initialEntries, entries.tail());
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenUnchangedReflog_returnsSameEntries() {
+    // given
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+
+    // then
+    assertSame(initialEntries, entries);
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenIncompleteLastLine_parsesItOnceCompleted() {
+    // given
+    String secondLine = line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1600000001, "second");
+    writeReflog(line(/* oldId */ 0, /* newId */ 1, /* epochSeconds */ 1600000000, "first"),
+        secondLine.substring(0, 50));
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // when
+    appendToReflog(secondLine.substring(50));
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // then
+    assertEquals(List.of("first"), initialEntries.map(e -> e.getComment()));
+    assertEquals(List.of("second", "first"), entries.map(e -> e.getComment()));
+    assertEntriesSame(initialEntries, entries.tail());
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenRewrittenLongerReflog_parsesEntireReflogAgain() {
+    // given
+    writeReflog(line(/* oldId */ 0, /* newId */ 1, /* epochSeconds */ 1600000000, "first"),
+        line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1600000001, "second"));
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // when
+    writeReflog(line(/* oldId */ 0, /* newId */ 3, /* epochSeconds */ 1600000002, "third"),
+        line(/* oldId */ 3, /* newId */ 4, /* epochSeconds */ 1600000003, "fourth"),
+        line(/* oldId */ 4, /* newId */ 5, /* epochSeconds */ 1600000004, "fifth"));
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // then
+    assertEquals(List.of("second", "first"), initialEntries.map(e -> e.getComment()));
+    assertEquals(List.of("fifth", "fourth", "third"), entries.map(e -> e.getComment()));
+  }
+
+  @Test
+  @SneakyThrows
+  public void readEntriesFromMostRecent_givenRewrittenShorterReflog_parsesEntireReflogAgain() {
+    // given
+    reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+    runGitCommand("reflog", "expire", "--expire=all", "refs/heads/develop");
+
+    // when
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent("refs/heads/develop");
+
+    // then
+    assertTrue(entries.isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void iterateEntriesFromMostRecent_givenLargeReflog_yieldsSameEntriesAsRead() {
+    // given
+    writeLargeReflog(/* firstLineIndex */ 0);
+
+    // when
+    List<IGitCoreReflogEntry> iteratedEntries = reflogReader.iterateEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME).toList();
+    List<IGitCoreReflogEntry> entries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+
+    // then
+    assertEquals(LARGE_REFLOG_LINE_COUNT, entries.size());
+    assertEquals(entries.map(e -> e.getNewCommitHash()), iteratedEntries.map(e -> e.getNewCommitHash()));
+    assertEquals(entries.map(e -> e.getComment()), iteratedEntries.map(e -> e.getComment()));
+    assertEquals(entries.map(e -> e.getTimestamp()), iteratedEntries.map(e -> e.getTimestamp()));
+  }
+
+  @Test
+  @SneakyThrows
+  public void iterateEntriesFromMostRecent_givenEntriesAppendedAfterRead_parsesOnlyAppendedEntries() {
+    // given
+    writeLargeReflog(/* firstLineIndex */ 0);
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+    appendToReflog(line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1700000000, "appended"));
+
+    // when
+    List<IGitCoreReflogEntry> iteratedEntries = reflogReader.iterateEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME).toList();
+
+    // then
+    assertEquals("appended", iteratedEntries.head().getComment());
+    assertEntriesSame(initialEntries, iteratedEntries.tail());
+  }
+
+  @Test
+  @SneakyThrows
+  public void iterateEntriesFromMostRecent_givenReflogRewrittenAfterRead_doesNotYieldStaleEntries() {
+    // given
+    writeLargeReflog(/* firstLineIndex */ 0);
+    List<IGitCoreReflogEntry> initialEntries = reflogReader.readEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME);
+    writeLargeReflog(/* firstLineIndex */ LARGE_REFLOG_LINE_COUNT);
+    appendToReflog(line(/* oldId */ 1, /* newId */ 2, /* epochSeconds */ 1700000000, "appended"));
+
+    // when
+    List<IGitCoreReflogEntry> iteratedEntries = reflogReader.iterateEntriesFromMostRecent(SYNTHETIC_REF_FULL_NAME).toList();
+
+    // then
+    assertEquals(LARGE_REFLOG_LINE_COUNT + 1, iteratedEntries.size());
+    assertEquals("appended", iteratedEntries.head().getComment());
+    assertEquals("entry ${LARGE_REFLOG_LINE_COUNT}", iteratedEntries.last().getComment());
+    assertNotSame(initialEntries.last(), iteratedEntries.last());
+  }
+
+  private static void assertEntriesSame(List<IGitCoreReflogEntry> expected, List<IGitCoreReflogEntry> actual) {
+    assertEquals(expected.size(), actual.size());
+    expected.zip(actual).forEach(expectedAndActual -> assertSame(expectedAndActual._1, expectedAndActual._2));
+  }
+
+  private List<String> gitReflog(String format, String refFullName) {
+    String output = runGitCommand("log", "--walk-reflogs", "--date=unix", "--format=${format}", refFullName);
+    return output.isEmpty() ? List.empty() : List.of(output.split("\n"));
+  }
+
+  private static ObjectId objectId(int index) {
+    return ObjectId.fromString(String.format("%040x", index));
+  }
+
+  private static String line(int oldId, int newId, long epochSeconds, String comment) {
+    return "${objectId(oldId).getName()} ${objectId(newId).getName()} " +
+        "Test User <test@example.com> ${epochSeconds} +0000\t${comment}\n";
+  }
+
+  private void writeLargeReflog(int firstLineIndex) {
+    writeReflog(List.range(firstLineIndex, firstLineIndex + LARGE_REFLOG_LINE_COUNT)
+        .map(i -> line(/* oldId */ i, /* newId */ i + 1, /* epochSeconds */ 1600000000 + i, "entry ${i}"))
+        .toJavaArray(String[]::new));
+  }
+
+  @SneakyThrows
+  private void writeReflog(String... lines) {
+    Path path = logsDirectoryPath.resolve(SYNTHETIC_REF_FULL_NAME);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("", lines).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Puts a directory in place of the reflog file: it can be opened, but not read.
+   */
+  @SneakyThrows
+  private void makeReflogUnreadable() {
+    Files.createDirectories(logsDirectoryPath.resolve(SYNTHETIC_REF_FULL_NAME).resolve("not-a-reflog"));
+  }
+
+  @SneakyThrows
+  private void appendToReflog(String content) {
+    Files.write(logsDirectoryPath.resolve(SYNTHETIC_REF_FULL_NAME), content.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+  }
+}
@@ -0,0 +1,122 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.vavr.collection.List;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreRepository_deriveCommitRangeIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final int COMMIT_COUNT = 5;
+
+  private final GitCoreRepository gitCoreRepository;
+
+  @SneakyThrows
+  public GitCoreRepository_deriveCommitRangeIntegrationTestSuite() {
+    super(SETUP_FOR_NO_REMOTES);
+    runGitCommand("checkout", "-b", "long-branch", "develop");
+    for (int i = 0; i < COMMIT_COUNT; i++) {
+      runGitCommand("commit", "--allow-empty", "-m", "Commit ${i}");
+    }
+    gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+  }
+
+  @After
+  public void tearDown() {
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenNoLimit_returnsEntireRange() {
+    // when
+    List<IGitCoreCommit> commits = deriveCommitRange("long-branch", "develop");
+
+    // then
+    assertEquals(COMMIT_COUNT, commits.size());
+    // The commits have been created within (roughly) the same second, so their relative order is not well-defined.
+    assertEquals(List.of(runGitCommand("log", "--format=%H", "develop..long-branch").split("\n")).toSet(),
+        commits.map(commit -> commit.getHash().getHashString()).toSet());
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenLimitBelowRangeSize_returnsOnlyTheMostRecentCommits() {
+    // given
+    List<IGitCoreCommit> allCommits = deriveCommitRange("long-branch", "develop");
+
+    // when
+    List<IGitCoreCommit> commits = deriveCommitRange("long-branch", "develop", /* offset */ 0, /* limit */ 2);
+
+    // then
+    assertEquals(2, commits.size());
+    assertEquals(allCommits.take(2), commits);
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenLimitAboveRangeSize_returnsEntireRange() {
+    // given
+    List<IGitCoreCommit> allCommits = deriveCommitRange("long-branch", "develop");
+
+    // when
+    List<IGitCoreCommit> commits = deriveCommitRange("long-branch", "develop", /* offset */ 0, /* limit */ COMMIT_COUNT + 1);
+
+    // then
+    assertEquals(COMMIT_COUNT, commits.size());
+    assertEquals(allCommits, commits);
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenZeroLimit_returnsNoCommits() {
+    // when
+    List<IGitCoreCommit> commits = deriveCommitRange("long-branch", "develop", /* offset */ 0, /* limit */ 0);
+
+    // then
+    assertTrue(commits.isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenSubsequentPages_returnsConsecutiveSlicesOfRange() {
+    // given
+    List<IGitCoreCommit> allCommits = deriveCommitRange("long-branch", "develop");
+
+    // when
+    List<IGitCoreCommit> firstPage = deriveCommitRange("long-branch", "develop", /* offset */ 0, /* limit */ 2);
+    List<IGitCoreCommit> secondPage = deriveCommitRange("long-branch", "develop", /* offset */ 2, /* limit */ 2);
+
+    // then
+    assertEquals(allCommits.take(2), firstPage);
+    assertEquals(allCommits.drop(2).take(2), secondPage);
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveCommitRange_givenOffsetNotBelowRangeSize_returnsNoCommits() {
+    // when
+    List<IGitCoreCommit> commits = deriveCommitRange("long-branch", "develop", /* offset */ COMMIT_COUNT, /* limit */ 2);
+
+    // then
+    assertTrue(commits.isEmpty());
+  }
+
+  @SneakyThrows
+  private List<IGitCoreCommit> deriveCommitRange(String fromInclusive, String untilExclusive) {
+    return gitCoreRepository.deriveCommitRange(gitCoreRepository.parseRevision(fromInclusive).get(),
+        gitCoreRepository.parseRevision(untilExclusive).get());
+  }
+
+  @SneakyThrows
+  private List<IGitCoreCommit> deriveCommitRange(String fromInclusive, String untilExclusive, int offset, int limit) {
+    return gitCoreRepository.deriveCommitRange(gitCoreRepository.parseRevision(fromInclusive).get(),
+        gitCoreRepository.parseRevision(untilExclusive).get(), offset, limit);
+  }
+}
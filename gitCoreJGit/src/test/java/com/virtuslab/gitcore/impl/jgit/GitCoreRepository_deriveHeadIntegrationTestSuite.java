@@ -0,0 +1,88 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.IGitCoreLocalBranchSnapshot;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreRepository_deriveHeadIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private final GitCoreRepository gitCoreRepository;
+
+  @SneakyThrows
+  public GitCoreRepository_deriveHeadIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+  }
+
+  @After
+  public void tearDown() {
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveHead_givenBranchWithoutUpstream_matchesRemoteTrackingBranchByName() {
+    // when
+    IGitCoreLocalBranchSnapshot targetBranch = gitCoreRepository.deriveHead().getTargetBranch().get();
+
+    // then
+    assertEquals("hotfix/add-trigger", targetBranch.getName());
+    assertEquals(runGitCommand("rev-parse", "HEAD"), targetBranch.getPointedCommit().getHash().getHashString());
+    var remoteTrackingBranch = targetBranch.getRemoteTrackingBranch().get();
+    assertEquals("origin", remoteTrackingBranch.getRemoteName());
+    assertEquals("refs/remotes/origin/hotfix/add-trigger", remoteTrackingBranch.getFullName());
+    assertEquals(runGitCommand("rev-parse", "origin/hotfix/add-trigger"),
+        remoteTrackingBranch.getPointedCommit().getHash().getHashString());
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveHead_givenBranchWithUpstreamOfDifferentName_usesConfiguredRemoteTrackingBranch() {
+    // given
+    runGitCommand("checkout", "call-ws");
+    runGitCommand("branch", "--set-upstream-to=origin/develop");
+
+    // when
+    IGitCoreLocalBranchSnapshot targetBranch = gitCoreRepository.deriveHead().getTargetBranch().get();
+
+    // then
+    assertEquals("call-ws", targetBranch.getName());
+    assertEquals("refs/remotes/origin/develop", targetBranch.getRemoteTrackingBranch().get().getFullName());
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveHead_givenBranchWithoutRemoteCounterpart_hasNoRemoteTrackingBranch() {
+    // given
+    runGitCommand("checkout", "build-chain");
+
+    // when
+    IGitCoreLocalBranchSnapshot targetBranch = gitCoreRepository.deriveHead().getTargetBranch().get();
+
+    // then
+    assertEquals("build-chain", targetBranch.getName());
+    assertTrue(targetBranch.getRemoteTrackingBranch().isEmpty());
+  }
+
+  @Test
+  @SneakyThrows
+  public void deriveHead_givenAnyBranch_yieldsSameBranchAsDerivedAmongAllLocalBranches() {
+    for (var localBranch : gitCoreRepository.deriveAllLocalBranches()) {
+      // given
+      runGitCommand("checkout", localBranch.getName());
+
+      // when
+      IGitCoreLocalBranchSnapshot targetBranch = gitCoreRepository.deriveHead().getTargetBranch().get();
+
+      // then
+      assertEquals(localBranch, targetBranch);
+      assertEquals(localBranch.getRemoteTrackingBranch(), targetBranch.getRemoteTrackingBranch());
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.virtuslab.gitcore.impl.jgit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchBudget;
+import com.virtuslab.gitcore.api.GitCoreAncestorSearchResult;
+import com.virtuslab.gitcore.api.GitCoreGenerationFloor;
+import com.virtuslab.gitcore.api.IGitCoreCommit;
+import com.virtuslab.gitcore.api.IGitCoreCommitHash;
+import com.virtuslab.gitmachete.testcommon.BaseGitRepositoryBackedIntegrationTestSuite;
+
+public class GitCoreRepository_findFirstAncestorIntegrationTestSuite extends BaseGitRepositoryBackedIntegrationTestSuite {
+
+  private static final GitCoreAncestorSearchBudget UNLIMITED_BUDGET = GitCoreAncestorSearchBudget.of(Integer.MAX_VALUE,
+      Long.MAX_VALUE / 2);
+
+  private final GitCoreRepository gitCoreRepository;
+
+  @SneakyThrows
+  public GitCoreRepository_findFirstAncestorIntegrationTestSuite() {
+    super(SETUP_WITH_SINGLE_REMOTE);
+    // A merge, so that the history is not just a tree.
+    runGitCommand("checkout", "master");
+    runGitCommand("merge", "--no-edit", "build-chain", "call-ws");
+    gitCoreRepository = new GitCoreRepository(repositoryMainDir, repositoryGitDir);
+  }
+
+  @After
+  public void tearDown() {
+    cleanUpParentDir();
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestor_givenSoughtCommitsOnTheWay_findsTheClosestOne() {
+    // given
+    var callWs = parse("call-ws");
+    Set<IGitCoreCommitHash> soughtHashes = List.of(parse("develop"), parse("master~1")).map(c -> c.getHash()).toSet();
+
+    // when
+    var result = findFirstAncestor(callWs, soughtHashes, GitCoreGenerationFloor.NONE, UNLIMITED_BUDGET);
+
+    // then
+    assertEquals(GitCoreAncestorSearchResult.Outcome.Found, result.getOutcome());
+    assertEquals(parse("develop").getHash(), result.getFoundCommit().getHash());
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestor_givenSoughtCommitNotAnAncestor_returnsNotFound() {
+    // when
+    var result = findFirstAncestor(parse("develop"), List.of(parse("call-ws").getHash()).toSet(),
+        GitCoreGenerationFloor.NONE, UNLIMITED_BUDGET);
+
+    // then
+    assertEquals(GitCoreAncestorSearchResult.Outcome.NotFound, result.getOutcome());
+    assertNull(result.getFoundCommit());
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestor_givenBudgetTooSmall_returnsNotFoundWithinBudget() {
+    // given
+    var rootCommit = parse(runGitCommand("rev-list", "--max-parents=0", "master"));
+
+    // when
+    var result = findFirstAncestor(parse("master"), List.of(rootCommit.getHash()).toSet(), GitCoreGenerationFloor.NONE,
+        GitCoreAncestorSearchBudget.of(/* maxVisitedCommitCount */ 2, /* maxMillis */ Long.MAX_VALUE / 2));
+
+    // then
+    assertEquals(GitCoreAncestorSearchResult.Outcome.NotFoundWithinBudget, result.getOutcome());
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestor_givenGenerationFloor_yieldsSameResultsAsWithoutFloor() {
+    // given
+    runGitCommand("commit-graph", "write", "--reachable");
+    // A commit not covered by the commit-graph, so that the pruning needs to walk outside of the graph as well.
+    runGitCommand("commit", "--allow-empty", "-m", "Not in the commit-graph");
+    List<IGitCoreCommit> commits = List.of(runGitCommand("rev-list", "--all").split("\n")).map(this::parse);
+    List<IGitCoreCommit> branchTips = gitCoreRepository.deriveAllLocalBranches().map(b -> b.getPointedCommit());
+
+    for (IGitCoreCommit soughtCommit : commits) {
+      Set<IGitCoreCommitHash> soughtHashes = List.of(soughtCommit.getHash()).toSet();
+      GitCoreGenerationFloor floor = gitCoreRepository.deriveGenerationFloor(soughtHashes);
+      for (IGitCoreCommit branchTip : branchTips) {
+        // when
+        var resultWithFloor = findFirstAncestor(branchTip, soughtHashes, floor, UNLIMITED_BUDGET);
+        var resultWithoutFloor = findFirstAncestor(branchTip, soughtHashes, GitCoreGenerationFloor.NONE, UNLIMITED_BUDGET);
+
+        // then
+        String message = "${soughtCommit.getHash().getHashString()} from ${branchTip.getHash().getHashString()}";
+        assertEquals(message, resultWithoutFloor.getOutcome(), resultWithFloor.getOutcome());
+        assertEquals(message, hashOf(resultWithoutFloor), hashOf(resultWithFloor));
+      }
+      if (!soughtCommit.getHash().equals(parse("HEAD").getHash())) {
+        assertNotEquals(GitCoreGenerationFloor.NONE, floor);
+      }
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestors_givenAllBranchTips_yieldsSameResultsAsSeparateWalks() {
+    // given
+    runGitCommand("commit-graph", "write", "--reachable");
+    runGitCommand("commit", "--allow-empty", "-m", "Not in the commit-graph");
+    List<IGitCoreCommit> commits = List.of(runGitCommand("rev-list", "--all").split("\n")).map(this::parse);
+    List<IGitCoreCommit> branchTips = gitCoreRepository.deriveAllLocalBranches().map(b -> b.getPointedCommit());
+
+    for (IGitCoreCommit soughtCommit : commits) {
+      Set<IGitCoreCommitHash> soughtHashes = List.of(soughtCommit.getHash()).toSet();
+      for (GitCoreGenerationFloor floor : List.of(gitCoreRepository.deriveGenerationFloor(soughtHashes),
+          GitCoreGenerationFloor.NONE)) {
+        // when
+        var batchResults = gitCoreRepository.findFirstAncestors(branchTips, commit -> {
+          boolean isCommitSought = soughtHashes.contains(commit.getHash());
+          return branchIndex -> isCommitSought;
+        }, floor, UNLIMITED_BUDGET);
+
+        // then
+        assertEquals(branchTips.size(), batchResults.size());
+        for (var branchTipAndBatchResult : branchTips.zip(batchResults)) {
+          var singleResult = findFirstAncestor(branchTipAndBatchResult._1, soughtHashes, floor, UNLIMITED_BUDGET);
+          String message = "${soughtCommit.getHash().getHashString()} from " +
+              "${branchTipAndBatchResult._1.getHash().getHashString()}";
+          assertEquals(message, singleResult.getOutcome(), branchTipAndBatchResult._2.getOutcome());
+          assertEquals(message, hashOf(singleResult), hashOf(branchTipAndBatchResult._2));
+        }
+      }
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestors_givenSoughtCommitsDifferentPerBranch_yieldsSameResultsAsSeparateWalks() {
+    // given
+    List<IGitCoreCommit> commits = List.of(runGitCommand("rev-list", "--all").split("\n")).map(this::parse);
+    List<IGitCoreCommit> branchTips = gitCoreRepository.deriveAllLocalBranches().map(b -> b.getPointedCommit());
+    // Every other commit is sought for every other branch, and the remaining commits for the remaining branches.
+    List<Set<IGitCoreCommitHash>> soughtHashesByBranchIndex = branchTips.zipWithIndex()
+        .map(tipAndIndex -> commits.zipWithIndex()
+            .filter(commitAndIndex -> (commitAndIndex._2 + tipAndIndex._2) % 2 == 0)
+            .map(commitAndIndex -> commitAndIndex._1.getHash())
+            .toSet());
+
+    // when
+    var batchResults = gitCoreRepository.findFirstAncestors(branchTips,
+        commit -> branchIndex -> soughtHashesByBranchIndex.get(branchIndex).contains(commit.getHash()),
+        GitCoreGenerationFloor.NONE, UNLIMITED_BUDGET);
+
+    // then
+    for (int i = 0; i < branchTips.size(); i++) {
+      var singleResult = findFirstAncestor(branchTips.get(i), soughtHashesByBranchIndex.get(i), GitCoreGenerationFloor.NONE,
+          UNLIMITED_BUDGET);
+      String message = "from ${branchTips.get(i).getHash().getHashString()}";
+      assertEquals(message, singleResult.getOutcome(), batchResults.get(i).getOutcome());
+      assertEquals(message, hashOf(singleResult), hashOf(batchResults.get(i)));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void findFirstAncestors_givenBudgetTooSmallForOneSourceOnly_exhaustsBudgetOfThatSourceOnly() {
+    // given
+    var rootCommit = parse(runGitCommand("rev-list", "--max-parents=0", "master"));
+    Set<IGitCoreCommitHash> soughtHashes = List.of(rootCommit.getHash()).toSet();
+    int masterHistoryLength = runGitCommand("rev-list", "master").split("\n").length;
+
+    // when
+    var results = gitCoreRepository.findFirstAncestors(List.of(parse("master"), rootCommit), commit -> {
+      boolean isCommitSought = soughtHashes.contains(commit.getHash());
+      return sourceIndex -> isCommitSought;
+    }, GitCoreGenerationFloor.NONE,
+        GitCoreAncestorSearchBudget.of(/* maxVisitedCommitCount */ masterHistoryLength - 1, Long.MAX_VALUE / 2));
+
+    // then
+    assertEquals(GitCoreAncestorSearchResult.Outcome.NotFoundWithinBudget, results.get(0).getOutcome());
+    assertEquals(GitCoreAncestorSearchResult.Outcome.Found, results.get(1).getOutcome());
+    assertEquals(rootCommit.getHash(), results.get(1).getFoundCommit().getHash());
+  }
+
+  @SneakyThrows
+  private GitCoreAncestorSearchResult findFirstAncestor(
+      IGitCoreCommit commitInclusive,
+      Set<IGitCoreCommitHash> soughtHashes,
+      GitCoreGenerationFloor floor,
+      GitCoreAncestorSearchBudget budget) {
+    return gitCoreRepository.findFirstAncestor(commitInclusive, commit -> soughtHashes.contains(commit.getHash()), floor,
+        budget);
+  }
+
+  private static String hashOf(GitCoreAncestorSearchResult result) {
+    var foundCommit = result.getFoundCommit();
+    return foundCommit != null ? foundCommit.getHash().getHashString() : "<none>";
+  }
+
+  @SneakyThrows
+  private IGitCoreCommit parse(String revision) {
+    return gitCoreRepository.parseRevision(revision).get();
+  }
+}
@@ -116,6 +116,11 @@ public class EnhancedLambdaLogger implements IEnhancedLambdaLogger {
     logger.warn(() -> getLogMessagePrefix() + format);
   }
 
+  @Override
+  public void warn(String format, Throwable t) {
+    logger.warn(() -> getLogMessagePrefix() + format + System.lineSeparator() + getStackTraceAsString(t));
+  }
+
   @Override
   public void error(String format) {
     logger.error(() -> getLogMessagePrefix() + format);
@@ -13,6 +13,7 @@ public interface IEnhancedLambdaLogger {
   void info(String format);
   void info(Supplier<String> msgSupplier);
   void warn(String format);
+  void warn(String format, Throwable t);
   void error(String format);
   void error(String format, Throwable t);
 }
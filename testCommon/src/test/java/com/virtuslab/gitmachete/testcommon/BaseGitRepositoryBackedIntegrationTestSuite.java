@@ -5,6 +5,8 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.concurrent.TimeUnit;
 
@@ -59,6 +61,34 @@ public abstract class BaseGitRepositoryBackedIntegrationTestSuite {
     Assert.assertEquals(0, process.exitValue());
   }
 
+  /**
+   * Runs the given git command in {@link #repositoryMainDir} (e.g. to modify the repository after the setup)
+   * and asserts that it has succeeded.
+   *
+   * @return the standard output of the command, with the trailing newline removed
+   */
+  @SneakyThrows
+  protected String runGitCommand(String... args) {
+    var command = new ArrayList<String>();
+    command.add("git");
+    command.addAll(Arrays.asList(args));
+    var process = new ProcessBuilder()
+        .command(command)
+        .directory(repositoryMainDir.toFile())
+        .start();
+    var completed = process.waitFor(5, TimeUnit.SECONDS);
+    String output = new String(process.getInputStream().readAllBytes());
+
+    if (!completed || process.exitValue() != 0) {
+      System.out.println(output);
+      System.err.println(new String(process.getErrorStream().readAllBytes()));
+    }
+
+    Assert.assertTrue(completed);
+    Assert.assertEquals(0, process.exitValue());
+    return output.stripTrailing();
+  }
+
   /**
    * Be careful with this method since it might lead to race conditions when the test is finished but another process
    * (e.g. an IDE in case of UI tests) is still working and modifying the contents of {@link #parentDir}.